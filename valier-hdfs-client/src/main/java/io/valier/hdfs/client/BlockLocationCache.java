@@ -0,0 +1,214 @@
+package io.valier.hdfs.client;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Bounded cache of file block locations used by {@link DefaultHdfsClient} to avoid asking the
+ * NameNode for the locations of the same file again and again.
+ *
+ * <p>Entries are keyed by path and remember the file ID they were looked up for. The least recently
+ * used entry is evicted once maxEntries are cached, and entries older than ttlMs are never
+ * returned. The client invalidates an entry when a read using its locations fails, since a replica
+ * may have moved or the generation stamp changed, and invalidates the paths it writes or deletes
+ * itself. Changes made by other clients are only seen once an entry expires, so the TTL bounds how
+ * stale the locations of a replaced file can be.
+ *
+ * <p>Example usage:
+ *
+ * <pre>
+ * BlockLocationCache cache = BlockLocationCache.builder()
+ *     .maxEntries(50_000)
+ *     .ttlMs(30_000)
+ *     .build();
+ *
+ * HdfsClient hdfsClient = DefaultHdfsClient.builder()
+ *     .nameNodeClient(nameNodeClient)
+ *     .blockLocationCache(cache)
+ *     .build();
+ *
+ * log.info("Block location cache hit rate: {}", cache.getStats().getHitRate());
+ * </pre>
+ *
+ * <p>This class is thread-safe.
+ */
+public class BlockLocationCache {
+
+  /** Default maximum number of cached files. */
+  private static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+  /** Default time in milliseconds an entry stays valid. */
+  private static final long DEFAULT_TTL_MS = 60_000L;
+
+  private final int maxEntries;
+  private final long ttlNanos;
+  private final Map<String, Entry> entries;
+
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+  private final AtomicLong evictionCount = new AtomicLong();
+  private final AtomicLong expirationCount = new AtomicLong();
+  private final AtomicLong invalidationCount = new AtomicLong();
+
+  /**
+   * Creates an empty cache.
+   *
+   * @param maxEntries maximum number of cached files, 0 for the default of 10000
+   * @param ttlMs time in milliseconds an entry stays valid, 0 for the default of 60000
+   */
+  @Builder
+  public BlockLocationCache(int maxEntries, long ttlMs) {
+    this.maxEntries = maxEntries == 0 ? DEFAULT_MAX_ENTRIES : maxEntries;
+    this.ttlNanos = (ttlMs == 0 ? DEFAULT_TTL_MS : ttlMs) * 1_000_000L;
+
+    // Access order makes the eldest entry the least recently used one
+    this.entries =
+        new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            if (size() > BlockLocationCache.this.maxEntries) {
+              evictionCount.incrementAndGet();
+              return true;
+            }
+            return false;
+          }
+        };
+  }
+
+  /** Returns the cached locations of a path, or null if none are cached or they expired. */
+  synchronized FileLocations get(String path) {
+    Entry entry = entries.get(path);
+    if (entry == null) {
+      missCount.incrementAndGet();
+      return null;
+    }
+    if (System.nanoTime() - entry.cachedNanos >= ttlNanos) {
+      entries.remove(path);
+      expirationCount.incrementAndGet();
+      missCount.incrementAndGet();
+      return null;
+    }
+    hitCount.incrementAndGet();
+    return entry.locations;
+  }
+
+  /** Caches the locations of a file. */
+  synchronized void put(String path, FileLocations locations) {
+    entries.put(path, new Entry(locations, System.nanoTime()));
+  }
+
+  /**
+   * Invalidates a path's entry if it still holds the locations of the given file, leaving an entry
+   * for a file that has since replaced it alone.
+   */
+  synchronized void invalidate(String path, long fileId) {
+    Entry entry = entries.get(path);
+    if (entry != null && entry.locations.getFileSummary().getFileId() == fileId) {
+      entries.remove(path);
+      invalidationCount.incrementAndGet();
+    }
+  }
+
+  /**
+   * Invalidates the entry of a path, for example after the file was changed by another client.
+   *
+   * @param path the file's absolute path
+   */
+  public synchronized void invalidate(String path) {
+    if (entries.remove(path) != null) {
+      invalidationCount.incrementAndGet();
+    }
+  }
+
+  /**
+   * Invalidates the entries of a path and every path below it, as needed after deleting a
+   * directory.
+   *
+   * @param path the absolute path of a file or directory
+   */
+  public synchronized void invalidateTree(String path) {
+    String prefix = path.endsWith("/") ? path : path + "/";
+    Iterator<String> paths = entries.keySet().iterator();
+    while (paths.hasNext()) {
+      String cachedPath = paths.next();
+      if (cachedPath.equals(path) || cachedPath.startsWith(prefix)) {
+        paths.remove();
+        invalidationCount.incrementAndGet();
+      }
+    }
+  }
+
+  /** Removes every entry. */
+  public synchronized void invalidateAll() {
+    invalidationCount.addAndGet(entries.size());
+    entries.clear();
+  }
+
+  /**
+   * Returns the number of cached files, including expired entries not yet removed.
+   *
+   * @return the number of entries
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * Returns a snapshot of the cache's counters.
+   *
+   * @return the counters since the cache was created
+   */
+  public Stats getStats() {
+    return new Stats(
+        hitCount.get(),
+        missCount.get(),
+        evictionCount.get(),
+        expirationCount.get(),
+        invalidationCount.get());
+  }
+
+  /** Counters of a BlockLocationCache. */
+  @Value
+  public static class Stats {
+
+    /** Number of lookups answered from the cache. */
+    long hitCount;
+
+    /** Number of lookups that had to ask the NameNode, including expired entries. */
+    long missCount;
+
+    /** Number of entries evicted to stay within maxEntries. */
+    long evictionCount;
+
+    /** Number of entries dropped because they were older than the TTL. */
+    long expirationCount;
+
+    /** Number of entries invalidated after failed reads, writes, deletes or explicit calls. */
+    long invalidationCount;
+
+    /**
+     * Returns the fraction of lookups answered from the cache.
+     *
+     * @return the hit rate between 0 and 1, or 0 if there were no lookups
+     */
+    public double getHitRate() {
+      long lookups = hitCount + missCount;
+      return lookups == 0 ? 0 : (double) hitCount / lookups;
+    }
+  }
+
+  private static final class Entry {
+
+    private final FileLocations locations;
+    private final long cachedNanos;
+
+    Entry(FileLocations locations, long cachedNanos) {
+      this.locations = locations;
+      this.cachedNanos = cachedNanos;
+    }
+  }
+}
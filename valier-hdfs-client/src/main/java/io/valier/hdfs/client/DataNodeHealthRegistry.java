@@ -0,0 +1,440 @@
+package io.valier.hdfs.client;
+
+import io.valier.hdfs.dn.DataNodeClient;
+import io.valier.hdfs.dn.LocatedBlock;
+import io.valier.hdfs.dn.LocatedFile;
+import io.valier.hdfs.dn.ex.DataNodeHdfsException;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Tracks the health of DataNodes so that reads and writes try healthy, fast replicas first.
+ *
+ * <p>For every host the registry keeps an exponentially weighted moving average of the time a read
+ * takes to return its first byte, and the number of consecutive failures. A host that fails is
+ * blacklisted for baseBackoffMs, doubling with every further consecutive failure up to
+ * maxBackoffMs; a successful request clears its failures. Only DataNode failures count: errors
+ * writing to the caller's stream or reading from the caller's input do not.
+ *
+ * <p>When ranking the replicas of a block, hosts that are not blacklisted come first, ordered by
+ * their latency average. Hosts without measurements rank as fastest, so that they get measured, and
+ * ties keep the NameNode's order, which already prefers nearby replicas. Blacklisted hosts are
+ * never dropped, only moved to the end in the order their blacklisting expires, so a read still
+ * succeeds if every replica was recently failing.
+ *
+ * <p>A registry can be shared between clients to pool what they learn about the cluster:
+ *
+ * <pre>
+ * DataNodeHealthRegistry registry = DataNodeHealthRegistry.builder()
+ *     .baseBackoffMs(2_000)
+ *     .maxBackoffMs(120_000)
+ *     .build();
+ *
+ * HdfsClient hdfsClient = DefaultHdfsClient.builder()
+ *     .nameNodeClient(nameNodeClient)
+ *     .dataNodeHealthRegistry(registry)
+ *     .build();
+ * </pre>
+ *
+ * <p>This class is thread-safe.
+ */
+@Slf4j
+public class DataNodeHealthRegistry {
+
+  /** Default time in milliseconds a host is blacklisted after its first failure. */
+  private static final long DEFAULT_BASE_BACKOFF_MS = 1_000L;
+
+  /** Default upper bound in milliseconds of a host's blacklisting. */
+  private static final long DEFAULT_MAX_BACKOFF_MS = 60_000L;
+
+  /** Weight of the newest sample in the latency average. */
+  private static final double LATENCY_WEIGHT = 0.2;
+
+  private final long baseBackoffNanos;
+  private final long maxBackoffNanos;
+  private final Map<String, HostHealth> hosts = new ConcurrentHashMap<>();
+
+  /**
+   * Creates an empty registry.
+   *
+   * @param baseBackoffMs time in milliseconds a host is blacklisted after its first consecutive
+   *     failure, 0 for the default of 1000
+   * @param maxBackoffMs upper bound in milliseconds of a host's blacklisting, 0 for the default of
+   *     60000
+   */
+  @Builder
+  public DataNodeHealthRegistry(long baseBackoffMs, long maxBackoffMs) {
+    long base = baseBackoffMs == 0 ? DEFAULT_BASE_BACKOFF_MS : baseBackoffMs;
+    long max = maxBackoffMs == 0 ? DEFAULT_MAX_BACKOFF_MS : maxBackoffMs;
+    if (base < 0 || max < base) {
+      throw new IllegalArgumentException(
+          "Invalid backoff: base " + base + " ms, max " + max + " ms");
+    }
+    this.baseBackoffNanos = TimeUnit.MILLISECONDS.toNanos(base);
+    this.maxBackoffNanos = TimeUnit.MILLISECONDS.toNanos(max);
+  }
+
+  /**
+   * Records a successful request to a host, clearing its failures.
+   *
+   * @param host the DataNode host
+   */
+  public void recordSuccess(String host) {
+    health(host).succeeded();
+  }
+
+  /**
+   * Records a successful read from a host along with its latency, clearing the host's failures.
+   *
+   * @param host the DataNode host
+   * @param latencyNanos the time the read took to return its first byte, in nanoseconds
+   */
+  public void recordSuccess(String host, long latencyNanos) {
+    HostHealth health = health(host);
+    health.succeeded();
+    health.sampleLatency(latencyNanos);
+  }
+
+  /**
+   * Records a failed request to a host and blacklists it with exponential backoff.
+   *
+   * @param host the DataNode host
+   */
+  public void recordFailure(String host) {
+    long backoffNanos = health(host).failed(System.nanoTime());
+    log.debug(
+        "Blacklisted DataNode {} for {} ms", host, TimeUnit.NANOSECONDS.toMillis(backoffNanos));
+  }
+
+  /**
+   * Returns whether a host is currently blacklisted.
+   *
+   * @param host the DataNode host
+   * @return true if the host failed recently and its backoff has not expired
+   */
+  public boolean isBlacklisted(String host) {
+    HostHealth health = hosts.get(host);
+    return health != null && health.isBlacklisted(System.nanoTime());
+  }
+
+  /**
+   * Orders hosts so that healthy, fast ones come first.
+   *
+   * @param candidates the hosts of a block, in the NameNode's order
+   * @return a new list with the same hosts, best first
+   */
+  public List<String> rankHosts(List<String> candidates) {
+    if (candidates.size() < 2) {
+      return candidates;
+    }
+
+    // Snapshot each host's state so the comparator sees consistent values
+    long now = System.nanoTime();
+    List<RankedHost> ranked = new ArrayList<>(candidates.size());
+    for (String host : candidates) {
+      HostHealth health = hosts.get(host);
+      ranked.add(health == null ? new RankedHost(host, false, 0) : health.rank(host, now));
+    }
+
+    // List.sort is stable, so equally ranked hosts keep the NameNode's order
+    ranked.sort(
+        Comparator.comparing((RankedHost host) -> host.blacklisted)
+            .thenComparingDouble(host -> host.key));
+
+    List<String> result = new ArrayList<>(ranked.size());
+    for (RankedHost host : ranked) {
+      result.add(host.host);
+    }
+    return result;
+  }
+
+  /**
+   * Returns the health of every host seen so far.
+   *
+   * @return a snapshot per host
+   */
+  public List<HostStats> getHostStats() {
+    long now = System.nanoTime();
+    List<HostStats> stats = new ArrayList<>(hosts.size());
+    hosts.forEach((host, health) -> stats.add(health.stats(host, now)));
+    return stats;
+  }
+
+  /**
+   * Orders the ranked hosts of a block for one of several concurrent reads. The leading hosts that
+   * are not blacklisted are rotated by the read's index, so that concurrent reads spread over the
+   * healthy replicas, while blacklisted hosts stay last in rank order and are only tried once every
+   * healthy host has failed.
+   *
+   * @param registry the registry the hosts were ranked by, or null if they are unranked
+   * @param rankedHosts the block's hosts, best first
+   * @param index the index of the read among the concurrent reads
+   * @return a new list with the same hosts, in the order to try them
+   */
+  static List<String> spreadHosts(
+      DataNodeHealthRegistry registry, List<String> rankedHosts, int index) {
+    int healthy = 0;
+    while (healthy < rankedHosts.size()
+        && (registry == null || !registry.isBlacklisted(rankedHosts.get(healthy)))) {
+      healthy++;
+    }
+
+    List<String> result = new ArrayList<>(rankedHosts.size());
+    for (int i = 0; i < healthy; i++) {
+      result.add(rankedHosts.get((index + i) % healthy));
+    }
+    result.addAll(rankedHosts.subList(healthy, rankedHosts.size()));
+    return result;
+  }
+
+  /** Returns a copy of a located file whose block hosts are ranked best first. */
+  LocatedFile rank(LocatedFile locatedFile) {
+    List<LocatedBlock> blocks = new ArrayList<>(locatedFile.getLocatedBlocks().size());
+    for (LocatedBlock block : locatedFile.getLocatedBlocks()) {
+      blocks.add(rank(block));
+    }
+    return LocatedFile.builder()
+        .fileName(locatedFile.getFileName())
+        .blockPoolId(locatedFile.getBlockPoolId())
+        .locatedBlocks(blocks)
+        .build();
+  }
+
+  /** Returns a copy of a located block whose hosts are ranked best first. */
+  LocatedBlock rank(LocatedBlock block) {
+    return LocatedBlock.builder()
+        .blockId(block.getBlockId())
+        .generationStamp(block.getGenerationStamp())
+        .poolId(block.getPoolId())
+        .hosts(rankHosts(block.getHosts()))
+        .offset(block.getOffset())
+        .length(block.getLength())
+        .build();
+  }
+
+  /** Wraps a provider so that every request its clients make is recorded in this registry. */
+  DataNodeClientProvider track(DataNodeClientProvider provider) {
+    return hostname -> {
+      try {
+        return new TrackingDataNodeClient(hostname, provider.getClient(hostname));
+      } catch (DataNodeHdfsException e) {
+        recordFailure(hostname);
+        throw e;
+      }
+    };
+  }
+
+  private HostHealth health(String host) {
+    return hosts.computeIfAbsent(host, h -> new HostHealth());
+  }
+
+  /** Health of a DataNode as seen by this client. */
+  @Value
+  public static class HostStats {
+
+    /** The DataNode host. */
+    String host;
+
+    /** Moving average of the time to first byte of reads in milliseconds, or -1 if unmeasured. */
+    double latencyMs;
+
+    /** Number of failures since the last successful request. */
+    int consecutiveFailures;
+
+    /** Number of failures since the host was first seen. */
+    long totalFailures;
+
+    /** Whether the host is currently blacklisted. */
+    boolean blacklisted;
+  }
+
+  private static final class RankedHost {
+
+    private final String host;
+    private final boolean blacklisted;
+    private final double key;
+
+    RankedHost(String host, boolean blacklisted, double key) {
+      this.host = host;
+      this.blacklisted = blacklisted;
+      this.key = key;
+    }
+  }
+
+  private final class HostHealth {
+
+    /** Latency average in nanoseconds, or a negative value until the first sample. */
+    private double latencyNanos = -1;
+
+    private int consecutiveFailures;
+    private long totalFailures;
+    private long blacklistedUntilNanos;
+
+    synchronized void succeeded() {
+      consecutiveFailures = 0;
+    }
+
+    synchronized void sampleLatency(long sampleNanos) {
+      latencyNanos =
+          latencyNanos < 0
+              ? sampleNanos
+              : latencyNanos + LATENCY_WEIGHT * (sampleNanos - latencyNanos);
+    }
+
+    /** Records a failure and returns the backoff applied. */
+    synchronized long failed(long now) {
+      consecutiveFailures++;
+      totalFailures++;
+      int doublings = Math.min(consecutiveFailures - 1, 30);
+      long backoffNanos = Math.min(baseBackoffNanos << doublings, maxBackoffNanos);
+      blacklistedUntilNanos = now + backoffNanos;
+      return backoffNanos;
+    }
+
+    synchronized boolean isBlacklisted(long now) {
+      return consecutiveFailures > 0 && now - blacklistedUntilNanos < 0;
+    }
+
+    synchronized RankedHost rank(String host, long now) {
+      if (isBlacklisted(now)) {
+        return new RankedHost(host, true, blacklistedUntilNanos - now);
+      }
+      return new RankedHost(host, false, Math.max(latencyNanos, 0));
+    }
+
+    synchronized HostStats stats(String host, long now) {
+      double latencyMs = latencyNanos < 0 ? -1 : latencyNanos / 1_000_000.0;
+      return new HostStats(
+          host, latencyMs, consecutiveFailures, totalFailures, isBlacklisted(now));
+    }
+  }
+
+  /** Records the outcome of each request made through a DataNode client. */
+  private final class TrackingDataNodeClient implements DataNodeClient {
+
+    private final String host;
+    private final DataNodeClient delegate;
+
+    TrackingDataNodeClient(String host, DataNodeClient delegate) {
+      this.host = host;
+      this.delegate = delegate;
+    }
+
+    @Override
+    public void copy(LocatedBlock block, OutputStream out) throws IOException {
+      FirstByteOutputStream timed = new FirstByteOutputStream(out);
+      try {
+        delegate.copy(block, timed);
+      } catch (DataNodeHdfsException e) {
+        recordFailure(host);
+        throw e;
+      }
+      recordSuccess(host, timed.latencyNanos());
+    }
+
+    @Override
+    public void read(LocatedBlock block, long offsetInBlock, long length, OutputStream out)
+        throws IOException {
+      FirstByteOutputStream timed = new FirstByteOutputStream(out);
+      try {
+        delegate.read(block, offsetInBlock, length, timed);
+      } catch (DataNodeHdfsException e) {
+        recordFailure(host);
+        throw e;
+      }
+      recordSuccess(host, timed.latencyNanos());
+    }
+
+    @Override
+    public void read(
+        LocatedBlock block, long offsetInBlock, long length, FileChannel target, long position)
+        throws IOException {
+      try {
+        delegate.read(block, offsetInBlock, length, target, position);
+      } catch (DataNodeHdfsException e) {
+        recordFailure(host);
+        throw e;
+      }
+      // The first byte goes straight to the file unobserved, so no latency is recorded
+      recordSuccess(host);
+    }
+
+    @Override
+    public long copy(LocatedBlock block, InputStream in) throws IOException {
+      long written;
+      try {
+        written = delegate.copy(block, in);
+      } catch (DataNodeHdfsException e) {
+        recordFailure(host);
+        throw e;
+      }
+      recordSuccess(host);
+      return written;
+    }
+
+    @Override
+    public long copy(LocatedBlock block, FileChannel source, long position, long length)
+        throws IOException {
+      long written;
+      try {
+        written = delegate.copy(block, source, position, length);
+      } catch (DataNodeHdfsException e) {
+        recordFailure(host);
+        throw e;
+      }
+      recordSuccess(host);
+      return written;
+    }
+
+    @Override
+    public void close() throws Exception {
+      delegate.close();
+    }
+  }
+
+  /** Notes when the first byte of a read arrives. */
+  private static final class FirstByteOutputStream extends FilterOutputStream {
+
+    private final long startNanos = System.nanoTime();
+    private long firstByteNanos;
+
+    FirstByteOutputStream(OutputStream out) {
+      super(out);
+    }
+
+    /** Time from the start of the read to its first byte, or to now if nothing was read. */
+    long latencyNanos() {
+      return (firstByteNanos == 0 ? System.nanoTime() : firstByteNanos) - startNanos;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      markFirstByte();
+      out.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      markFirstByte();
+      out.write(b, off, len);
+    }
+
+    private void markFirstByte() {
+      if (firstByteNanos == 0) {
+        firstByteNanos = System.nanoTime();
+      }
+    }
+  }
+}
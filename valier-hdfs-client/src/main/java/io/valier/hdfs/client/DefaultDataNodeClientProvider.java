@@ -1,5 +1,6 @@
 package io.valier.hdfs.client;
 
+import io.valier.hdfs.dn.ChecksumType;
 import io.valier.hdfs.dn.DataNodeClient;
 import io.valier.hdfs.dn.DefaultDataNodeClient;
 import lombok.Builder;
@@ -27,6 +28,25 @@ public class DefaultDataNodeClientProvider implements DataNodeClientProvider {
   /** Socket read timeout in milliseconds for DataNode connections. */
   @Builder.Default int readTimeoutMs = 30000;
 
+  /**
+   * Maximum number of packets sent but not yet acknowledged while writing a block. A larger window
+   * keeps more data in flight on high-latency links.
+   */
+  @Builder.Default int maxPacketsInFlight = 80;
+
+  /**
+   * Checksum algorithm protecting the data of written blocks. CRC32C is the HDFS default and is
+   * computed in hardware on most CPUs; CRC32 matches blocks written by old clients.
+   */
+  @Builder.Default ChecksumType checksumType = ChecksumType.CRC32C;
+
+  /**
+   * Number of data bytes covered by each checksum of written blocks ({@code dfs.bytes-per-checksum}
+   * on the cluster). Larger chunks mean fewer checksums to compute and send, but coarser
+   * verification of partial reads.
+   */
+  @Builder.Default int bytesPerChecksum = 512;
+
   /**
    * Creates a new DataNodeClient configured for the specified hostname.
    *
@@ -49,6 +69,9 @@ public class DefaultDataNodeClientProvider implements DataNodeClientProvider {
         .port(port)
         .connectionTimeoutMs(connectionTimeoutMs)
         .readTimeoutMs(readTimeoutMs)
+        .maxPacketsInFlight(maxPacketsInFlight)
+        .checksumType(checksumType)
+        .bytesPerChecksum(bytesPerChecksum)
         .build();
   }
 }
@@ -1,16 +1,25 @@
 package io.valier.hdfs.client;
 
 import io.valier.hdfs.client.ex.HdfsClientException;
+import io.valier.hdfs.client.ex.HdfsFileAlreadyExistsException;
 import io.valier.hdfs.client.ex.HdfsFileNotFoundException;
 import io.valier.hdfs.crt.HdfsPaths;
 import io.valier.hdfs.dn.DataNodeClient;
 import io.valier.hdfs.dn.LocatedBlock;
 import io.valier.hdfs.dn.LocatedFile;
 import io.valier.hdfs.nn.HdfsFileSummary;
+import io.valier.hdfs.nn.ListOptions;
 import io.valier.hdfs.nn.NameNodeClient;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.charset.Charset;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Stream;
 import lombok.Builder;
 import lombok.Value;
@@ -31,7 +40,12 @@ public class DefaultHdfsClient implements HdfsClient {
   /** NameNode client for metadata operations. */
   NameNodeClient nameNodeClient;
 
-  /** DataNode client provider for creating DataNode connections. */
+  /**
+   * DataNode client provider for creating DataNode connections. The provider also decides the
+   * checksum algorithm and chunk size of written blocks, for example {@code
+   * DefaultDataNodeClientProvider.builder().checksumType(ChecksumType.CRC32).build()} to match
+   * blocks written by old clients.
+   */
   @Builder.Default
   DataNodeClientProvider dataNodeClientProvider = DefaultDataNodeClientProvider.builder().build();
 
@@ -62,6 +76,66 @@ public class DefaultHdfsClient implements HdfsClient {
    */
   @Builder.Default long blockSize = 134217728L; // 128MB
 
+  /**
+   * Optional cache of file block locations. When set, reads of a file whose locations are cached
+   * skip the NameNode lookup, and readAttributes returns cached file attributes. Entries are
+   * invalidated when a read using them fails and when this client writes or deletes their path.
+   *
+   * <p>Default: null (no caching)
+   */
+  BlockLocationCache blockLocationCache;
+
+  /**
+   * Delay in milliseconds after which a sequential read that is still waiting on one replica also
+   * requests the same data from the next replica, using whichever answers first. This bounds the
+   * stall caused by a slow DataNode at roughly the threshold instead of the read timeout, at the
+   * cost of duplicate reads against slow replicas. Only {@link #copy(String, OutputStream)} hedges
+   * its reads.
+   *
+   * <p>Default: 0 (no hedging; replicas are tried one after another)
+   */
+  @Builder.Default long hedgedReadThresholdMs = 0;
+
+  /**
+   * Maximum number of replica requests of hedged reads running at once, across all reads of this
+   * client, like Hadoop's dfs.client.hedged.read.threadpool.size. Further requests wait for a
+   * running one to finish. Only used when hedgedReadThresholdMs is set.
+   *
+   * <p>Default: 16
+   */
+  @Builder.Default int hedgedReadThreadPoolSize = 16;
+
+  /**
+   * Registry tracking the failures and latency of DataNodes. Every read and write records its
+   * outcome here, failing hosts are blacklisted for a while, and block replicas are tried in the
+   * order the registry ranks them. Share one registry between clients to pool what they learn, or
+   * set null to try replicas in the NameNode's order.
+   *
+   * <p>Default: a registry private to this client
+   */
+  @Builder.Default
+  DataNodeHealthRegistry dataNodeHealthRegistry = DataNodeHealthRegistry.builder().build();
+
+  /**
+   * Executor running the replica requests of hedged reads, shared by all reads of this client.
+   * Created during build() with hedgedReadThreadPoolSize threads when hedgedReadThresholdMs is set.
+   */
+  ExecutorService hedgedReadExecutor;
+
+  /**
+   * Maximum number of DataNode reads of {@link #readVectored} running at once, across all vectored
+   * reads of this client. Each call still runs at most the parallelism of its options at once.
+   *
+   * <p>Default: 16
+   */
+  @Builder.Default int vectoredReadThreadPoolSize = 16;
+
+  /**
+   * Executor running the DataNode reads of vectored reads, shared by all vectored reads of this
+   * client. Created during build() with vectoredReadThreadPoolSize threads.
+   */
+  ExecutorService vectoredReadExecutor;
+
   /**
    * Validates that the NameNodeClient is configured and throws an exception if it's null.
    *
@@ -74,15 +148,21 @@ public class DefaultHdfsClient implements HdfsClient {
   }
 
   @Override
-  public Stream<HdfsFileSummary> list(String hdfsPath) {
+  public Stream<HdfsFileSummary> list(String hdfsPath, ListOptions options) {
     requireNameNodeClient();
     try {
-      return nameNodeClient.list(hdfsPath);
+      return nameNodeClient.list(hdfsPath, options);
     } catch (Exception e) {
       throw new HdfsClientException("Failed to list HDFS path: " + hdfsPath, e);
     }
   }
 
+  @Override
+  public Stream<HdfsFileSummary> walk(String hdfsPath, int maxDepth, WalkOptions options) {
+    requireNameNodeClient();
+    return HdfsTreeWalker.walk(this, hdfsPath, maxDepth, options);
+  }
+
   @Override
   public HdfsFileSummary createDirectory(String hdfsPath) {
     requireNameNodeClient();
@@ -106,9 +186,21 @@ public class DefaultHdfsClient implements HdfsClient {
   @Override
   public HdfsFileSummary readAttributes(String hdfsPath) {
     requireNameNodeClient();
+    if (blockLocationCache != null) {
+      FileLocations cached = blockLocationCache.get(hdfsPath);
+      if (cached != null) {
+        return cached.getFileSummary();
+      }
+    }
+
     Optional<HdfsFileSummary> result = Optional.empty();
     try {
       result = nameNodeClient.readAttributesOptional(hdfsPath);
+      if (blockLocationCache != null && result.isPresent() && !result.get().isDirectory()) {
+        HdfsFileSummary fileSummary = result.get();
+        blockLocationCache.put(
+            hdfsPath, new FileLocations(fileSummary, convertToLocatedFile(fileSummary)));
+      }
     } catch (Exception e) {
       throw new HdfsClientException("Failed to read attributes for: " + hdfsPath, e);
     }
@@ -194,12 +286,15 @@ public class DefaultHdfsClient implements HdfsClient {
       nameNodeClient.delete(hdfsPath);
     } catch (Exception e) {
       throw new HdfsClientException("Failed to delete: " + hdfsPath, e);
+    } finally {
+      invalidateTree(hdfsPath);
     }
   }
 
   @Override
   public boolean deleteIfExists(String hdfsPath) {
     requireNameNodeClient();
+    invalidateTree(hdfsPath);
 
     try {
       nameNodeClient.delete(hdfsPath);
@@ -225,75 +320,334 @@ public class DefaultHdfsClient implements HdfsClient {
 
   @Override
   public void copy(String hdfsPath, OutputStream outputStream) throws IOException {
-    requireNameNodeClient();
+    if (outputStream == null) {
+      throw new IllegalArgumentException("outputStream cannot be null");
+    }
 
-    // Validate that the path is absolute
-    HdfsPaths.requireAbsolute(hdfsPath);
+    // Use DataNode client to copy the file to the output stream
+    // We need to read each block from its respective DataNode
+    if (hedgedReadThresholdMs > 0) {
+      copyFromHdfs(hdfsPath, locatedFile -> copyLocatedFileHedged(locatedFile, outputStream));
+      return;
+    }
+    copyFromHdfs(hdfsPath, locatedFile -> copyLocatedFileToOutputStream(locatedFile, outputStream));
+  }
 
+  @Override
+  public void copy(String hdfsPath, OutputStream outputStream, ParallelDownloadOptions options)
+      throws IOException {
     if (outputStream == null) {
       throw new IllegalArgumentException("outputStream cannot be null");
     }
 
-    try {
-      // Get the file attributes and validate it exists and is not a directory
-      Optional<HdfsFileSummary> fileSummaryOpt = nameNodeClient.readAttributesOptional(hdfsPath);
-      HdfsFileSummary fileSummary =
-          fileSummaryOpt.orElseThrow(
-              () -> new HdfsFileNotFoundException("File not found: " + hdfsPath));
+    ParallelBlockDownloader downloader =
+        new ParallelBlockDownloader(dataNodeClients(), options, dataNodeHealthRegistry);
+    copyFromHdfs(hdfsPath, locatedFile -> downloader.download(locatedFile, outputStream));
+  }
 
-      if (fileSummary.isDirectory()) {
-        throw new HdfsClientException("Path is a directory, not a file: " + hdfsPath);
-      }
+  @Override
+  public void copy(String hdfsPath, FileChannel channel, ParallelDownloadOptions options)
+      throws IOException {
+    if (channel == null) {
+      throw new IllegalArgumentException("channel cannot be null");
+    }
 
-      // Convert HdfsFileSummary to LocatedFile for DataNode client
-      LocatedFile locatedFile = convertToLocatedFile(fileSummary);
+    ParallelBlockDownloader downloader =
+        new ParallelBlockDownloader(dataNodeClients(), options, dataNodeHealthRegistry);
+    copyFromHdfs(hdfsPath, locatedFile -> downloader.download(locatedFile, channel));
+  }
+
+  /** Reads the blocks of a located file into some destination. */
+  @FunctionalInterface
+  private interface LocatedFileReader {
+    void read(LocatedFile locatedFile) throws IOException;
+  }
 
-      // Use DataNode client to copy the file to the output stream
-      // We need to read each block from its respective DataNode
-      copyLocatedFileToOutputStream(locatedFile, outputStream);
+  /**
+   * Looks up a file's block locations and hands them to a reader, translating failures the same way
+   * for every copy from HDFS.
+   *
+   * @param hdfsPath the path of the file in HDFS
+   * @param reader reads the located blocks into the destination
+   * @throws IOException if writing to the destination fails
+   */
+  private void copyFromHdfs(String hdfsPath, LocatedFileReader reader) throws IOException {
+    requireNameNodeClient();
+
+    // Validate that the path is absolute
+    HdfsPaths.requireAbsolute(hdfsPath);
+
+    FileLocations locations = null;
+    try {
+      locations = locateFile(hdfsPath);
+      reader.read(rankReplicas(locations.getLocatedFile()));
     } catch (HdfsFileNotFoundException e) {
       throw e;
     } catch (IOException e) {
       // Pass through IOException (from OutputStream errors in DataNode client)
       throw e;
     } catch (Exception e) {
+      if (locations != null) {
+        invalidateLocations(hdfsPath, locations);
+      }
       // Wrap other HDFS infrastructure errors
       throw new HdfsClientException("Failed to copy file from HDFS: " + hdfsPath, e);
     }
   }
 
+  /**
+   * Returns a file's attributes and blocks, from the block location cache if possible.
+   *
+   * @throws HdfsFileNotFoundException if the path does not exist
+   * @throws HdfsClientException if the path is a directory
+   */
+  private FileLocations locateFile(String hdfsPath) {
+    if (blockLocationCache != null) {
+      FileLocations cached = blockLocationCache.get(hdfsPath);
+      if (cached != null) {
+        return cached;
+      }
+    }
+
+    HdfsFileSummary fileSummary = readFileSummary(hdfsPath);
+
+    // Convert HdfsFileSummary to LocatedFile for DataNode client
+    FileLocations locations = new FileLocations(fileSummary, convertToLocatedFile(fileSummary));
+    if (blockLocationCache != null) {
+      blockLocationCache.put(hdfsPath, locations);
+    }
+    return locations;
+  }
+
+  /**
+   * Drops cached locations after a read using them failed, as a replica may have moved or the
+   * block's generation stamp changed, so that the next read looks them up again.
+   */
+  private void invalidateLocations(String hdfsPath, FileLocations locations) {
+    if (blockLocationCache != null) {
+      blockLocationCache.invalidate(hdfsPath, locations.getFileSummary().getFileId());
+    }
+  }
+
+  /** Drops cached locations of a path this client is writing or deleting, and of its subtree. */
+  private void invalidateTree(String hdfsPath) {
+    if (blockLocationCache != null) {
+      blockLocationCache.invalidateTree(hdfsPath);
+    }
+  }
+
+  /**
+   * Reads the attributes of a path, checking that it exists and is not a directory.
+   *
+   * @throws HdfsFileNotFoundException if the path does not exist
+   * @throws HdfsClientException if the path is a directory
+   */
+  private HdfsFileSummary readFileSummary(String hdfsPath) {
+    // Get the file attributes and validate it exists and is not a directory
+    Optional<HdfsFileSummary> fileSummaryOpt = nameNodeClient.readAttributesOptional(hdfsPath);
+    HdfsFileSummary fileSummary =
+        fileSummaryOpt.orElseThrow(
+            () -> new HdfsFileNotFoundException("File not found: " + hdfsPath));
+
+    if (fileSummary.isDirectory()) {
+      throw new HdfsClientException("Path is a directory, not a file: " + hdfsPath);
+    }
+    return fileSummary;
+  }
+
+  @Override
+  public SeekableByteChannel newByteChannel(String hdfsPath, ReadOptions options) {
+    return new HdfsSeekableByteChannel(openFileReader(hdfsPath, options));
+  }
+
+  @Override
+  public HdfsInputStream newInputStream(String hdfsPath, ReadOptions options) {
+    return new HdfsInputStream(openFileReader(hdfsPath, options));
+  }
+
   @Override
-  public void copy(String hdfsPath, InputStream input) throws IOException {
+  public List<CompletableFuture<ByteBuffer>> readVectored(
+      String hdfsPath, List<FileRange> ranges, VectoredReadOptions options) {
     requireNameNodeClient();
 
     // Validate that the path is absolute
     HdfsPaths.requireAbsolute(hdfsPath);
 
-    if (input == null) {
-      throw new IllegalArgumentException("InputStream cannot be null");
+    if (ranges == null) {
+      throw new IllegalArgumentException("ranges cannot be null");
     }
 
-    // Check if the file already exists
+    VectoredReader reader =
+        new VectoredReader(
+            hdfsPath, dataNodeClients(), options, dataNodeHealthRegistry, vectoredReadExecutor);
+    FileLocations locations;
     try {
-      Optional<HdfsFileSummary> existingFile = nameNodeClient.readAttributesOptional(hdfsPath);
-      if (existingFile.isPresent()) {
-        // File exists - this is an HDFS validation error
-        throw new HdfsClientException("File already exists: " + hdfsPath);
-      }
-      // File doesn't exist, which is what we want for creation
-      // Continue with file creation
+      locations = locateFile(hdfsPath);
     } catch (HdfsClientException e) {
       throw e;
     } catch (Exception e) {
-      // Infrastructure error while checking file existence
-      throw new HdfsClientException(
-          "Failed to verify file existence before creation: " + hdfsPath, e);
+      throw new HdfsClientException("Failed to look up blocks of HDFS file: " + hdfsPath, e);
+    }
+
+    return reader.read(
+        rankReplicas(locations.getLocatedFile()),
+        locations.getFileSummary().getLength(),
+        ranges,
+        () -> invalidateLocations(hdfsPath, locations));
+  }
+
+  @Override
+  public OutputStream newOutputStream(String hdfsPath, WriteOptions options) {
+    requireNameNodeClient();
+
+    // Validate that the path is absolute
+    HdfsPaths.requireAbsolute(hdfsPath);
+
+    return new HdfsOutputStream(hdfsPath, in -> copy(hdfsPath, in, options), options);
+  }
+
+  /** Looks up a file's block locations and creates a random-access reader over them. */
+  private HdfsFileReader openFileReader(String hdfsPath, ReadOptions options) {
+    requireNameNodeClient();
+
+    // Validate that the path is absolute
+    HdfsPaths.requireAbsolute(hdfsPath);
+
+    if (options.getBufferSize() < 1) {
+      throw new IllegalArgumentException(
+          "bufferSize must be at least 1: " + options.getBufferSize());
     }
 
     try {
-      // Step 1: Create the file (block locations will be null initially)
-      HdfsFileSummary fileSummary =
-          nameNodeClient.create(hdfsPath, true, (short) replicationFactor, blockSize);
+      FileLocations locations = locateFile(hdfsPath);
+      return new HdfsFileReader(
+          hdfsPath,
+          rankReplicas(locations.getLocatedFile()),
+          locations.getFileSummary().getLength(),
+          dataNodeClients(),
+          options.getBufferSize(),
+          () -> invalidateLocations(hdfsPath, locations));
+    } catch (HdfsClientException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new HdfsClientException("Failed to open HDFS file: " + hdfsPath, e);
+    }
+  }
+
+  @Override
+  public void copy(String hdfsPath, InputStream input, WriteOptions options) throws IOException {
+    requireNameNodeClient();
+
+    // Validate that the path is absolute
+    HdfsPaths.requireAbsolute(hdfsPath);
+
+    if (input == null) {
+      throw new IllegalArgumentException("InputStream cannot be null");
+    }
+
+    // Wrap input with PushbackInputStream to peek for more data
+    PushbackInputStream pushbackInput = new PushbackInputStream(input, 1);
+    writeFile(
+        hdfsPath,
+        options,
+        new BlockSource() {
+          @Override
+          public boolean hasMoreData() throws IOException {
+            // Use single byte read to check if there's more data
+            int nextByte = pushbackInput.read();
+            if (nextByte == -1) {
+              // End of input stream reached
+              return false;
+            }
+
+            // Push the byte back since we only wanted to check
+            pushbackInput.unread(nextByte);
+            return true;
+          }
+
+          @Override
+          public long writeBlock(DataNodeClient dataNodeClient, LocatedBlock locatedBlock)
+              throws IOException {
+            // Wrap the input stream with BlockSizeLimitInputStream to limit bytes per block
+            return dataNodeClient.copy(
+                locatedBlock, new BlockSizeLimitInputStream(pushbackInput, blockSize));
+          }
+        });
+  }
+
+  @Override
+  public void write(String hdfsPath, FileChannel source, WriteOptions options) throws IOException {
+    requireNameNodeClient();
+
+    // Validate that the path is absolute
+    HdfsPaths.requireAbsolute(hdfsPath);
+
+    if (source == null) {
+      throw new IllegalArgumentException("FileChannel cannot be null");
+    }
+
+    // The file's regions are read with positional reads, leaving the channel's position unchanged
+    long size = source.size();
+    writeFile(
+        hdfsPath,
+        options,
+        new BlockSource() {
+          private long position;
+
+          @Override
+          public boolean hasMoreData() {
+            return position < size;
+          }
+
+          @Override
+          public long writeBlock(DataNodeClient dataNodeClient, LocatedBlock locatedBlock)
+              throws IOException {
+            long bytesWritten =
+                dataNodeClient.copy(
+                    locatedBlock, source, position, Math.min(blockSize, size - position));
+            position += bytesWritten;
+            return bytesWritten;
+          }
+        });
+  }
+
+  /**
+   * Creates a file and writes it block by block from a source, completing each block before adding
+   * the next, then completes the file.
+   */
+  private void writeFile(String hdfsPath, WriteOptions options, BlockSource source)
+      throws IOException {
+    // Any cached locations of the path belong to a file that no longer exists
+    invalidateTree(hdfsPath);
+
+    // Check if the file already exists, unless the create call is trusted to reject it
+    if (options.isCheckExistence()) {
+      try {
+        Optional<HdfsFileSummary> existingFile = nameNodeClient.readAttributesOptional(hdfsPath);
+        if (existingFile.isPresent()) {
+          // File exists - this is an HDFS validation error
+          throw new HdfsFileAlreadyExistsException("File already exists: " + hdfsPath);
+        }
+        // File doesn't exist, which is what we want for creation
+        // Continue with file creation
+      } catch (HdfsClientException e) {
+        throw e;
+      } catch (Exception e) {
+        // Infrastructure error while checking file existence
+        throw new HdfsClientException(
+            "Failed to verify file existence before creation: " + hdfsPath, e);
+      }
+    }
+
+    try {
+      // Step 1: Create the file (block locations will be null initially); without OVERWRITE the
+      // NameNode atomically rejects a path that already exists
+      HdfsFileSummary fileSummary;
+      try {
+        fileSummary = nameNodeClient.create(hdfsPath, true, (short) replicationFactor, blockSize);
+      } catch (io.valier.hdfs.nn.ex.HdfsFileAlreadyExistsException e) {
+        throw new HdfsFileAlreadyExistsException("File already exists: " + hdfsPath, e);
+      }
 
       // Step 2: Add the first block explicitly
       fileSummary = nameNodeClient.completeBlockAndAddNext(fileSummary);
@@ -308,20 +662,7 @@ public class DefaultHdfsClient implements HdfsClient {
       long totalBytesWritten = 0;
 
       try {
-        // Wrap input with PushbackInputStream to peek for more data
-        PushbackInputStream pushbackInput = new PushbackInputStream(input, 1);
-
-        while (true) {
-          // Use single byte read to check if there's more data
-          int nextByte = pushbackInput.read();
-          if (nextByte == -1) {
-            // End of input stream reached
-            break;
-          }
-
-          // Push the byte back since we only wanted to check
-          pushbackInput.unread(nextByte);
-
+        while (source.hasMoreData()) {
           // Check if we need a new block (after the first block is written)
           if (totalBytesWritten > 0 && totalBytesWritten % blockSize == 0) {
             // Complete current block and add a new block to the file
@@ -341,15 +682,11 @@ public class DefaultHdfsClient implements HdfsClient {
           // Convert to LocatedBlock for DataNode client
           LocatedBlock locatedBlock = convertBlockLocationToLocatedBlock(lastBlockLocation);
 
-          // Wrap the input stream with BlockSizeLimitInputStream to limit bytes per block
-          BlockSizeLimitInputStream blockLimitedInput =
-              new BlockSizeLimitInputStream(pushbackInput, blockSize);
-
-          // Get DataNodeClient for the first host of this block (with hostname mapping)
-          String targetHost = mapDockerHostToLocalhost(locatedBlock.getHosts().get(0));
-          try (DataNodeClient dataNodeClient = dataNodeClientProvider.getClient(targetHost)) {
+          // Get DataNodeClient for the best ranked host of this block (with hostname mapping)
+          String targetHost = mapDockerHostToLocalhost(firstRankedHost(locatedBlock));
+          try (DataNodeClient dataNodeClient = dataNodeClients().getClient(targetHost)) {
             // Write the data to the DataNode (limited to block size)
-            long bytesWrittenToBlock = dataNodeClient.copy(locatedBlock, blockLimitedInput);
+            long bytesWrittenToBlock = source.writeBlock(dataNodeClient, locatedBlock);
 
             // If no bytes were written, break to avoid infinite loop
             if (bytesWrittenToBlock == 0) {
@@ -357,20 +694,7 @@ public class DefaultHdfsClient implements HdfsClient {
             }
 
             // Update the last block location with actual bytes written
-            HdfsFileSummary.BlockLocation updatedBlockLocation =
-                lastBlockLocation.toBuilder()
-                    .length(bytesWrittenToBlock) // Set to actual bytes written
-                    .build();
-
-            // Create updated block locations list
-            List<HdfsFileSummary.BlockLocation> updatedBlockLocations =
-                new ArrayList<>(currentFileSummary.getBlockLocations());
-            updatedBlockLocations.set(
-                updatedBlockLocations.size() - 1, updatedBlockLocation); // Update last block
-
-            // Create new currentFileSummary with updated block location
-            currentFileSummary =
-                currentFileSummary.toBuilder().blockLocations(updatedBlockLocations).build();
+            currentFileSummary = withLastBlockLength(currentFileSummary, bytesWrittenToBlock);
 
             totalBytesWritten += bytesWrittenToBlock;
           }
@@ -382,8 +706,11 @@ public class DefaultHdfsClient implements HdfsClient {
           throw new HdfsClientException("Failed to complete file: " + hdfsPath);
         }
 
+        // Drop locations another read may have cached while the file was being written
+        invalidateTree(hdfsPath);
+
       } catch (IOException e) {
-        // IOException from InputStream operations (reading from pushbackInput) - pass through
+        // IOException from reading the source - pass through
         throw e;
       } catch (Exception e) {
         // HDFS infrastructure errors - wrap in HdfsClientException
@@ -397,6 +724,145 @@ public class DefaultHdfsClient implements HdfsClient {
     }
   }
 
+  /** Supplies the data of a file written block by block. */
+  private interface BlockSource {
+
+    /** Returns whether any data remains to be written. */
+    boolean hasMoreData() throws IOException;
+
+    /**
+     * Writes the next block's data, at most a block size, with a client of the block's DataNode.
+     *
+     * @return the number of bytes written to the block
+     * @throws IOException if reading the source fails
+     */
+    long writeBlock(DataNodeClient dataNodeClient, LocatedBlock locatedBlock) throws IOException;
+  }
+
+  @Override
+  public CompletableFuture<Void> writeAsync(
+      String hdfsPath, byte[] content, WriteOptions options, Executor executor) {
+    requireNameNodeClient();
+
+    // Validate that the path is absolute
+    HdfsPaths.requireAbsolute(hdfsPath);
+
+    if (content == null) {
+      throw new IllegalArgumentException("content cannot be null");
+    }
+
+    // Any cached locations of the path belong to a file that no longer exists
+    invalidateTree(hdfsPath);
+
+    CompletableFuture<Void> existenceCheck = CompletableFuture.completedFuture(null);
+    if (options.isCheckExistence()) {
+      existenceCheck =
+          nameNodeClient
+              .readAttributesOptionalAsync(hdfsPath)
+              .thenAccept(
+                  existingFile -> {
+                    if (existingFile.isPresent()) {
+                      throw new HdfsFileAlreadyExistsException("File already exists: " + hdfsPath);
+                    }
+                  });
+    }
+
+    return existenceCheck
+        .thenCompose(
+            v -> nameNodeClient.createAsync(hdfsPath, true, (short) replicationFactor, blockSize))
+        .thenCompose(fileSummary -> writeBlocksAsync(fileSummary, content, 0, executor))
+        .thenCompose(nameNodeClient::completeAsync)
+        .handle(
+            (completed, failure) -> {
+              // Drop locations another read may have cached while the file was being written
+              invalidateTree(hdfsPath);
+
+              if (failure == null) {
+                if (!completed) {
+                  throw new HdfsClientException("Failed to complete file: " + hdfsPath);
+                }
+                return null;
+              }
+
+              Throwable cause =
+                  failure instanceof CompletionException && failure.getCause() != null
+                      ? failure.getCause()
+                      : failure;
+              if (cause instanceof io.valier.hdfs.nn.ex.HdfsFileAlreadyExistsException) {
+                throw new HdfsFileAlreadyExistsException("File already exists: " + hdfsPath, cause);
+              }
+              if (cause instanceof HdfsClientException) {
+                throw (HdfsClientException) cause;
+              }
+              throw new HdfsClientException("Failed to write HDFS file: " + hdfsPath, cause);
+            });
+  }
+
+  /**
+   * Adds the next block of a file being written by writeAsync and writes the content belonging to
+   * it on the executor, continuing with the following block until all content is written. Empty
+   * content leaves a single empty block, as copy does.
+   */
+  private CompletableFuture<HdfsFileSummary> writeBlocksAsync(
+      HdfsFileSummary fileSummary, byte[] content, int offset, Executor executor) {
+    int length = (int) Math.min(blockSize, content.length - offset);
+
+    return nameNodeClient
+        .completeBlockAndAddNextAsync(fileSummary)
+        .thenApplyAsync(
+            withNewBlock -> writeLastBlock(withNewBlock, content, offset, length), executor)
+        .thenCompose(
+            written ->
+                offset + length < content.length
+                    ? writeBlocksAsync(written, content, offset + length, executor)
+                    : CompletableFuture.completedFuture(written));
+  }
+
+  /** Writes a range of content to the last block of a file and records the block's length. */
+  private HdfsFileSummary writeLastBlock(
+      HdfsFileSummary fileSummary, byte[] content, int offset, int length) {
+    List<HdfsFileSummary.BlockLocation> blockLocations = fileSummary.getBlockLocations();
+    if (blockLocations == null || blockLocations.isEmpty()) {
+      throw new HdfsClientException("Failed to add new block to file: " + fileSummary.getPath());
+    }
+    if (length == 0) {
+      return fileSummary;
+    }
+
+    LocatedBlock locatedBlock =
+        convertBlockLocationToLocatedBlock(blockLocations.get(blockLocations.size() - 1));
+    String targetHost = firstRankedHost(locatedBlock);
+    try (DataNodeClient dataNodeClient = dataNodeClients().getClient(targetHost)) {
+      long bytesWritten =
+          dataNodeClient.copy(locatedBlock, new ByteArrayInputStream(content, offset, length));
+      if (bytesWritten != length) {
+        throw new HdfsClientException(
+            "Wrote "
+                + bytesWritten
+                + " of "
+                + length
+                + " bytes to block "
+                + locatedBlock.getBlockId());
+      }
+      return withLastBlockLength(fileSummary, bytesWritten);
+    } catch (HdfsClientException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new HdfsClientException(
+          "Failed to copy data to HDFS file: " + fileSummary.getPath(), e);
+    }
+  }
+
+  /** Returns a file summary whose last block location has the given length. */
+  private static HdfsFileSummary withLastBlockLength(HdfsFileSummary fileSummary, long length) {
+    List<HdfsFileSummary.BlockLocation> updatedBlockLocations =
+        new ArrayList<>(fileSummary.getBlockLocations());
+    int last = updatedBlockLocations.size() - 1;
+    updatedBlockLocations.set(
+        last, updatedBlockLocations.get(last).toBuilder().length(length).build());
+    return fileSummary.toBuilder().blockLocations(updatedBlockLocations).build();
+  }
+
   /** Converts HdfsFileSummary to LocatedFile for use with DataNode client. */
   private LocatedFile convertToLocatedFile(HdfsFileSummary fileSummary) {
     if (fileSummary.getBlockLocations() == null || fileSummary.getBlockLocations().isEmpty()) {
@@ -455,7 +921,9 @@ public class DefaultHdfsClient implements HdfsClient {
 
   /**
    * Copies the contents of a LocatedFile to an OutputStream by reading each block from its
-   * respective DataNode hosts.
+   * respective DataNode hosts. When a host fails part way through a block, for example because its
+   * replica fails checksum verification, the next host continues from the first byte not yet
+   * written, so the output never holds duplicated data.
    *
    * @param locatedFile the file with block location information
    * @param outputStream the stream to write the file content to
@@ -466,14 +934,19 @@ public class DefaultHdfsClient implements HdfsClient {
     for (LocatedBlock block : locatedFile.getLocatedBlocks()) {
       // Try each host for this block until one succeeds
       boolean blockRead = false;
+      CountingOutputStream target = new CountingOutputStream(outputStream);
 
       for (String host : block.getHosts()) {
         String mappedHost = mapDockerHostToLocalhost(host);
 
-        try (DataNodeClient dataNodeClient = dataNodeClientProvider.getClient(mappedHost)) {
-          dataNodeClient.copy(block, outputStream);
+        try (DataNodeClient dataNodeClient = dataNodeClients().getClient(mappedHost)) {
+          long written = target.getCount();
+          dataNodeClient.read(block, written, block.getLength() - written, target);
           blockRead = true;
           break; // Successfully read from this host
+        } catch (IOException e) {
+          // Writing to the output stream failed; another host would fail the same way
+          throw e;
         } catch (Exception e) {
           // Try next host if this one fails
           log.debug("Failed to read block {} from host {}", block.getBlockId(), mappedHost, e);
@@ -487,6 +960,47 @@ public class DefaultHdfsClient implements HdfsClient {
     }
   }
 
+  /**
+   * Copies the contents of a LocatedFile to an OutputStream, hedging each block read across its
+   * replicas once a replica takes longer than hedgedReadThresholdMs.
+   *
+   * @param locatedFile the file with block location information
+   * @param outputStream the stream to write the file content to
+   * @throws IOException if there's an error writing to the output stream
+   */
+  private void copyLocatedFileHedged(LocatedFile locatedFile, OutputStream outputStream)
+      throws IOException {
+    HedgedBlockReader reader =
+        new HedgedBlockReader(
+            dataNodeClients(),
+            hedgedReadThresholdMs,
+            HedgedBlockReader.DEFAULT_CHUNK_SIZE,
+            hedgedReadExecutor);
+    for (LocatedBlock block : locatedFile.getLocatedBlocks()) {
+      reader.read(block, outputStream);
+    }
+  }
+
+  /** Returns the DataNode client provider, recording request outcomes in the health registry. */
+  private DataNodeClientProvider dataNodeClients() {
+    return dataNodeHealthRegistry == null
+        ? dataNodeClientProvider
+        : dataNodeHealthRegistry.track(dataNodeClientProvider);
+  }
+
+  /** Returns a located file whose block replicas are in the order they should be tried. */
+  private LocatedFile rankReplicas(LocatedFile locatedFile) {
+    return dataNodeHealthRegistry == null ? locatedFile : dataNodeHealthRegistry.rank(locatedFile);
+  }
+
+  /** Returns the host a block should be written to, preferring healthy DataNodes. */
+  private String firstRankedHost(LocatedBlock locatedBlock) {
+    List<String> hosts = locatedBlock.getHosts();
+    return dataNodeHealthRegistry == null
+        ? hosts.get(0)
+        : dataNodeHealthRegistry.rankHosts(hosts).get(0);
+  }
+
   /**
    * Maps DataNode hostnames to localhost when local mode is enabled. When localMode is true, all
    * hostnames are mapped to localhost for containerized testing. When localMode is false, only
@@ -530,4 +1044,70 @@ public class DefaultHdfsClient implements HdfsClient {
         .length(blockLocation.getLength())
         .build();
   }
+
+  /**
+   * Creates a builder for configuring and creating DefaultHdfsClient instances.
+   *
+   * @return a new DefaultHdfsClientBuilder instance
+   */
+  public static DefaultHdfsClientBuilder builder() {
+    return new CustomHdfsClientBuilder();
+  }
+
+  /** Custom builder implementation that creates the read executors during build(). */
+  private static class CustomHdfsClientBuilder extends DefaultHdfsClientBuilder {
+
+    @Override
+    public DefaultHdfsClient build() {
+      DefaultHdfsClient temp = super.build();
+
+      // Threads are only started by reads and exit when idle, so nothing needs shutting down
+      ExecutorService hedgedReadExecutor =
+          temp.hedgedReadThresholdMs > 0
+              ? HedgedBlockReader.newExecutor(temp.hedgedReadThreadPoolSize)
+              : null;
+      ExecutorService vectoredReadExecutor =
+          VectoredReader.newExecutor(temp.vectoredReadThreadPoolSize);
+
+      return new DefaultHdfsClient(
+          temp.nameNodeClient,
+          temp.dataNodeClientProvider,
+          temp.localMode,
+          temp.replicationFactor,
+          temp.blockSize,
+          temp.blockLocationCache,
+          temp.hedgedReadThresholdMs,
+          temp.hedgedReadThreadPoolSize,
+          temp.dataNodeHealthRegistry,
+          hedgedReadExecutor,
+          temp.vectoredReadThreadPoolSize,
+          vectoredReadExecutor);
+    }
+  }
+
+  /** Counts the bytes written through it, so a failed block read can resume where it stopped. */
+  private static final class CountingOutputStream extends FilterOutputStream {
+
+    private long count;
+
+    CountingOutputStream(OutputStream out) {
+      super(out);
+    }
+
+    long getCount() {
+      return count;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      out.write(b);
+      count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+      count += len;
+    }
+  }
 }
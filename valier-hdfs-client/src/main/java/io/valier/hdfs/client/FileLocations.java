@@ -0,0 +1,16 @@
+package io.valier.hdfs.client;
+
+import io.valier.hdfs.dn.LocatedFile;
+import io.valier.hdfs.nn.HdfsFileSummary;
+import lombok.Value;
+
+/** A file's attributes together with its blocks converted for the DataNode client. */
+@Value
+class FileLocations {
+
+  /** Attributes and block locations as returned by the NameNode. */
+  HdfsFileSummary fileSummary;
+
+  /** Blocks with their DataNode hosts resolved for reading. */
+  LocatedFile locatedFile;
+}
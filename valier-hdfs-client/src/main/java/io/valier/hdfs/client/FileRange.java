@@ -0,0 +1,46 @@
+package io.valier.hdfs.client;
+
+import java.nio.ByteBuffer;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * A range of a file to read with {@link HdfsClient#readVectored}, together with the caller-provided
+ * buffer it is read into.
+ *
+ * <p>The range starts at a file offset and is as long as the buffer's remaining bytes when the
+ * range is created. The data is put into the buffer starting at its position, and the position is
+ * advanced past it when the read completes, as with a channel read.
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class FileRange {
+
+  /** Offset within the file of the first byte of the range. */
+  long offset;
+
+  /** Number of bytes in the range. */
+  int length;
+
+  /** Buffer the range is read into. */
+  ByteBuffer buffer;
+
+  /**
+   * Creates a range reading buffer.remaining() bytes at a file offset into the buffer.
+   *
+   * @param offset the file offset of the first byte to read
+   * @param buffer the writable buffer to read into
+   * @return the range
+   * @throws IllegalArgumentException if offset is negative or the buffer is read-only
+   */
+  public static FileRange of(long offset, ByteBuffer buffer) {
+    if (offset < 0) {
+      throw new IllegalArgumentException("Offset cannot be negative: " + offset);
+    }
+    if (buffer.isReadOnly()) {
+      throw new IllegalArgumentException("Buffer cannot be read-only");
+    }
+    return new FileRange(offset, buffer.remaining(), buffer);
+  }
+}
@@ -1,13 +1,21 @@
 package io.valier.hdfs.client;
 
 import io.valier.hdfs.client.ex.HdfsClientException;
+import io.valier.hdfs.client.ex.HdfsFileAlreadyExistsException;
 import io.valier.hdfs.client.ex.HdfsFileNotFoundException;
 import io.valier.hdfs.nn.HdfsFileSummary;
+import io.valier.hdfs.nn.ListOptions;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.charset.Charset;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.stream.Stream;
 
 /**
@@ -29,6 +37,175 @@ public interface HdfsClient {
    */
   void copy(String hdfsPath, OutputStream outputStream) throws IOException;
 
+  /**
+   * Copies a file from HDFS to an OutputStream, downloading several blocks concurrently.
+   *
+   * <p>Blocks are fetched in parallel, each from its own DataNode connection and preferably from
+   * different DataNodes, and written to the stream in file order. Blocks that arrive ahead of the
+   * stream are buffered in memory up to {@link ParallelDownloadOptions#getMemoryBudgetBytes()}.
+   * Prefer {@link #copy(String, FileChannel, ParallelDownloadOptions)} when the destination is a
+   * local file, which needs no buffering.
+   *
+   * @param hdfsPath the path of the file in HDFS (e.g., "/user/data/file.txt")
+   * @param outputStream the OutputStream where the file content should be written
+   * @param options the parallelism and memory budget of the download
+   * @throws IOException if there's an error during the copy operation
+   */
+  void copy(String hdfsPath, OutputStream outputStream, ParallelDownloadOptions options)
+      throws IOException;
+
+  /**
+   * Copies a file from HDFS to a FileChannel, downloading several blocks concurrently.
+   *
+   * <p>Blocks are fetched in parallel, each from its own DataNode connection and preferably from
+   * different DataNodes, and written directly at their offsets in the channel using positional
+   * writes, so a large file spread over many DataNodes downloads at the speed of several streams.
+   * The data is written to the file straight from the DataNode connections' direct receive buffers,
+   * without being copied through the Java heap. The channel's position is not used or changed.
+   *
+   * @param hdfsPath the path of the file in HDFS (e.g., "/user/data/file.txt")
+   * @param channel the writable FileChannel where the file content should be written
+   * @param options the parallelism of the download
+   * @throws IOException if there's an error during the copy operation
+   */
+  void copy(String hdfsPath, FileChannel channel, ParallelDownloadOptions options)
+      throws IOException;
+
+  /**
+   * Opens a file in HDFS for random-access reading, like JDK NIO Files.newByteChannel() for
+   * reading.
+   *
+   * <p>The channel maps its position to the block containing it and fetches only the needed range
+   * of that block from a DataNode, so readers that seek around a file, such as Parquet or ORC
+   * readers, do not download whole blocks. Sequential reads are buffered, fetching up to 1MB per
+   * DataNode request over a connection that stays open while reading the same block. The channel is
+   * read-only; writing or truncating throws a NonWritableChannelException.
+   *
+   * <p>The block locations are looked up once, when the channel is opened. Failures to read from
+   * DataNodes are thrown as unchecked {@link HdfsClientException}s.
+   *
+   * @param hdfsPath the absolute path to the file in HDFS (e.g., "/user/data/file.parquet")
+   * @return a read-only channel positioned at the start of the file, which must be closed after use
+   * @throws HdfsClientException if there's an error with HDFS infrastructure operations
+   * @throws HdfsFileNotFoundException if the specified file does not exist
+   */
+  default SeekableByteChannel newByteChannel(String hdfsPath) {
+    return newByteChannel(hdfsPath, ReadOptions.DEFAULT);
+  }
+
+  /**
+   * Opens a file in HDFS for random-access reading, as {@link #newByteChannel(String)} does, with
+   * options such as the read buffer size.
+   *
+   * @param hdfsPath the absolute path to the file in HDFS (e.g., "/user/data/file.parquet")
+   * @param options the read options
+   * @return a read-only channel positioned at the start of the file, which must be closed after use
+   * @throws HdfsClientException if there's an error with HDFS infrastructure operations
+   * @throws HdfsFileNotFoundException if the specified file does not exist
+   */
+  SeekableByteChannel newByteChannel(String hdfsPath, ReadOptions options);
+
+  /**
+   * Opens a file in HDFS for reading, like JDK NIO Files.newInputStream(). The returned stream also
+   * supports seeking and positional reads; see {@link HdfsInputStream}.
+   *
+   * @param hdfsPath the absolute path to the file in HDFS (e.g., "/user/data/file.txt")
+   * @return a stream positioned at the start of the file, which must be closed after use
+   * @throws HdfsClientException if there's an error with HDFS infrastructure operations
+   * @throws HdfsFileNotFoundException if the specified file does not exist
+   * @see #newByteChannel(String)
+   */
+  default HdfsInputStream newInputStream(String hdfsPath) {
+    return newInputStream(hdfsPath, ReadOptions.DEFAULT);
+  }
+
+  /**
+   * Opens a file in HDFS for reading, as {@link #newInputStream(String)} does, with options such as
+   * the read buffer size. The stream holds at most one buffer of file data in memory, so files of
+   * any size can be piped into libraries that read from an InputStream.
+   *
+   * @param hdfsPath the absolute path to the file in HDFS (e.g., "/user/data/file.txt")
+   * @param options the read options
+   * @return a stream positioned at the start of the file, which must be closed after use
+   * @throws HdfsClientException if there's an error with HDFS infrastructure operations
+   * @throws HdfsFileNotFoundException if the specified file does not exist
+   */
+  HdfsInputStream newInputStream(String hdfsPath, ReadOptions options);
+
+  /**
+   * Reads many ranges of a file at once, as {@link #readVectored(String, List,
+   * VectoredReadOptions)} does with default options.
+   *
+   * @param hdfsPath the absolute path to the file in HDFS (e.g., "/user/data/file.parquet")
+   * @param ranges the ranges to read, each with the buffer it is read into
+   * @return one future per range, in the order of the ranges, completing with the range's buffer
+   * @throws HdfsClientException if the file's block locations cannot be looked up
+   * @throws HdfsFileNotFoundException if the specified file does not exist
+   */
+  default List<CompletableFuture<ByteBuffer>> readVectored(
+      String hdfsPath, List<FileRange> ranges) {
+    return readVectored(hdfsPath, ranges, VectoredReadOptions.DEFAULT);
+  }
+
+  /**
+   * Reads many ranges of a file at once into caller-provided buffers, like Hadoop's vectored IO.
+   *
+   * <p>The block locations are looked up once. Ranges are split at block boundaries, and ranges of
+   * the same block that lie within {@link VectoredReadOptions#getMaxMergeGap()} of each other are
+   * fetched with a single ranged DataNode read, so reading dozens of column chunks costs a few
+   * round trips rather than one per range. The reads run concurrently, spread over the blocks'
+   * replicas, and each fills its ranges' buffers directly.
+   *
+   * <p>Each range's future completes with its buffer once the range has been read, with the
+   * buffer's position advanced past the data. A range beyond the end of the file fails with an
+   * EOFException, and a range that could not be read from any replica fails with an {@link
+   * HdfsClientException}. Ranges may overlap. Buffers must not be used until their future has
+   * completed.
+   *
+   * @param hdfsPath the absolute path to the file in HDFS (e.g., "/user/data/file.parquet")
+   * @param ranges the ranges to read, each with the buffer it is read into
+   * @param options how ranges are merged and how many reads run concurrently
+   * @return one future per range, in the order of the ranges, completing with the range's buffer
+   * @throws HdfsClientException if the file's block locations cannot be looked up
+   * @throws HdfsFileNotFoundException if the specified file does not exist
+   */
+  List<CompletableFuture<ByteBuffer>> readVectored(
+      String hdfsPath, List<FileRange> ranges, VectoredReadOptions options);
+
+  /**
+   * Creates a new file in HDFS and returns an OutputStream to write it, like JDK NIO
+   * Files.newOutputStream() with the CREATE_NEW option.
+   *
+   * @param hdfsPath the absolute path where the file should be created in HDFS (e.g.,
+   *     "/user/data/file.txt")
+   * @return a stream writing the file, which must be closed to complete the file
+   * @see #newOutputStream(String, WriteOptions)
+   */
+  default OutputStream newOutputStream(String hdfsPath) {
+    return newOutputStream(hdfsPath, WriteOptions.DEFAULT);
+  }
+
+  /**
+   * Creates a new file in HDFS and returns an OutputStream to write it, like JDK NIO
+   * Files.newOutputStream() with the CREATE_NEW option.
+   *
+   * <p>The file is written block by block as {@link #copy(String, InputStream)} writes it, by a
+   * background thread that the stream feeds through a buffer of {@link
+   * WriteOptions#getBufferSize()} bytes. Writes wait while the buffer is full, so files of any size
+   * can be written with bounded memory. Closing the stream waits until all data has been written
+   * and the file has been completed.
+   *
+   * <p>The upload starts immediately, and a failure, including the file already existing, is thrown
+   * from the next write, flush or close. As elsewhere, HDFS infrastructure failures are thrown as
+   * unchecked {@link HdfsClientException}s.
+   *
+   * @param hdfsPath the absolute path where the file should be created in HDFS (e.g.,
+   *     "/user/data/file.txt")
+   * @param options the write options
+   * @return a stream writing the file, which must be closed to complete the file
+   */
+  OutputStream newOutputStream(String hdfsPath, WriteOptions options);
+
   /**
    * Copies data from an InputStream to a file in HDFS.
    *
@@ -43,13 +220,83 @@ public interface HdfsClient {
    * @throws IOException if there's an error during the copy operation, including if the file
    *     already exists
    */
-  void copy(String hdfsPath, InputStream input) throws IOException;
+  default void copy(String hdfsPath, InputStream input) throws IOException {
+    copy(hdfsPath, input, WriteOptions.DEFAULT);
+  }
+
+  /**
+   * Copies data from an InputStream to a file in HDFS, as {@link #copy(String, InputStream)} does,
+   * with options controlling the write. With {@link WriteOptions#isCheckExistence()} disabled the
+   * existence lookup of step 1 is skipped and the create call itself fails if the path exists,
+   * saving one NameNode round trip per file.
+   *
+   * @param hdfsPath the absolute path where the file should be created in HDFS (e.g.,
+   *     "/user/data/file.txt")
+   * @param input the InputStream containing the data to write to HDFS
+   * @param options the write options
+   * @throws IOException if there's an error reading the InputStream
+   * @throws HdfsFileAlreadyExistsException if the path already exists
+   */
+  void copy(String hdfsPath, InputStream input, WriteOptions options) throws IOException;
+
+  /**
+   * Writes the content of a local file to a new file in HDFS, as {@link #copy(String, InputStream,
+   * WriteOptions)} does, but reading the file with positional reads into direct buffers that are
+   * sent to the DataNodes without copying the data through the Java heap. Prefer it to copying from
+   * a FileInputStream when uploading local files.
+   *
+   * <p>The channel's size is read once, at the start, and its position is not used or changed.
+   *
+   * @param hdfsPath the absolute path where the file should be created in HDFS (e.g.,
+   *     "/user/data/file.txt")
+   * @param source the readable FileChannel of the local file
+   * @param options the write options
+   * @throws IOException if there's an error reading the FileChannel
+   * @throws HdfsFileAlreadyExistsException if the path already exists
+   */
+  void write(String hdfsPath, FileChannel source, WriteOptions options) throws IOException;
+
+  /**
+   * Asynchronously writes a new file whose whole content is in memory, such as one of a batch of
+   * small files.
+   *
+   * <p>The file is created, written and completed as {@link #copy(String, InputStream,
+   * WriteOptions)} does, but the NameNode calls are made with the asynchronous NameNodeClient
+   * methods, which {@code DefaultNameNodeClient} multiplexes over a shared connection. Creating the
+   * next files and allocating their blocks therefore overlaps with writing the data of earlier ones
+   * without holding a thread per file; only the blocking DataNode writes run on the given executor.
+   *
+   * <p>Failures are reported by completing the future exceptionally with an {@link
+   * HdfsClientException}, or an {@link HdfsFileAlreadyExistsException} if the path already exists.
+   * The default implementation runs {@link #copy(String, InputStream, WriteOptions)} on the
+   * executor.
+   *
+   * @param hdfsPath the absolute path where the file should be created in HDFS (e.g.,
+   *     "/user/data/file.txt")
+   * @param content the file's content
+   * @param options the write options
+   * @param executor the executor running the DataNode writes
+   * @return future completing once the file has been written and completed
+   */
+  default CompletableFuture<Void> writeAsync(
+      String hdfsPath, byte[] content, WriteOptions options, Executor executor) {
+    return CompletableFuture.runAsync(
+        () -> {
+          try {
+            copy(hdfsPath, new ByteArrayInputStream(content), options);
+          } catch (IOException e) {
+            throw new HdfsClientException("Failed to write HDFS file: " + hdfsPath, e);
+          }
+        },
+        executor);
+  }
 
   /**
    * Lists files and directories in the specified HDFS path.
    *
    * <p>This method queries the NameNode to get directory contents and returns detailed file
-   * information similar to JDK NIO Files.list().
+   * information similar to JDK NIO Files.list(). Large directories are fetched page by page as the
+   * stream is consumed, so listing a directory of any size uses bounded memory.
    *
    * <p>Since HDFS is designed to be highly available, failures related to HDFS infrastructure
    * (network connectivity, NameNode unavailability, protocol errors) are thrown as unchecked {@link
@@ -60,7 +307,61 @@ public interface HdfsClient {
    * @throws HdfsClientException if there's an error with HDFS infrastructure operations
    * @throws HdfsFileNotFoundException if the specified path does not exist
    */
-  Stream<HdfsFileSummary> list(String hdfsPath);
+  default Stream<HdfsFileSummary> list(String hdfsPath) {
+    return list(hdfsPath, ListOptions.DEFAULT);
+  }
+
+  /**
+   * Lists files and directories in the specified HDFS path, as {@link #list(String)} does, with
+   * options controlling what each entry includes. Listings that do not need block locations, such
+   * as scans that only look at names, sizes or timestamps, should disable them to make the listing
+   * considerably cheaper.
+   *
+   * @param hdfsPath the directory path in HDFS to list (e.g., "/", "/user", "/tmp")
+   * @param options the listing options
+   * @return A stream of HdfsFileSummary objects containing file metadata
+   * @throws HdfsClientException if there's an error with HDFS infrastructure operations
+   * @throws HdfsFileNotFoundException if the specified path does not exist
+   */
+  Stream<HdfsFileSummary> list(String hdfsPath, ListOptions options);
+
+  /**
+   * Recursively lists the files and directories below the specified HDFS path, like JDK NIO
+   * Files.walk() but without the starting directory itself.
+   *
+   * @param hdfsPath the directory path in HDFS to walk
+   * @param maxDepth the maximum number of directory levels to visit
+   * @return A stream of HdfsFileSummary objects with full paths, which should be closed after use
+   * @throws HdfsClientException if there's an error with HDFS infrastructure operations
+   * @see #walk(String, int, WalkOptions)
+   */
+  default Stream<HdfsFileSummary> walk(String hdfsPath, int maxDepth) {
+    return walk(hdfsPath, maxDepth, WalkOptions.DEFAULT);
+  }
+
+  /**
+   * Recursively lists the files and directories below the specified HDFS path, like JDK NIO
+   * Files.walk() but without the starting directory itself.
+   *
+   * <p>Subdirectories are listed concurrently by up to {@link WalkOptions#getParallelism()} worker
+   * threads, each fetching its directory page by page, and entries are streamed to the consumer as
+   * they arrive rather than after the whole tree has been read. Entries are therefore returned in
+   * no particular order, each with its full path. Subtrees can be pruned with {@link
+   * WalkOptions#getDirectoryFilter()}.
+   *
+   * <p>The returned stream must be closed, for example with a try-with-resources statement, to stop
+   * the workers if it is not consumed to the end. A failure to list any directory ends the walk and
+   * is thrown from the stream operation that consumes it.
+   *
+   * @param hdfsPath the directory path in HDFS to walk
+   * @param maxDepth the maximum number of directory levels to visit; 1 returns the same entries as
+   *     {@link #list(String, ListOptions)}
+   * @param options the walk options
+   * @return A stream of HdfsFileSummary objects with full paths, which should be closed after use
+   * @throws HdfsClientException if there's an error with HDFS infrastructure operations
+   * @throws IllegalArgumentException if maxDepth is negative
+   */
+  Stream<HdfsFileSummary> walk(String hdfsPath, int maxDepth, WalkOptions options);
 
   /**
    * Creates a new directory in HDFS. The directory creation is atomic with respect to other
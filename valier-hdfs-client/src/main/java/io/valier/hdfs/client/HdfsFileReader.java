@@ -0,0 +1,259 @@
+package io.valier.hdfs.client;
+
+import io.valier.hdfs.client.ex.HdfsClientException;
+import io.valier.hdfs.dn.DataNodeClient;
+import io.valier.hdfs.dn.LocatedBlock;
+import io.valier.hdfs.dn.LocatedFile;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Random-access reader over the blocks of one HDFS file, shared by {@link HdfsInputStream} and the
+ * channel returned by {@link HdfsClient#newByteChannel(String)}.
+ *
+ * <p>File offsets are mapped to the block containing them, and only the needed range of that block
+ * is requested from a DataNode. Buffered reads fetch up to bufferSize bytes at a time and serve
+ * following reads from the buffer, so sequential and short forward reads cost one DataNode request
+ * per buffer. The DataNode client of the block being read is kept open between refills, and its
+ * connection is reused for the next range. Positional reads fetch exactly the requested range and
+ * leave the buffer alone.
+ *
+ * <p>This class is not thread-safe; callers synchronize access.
+ */
+@Slf4j
+final class HdfsFileReader implements Closeable {
+
+  /** Default number of bytes fetched per buffered DataNode request (1MB). */
+  static final int DEFAULT_BUFFER_SIZE = 1048576;
+
+  private final String hdfsPath;
+  private final List<LocatedBlock> blocks;
+  private final long length;
+  private final DataNodeClientProvider dataNodeClientProvider;
+  private final byte[] buffer;
+  private final Runnable onReadFailure;
+
+  /** File offset of the first byte in the buffer. */
+  private long bufferStart;
+
+  /** Number of valid bytes in the buffer. */
+  private int bufferLength;
+
+  /** Block whose DataNode client is kept open for the next buffer refill. */
+  private LocatedBlock currentBlock;
+
+  private DataNodeClient currentClient;
+
+  HdfsFileReader(
+      String hdfsPath,
+      LocatedFile locatedFile,
+      long length,
+      DataNodeClientProvider dataNodeClientProvider,
+      int bufferSize,
+      Runnable onReadFailure) {
+    if (bufferSize < 1) {
+      throw new IllegalArgumentException("bufferSize must be at least 1: " + bufferSize);
+    }
+    this.hdfsPath = hdfsPath;
+    this.blocks = locatedFile.getLocatedBlocks();
+    this.length = length;
+    this.dataNodeClientProvider = dataNodeClientProvider;
+    this.buffer = new byte[bufferSize];
+    this.onReadFailure = onReadFailure;
+  }
+
+  /** Length of the file in bytes. */
+  long length() {
+    return length;
+  }
+
+  /**
+   * Reads bytes at a file offset into a buffer, serving them from the read buffer when possible and
+   * refilling it from the DataNode otherwise.
+   *
+   * @param position the file offset to read from
+   * @param dst the buffer to read into
+   * @return the number of bytes read, or -1 if position is at or beyond the end of the file
+   */
+  int read(long position, ByteBuffer dst) {
+    if (position >= length) {
+      return -1;
+    }
+    if (!dst.hasRemaining()) {
+      return 0;
+    }
+
+    if (position < bufferStart || position >= bufferStart + bufferLength) {
+      fill(position);
+    }
+
+    int offsetInBuffer = (int) (position - bufferStart);
+    int n = Math.min(bufferLength - offsetInBuffer, dst.remaining());
+    dst.put(buffer, offsetInBuffer, n);
+    return n;
+  }
+
+  /**
+   * Reads exactly the requested bytes at a file offset, without using or changing the read buffer.
+   *
+   * @param position the file offset to read from
+   * @param b the array to read into
+   * @param off the offset in the array
+   * @param len the maximum number of bytes to read
+   * @return the number of bytes read, or -1 if position is at or beyond the end of the file
+   */
+  int pread(long position, byte[] b, int off, int len) {
+    if (position >= length) {
+      return -1;
+    }
+
+    int n = (int) Math.min(len, length - position);
+    int done = 0;
+    while (done < n) {
+      long filePosition = position + done;
+      LocatedBlock block = blockAt(filePosition);
+      long offsetInBlock = filePosition - block.getOffset();
+      int chunk = (int) Math.min(n - done, block.getLength() - offsetInBlock);
+
+      ArrayOutputStream target = new ArrayOutputStream(b, off + done);
+      readRange(block, offsetInBlock, chunk, target, false);
+      done += chunk;
+    }
+    return n;
+  }
+
+  /** Refills the buffer with the data at a file offset, up to the end of its block. */
+  private void fill(long position) {
+    LocatedBlock block = blockAt(position);
+    long offsetInBlock = position - block.getOffset();
+    int n = (int) Math.min(buffer.length, block.getLength() - offsetInBlock);
+
+    // Invalidate the buffer first, in case the read fails part way
+    bufferLength = 0;
+    bufferStart = position;
+
+    readRange(block, offsetInBlock, n, new ArrayOutputStream(buffer, 0), true);
+    bufferLength = n;
+  }
+
+  /**
+   * Reads a range of a block into a target, trying each replica in turn. Buffered reads keep the
+   * successful DataNode client open as the current client; positional reads close it.
+   */
+  private void readRange(
+      LocatedBlock block, long offsetInBlock, int len, ArrayOutputStream target, boolean keep) {
+    // Continue on the current DataNode when reading further into the same block
+    if (keep && currentClient != null && currentBlock.getBlockId() == block.getBlockId()) {
+      try {
+        currentClient.read(block, offsetInBlock, len, target);
+        return;
+      } catch (Exception e) {
+        log.debug("Failed to read block {} from current DataNode", block.getBlockId(), e);
+        closeCurrentClient();
+        target.reset();
+      }
+    }
+
+    for (String host : block.getHosts()) {
+      DataNodeClient client = dataNodeClientProvider.getClient(host);
+      boolean kept = false;
+      try {
+        client.read(block, offsetInBlock, len, target);
+        if (keep) {
+          closeCurrentClient();
+          currentClient = client;
+          currentBlock = block;
+          kept = true;
+        }
+        return;
+      } catch (Exception e) {
+        // Try next host if this one fails
+        log.debug("Failed to read block {} from host {}", block.getBlockId(), host, e);
+        target.reset();
+      } finally {
+        if (!kept) {
+          closeQuietly(client);
+        }
+      }
+    }
+
+    onReadFailure.run();
+    throw new HdfsClientException(
+        "Failed to read block " + block.getBlockId() + " of " + hdfsPath + " from any DataNode");
+  }
+
+  /** Finds the block containing a file offset. */
+  private LocatedBlock blockAt(long position) {
+    int low = 0;
+    int high = blocks.size() - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      LocatedBlock block = blocks.get(mid);
+      if (position < block.getOffset()) {
+        high = mid - 1;
+      } else if (position >= block.getOffset() + block.getLength()) {
+        low = mid + 1;
+      } else {
+        return block;
+      }
+    }
+    onReadFailure.run();
+    throw new HdfsClientException("No block of " + hdfsPath + " contains offset " + position);
+  }
+
+  private void closeCurrentClient() {
+    if (currentClient != null) {
+      closeQuietly(currentClient);
+      currentClient = null;
+      currentBlock = null;
+    }
+  }
+
+  private static void closeQuietly(DataNodeClient client) {
+    try {
+      client.close();
+    } catch (Exception e) {
+      log.debug("Failed to close DataNode client", e);
+    }
+  }
+
+  @Override
+  public void close() {
+    closeCurrentClient();
+  }
+
+  /** Writes into a byte array from a fixed offset; reset discards data from a failed attempt. */
+  private static final class ArrayOutputStream extends OutputStream {
+
+    private final byte[] array;
+    private final int start;
+    private int count;
+
+    ArrayOutputStream(byte[] array, int start) {
+      this.array = array;
+      this.start = start;
+    }
+
+    void reset() {
+      count = 0;
+    }
+
+    @Override
+    public void write(int b) {
+      array[start + count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      if (len > array.length - start - count) {
+        throw new IOException("DataNode returned more data than requested");
+      }
+      System.arraycopy(b, off, array, start + count, len);
+      count += len;
+    }
+  }
+}
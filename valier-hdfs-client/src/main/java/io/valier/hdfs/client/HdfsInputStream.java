@@ -0,0 +1,166 @@
+package io.valier.hdfs.client;
+
+import io.valier.hdfs.client.ex.HdfsClientException;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * InputStream over an HDFS file that supports seeking and positional reads, like Hadoop's
+ * FSDataInputStream.
+ *
+ * <p>Sequential reads are buffered: each DataNode request fetches up to the buffer size from the
+ * current block, and seeking within the buffered range costs nothing. Seeking elsewhere only moves
+ * the position; data is fetched from the block containing the new position on the next read.
+ * Positional reads fetch exactly the requested range and do not move the position, which suits
+ * columnar formats that read footers and column chunks at known offsets.
+ *
+ * <p>Example usage:
+ *
+ * <pre>
+ * try (HdfsInputStream in = hdfsClient.newInputStream("/data/table.parquet")) {
+ *   byte[] footer = new byte[8];
+ *   in.readFully(in.getLength() - 8, footer, 0, footer.length);
+ * }
+ * </pre>
+ *
+ * <p>As with the rest of HdfsClient, failures to read from DataNodes are thrown as unchecked {@link
+ * HdfsClientException}s. This class is thread-safe.
+ */
+public class HdfsInputStream extends InputStream {
+
+  private final HdfsFileReader reader;
+  private long position;
+  private boolean closed;
+
+  HdfsInputStream(HdfsFileReader reader) {
+    this.reader = reader;
+  }
+
+  /**
+   * Returns the length of the file in bytes.
+   *
+   * @return the file length
+   */
+  public long getLength() {
+    return reader.length();
+  }
+
+  /**
+   * Returns the current position in the file.
+   *
+   * @return the offset of the next byte read
+   */
+  public synchronized long getPosition() {
+    return position;
+  }
+
+  /**
+   * Moves the position to a file offset. Seeking beyond the end of the file is allowed; reads then
+   * return end of stream.
+   *
+   * @param newPosition the new position
+   * @throws IOException if the stream is closed
+   * @throws IllegalArgumentException if newPosition is negative
+   */
+  public synchronized void seek(long newPosition) throws IOException {
+    ensureOpen();
+    if (newPosition < 0) {
+      throw new IllegalArgumentException("Position cannot be negative: " + newPosition);
+    }
+    position = newPosition;
+  }
+
+  @Override
+  public synchronized int read() throws IOException {
+    byte[] b = new byte[1];
+    int n = read(b, 0, 1);
+    return n == -1 ? -1 : b[0] & 0xff;
+  }
+
+  @Override
+  public synchronized int read(byte[] b, int off, int len) throws IOException {
+    ensureOpen();
+    Objects.checkFromIndexSize(off, len, b.length);
+    if (len == 0) {
+      return 0;
+    }
+
+    int n = reader.read(position, ByteBuffer.wrap(b, off, len));
+    if (n > 0) {
+      position += n;
+    }
+    return n;
+  }
+
+  @Override
+  public synchronized long skip(long n) throws IOException {
+    ensureOpen();
+    long skipped = Math.max(0, Math.min(n, reader.length() - position));
+    position += skipped;
+    return skipped;
+  }
+
+  @Override
+  public synchronized int available() throws IOException {
+    ensureOpen();
+    return (int) Math.min(Integer.MAX_VALUE, Math.max(0, reader.length() - position));
+  }
+
+  /**
+   * Reads up to len bytes at a file offset without changing the position.
+   *
+   * @param filePosition the file offset to read from
+   * @param b the array to read into
+   * @param off the offset in the array
+   * @param len the maximum number of bytes to read
+   * @return the number of bytes read, or -1 if filePosition is at or beyond the end of the file
+   * @throws IOException if the stream is closed
+   */
+  public synchronized int read(long filePosition, byte[] b, int off, int len) throws IOException {
+    ensureOpen();
+    Objects.checkFromIndexSize(off, len, b.length);
+    if (filePosition < 0) {
+      throw new IllegalArgumentException("Position cannot be negative: " + filePosition);
+    }
+    if (len == 0) {
+      return 0;
+    }
+    return reader.pread(filePosition, b, off, len);
+  }
+
+  /**
+   * Reads exactly len bytes at a file offset without changing the position.
+   *
+   * @param filePosition the file offset to read from
+   * @param b the array to read into
+   * @param off the offset in the array
+   * @param len the number of bytes to read
+   * @throws EOFException if the file ends before len bytes have been read
+   * @throws IOException if the stream is closed
+   */
+  public synchronized void readFully(long filePosition, byte[] b, int off, int len)
+      throws IOException {
+    if (filePosition < 0 || filePosition > reader.length() - len) {
+      throw new EOFException(
+          "Cannot read " + len + " bytes at offset " + filePosition + " of " + reader.length());
+    }
+    read(filePosition, b, off, len);
+  }
+
+  @Override
+  public synchronized void close() {
+    if (!closed) {
+      closed = true;
+      reader.close();
+    }
+  }
+
+  private void ensureOpen() throws IOException {
+    if (closed) {
+      throw new IOException("Stream closed");
+    }
+  }
+}
@@ -0,0 +1,225 @@
+package io.valier.hdfs.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * OutputStream that writes a new HDFS file, returned by {@link HdfsClient#newOutputStream(String,
+ * WriteOptions)}.
+ *
+ * <p>The file is uploaded by a background thread running the block-by-block upload of {@link
+ * HdfsClient#copy(String, InputStream)}, which pulls from an InputStream. This stream hands the
+ * written bytes over to that thread in chunks through a bounded queue. Writers therefore wait once
+ * bufferSize bytes are queued, and the whole file is never held in memory. The file is completed
+ * when the stream is closed; a failed upload is thrown from the next write or from close.
+ */
+@Slf4j
+final class HdfsOutputStream extends OutputStream {
+
+  /** Size of the chunks handed over to the upload thread (64KB). */
+  private static final int CHUNK_SIZE = 65536;
+
+  /** Marks the end of the data in the chunk queue. */
+  private static final byte[] END = new byte[0];
+
+  /** How often a waiting writer checks for a failed upload. */
+  private static final long POLL_INTERVAL_MS = 100;
+
+  private static final AtomicInteger STREAM_COUNTER = new AtomicInteger();
+
+  /** Uploads the file from an InputStream. */
+  @FunctionalInterface
+  interface Uploader {
+    void upload(InputStream in) throws IOException;
+  }
+
+  private final BlockingQueue<byte[]> chunks;
+  private final Thread uploadThread;
+  private final int chunkSize;
+  private volatile Throwable failure;
+
+  // Writer state
+  private byte[] chunk;
+  private int chunkLength;
+  private boolean closed;
+
+  HdfsOutputStream(String hdfsPath, Uploader uploader, WriteOptions options) {
+    if (options.getBufferSize() < 1) {
+      throw new IllegalArgumentException(
+          "bufferSize must be at least 1: " + options.getBufferSize());
+    }
+    this.chunkSize = Math.min(CHUNK_SIZE, options.getBufferSize());
+    this.chunks = new ArrayBlockingQueue<>(Math.max(1, options.getBufferSize() / chunkSize));
+    this.chunk = new byte[chunkSize];
+
+    this.uploadThread =
+        new Thread(
+            () -> upload(hdfsPath, uploader),
+            "hdfs-output-stream-" + STREAM_COUNTER.incrementAndGet());
+    this.uploadThread.setDaemon(true);
+    this.uploadThread.start();
+  }
+
+  private void upload(String hdfsPath, Uploader uploader) {
+    try (ChunkInputStream in = new ChunkInputStream()) {
+      uploader.upload(in);
+    } catch (Throwable e) {
+      log.debug("Failed to upload {}", hdfsPath, e);
+      failure = e;
+
+      // Unblock a writer waiting for queue space
+      chunks.clear();
+    }
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    ensureOpen();
+    if (chunkLength == chunk.length) {
+      sendChunk();
+    }
+    chunk[chunkLength++] = (byte) b;
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    ensureOpen();
+    while (len > 0) {
+      if (chunkLength == chunk.length) {
+        sendChunk();
+      }
+      int n = Math.min(len, chunk.length - chunkLength);
+      System.arraycopy(b, off, chunk, chunkLength, n);
+      chunkLength += n;
+      off += n;
+      len -= n;
+    }
+  }
+
+  /** Hands any partially filled chunk over to the upload thread. */
+  @Override
+  public void flush() throws IOException {
+    ensureOpen();
+    if (chunkLength > 0) {
+      sendChunk();
+    }
+  }
+
+  /** Sends the remaining data and waits until the file has been uploaded and completed. */
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    flush();
+    closed = true;
+
+    enqueue(END);
+    try {
+      uploadThread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for the upload to complete");
+    }
+    checkFailure();
+  }
+
+  private void sendChunk() throws IOException {
+    byte[] full = chunkLength == chunk.length ? chunk : Arrays.copyOf(chunk, chunkLength);
+    enqueue(full);
+    chunk = new byte[chunkSize];
+    chunkLength = 0;
+  }
+
+  /** Queues a chunk, waiting for space while checking that the upload has not failed. */
+  private void enqueue(byte[] data) throws IOException {
+    try {
+      while (true) {
+        checkFailure();
+        if (chunks.offer(data, POLL_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+          return;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for the upload");
+    }
+  }
+
+  private void checkFailure() throws IOException {
+    Throwable e = failure;
+    if (e instanceof IOException) {
+      throw new IOException(e.getMessage(), e);
+    }
+    if (e instanceof RuntimeException) {
+      throw (RuntimeException) e;
+    }
+    if (e != null) {
+      throw new IOException("Upload failed", e);
+    }
+  }
+
+  private void ensureOpen() throws IOException {
+    if (closed) {
+      throw new IOException("Stream closed");
+    }
+    checkFailure();
+  }
+
+  /** Reads the queued chunks on the upload thread. */
+  private final class ChunkInputStream extends InputStream {
+
+    private byte[] current = new byte[0];
+    private int position;
+    private boolean ended;
+
+    @Override
+    public int read() throws IOException {
+      if (!ensureData()) {
+        return -1;
+      }
+      return current[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      if (!ensureData()) {
+        return -1;
+      }
+      int n = Math.min(len, current.length - position);
+      System.arraycopy(current, position, b, off, n);
+      position += n;
+      return n;
+    }
+
+    /** Takes the next chunk once the current one is consumed; false at the end of the data. */
+    private boolean ensureData() throws IOException {
+      while (!ended && position == current.length) {
+        try {
+          byte[] next = chunks.take();
+          if (next == END) {
+            ended = true;
+          } else {
+            current = next;
+            position = 0;
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException("Interrupted while waiting for data");
+        }
+      }
+      return !ended;
+    }
+  }
+}
@@ -0,0 +1,84 @@
+package io.valier.hdfs.client;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * Read-only SeekableByteChannel over an HDFS file. Reads go through an {@link HdfsFileReader}, so
+ * sequential reads are buffered per DataNode request and repositioning is free until the next read.
+ * Writing and truncating are not supported.
+ */
+final class HdfsSeekableByteChannel implements SeekableByteChannel {
+
+  private final HdfsFileReader reader;
+  private long position;
+  private boolean open = true;
+
+  HdfsSeekableByteChannel(HdfsFileReader reader) {
+    this.reader = reader;
+  }
+
+  @Override
+  public synchronized int read(ByteBuffer dst) throws IOException {
+    ensureOpen();
+    int n = reader.read(position, dst);
+    if (n > 0) {
+      position += n;
+    }
+    return n;
+  }
+
+  @Override
+  public int write(ByteBuffer src) {
+    throw new NonWritableChannelException();
+  }
+
+  @Override
+  public synchronized long position() throws IOException {
+    ensureOpen();
+    return position;
+  }
+
+  @Override
+  public synchronized SeekableByteChannel position(long newPosition) throws IOException {
+    ensureOpen();
+    if (newPosition < 0) {
+      throw new IllegalArgumentException("Position cannot be negative: " + newPosition);
+    }
+    position = newPosition;
+    return this;
+  }
+
+  @Override
+  public synchronized long size() throws IOException {
+    ensureOpen();
+    return reader.length();
+  }
+
+  @Override
+  public SeekableByteChannel truncate(long size) {
+    throw new NonWritableChannelException();
+  }
+
+  @Override
+  public synchronized boolean isOpen() {
+    return open;
+  }
+
+  @Override
+  public synchronized void close() {
+    if (open) {
+      open = false;
+      reader.close();
+    }
+  }
+
+  private void ensureOpen() throws ClosedChannelException {
+    if (!open) {
+      throw new ClosedChannelException();
+    }
+  }
+}
@@ -0,0 +1,232 @@
+package io.valier.hdfs.client;
+
+import io.valier.hdfs.client.ex.HdfsClientException;
+import io.valier.hdfs.crt.HdfsPaths;
+import io.valier.hdfs.nn.HdfsFileSummary;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Walks an HDFS directory tree by listing directories concurrently.
+ *
+ * <p>Each directory found is queued as a task for a fixed pool of worker threads, so up to {@link
+ * WalkOptions#getParallelism()} paged listings are in flight at any time. Workers hand entries to
+ * the consumer through a bounded buffer as soon as they are read, so the first results are
+ * available long before the walk completes and memory use is bounded by the buffer and the queue of
+ * directories still to be listed. Entries are returned in no particular order.
+ *
+ * <p>The walk finishes once every queued directory has been listed; closing the stream before that
+ * stops the workers. The first listing failure ends the walk and is thrown to the consumer.
+ */
+@Slf4j
+final class HdfsTreeWalker implements Iterator<HdfsFileSummary> {
+
+  /** Marks the end of the walk in the result buffer. */
+  private static final Object END = new Object();
+
+  /** How often a waiting consumer checks for a failed walk. */
+  private static final long POLL_INTERVAL_MS = 100;
+
+  private static final AtomicInteger WALK_COUNTER = new AtomicInteger();
+
+  private final HdfsClient hdfsClient;
+  private final String rootPath;
+  private final int maxDepth;
+  private final WalkOptions options;
+  private final ExecutorService executor;
+  private final BlockingQueue<Object> results;
+  private final AtomicInteger pendingDirectories = new AtomicInteger();
+  private volatile RuntimeException failure;
+  private volatile boolean closed;
+
+  // Consumer state
+  private Object next;
+
+  private HdfsTreeWalker(
+      HdfsClient hdfsClient, String rootPath, int maxDepth, WalkOptions options) {
+    this.hdfsClient = hdfsClient;
+    this.rootPath = rootPath;
+    this.maxDepth = maxDepth;
+    this.options = options;
+    this.results = new ArrayBlockingQueue<>(options.getBufferSize());
+
+    String threadPrefix = "hdfs-walk-" + WALK_COUNTER.incrementAndGet() + "-";
+    AtomicInteger threadCounter = new AtomicInteger();
+    this.executor =
+        Executors.newFixedThreadPool(
+            options.getParallelism(),
+            r -> {
+              Thread t = new Thread(r, threadPrefix + threadCounter.incrementAndGet());
+              t.setDaemon(true);
+              return t;
+            });
+  }
+
+  /**
+   * Starts walking the tree below a directory.
+   *
+   * <p>The root directory is listed before this method returns, so errors such as a missing root
+   * are thrown from here rather than from the returned stream.
+   *
+   * @param hdfsClient the client used to list directories
+   * @param rootPath the directory to walk
+   * @param maxDepth the maximum number of directory levels to visit; entries of the root directory
+   *     are at depth 1
+   * @param options the walk options
+   * @return a stream of the entries below the root, each with its full path
+   */
+  static Stream<HdfsFileSummary> walk(
+      HdfsClient hdfsClient, String rootPath, int maxDepth, WalkOptions options) {
+    if (maxDepth < 0) {
+      throw new IllegalArgumentException("maxDepth must not be negative: " + maxDepth);
+    }
+    if (options.getParallelism() < 1) {
+      throw new IllegalArgumentException(
+          "parallelism must be at least 1: " + options.getParallelism());
+    }
+    if (options.getBufferSize() < 1) {
+      throw new IllegalArgumentException(
+          "bufferSize must be at least 1: " + options.getBufferSize());
+    }
+    if (maxDepth == 0) {
+      return Stream.empty();
+    }
+
+    Stream<HdfsFileSummary> rootListing = hdfsClient.list(rootPath, options.getListOptions());
+
+    HdfsTreeWalker walker = new HdfsTreeWalker(hdfsClient, rootPath, maxDepth, options);
+    walker.submitDirectory(rootPath, 1, rootListing);
+
+    return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(walker, Spliterator.NONNULL), false)
+        .onClose(walker::close);
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (next == null) {
+      next = takeNext();
+    }
+    return next != END;
+  }
+
+  @Override
+  public HdfsFileSummary next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    HdfsFileSummary entry = (HdfsFileSummary) next;
+    next = null;
+    return entry;
+  }
+
+  /** Stops the walk, interrupting workers that are still listing directories. */
+  private void close() {
+    closed = true;
+    executor.shutdownNow();
+  }
+
+  /** Waits for the next entry or the end of the walk, throwing the walk's failure if it failed. */
+  private Object takeNext() {
+    try {
+      while (true) {
+        if (failure != null) {
+          throw new HdfsClientException("Failed to walk HDFS path: " + rootPath, failure);
+        }
+        if (closed) {
+          throw new IllegalStateException("Walk of " + rootPath + " was closed");
+        }
+
+        Object item = results.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        if (item != null) {
+          return item;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      close();
+      throw new HdfsClientException("Interrupted while walking HDFS path: " + rootPath, e);
+    }
+  }
+
+  /** Queues a directory to be listed, using the given listing if it was already started. */
+  private void submitDirectory(String path, int depth, Stream<HdfsFileSummary> listing) {
+    pendingDirectories.incrementAndGet();
+    try {
+      executor.execute(() -> listDirectory(path, depth, listing));
+    } catch (RejectedExecutionException e) {
+      // The walk was closed or failed; the directory is dropped
+      pendingDirectories.decrementAndGet();
+      if (listing != null) {
+        listing.close();
+      }
+    }
+  }
+
+  /** Lists one directory, passing its entries to the consumer and queueing its subdirectories. */
+  private void listDirectory(String path, int depth, Stream<HdfsFileSummary> listing) {
+    try (Stream<HdfsFileSummary> entries =
+        listing != null ? listing : hdfsClient.list(path, options.getListOptions())) {
+      Iterator<HdfsFileSummary> iterator = entries.iterator();
+      while (!closed && failure == null && iterator.hasNext()) {
+        HdfsFileSummary entry = iterator.next();
+
+        // Listings carry names relative to the listed directory
+        String entryPath = HdfsPaths.get(path, entry.getName());
+        HdfsFileSummary resolved = entry.toBuilder().path(entryPath).build();
+        results.put(resolved);
+
+        if (resolved.isDirectory()
+            && depth < maxDepth
+            && options.getDirectoryFilter().test(resolved)) {
+          submitDirectory(resolved.getPath(), depth + 1, null);
+        }
+      }
+    } catch (InterruptedException e) {
+      // The walk was closed while this worker waited for the consumer
+      Thread.currentThread().interrupt();
+    } catch (RuntimeException e) {
+      log.debug("Failed to list {} while walking {}", path, rootPath, e);
+      fail(e);
+    } finally {
+      if (pendingDirectories.decrementAndGet() == 0) {
+        finish();
+      }
+    }
+  }
+
+  /** Records the first failure and stops the remaining workers. */
+  private void fail(RuntimeException e) {
+    synchronized (this) {
+      if (failure == null) {
+        failure = e;
+      }
+    }
+    executor.shutdownNow();
+  }
+
+  /** Signals the end of the walk once the last directory has been listed. */
+  private void finish() {
+    executor.shutdown();
+    if (closed || failure != null) {
+      return;
+    }
+    try {
+      results.put(END);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
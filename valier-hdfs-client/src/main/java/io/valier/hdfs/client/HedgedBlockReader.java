@@ -0,0 +1,230 @@
+package io.valier.hdfs.client;
+
+import io.valier.hdfs.client.ex.HdfsClientException;
+import io.valier.hdfs.dn.DataNodeClient;
+import io.valier.hdfs.dn.LocatedBlock;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reads blocks with hedged requests, so that a slow replica does not stall the read.
+ *
+ * <p>Each block is read in chunks of chunkSize bytes. A chunk is first requested from one replica;
+ * if it has not arrived within thresholdMs, the same chunk is also requested from the next replica,
+ * and so on, and whichever copy arrives first is written to the output. The other requests are
+ * cancelled: their connections are dropped when their next packet arrives. A replica that fails
+ * outright is replaced by the next one without waiting for the threshold.
+ *
+ * <p>Chunks are buffered in memory before they are written, so a request abandoned part way never
+ * leaves partial data in the output. Memory use is bounded by chunkSize times the number of
+ * replicas of a block.
+ *
+ * <p>Requests run on an executor shared by every hedged read of a client, created with {@link
+ * #newExecutor}; when all of its threads are busy, requests wait for a free one.
+ */
+@Slf4j
+final class HedgedBlockReader {
+
+  /** Default number of bytes requested per hedged DataNode read (4MB). */
+  static final int DEFAULT_CHUNK_SIZE = 4194304;
+
+  /** Seconds after which an idle thread of a hedged read executor exits. */
+  private static final long IDLE_THREAD_TIMEOUT_SECONDS = 60;
+
+  private static final AtomicInteger EXECUTOR_COUNTER = new AtomicInteger();
+
+  private final DataNodeClientProvider dataNodeClientProvider;
+  private final long thresholdMs;
+  private final int chunkSize;
+  private final Executor executor;
+
+  HedgedBlockReader(
+      DataNodeClientProvider dataNodeClientProvider,
+      long thresholdMs,
+      int chunkSize,
+      Executor executor) {
+    if (thresholdMs < 1) {
+      throw new IllegalArgumentException("thresholdMs must be at least 1: " + thresholdMs);
+    }
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException("chunkSize must be at least 1: " + chunkSize);
+    }
+    this.dataNodeClientProvider = dataNodeClientProvider;
+    this.thresholdMs = thresholdMs;
+    this.chunkSize = chunkSize;
+    this.executor = executor;
+  }
+
+  /**
+   * Creates an executor for the requests of hedged reads, with at most the given number of daemon
+   * threads. Threads are started as requests arrive and exit once idle for a minute, so the
+   * executor holds no threads between reads and needs no shutdown.
+   *
+   * @param threads the maximum number of requests running at once
+   * @return the executor
+   */
+  static ExecutorService newExecutor(int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("threads must be at least 1: " + threads);
+    }
+    String threadPrefix = "hdfs-hedged-read-" + EXECUTOR_COUNTER.incrementAndGet() + "-";
+    AtomicInteger threadCounter = new AtomicInteger();
+    ThreadPoolExecutor executor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            IDLE_THREAD_TIMEOUT_SECONDS,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            r -> {
+              Thread t = new Thread(r, threadPrefix + threadCounter.incrementAndGet());
+              t.setDaemon(true);
+              return t;
+            });
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  /**
+   * Reads a whole block into an OutputStream.
+   *
+   * @param block the block to read
+   * @param out the stream to write the block's data to
+   * @throws IOException if writing to the stream fails or the read is interrupted
+   */
+  void read(LocatedBlock block, OutputStream out) throws IOException {
+    for (long offset = 0; offset < block.getLength(); offset += chunkSize) {
+      int length = (int) Math.min(chunkSize, block.getLength() - offset);
+      out.write(readChunk(block, offset, length));
+    }
+  }
+
+  /** Reads a chunk of a block, hedging across its replicas. */
+  private byte[] readChunk(LocatedBlock block, long offsetInBlock, int length)
+      throws InterruptedIOException {
+    List<String> hosts = block.getHosts();
+    BlockingQueue<Attempt> finished = new LinkedBlockingQueue<>();
+    List<Attempt> running = new ArrayList<>();
+    int nextHost = 0;
+    Exception lastFailure = null;
+
+    try {
+      while (true) {
+        if (running.isEmpty()) {
+          if (nextHost >= hosts.size()) {
+            throw new HdfsClientException(
+                "Failed to read block " + block.getBlockId() + " from any DataNode host",
+                lastFailure);
+          }
+          running.add(start(block, hosts.get(nextHost++), offsetInBlock, length, finished));
+        }
+
+        // Wait for the running requests, but only up to the threshold while a replica is left
+        Attempt done =
+            nextHost < hosts.size()
+                ? finished.poll(thresholdMs, TimeUnit.MILLISECONDS)
+                : finished.take();
+        if (done == null) {
+          log.debug(
+              "Read of block {} at offset {} exceeded {} ms, hedging to host {}",
+              block.getBlockId(),
+              offsetInBlock,
+              thresholdMs,
+              hosts.get(nextHost));
+          running.add(start(block, hosts.get(nextHost++), offsetInBlock, length, finished));
+          continue;
+        }
+
+        running.remove(done);
+        if (done.failure == null) {
+          return done.target.array;
+        }
+        log.debug(
+            "Failed to read block {} from host {}", block.getBlockId(), done.host, done.failure);
+        lastFailure = done.failure;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while reading block " + block.getBlockId());
+    } finally {
+      running.forEach(attempt -> attempt.target.cancel());
+    }
+  }
+
+  /** Starts reading a chunk from one host on a worker thread. */
+  private Attempt start(
+      LocatedBlock block,
+      String host,
+      long offsetInBlock,
+      int length,
+      BlockingQueue<Attempt> finished) {
+    Attempt attempt = new Attempt(host, new ChunkOutputStream(length));
+    executor.execute(
+        () -> {
+          try (DataNodeClient dataNodeClient = dataNodeClientProvider.getClient(host)) {
+            dataNodeClient.read(block, offsetInBlock, length, attempt.target);
+          } catch (Exception e) {
+            attempt.failure = e;
+          }
+          finished.add(attempt);
+        });
+    return attempt;
+  }
+
+  /** A request for a chunk from one host. */
+  private static final class Attempt {
+
+    private final String host;
+    private final ChunkOutputStream target;
+    private volatile Exception failure;
+
+    Attempt(String host, ChunkOutputStream target) {
+      this.host = host;
+      this.target = target;
+    }
+  }
+
+  /** Collects a chunk in memory, failing the request that writes to it once cancelled. */
+  private static final class ChunkOutputStream extends OutputStream {
+
+    private final byte[] array;
+    private int count;
+    private volatile boolean cancelled;
+
+    ChunkOutputStream(int length) {
+      this.array = new byte[length];
+    }
+
+    void cancel() {
+      cancelled = true;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      if (cancelled) {
+        throw new IOException("Hedged read cancelled");
+      }
+      if (len > array.length - count) {
+        throw new IOException("DataNode returned more data than requested");
+      }
+      System.arraycopy(b, off, array, count, len);
+      count += len;
+    }
+  }
+}
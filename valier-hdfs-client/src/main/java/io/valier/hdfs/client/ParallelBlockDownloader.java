@@ -0,0 +1,283 @@
+package io.valier.hdfs.client;
+
+import io.valier.hdfs.client.ex.HdfsClientException;
+import io.valier.hdfs.dn.DataNodeClient;
+import io.valier.hdfs.dn.LocatedBlock;
+import io.valier.hdfs.dn.LocatedFile;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Downloads the blocks of a single file concurrently.
+ *
+ * <p>Each block is read by a worker thread over its own DataNode connection. Concurrent blocks
+ * start from different healthy replicas, so a file whose blocks are spread over many DataNodes is
+ * read from several of them at once; a block falls back to its other replicas if one fails, trying
+ * blacklisted replicas last.
+ *
+ * <p>Blocks are either written in place into a FileChannel at their offsets within the file,
+ * straight from the DataNode clients' receive buffers, or buffered in memory and written to an
+ * OutputStream in file order. In the latter case, blocks are only downloaded ahead of the stream as
+ * far as the memory budget allows.
+ */
+@Slf4j
+final class ParallelBlockDownloader {
+
+  private static final AtomicInteger DOWNLOAD_COUNTER = new AtomicInteger();
+
+  /** Size of the slices a block is read into a FileChannel in to report progress (4MB). */
+  private static final long PROGRESS_SLICE_SIZE = 4L * 1024 * 1024;
+
+  private final DataNodeClientProvider dataNodeClientProvider;
+  private final ParallelDownloadOptions options;
+  private final DataNodeHealthRegistry healthRegistry;
+
+  ParallelBlockDownloader(
+      DataNodeClientProvider dataNodeClientProvider,
+      ParallelDownloadOptions options,
+      DataNodeHealthRegistry healthRegistry) {
+    if (options.getParallelism() < 1) {
+      throw new IllegalArgumentException(
+          "parallelism must be at least 1: " + options.getParallelism());
+    }
+    this.dataNodeClientProvider = dataNodeClientProvider;
+    this.options = options;
+    this.healthRegistry = healthRegistry;
+  }
+
+  /**
+   * Downloads all blocks of a file into a FileChannel, writing each block at its offset.
+   *
+   * @param locatedFile the file to download
+   * @param channel the channel to write to, which must be writable
+   * @throws IOException if writing to the channel fails
+   */
+  void download(LocatedFile locatedFile, FileChannel channel) throws IOException {
+    List<LocatedBlock> blocks = locatedFile.getLocatedBlocks();
+    if (blocks.isEmpty()) {
+      return;
+    }
+
+    ExecutorService executor = newExecutor(Math.min(parallelism(blocks), blocks.size()));
+    try {
+      List<Future<?>> futures = new ArrayList<>(blocks.size());
+      for (int i = 0; i < blocks.size(); i++) {
+        LocatedBlock block = blocks.get(i);
+        int blockIndex = i;
+        futures.add(
+            executor.submit(
+                () -> {
+                  readBlock(block, blockIndex, new ChannelBlockRead(block, channel));
+                  return null;
+                }));
+      }
+
+      for (Future<?> future : futures) {
+        await(future);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Downloads all blocks of a file and writes them to an OutputStream in file order.
+   *
+   * @param locatedFile the file to download
+   * @param outputStream the stream to write to
+   * @throws IOException if writing to the stream fails
+   */
+  void download(LocatedFile locatedFile, OutputStream outputStream) throws IOException {
+    List<LocatedBlock> blocks = locatedFile.getLocatedBlocks();
+    if (blocks.isEmpty()) {
+      return;
+    }
+
+    // Number of blocks that may be buffered at once, bounded by the memory budget
+    long maxBlockLength = blocks.stream().mapToLong(LocatedBlock::getLength).max().orElse(1L);
+    long budgetedBlocks = options.getMemoryBudgetBytes() / Math.max(1L, maxBlockLength);
+    int window = (int) Math.max(1L, Math.min(blocks.size(), budgetedBlocks));
+
+    ExecutorService executor = newExecutor(Math.min(parallelism(blocks), window));
+    try {
+      List<Future<BlockBuffer>> futures = new ArrayList<>(blocks.size());
+      for (int i = 0; i < blocks.size(); i++) {
+        // Keep up to window blocks downloading or buffered ahead of the one being written
+        while (futures.size() < blocks.size() && futures.size() < i + window) {
+          LocatedBlock block = blocks.get(futures.size());
+          int blockIndex = futures.size();
+          futures.add(
+              executor.submit(
+                  () -> {
+                    BlockBuffer buffer = new BlockBuffer(block.getLength());
+                    readBlock(
+                        block,
+                        blockIndex,
+                        dataNodeClient -> dataNodeClient.copy(block, buffer.reset()));
+                    return buffer;
+                  }));
+        }
+
+        BlockBuffer buffer = await(futures.get(i));
+        futures.set(i, null);
+        buffer.writeTo(outputStream, options.getProgressListener());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /** Returns the number of blocks to download at once, one for files below the threshold. */
+  private int parallelism(List<LocatedBlock> blocks) {
+    long fileLength = 0;
+    for (LocatedBlock block : blocks) {
+      fileLength += block.getLength();
+    }
+    return fileLength < options.getParallelThresholdBytes() ? 1 : options.getParallelism();
+  }
+
+  /**
+   * Reads a block with one attempt per replica in turn until one succeeds. The first replica tried
+   * depends on the block index, to spread concurrent blocks over the DataNodes that are not
+   * blacklisted.
+   */
+  private void readBlock(LocatedBlock block, int blockIndex, BlockRead blockRead)
+      throws IOException {
+    for (String host :
+        DataNodeHealthRegistry.spreadHosts(healthRegistry, block.getHosts(), blockIndex)) {
+      try (DataNodeClient dataNodeClient = dataNodeClientProvider.getClient(host)) {
+        blockRead.readFrom(dataNodeClient);
+        return;
+      } catch (IOException e) {
+        // Writing to the destination failed; another replica would fail the same way
+        throw e;
+      } catch (Exception e) {
+        // Try next host if this one fails
+        log.debug("Failed to read block {} from host {}", block.getBlockId(), host, e);
+      }
+    }
+
+    throw new HdfsClientException(
+        "Failed to read block " + block.getBlockId() + " from any DataNode host");
+  }
+
+  private ExecutorService newExecutor(int threads) {
+    String threadPrefix = "hdfs-block-download-" + DOWNLOAD_COUNTER.incrementAndGet() + "-";
+    AtomicInteger threadCounter = new AtomicInteger();
+    return Executors.newFixedThreadPool(
+        threads,
+        r -> {
+          Thread t = new Thread(r, threadPrefix + threadCounter.incrementAndGet());
+          t.setDaemon(true);
+          return t;
+        });
+  }
+
+  /** Waits for a block download, rethrowing its failure. */
+  private static <T> T await(Future<T> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while downloading blocks");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new HdfsClientException("Block download failed", cause);
+    }
+  }
+
+  /** Makes one attempt at reading a block. */
+  @FunctionalInterface
+  private interface BlockRead {
+    void readFrom(DataNodeClient dataNodeClient) throws IOException;
+  }
+
+  /**
+   * Reads a block into a FileChannel at the block's offset within the file. With a progress
+   * listener, the block is read in slices, each reported once written; an attempt on another
+   * replica resumes after the slices already written.
+   */
+  private final class ChannelBlockRead implements BlockRead {
+
+    private final LocatedBlock block;
+    private final FileChannel channel;
+    private long done;
+
+    ChannelBlockRead(LocatedBlock block, FileChannel channel) {
+      this.block = block;
+      this.channel = channel;
+    }
+
+    @Override
+    public void readFrom(DataNodeClient dataNodeClient) throws IOException {
+      IntConsumer progressListener = options.getProgressListener();
+      long sliceSize = progressListener != null ? PROGRESS_SLICE_SIZE : block.getLength();
+      while (done < block.getLength()) {
+        long length = Math.min(sliceSize, block.getLength() - done);
+        dataNodeClient.read(block, done, length, channel, block.getOffset() + done);
+        done += length;
+        if (progressListener != null) {
+          progressListener.accept((int) length);
+        }
+      }
+    }
+  }
+
+  /** In-memory buffer holding one block until all blocks before it have been written. */
+  private static final class BlockBuffer extends OutputStream {
+
+    private final byte[] data;
+    private int length;
+
+    BlockBuffer(long blockLength) {
+      if (blockLength > Integer.MAX_VALUE - 8) {
+        throw new HdfsClientException("Block too large to buffer in memory: " + blockLength);
+      }
+      this.data = new byte[(int) blockLength];
+    }
+
+    /** Discards data from a failed attempt and returns this buffer for the next one. */
+    BlockBuffer reset() {
+      length = 0;
+      return this;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      if (len > data.length - length) {
+        throw new IOException("DataNode returned more data than the block length " + data.length);
+      }
+      System.arraycopy(b, off, data, length, len);
+      length += len;
+    }
+
+    void writeTo(OutputStream out, IntConsumer progressListener) throws IOException {
+      out.write(data, 0, length);
+      if (progressListener != null) {
+        progressListener.accept(length);
+      }
+    }
+  }
+}
@@ -0,0 +1,61 @@
+package io.valier.hdfs.client;
+
+import java.util.function.IntConsumer;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Options controlling a parallel multi-block download of a single file.
+ *
+ * <p>Example usage:
+ *
+ * <pre>
+ * ParallelDownloadOptions options = ParallelDownloadOptions.builder()
+ *     .parallelism(8)
+ *     .memoryBudgetBytes(512L * 1024 * 1024)
+ *     .build();
+ *
+ * try (FileChannel channel = FileChannel.open(localPath, CREATE, WRITE, TRUNCATE_EXISTING)) {
+ *   hdfsClient.copy("/data/large-file.bin", channel, options);
+ * }
+ * </pre>
+ */
+@Value
+@Builder(toBuilder = true)
+public class ParallelDownloadOptions {
+
+  /** Options used by default: four concurrent blocks and a 512MB memory budget. */
+  public static final ParallelDownloadOptions DEFAULT = ParallelDownloadOptions.builder().build();
+
+  /**
+   * Maximum number of blocks downloaded concurrently, each from its own DataNode connection.
+   *
+   * <p>Default: 4
+   */
+  @Builder.Default int parallelism = 4;
+
+  /**
+   * Minimum length in bytes of a file for its blocks to be downloaded concurrently. A shorter file
+   * is downloaded one block after another, as with a parallelism of 1. The length is taken from the
+   * block locations the download looks up anyway, so no separate lookup is needed to choose.
+   *
+   * <p>Default: 0 (every file)
+   */
+  @Builder.Default long parallelThresholdBytes = 0;
+
+  /**
+   * Maximum number of bytes of block data held in memory when downloading to an OutputStream, where
+   * blocks downloaded ahead of the stream are buffered until all blocks before them have been
+   * written. At least one block is always buffered, whatever the budget. Downloads to a FileChannel
+   * write every block in place and buffer nothing.
+   *
+   * <p>Default: 536870912 (512MB, four 128MB blocks)
+   */
+  @Builder.Default long memoryBudgetBytes = 536870912L;
+
+  /**
+   * Optional listener notified with the number of bytes written after every write to the
+   * destination. It may be called from several threads concurrently.
+   */
+  IntConsumer progressListener;
+}
@@ -0,0 +1,142 @@
+package io.valier.hdfs.client;
+
+import io.valier.hdfs.dn.ChecksumType;
+import io.valier.hdfs.dn.DataNodeClient;
+import io.valier.hdfs.dn.DataNodePeerCache;
+import io.valier.hdfs.dn.DefaultDataNodeClient;
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * DataNodeClientProvider that reuses DataNode connections across clients.
+ *
+ * <p>Like {@link DefaultDataNodeClientProvider}, each call to getClient() returns a new
+ * DefaultDataNodeClient, but all of them share a {@link DataNodePeerCache}. A client whose last
+ * operation was a complete block read returns its still-open connection to the cache when it is
+ * closed, and the next client for the same DataNode takes it from the cache instead of connecting
+ * again. Reading a multi-block file from one DataNode therefore connects once rather than once per
+ * block. Block writes still close their connection when they finish.
+ *
+ * <p>Example usage:
+ *
+ * <pre>
+ * try (PooledDataNodeClientProvider provider = PooledDataNodeClientProvider.builder()
+ *     .maxConnectionsPerHost(8)
+ *     .build()) {
+ *   HdfsClient hdfsClient = DefaultHdfsClient.builder()
+ *       .nameNodeClient(nameNodeClient)
+ *       .dataNodeClientProvider(provider)
+ *       .build();
+ *   ...
+ * }
+ * </pre>
+ *
+ * <p>Closing the provider closes every idle connection; clients still in use close their own.
+ */
+@Getter
+public class PooledDataNodeClientProvider implements DataNodeClientProvider, AutoCloseable {
+
+  /** DataNode port (9866 is the traditional HDFS DataNode data transfer port). */
+  private final int port;
+
+  /** Connection timeout in milliseconds for DataNode connections. */
+  private final int connectionTimeoutMs;
+
+  /** Socket read timeout in milliseconds for DataNode connections. */
+  private final int readTimeoutMs;
+
+  /** Maximum number of packets sent but not yet acknowledged while writing a block. */
+  private final int maxPacketsInFlight;
+
+  /** Checksum algorithm protecting the data of written blocks. */
+  private final ChecksumType checksumType;
+
+  /** Number of data bytes covered by each checksum of written blocks. */
+  private final int bytesPerChecksum;
+
+  /** Maximum number of idle connections kept per DataNode. */
+  private final int maxConnectionsPerHost;
+
+  /**
+   * Time in milliseconds after which an idle connection is closed. It should be shorter than the
+   * DataNode's keep-alive ({@code dfs.datanode.socket.reuse.keepalive}, 4000 by default), after
+   * which the DataNode closes its end.
+   */
+  private final long idleTimeoutMs;
+
+  /** Cache of idle connections shared by all clients of this provider. */
+  @Getter(AccessLevel.NONE)
+  private final DataNodePeerCache peerCache;
+
+  /**
+   * Creates a provider with its own connection cache.
+   *
+   * @param port DataNode port, 0 for the default of 9866
+   * @param connectionTimeoutMs connection timeout in milliseconds, 0 for the default of 5000
+   * @param readTimeoutMs socket read timeout in milliseconds, 0 for the default of 30000
+   * @param maxPacketsInFlight maximum unacknowledged packets per block write, 0 for the default of
+   *     80
+   * @param checksumType checksum algorithm of written blocks, null for the default of CRC32C
+   * @param bytesPerChecksum data bytes per checksum of written blocks, 0 for the default of 512
+   * @param maxConnectionsPerHost maximum idle connections kept per DataNode, 0 for the default of
+   *     16
+   * @param idleTimeoutMs idle connection timeout in milliseconds, 0 for the default of 3000
+   */
+  @Builder
+  public PooledDataNodeClientProvider(
+      int port,
+      int connectionTimeoutMs,
+      int readTimeoutMs,
+      int maxPacketsInFlight,
+      ChecksumType checksumType,
+      int bytesPerChecksum,
+      int maxConnectionsPerHost,
+      long idleTimeoutMs) {
+    this.port = port == 0 ? 9866 : port;
+    this.connectionTimeoutMs = connectionTimeoutMs == 0 ? 5000 : connectionTimeoutMs;
+    this.readTimeoutMs = readTimeoutMs == 0 ? 30000 : readTimeoutMs;
+    this.maxPacketsInFlight = maxPacketsInFlight == 0 ? 80 : maxPacketsInFlight;
+    this.checksumType = checksumType != null ? checksumType : ChecksumType.CRC32C;
+    this.bytesPerChecksum = bytesPerChecksum == 0 ? 512 : bytesPerChecksum;
+    this.maxConnectionsPerHost = maxConnectionsPerHost == 0 ? 16 : maxConnectionsPerHost;
+    this.idleTimeoutMs = idleTimeoutMs == 0 ? 3000L : idleTimeoutMs;
+    this.peerCache =
+        DataNodePeerCache.builder()
+            .maxConnectionsPerHost(this.maxConnectionsPerHost)
+            .idleTimeoutMs(this.idleTimeoutMs)
+            .build();
+  }
+
+  /**
+   * Creates a new DataNodeClient for the specified hostname that shares this provider's connection
+   * cache. Close the client after use so its connection can be reused.
+   *
+   * @param hostname the hostname of the DataNode to connect to
+   * @return a new DataNodeClient instance configured for the specified hostname
+   * @throws IllegalArgumentException if hostname is null or empty
+   */
+  @Override
+  public DataNodeClient getClient(String hostname) {
+    if (hostname == null || hostname.trim().isEmpty()) {
+      throw new IllegalArgumentException("Hostname cannot be null or empty");
+    }
+
+    return DefaultDataNodeClient.builder()
+        .hostname(hostname.trim())
+        .port(port)
+        .connectionTimeoutMs(connectionTimeoutMs)
+        .readTimeoutMs(readTimeoutMs)
+        .maxPacketsInFlight(maxPacketsInFlight)
+        .checksumType(checksumType)
+        .bytesPerChecksum(bytesPerChecksum)
+        .peerCache(peerCache)
+        .build();
+  }
+
+  /** Closes every idle connection in the cache. */
+  @Override
+  public void close() {
+    peerCache.close();
+  }
+}
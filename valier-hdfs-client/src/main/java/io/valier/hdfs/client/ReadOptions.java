@@ -0,0 +1,35 @@
+package io.valier.hdfs.client;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Options controlling how a file is read through {@link HdfsClient#newInputStream(String,
+ * ReadOptions)} or {@link HdfsClient#newByteChannel(String, ReadOptions)}.
+ *
+ * <p>Example usage:
+ *
+ * <pre>
+ * ReadOptions options = ReadOptions.builder().bufferSize(4 * 1024 * 1024).build();
+ *
+ * try (InputStream in = hdfsClient.newInputStream("/data/events.json", options)) {
+ *   objectMapper.readTree(in);
+ * }
+ * </pre>
+ */
+@Value
+@Builder(toBuilder = true)
+public class ReadOptions {
+
+  /** Options used by default: a 1MB read buffer. */
+  public static final ReadOptions DEFAULT = ReadOptions.builder().build();
+
+  /**
+   * Number of bytes fetched from a DataNode per request by sequential reads, which is also the
+   * memory held by the reader. Larger buffers mean fewer requests for sequential reads, but more
+   * unused data fetched by reads that seek around the file. Positional reads are not buffered.
+   *
+   * <p>Default: 1048576 (1MB)
+   */
+  @Builder.Default int bufferSize = HdfsFileReader.DEFAULT_BUFFER_SIZE;
+}
@@ -0,0 +1,48 @@
+package io.valier.hdfs.client;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Options controlling how {@link HdfsClient#readVectored} coalesces and parallelizes ranges.
+ *
+ * <p>Example usage:
+ *
+ * <pre>
+ * VectoredReadOptions options = VectoredReadOptions.builder()
+ *     .parallelism(8)
+ *     .maxMergeGap(64 * 1024)
+ *     .build();
+ * </pre>
+ */
+@Value
+@Builder(toBuilder = true)
+public class VectoredReadOptions {
+
+  /** Options used by default: four concurrent reads, merging ranges up to 16KB apart. */
+  public static final VectoredReadOptions DEFAULT = VectoredReadOptions.builder().build();
+
+  /**
+   * Maximum number of DataNode reads issued concurrently.
+   *
+   * <p>Default: 4
+   */
+  @Builder.Default int parallelism = 4;
+
+  /**
+   * Largest gap in bytes between two ranges of the same block that are still fetched with one
+   * DataNode read. The bytes in the gap are read and discarded, which is cheaper than another round
+   * trip for small gaps.
+   *
+   * <p>Default: 16384 (16KB)
+   */
+  @Builder.Default int maxMergeGap = 16384;
+
+  /**
+   * Maximum length in bytes of a DataNode read produced by merging ranges. A single range longer
+   * than this is still read in one request.
+   *
+   * <p>Default: 8388608 (8MB)
+   */
+  @Builder.Default int maxMergedSize = 8388608;
+}
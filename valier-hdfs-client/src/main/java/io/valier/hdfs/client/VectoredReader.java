@@ -0,0 +1,338 @@
+package io.valier.hdfs.client;
+
+import io.valier.hdfs.client.ex.HdfsClientException;
+import io.valier.hdfs.dn.DataNodeClient;
+import io.valier.hdfs.dn.LocatedBlock;
+import io.valier.hdfs.dn.LocatedFile;
+import java.io.EOFException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reads many scattered ranges of one file with as few DataNode reads as possible.
+ *
+ * <p>Each requested range is split at block boundaries into pieces. Pieces of the same block that
+ * are close together are merged into one ranged DataNode read, whose data is scattered straight
+ * into the callers' buffers, skipping the gaps. The merged reads run concurrently on an executor
+ * shared by every vectored read of a client, at most parallelism of them at once for one call, each
+ * starting from a different healthy replica of its block. A range's future completes once all of
+ * its pieces have been read.
+ */
+@Slf4j
+final class VectoredReader {
+
+  /** Seconds after which an idle thread of a vectored read executor exits. */
+  private static final long IDLE_THREAD_TIMEOUT_SECONDS = 60;
+
+  private static final AtomicInteger EXECUTOR_COUNTER = new AtomicInteger();
+
+  private final String hdfsPath;
+  private final DataNodeClientProvider dataNodeClientProvider;
+  private final VectoredReadOptions options;
+  private final DataNodeHealthRegistry healthRegistry;
+  private final Executor executor;
+
+  VectoredReader(
+      String hdfsPath,
+      DataNodeClientProvider dataNodeClientProvider,
+      VectoredReadOptions options,
+      DataNodeHealthRegistry healthRegistry,
+      Executor executor) {
+    if (options.getParallelism() < 1) {
+      throw new IllegalArgumentException(
+          "parallelism must be at least 1: " + options.getParallelism());
+    }
+    this.hdfsPath = hdfsPath;
+    this.dataNodeClientProvider = dataNodeClientProvider;
+    this.options = options;
+    this.healthRegistry = healthRegistry;
+    this.executor = executor;
+  }
+
+  /**
+   * Creates an executor for the merged reads of vectored reads, with at most the given number of
+   * daemon threads. Threads are started as reads arrive and exit once idle for a minute, so the
+   * executor holds no threads between reads and needs no shutdown.
+   *
+   * @param threads the maximum number of merged reads running at once
+   * @return the executor
+   */
+  static ExecutorService newExecutor(int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("threads must be at least 1: " + threads);
+    }
+    String threadPrefix = "hdfs-vectored-read-" + EXECUTOR_COUNTER.incrementAndGet() + "-";
+    AtomicInteger threadCounter = new AtomicInteger();
+    ThreadPoolExecutor executor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            IDLE_THREAD_TIMEOUT_SECONDS,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            r -> {
+              Thread t = new Thread(r, threadPrefix + threadCounter.incrementAndGet());
+              t.setDaemon(true);
+              return t;
+            });
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  /**
+   * Starts reading the ranges of a file.
+   *
+   * @param locatedFile the file's blocks
+   * @param fileLength the file's length
+   * @param ranges the ranges to read
+   * @param onReadFailure called when a read fails because of the block locations used
+   * @return one future per range, in the order of the ranges
+   */
+  List<CompletableFuture<ByteBuffer>> read(
+      LocatedFile locatedFile, long fileLength, List<FileRange> ranges, Runnable onReadFailure) {
+    List<CompletableFuture<ByteBuffer>> futures = new ArrayList<>(ranges.size());
+    List<Piece> pieces = new ArrayList<>();
+
+    for (FileRange range : ranges) {
+      CompletableFuture<ByteBuffer> future = new CompletableFuture<>();
+      futures.add(future);
+
+      if (range.getOffset() > fileLength - range.getLength()) {
+        future.completeExceptionally(
+            new EOFException(
+                "Range of "
+                    + range.getLength()
+                    + " bytes at offset "
+                    + range.getOffset()
+                    + " is beyond the end of "
+                    + hdfsPath));
+      } else if (range.getLength() == 0) {
+        future.complete(range.getBuffer());
+      } else {
+        pieces.addAll(split(range, future, locatedFile.getLocatedBlocks(), onReadFailure));
+      }
+    }
+
+    List<MergedRead> reads = merge(pieces);
+    if (reads.isEmpty()) {
+      return futures;
+    }
+
+    // Each worker takes the next merged read until none are left, so that one call never
+    // occupies more than parallelism threads of the shared executor
+    AtomicInteger nextRead = new AtomicInteger();
+    int workers = Math.min(options.getParallelism(), reads.size());
+    for (int i = 0; i < workers; i++) {
+      executor.execute(
+          () -> {
+            for (int readIndex = nextRead.getAndIncrement();
+                readIndex < reads.size();
+                readIndex = nextRead.getAndIncrement()) {
+              execute(reads.get(readIndex), readIndex, onReadFailure);
+            }
+          });
+    }
+    return futures;
+  }
+
+  /** Splits a range at block boundaries into pieces that share its completion tracking. */
+  private List<Piece> split(
+      FileRange range,
+      CompletableFuture<ByteBuffer> future,
+      List<LocatedBlock> blocks,
+      Runnable onReadFailure) {
+    RangeCompletion completion = new RangeCompletion(range, future);
+    List<Piece> pieces = new ArrayList<>();
+
+    long start = range.getOffset();
+    long end = range.getOffset() + range.getLength();
+    for (LocatedBlock block : blocks) {
+      long blockEnd = block.getOffset() + block.getLength();
+      long from = Math.max(start, block.getOffset());
+      long to = Math.min(end, blockEnd);
+      if (from < to) {
+        pieces.add(new Piece(block, from, (int) (to - from), completion));
+      }
+    }
+
+    long covered = pieces.stream().mapToLong(piece -> piece.length).sum();
+    if (covered != range.getLength()) {
+      onReadFailure.run();
+      future.completeExceptionally(
+          new HdfsClientException(
+              "No block of " + hdfsPath + " contains part of the range at offset " + start));
+      return new ArrayList<>();
+    }
+
+    completion.remainingPieces.set(pieces.size());
+    return pieces;
+  }
+
+  /** Merges pieces of the same block that are close enough into single DataNode reads. */
+  private List<MergedRead> merge(List<Piece> pieces) {
+    pieces.sort(
+        Comparator.comparingLong((Piece piece) -> piece.block.getOffset())
+            .thenComparingLong(piece -> piece.fileOffset));
+
+    List<MergedRead> reads = new ArrayList<>();
+    MergedRead current = null;
+    for (Piece piece : pieces) {
+      if (current != null && current.canAdd(piece)) {
+        current.add(piece);
+      } else {
+        current = new MergedRead(piece);
+        reads.add(current);
+      }
+    }
+    return reads;
+  }
+
+  /**
+   * Reads a merged range, trying each replica in turn, and completes its pieces. Blacklisted
+   * replicas are tried last.
+   */
+  private void execute(MergedRead read, int readIndex, Runnable onReadFailure) {
+    LocatedBlock block = read.block;
+    Exception lastFailure = null;
+
+    for (String host :
+        DataNodeHealthRegistry.spreadHosts(healthRegistry, block.getHosts(), readIndex)) {
+      try (DataNodeClient dataNodeClient = dataNodeClientProvider.getClient(host)) {
+        dataNodeClient.read(
+            block,
+            read.start - block.getOffset(),
+            read.end - read.start,
+            new ScatterOutputStream(read));
+        read.pieces.forEach(piece -> piece.completion.pieceRead());
+        return;
+      } catch (Exception e) {
+        // Try next host if this one fails; pieces are rewritten in place by the next attempt
+        log.debug("Failed to read block {} from host {}", block.getBlockId(), host, e);
+        lastFailure = e;
+      }
+    }
+
+    onReadFailure.run();
+    HdfsClientException failure =
+        new HdfsClientException(
+            "Failed to read block " + block.getBlockId() + " from any DataNode host", lastFailure);
+    read.pieces.forEach(piece -> piece.completion.future.completeExceptionally(failure));
+  }
+
+  /** Completes a range's future once all of its pieces have been read. */
+  private static final class RangeCompletion {
+
+    private final FileRange range;
+    private final CompletableFuture<ByteBuffer> future;
+    private final int bufferPosition;
+    private final AtomicInteger remainingPieces = new AtomicInteger();
+
+    RangeCompletion(FileRange range, CompletableFuture<ByteBuffer> future) {
+      this.range = range;
+      this.future = future;
+      this.bufferPosition = range.getBuffer().position();
+    }
+
+    void pieceRead() {
+      if (remainingPieces.decrementAndGet() == 0) {
+        ByteBuffer buffer = range.getBuffer();
+        buffer.position(bufferPosition + range.getLength());
+        future.complete(buffer);
+      }
+    }
+  }
+
+  /** The part of a range that lies within one block. */
+  private static final class Piece {
+
+    private final LocatedBlock block;
+    private final long fileOffset;
+    private final int length;
+    private final RangeCompletion completion;
+
+    Piece(LocatedBlock block, long fileOffset, int length, RangeCompletion completion) {
+      this.block = block;
+      this.fileOffset = fileOffset;
+      this.length = length;
+      this.completion = completion;
+    }
+
+    /** Copies the part of a chunk of file data that overlaps this piece into the range's buffer. */
+    void copyFrom(long chunkOffset, byte[] b, int off, int len) {
+      long from = Math.max(fileOffset, chunkOffset);
+      long to = Math.min(fileOffset + length, chunkOffset + len);
+      if (from >= to) {
+        return;
+      }
+
+      ByteBuffer target = completion.range.getBuffer().duplicate();
+      long offsetInRange = from - completion.range.getOffset();
+      target.position(completion.bufferPosition + (int) offsetInRange);
+      target.put(b, off + (int) (from - chunkOffset), (int) (to - from));
+    }
+  }
+
+  /** A single ranged DataNode read covering one or more pieces of the same block. */
+  private final class MergedRead {
+
+    private final LocatedBlock block;
+    private final List<Piece> pieces = new ArrayList<>();
+    private final long start;
+    private long end;
+
+    MergedRead(Piece first) {
+      this.block = first.block;
+      this.start = first.fileOffset;
+      this.end = first.fileOffset + first.length;
+      this.pieces.add(first);
+    }
+
+    boolean canAdd(Piece piece) {
+      long newEnd = Math.max(end, piece.fileOffset + piece.length);
+      return piece.block.getBlockId() == block.getBlockId()
+          && piece.fileOffset - end <= options.getMaxMergeGap()
+          && newEnd - start <= options.getMaxMergedSize();
+    }
+
+    void add(Piece piece) {
+      pieces.add(piece);
+      end = Math.max(end, piece.fileOffset + piece.length);
+    }
+  }
+
+  /** Routes the data of a merged read into the buffers of its pieces. */
+  private static final class ScatterOutputStream extends OutputStream {
+
+    private final MergedRead read;
+    private long position;
+
+    ScatterOutputStream(MergedRead read) {
+      this.read = read;
+      this.position = read.start;
+    }
+
+    @Override
+    public void write(int b) {
+      write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      for (Piece piece : read.pieces) {
+        piece.copyFrom(position, b, off, len);
+      }
+      position += len;
+    }
+  }
+}
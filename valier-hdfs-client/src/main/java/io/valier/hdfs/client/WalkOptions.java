@@ -0,0 +1,63 @@
+package io.valier.hdfs.client;
+
+import io.valier.hdfs.nn.HdfsFileSummary;
+import io.valier.hdfs.nn.ListOptions;
+import java.util.function.Predicate;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Options controlling a recursive walk of an HDFS directory tree with {@link HdfsClient#walk}.
+ *
+ * <p>Example usage:
+ *
+ * <pre>
+ * WalkOptions options = WalkOptions.builder()
+ *     .parallelism(16)
+ *     .listOptions(ListOptions.builder().includeBlockLocations(false).build())
+ *     .directoryFilter(dir -&gt; !dir.getName().startsWith("_"))
+ *     .build();
+ *
+ * try (Stream&lt;HdfsFileSummary&gt; files = hdfsClient.walk("/warehouse", 10, options)) {
+ *   files.filter(HdfsFileSummary::isFile).forEach(this::process);
+ * }
+ * </pre>
+ */
+@Value
+@Builder(toBuilder = true)
+public class WalkOptions {
+
+  /** Options used by default: eight concurrent listings and no pruning. */
+  public static final WalkOptions DEFAULT = WalkOptions.builder().build();
+
+  /**
+   * Maximum number of directories listed concurrently, each by its own worker thread.
+   *
+   * <p>Default: 8
+   */
+  @Builder.Default int parallelism = 8;
+
+  /**
+   * Maximum number of entries buffered ahead of the consumer. Workers wait for the consumer once
+   * the buffer is full, so a slow consumer bounds the memory used by the walk.
+   *
+   * <p>Default: 10000
+   */
+  @Builder.Default int bufferSize = 10_000;
+
+  /**
+   * Options for the listing of each directory. Walks that do not need block locations should
+   * disable them, which makes every listing considerably cheaper.
+   *
+   * <p>Default: {@link ListOptions#DEFAULT}
+   */
+  @Builder.Default ListOptions listOptions = ListOptions.DEFAULT;
+
+  /**
+   * Decides which subdirectories are descended into. A directory rejected by the filter is still
+   * returned by the walk, but its subtree is pruned and never listed.
+   *
+   * <p>Default: descend into every directory
+   */
+  @Builder.Default Predicate<HdfsFileSummary> directoryFilter = directory -> true;
+}
@@ -0,0 +1,52 @@
+package io.valier.hdfs.client;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Options controlling how a file is written through {@link HdfsClient#newOutputStream(String,
+ * WriteOptions)} and {@link HdfsClient#copy(String, java.io.InputStream, WriteOptions)}.
+ *
+ * <p>Example usage:
+ *
+ * <pre>
+ * WriteOptions options = WriteOptions.builder().bufferSize(16 * 1024 * 1024).build();
+ *
+ * try (OutputStream out = hdfsClient.newOutputStream("/data/export.csv", options)) {
+ *   csvWriter.writeAll(rows, out);
+ * }
+ * </pre>
+ *
+ * <p>Uploads of many small files can skip the existence lookup made before each file is created:
+ *
+ * <pre>
+ * WriteOptions fastCreate = WriteOptions.builder().checkExistence(false).build();
+ * hdfsClient.copy("/ingest/part-00042.json", inputStream, fastCreate);
+ * </pre>
+ */
+@Value
+@Builder(toBuilder = true)
+public class WriteOptions {
+
+  /** Options used by default: a 4MB write buffer and an existence lookup before creating. */
+  public static final WriteOptions DEFAULT = WriteOptions.builder().build();
+
+  /**
+   * Maximum number of bytes written to the stream but not yet sent to a DataNode. Writes to the
+   * stream wait once the buffer is full, so a slow upload bounds the memory used by the stream.
+   *
+   * <p>Default: 4194304 (4MB)
+   */
+  @Builder.Default int bufferSize = 4194304;
+
+  /**
+   * Whether the path is looked up before the file is created, to fail early if it already exists.
+   * When false, that NameNode round trip is skipped and an existing path is instead detected by the
+   * create call itself, which the NameNode rejects atomically without overwriting. Either way an
+   * existing path fails the write with an {@link
+   * io.valier.hdfs.client.ex.HdfsFileAlreadyExistsException}.
+   *
+   * <p>Default: true
+   */
+  @Builder.Default boolean checkExistence = true;
+}
@@ -0,0 +1,63 @@
+package io.valier.hdfs.client.ex;
+
+/**
+ * Runtime exception thrown when a file cannot be created because its path already exists.
+ *
+ * <p>This exception is thrown by the HDFS client when a write fails because the target path is
+ * already taken by a file or directory. It extends {@link HdfsClientException} to maintain
+ * consistency with the HDFS client exception hierarchy.
+ *
+ * <p>This exception wraps the underlying {@link
+ * io.valier.hdfs.nn.ex.HdfsFileAlreadyExistsException} from the NameNode client to provide a
+ * client-level abstraction.
+ *
+ * <p>Example usage:
+ *
+ * <pre>
+ * try {
+ *     hdfsClient.copy("/data/file.txt", inputStream);
+ * } catch (HdfsFileAlreadyExistsException e) {
+ *     // Handle existing file scenario
+ *     log.warn("HDFS path already exists: {}", e.getMessage());
+ * }
+ * </pre>
+ */
+public class HdfsFileAlreadyExistsException extends HdfsClientException {
+
+  private static final long serialVersionUID = 1L;
+
+  /** Constructs a new HDFS file already exists exception with no detail message. */
+  public HdfsFileAlreadyExistsException() {
+    super();
+  }
+
+  /**
+   * Constructs a new HDFS file already exists exception with the specified detail message.
+   *
+   * @param message the detail message explaining the reason for the exception
+   */
+  public HdfsFileAlreadyExistsException(String message) {
+    super(message);
+  }
+
+  /**
+   * Constructs a new HDFS file already exists exception with the specified detail message and
+   * cause.
+   *
+   * @param message the detail message explaining the reason for the exception
+   * @param cause the underlying cause of this exception (may be null)
+   */
+  public HdfsFileAlreadyExistsException(String message, Throwable cause) {
+    super(message, cause);
+  }
+
+  /**
+   * Constructs a new HDFS file already exists exception with the specified cause. The detail
+   * message will be derived from the cause's detail message.
+   *
+   * @param cause the underlying cause of this exception (may be null)
+   */
+  public HdfsFileAlreadyExistsException(Throwable cause) {
+    super(cause);
+  }
+}
@@ -0,0 +1,115 @@
+package io.valier.hdfs.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.valier.hdfs.dn.LocatedFile;
+import io.valier.hdfs.nn.HdfsFileSummary;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for BlockLocationCache. */
+class BlockLocationCacheTest {
+
+  @Test
+  void getReturnsCachedLocations() {
+    BlockLocationCache cache = BlockLocationCache.builder().build();
+    FileLocations locations = locations("/data/a", 1);
+
+    cache.put("/data/a", locations);
+
+    assertThat(cache.get("/data/a")).isSameAs(locations);
+    assertThat(cache.get("/data/b")).isNull();
+    assertThat(cache.getStats().getHitCount()).isEqualTo(1);
+    assertThat(cache.getStats().getMissCount()).isEqualTo(1);
+  }
+
+  @Test
+  void evictsLeastRecentlyUsedEntry() {
+    BlockLocationCache cache = BlockLocationCache.builder().maxEntries(2).build();
+    cache.put("/data/a", locations("/data/a", 1));
+    cache.put("/data/b", locations("/data/b", 2));
+
+    // Reading /data/a makes /data/b the least recently used entry
+    cache.get("/data/a");
+    cache.put("/data/c", locations("/data/c", 3));
+
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(cache.get("/data/b")).isNull();
+    assertThat(cache.get("/data/a")).isNotNull();
+    assertThat(cache.get("/data/c")).isNotNull();
+    assertThat(cache.getStats().getEvictionCount()).isEqualTo(1);
+  }
+
+  @Test
+  void expiredEntryIsNotReturned() throws InterruptedException {
+    BlockLocationCache cache = BlockLocationCache.builder().ttlMs(50).build();
+    cache.put("/data/a", locations("/data/a", 1));
+
+    Thread.sleep(100);
+
+    assertThat(cache.get("/data/a")).isNull();
+    assertThat(cache.size()).isZero();
+    assertThat(cache.getStats().getExpirationCount()).isEqualTo(1);
+    assertThat(cache.getStats().getMissCount()).isEqualTo(1);
+  }
+
+  @Test
+  void invalidateWithFileIdOnlyRemovesThatFile() {
+    BlockLocationCache cache = BlockLocationCache.builder().build();
+    cache.put("/data/a", locations("/data/a", 2));
+
+    // A failed read of a file that has since been replaced leaves the new file's entry alone
+    cache.invalidate("/data/a", 1);
+    assertThat(cache.get("/data/a")).isNotNull();
+
+    cache.invalidate("/data/a", 2);
+    assertThat(cache.get("/data/a")).isNull();
+    assertThat(cache.getStats().getInvalidationCount()).isEqualTo(1);
+  }
+
+  @Test
+  void invalidateTreeRemovesPathAndDescendantsOnly() {
+    BlockLocationCache cache = BlockLocationCache.builder().build();
+    for (String path : new String[] {"/data", "/data/a", "/data/sub/b", "/database", "/other"}) {
+      cache.put(path, locations(path, path.length()));
+    }
+
+    cache.invalidateTree("/data");
+
+    assertThat(cache.get("/data")).isNull();
+    assertThat(cache.get("/data/a")).isNull();
+    assertThat(cache.get("/data/sub/b")).isNull();
+    // A sibling sharing the name as a prefix is not below the directory
+    assertThat(cache.get("/database")).isNotNull();
+    assertThat(cache.get("/other")).isNotNull();
+    assertThat(cache.getStats().getInvalidationCount()).isEqualTo(3);
+  }
+
+  @Test
+  void invalidateTreeAcceptsTrailingSlash() {
+    BlockLocationCache cache = BlockLocationCache.builder().build();
+    cache.put("/data/a", locations("/data/a", 1));
+    cache.put("/database", locations("/database", 2));
+
+    cache.invalidateTree("/data/");
+
+    assertThat(cache.get("/data/a")).isNull();
+    assertThat(cache.get("/database")).isNotNull();
+  }
+
+  private static FileLocations locations(String path, long fileId) {
+    HdfsFileSummary fileSummary =
+        HdfsFileSummary.builder()
+            .path(path)
+            .fileId(fileId)
+            .blockLocations(Collections.emptyList())
+            .build();
+    LocatedFile locatedFile =
+        LocatedFile.builder()
+            .fileName(path)
+            .blockPoolId("BP-test")
+            .locatedBlocks(Collections.emptyList())
+            .build();
+    return new FileLocations(fileSummary, locatedFile);
+  }
+}
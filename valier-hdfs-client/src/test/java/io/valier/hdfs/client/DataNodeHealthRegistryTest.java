@@ -0,0 +1,132 @@
+package io.valier.hdfs.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for DataNodeHealthRegistry. */
+class DataNodeHealthRegistryTest {
+
+  private static final List<String> HOSTS = Arrays.asList("dn1", "dn2", "dn3", "dn4");
+
+  @Test
+  void failureBlacklistsHostUntilSuccess() {
+    DataNodeHealthRegistry registry = DataNodeHealthRegistry.builder().build();
+
+    registry.recordFailure("dn1");
+    assertThat(registry.isBlacklisted("dn1")).isTrue();
+    assertThat(registry.isBlacklisted("dn2")).isFalse();
+
+    registry.recordSuccess("dn1");
+    assertThat(registry.isBlacklisted("dn1")).isFalse();
+  }
+
+  @Test
+  void blacklistingExpiresAfterBackoff() throws InterruptedException {
+    DataNodeHealthRegistry registry =
+        DataNodeHealthRegistry.builder().baseBackoffMs(50).maxBackoffMs(1_000).build();
+
+    registry.recordFailure("dn1");
+    Thread.sleep(150);
+
+    assertThat(registry.isBlacklisted("dn1")).isFalse();
+  }
+
+  @Test
+  void backoffDoublesWithConsecutiveFailures() {
+    DataNodeHealthRegistry registry =
+        DataNodeHealthRegistry.builder().baseBackoffMs(10_000).maxBackoffMs(600_000).build();
+
+    // dn1 is blacklisted for 40 seconds and dn2 for 10, so dn2 is available again first
+    registry.recordFailure("dn1");
+    registry.recordFailure("dn1");
+    registry.recordFailure("dn1");
+    registry.recordFailure("dn2");
+
+    assertThat(registry.rankHosts(Arrays.asList("dn1", "dn2", "dn3")))
+        .containsExactly("dn3", "dn2", "dn1");
+  }
+
+  @Test
+  void backoffIsCappedAtMaximum() throws InterruptedException {
+    DataNodeHealthRegistry registry =
+        DataNodeHealthRegistry.builder().baseBackoffMs(50).maxBackoffMs(100).build();
+
+    // Ten consecutive failures would back off for 25 seconds without the cap
+    for (int i = 0; i < 10; i++) {
+      registry.recordFailure("dn1");
+    }
+    assertThat(registry.isBlacklisted("dn1")).isTrue();
+    Thread.sleep(250);
+
+    assertThat(registry.isBlacklisted("dn1")).isFalse();
+    assertThat(registry.getHostStats())
+        .singleElement()
+        .satisfies(
+            stats -> {
+              assertThat(stats.getConsecutiveFailures()).isEqualTo(10);
+              assertThat(stats.getTotalFailures()).isEqualTo(10);
+              assertThat(stats.isBlacklisted()).isFalse();
+            });
+  }
+
+  @Test
+  void rankKeepsNameNodeOrderForUnknownHosts() {
+    DataNodeHealthRegistry registry = DataNodeHealthRegistry.builder().build();
+
+    assertThat(registry.rankHosts(HOSTS)).containsExactlyElementsOf(HOSTS);
+  }
+
+  @Test
+  void rankMovesBlacklistedHostsLastKeepingTiesInOrder() {
+    DataNodeHealthRegistry registry = DataNodeHealthRegistry.builder().build();
+
+    registry.recordFailure("dn2");
+
+    assertThat(registry.rankHosts(HOSTS)).containsExactly("dn1", "dn3", "dn4", "dn2");
+  }
+
+  @Test
+  void rankOrdersHealthyHostsByLatency() {
+    DataNodeHealthRegistry registry = DataNodeHealthRegistry.builder().build();
+
+    registry.recordSuccess("dn1", 5_000_000L);
+    registry.recordSuccess("dn3", 1_000_000L);
+    registry.recordFailure("dn2");
+
+    // Unmeasured dn4 ranks first so that it gets measured
+    assertThat(registry.rankHosts(HOSTS)).containsExactly("dn4", "dn3", "dn1", "dn2");
+  }
+
+  @Test
+  void spreadHostsRotatesOnlyHealthyHosts() {
+    DataNodeHealthRegistry registry = DataNodeHealthRegistry.builder().build();
+    registry.recordFailure("dn4");
+    List<String> ranked = registry.rankHosts(HOSTS);
+
+    assertThat(DataNodeHealthRegistry.spreadHosts(registry, ranked, 0))
+        .containsExactly("dn1", "dn2", "dn3", "dn4");
+    assertThat(DataNodeHealthRegistry.spreadHosts(registry, ranked, 1))
+        .containsExactly("dn2", "dn3", "dn1", "dn4");
+    assertThat(DataNodeHealthRegistry.spreadHosts(registry, ranked, 5))
+        .containsExactly("dn3", "dn1", "dn2", "dn4");
+  }
+
+  @Test
+  void spreadHostsWithoutRegistryRotatesAllHosts() {
+    assertThat(DataNodeHealthRegistry.spreadHosts(null, HOSTS, 1))
+        .containsExactly("dn2", "dn3", "dn4", "dn1");
+    assertThat(DataNodeHealthRegistry.spreadHosts(null, Collections.emptyList(), 3)).isEmpty();
+  }
+
+  @Test
+  void rejectsMaximumBelowBase() {
+    assertThatThrownBy(
+            () -> DataNodeHealthRegistry.builder().baseBackoffMs(5_000).maxBackoffMs(1_000).build())
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
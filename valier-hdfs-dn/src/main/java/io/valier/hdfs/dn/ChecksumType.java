@@ -0,0 +1,30 @@
+package io.valier.hdfs.dn;
+
+import org.apache.hadoop.hdfs.protocol.proto.HdfsProtos.ChecksumTypeProto;
+
+/**
+ * Checksum algorithms that can protect the data of blocks written by this client.
+ *
+ * <p>HDFS clusters default to CRC32C since Hadoop 2, and most CPUs compute it with a dedicated
+ * instruction. CRC32 is only needed for compatibility with data written by old clients. Blocks are
+ * read back with whatever algorithm they were written with, so both can coexist in a cluster.
+ */
+public enum ChecksumType {
+
+  /** The CRC-32 polynomial used by java.util.zip. */
+  CRC32(ChecksumTypeProto.CHECKSUM_CRC32),
+
+  /** The Castagnoli CRC-32C polynomial, the HDFS default. */
+  CRC32C(ChecksumTypeProto.CHECKSUM_CRC32C);
+
+  private final ChecksumTypeProto proto;
+
+  ChecksumType(ChecksumTypeProto proto) {
+    this.proto = proto;
+  }
+
+  /** Returns the protocol value of this checksum type. */
+  ChecksumTypeProto toProto() {
+    return proto;
+  }
+}
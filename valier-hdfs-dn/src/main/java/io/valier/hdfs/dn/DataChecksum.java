@@ -0,0 +1,179 @@
+package io.valier.hdfs.dn;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+import java.util.zip.CRC32C;
+import java.util.zip.Checksum;
+import org.apache.hadoop.hdfs.protocol.proto.HdfsProtos.ChecksumProto;
+import org.apache.hadoop.hdfs.protocol.proto.HdfsProtos.ChecksumTypeProto;
+
+/**
+ * Per-chunk checksums of block data, as used by the data transfer protocol.
+ *
+ * <p>Block data is divided into chunks of bytesPerChecksum bytes, and each chunk has a 4-byte
+ * big-endian CRC32 or CRC32C checksum; the last chunk of a packet may be shorter. Both algorithms
+ * use the JDK's implementations, which the JIT compiles to hardware CRC instructions where
+ * available, for heap arrays and direct buffers alike.
+ *
+ * <p>The underlying Checksum is reset and reused for every chunk, so computing or verifying the
+ * checksums of a packet allocates nothing. This class is not thread-safe; use one instance per
+ * operation.
+ */
+final class DataChecksum {
+
+  /** Size in bytes of the checksum of one chunk. */
+  static final int CHECKSUM_SIZE = 4;
+
+  private final ChecksumTypeProto type;
+  private final int bytesPerChecksum;
+  private final Checksum checksum;
+
+  private DataChecksum(ChecksumTypeProto type, int bytesPerChecksum, Checksum checksum) {
+    this.type = type;
+    this.bytesPerChecksum = bytesPerChecksum;
+    this.checksum = checksum;
+  }
+
+  /**
+   * Creates the checksum described by a DataNode.
+   *
+   * @param proto the checksum type and chunk size
+   * @return the checksum, or null if the type is CHECKSUM_NULL
+   * @throws IllegalArgumentException if the type is not supported or the chunk size is invalid
+   */
+  static DataChecksum of(ChecksumProto proto) {
+    return of(proto.getType(), proto.getBytesPerChecksum());
+  }
+
+  /**
+   * Creates a checksum of a type and chunk size.
+   *
+   * @param type the checksum algorithm
+   * @param bytesPerChecksum the number of data bytes covered by each checksum
+   * @return the checksum, or null if the type is CHECKSUM_NULL
+   * @throws IllegalArgumentException if the type is not supported or the chunk size is invalid
+   */
+  static DataChecksum of(ChecksumTypeProto type, int bytesPerChecksum) {
+    if (type == ChecksumTypeProto.CHECKSUM_NULL) {
+      return null;
+    }
+    if (bytesPerChecksum < 1) {
+      throw new IllegalArgumentException("Invalid bytes per checksum: " + bytesPerChecksum);
+    }
+    switch (type) {
+      case CHECKSUM_CRC32:
+        return new DataChecksum(type, bytesPerChecksum, new CRC32());
+      case CHECKSUM_CRC32C:
+        return new DataChecksum(type, bytesPerChecksum, new CRC32C());
+      default:
+        throw new IllegalArgumentException("Unsupported checksum type: " + type);
+    }
+  }
+
+  ChecksumTypeProto getType() {
+    return type;
+  }
+
+  int getBytesPerChecksum() {
+    return bytesPerChecksum;
+  }
+
+  /** Returns the protocol description of this checksum, as requested for block writes. */
+  ChecksumProto toProto() {
+    return ChecksumProto.newBuilder().setType(type).setBytesPerChecksum(bytesPerChecksum).build();
+  }
+
+  /** Returns the number of checksum bytes covering dataLength bytes of data. */
+  int checksumLength(int dataLength) {
+    return (dataLength + bytesPerChecksum - 1) / bytesPerChecksum * CHECKSUM_SIZE;
+  }
+
+  /**
+   * Computes the checksums of data in a single pass, one per chunk.
+   *
+   * @param data the array holding the data
+   * @param dataOffset the offset of the first data byte, which starts a chunk
+   * @param dataLength the number of data bytes
+   * @param sums the array to write the checksums to, with room for checksumLength(dataLength) bytes
+   * @param sumsOffset the offset to write the first checksum at
+   */
+  void compute(byte[] data, int dataOffset, int dataLength, byte[] sums, int sumsOffset) {
+    int sumPosition = sumsOffset;
+    for (int done = 0; done < dataLength; done += bytesPerChecksum) {
+      checksum.reset();
+      checksum.update(data, dataOffset + done, Math.min(bytesPerChecksum, dataLength - done));
+
+      putChecksum(sums, sumPosition);
+      sumPosition += CHECKSUM_SIZE;
+    }
+  }
+
+  /**
+   * Computes the checksums of the data in a buffer, such as a direct buffer, in a single pass.
+   *
+   * @param data the buffer holding the data from its position, which starts a chunk, to its limit;
+   *     its position and limit are left unchanged
+   * @param sums the array to write the checksums to, with room for checksumLength(remaining) bytes
+   * @param sumsOffset the offset to write the first checksum at
+   */
+  void compute(ByteBuffer data, byte[] sums, int sumsOffset) {
+    int position = data.position();
+    int limit = data.limit();
+    int sumPosition = sumsOffset;
+    try {
+      for (int chunk = position; chunk < limit; chunk += bytesPerChecksum) {
+        data.limit(Math.min(chunk + bytesPerChecksum, limit)).position(chunk);
+        checksum.reset();
+        checksum.update(data);
+
+        putChecksum(sums, sumPosition);
+        sumPosition += CHECKSUM_SIZE;
+      }
+    } finally {
+      data.limit(limit).position(position);
+    }
+  }
+
+  private void putChecksum(byte[] sums, int sumPosition) {
+    int value = (int) checksum.getValue();
+    sums[sumPosition] = (byte) (value >>> 24);
+    sums[sumPosition + 1] = (byte) (value >>> 16);
+    sums[sumPosition + 2] = (byte) (value >>> 8);
+    sums[sumPosition + 3] = (byte) value;
+  }
+
+  /**
+   * Verifies data against its checksums, both held in the same buffer as received in a packet.
+   *
+   * @param packet the buffer holding the data and checksums; its position and limit are left
+   *     unchanged
+   * @param dataOffset the index of the first data byte, which starts a chunk
+   * @param dataLength the number of data bytes
+   * @param sumsOffset the index of the first of the big-endian checksums, one per chunk
+   * @return the offset relative to dataOffset of the first chunk that does not match, or -1 if all
+   *     chunks match
+   */
+  int verify(ByteBuffer packet, int dataOffset, int dataLength, int sumsOffset) {
+    int position = packet.position();
+    int limit = packet.limit();
+    int sumPosition = sumsOffset;
+    try {
+      for (int done = 0; done < dataLength; done += bytesPerChecksum) {
+        int expected = packet.limit(limit).getInt(sumPosition);
+
+        int chunk = dataOffset + done;
+        packet.limit(chunk + Math.min(bytesPerChecksum, dataLength - done)).position(chunk);
+        checksum.reset();
+        checksum.update(packet);
+
+        if ((int) checksum.getValue() != expected) {
+          return done;
+        }
+        sumPosition += CHECKSUM_SIZE;
+      }
+      return -1;
+    } finally {
+      packet.limit(limit).position(position);
+    }
+  }
+}
@@ -1,9 +1,11 @@
 package io.valier.hdfs.dn;
 
+import io.valier.hdfs.dn.ex.DataNodeChecksumException;
 import io.valier.hdfs.dn.ex.DataNodeHdfsException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 
 public interface DataNodeClient extends AutoCloseable {
 
@@ -16,6 +18,10 @@ public interface DataNodeClient extends AutoCloseable {
    * DataNodeHdfsException}s. Only failures related to writing to the target OutputStream are thrown
    * as checked {@link IOException}s, as these relate to the caller's environment.
    *
+   * <p>Data is verified against the checksums stored with the block before it is written to the
+   * output stream. A mismatch is thrown as a {@link DataNodeChecksumException}, after which the
+   * block should be read from another replica.
+   *
    * @param block the block to read from this DataNode
    * @param out the output stream to write the block data to
    * @throws IOException if there's an error writing to the output stream
@@ -23,6 +29,46 @@ public interface DataNodeClient extends AutoCloseable {
    */
   void copy(LocatedBlock block, OutputStream out) throws IOException;
 
+  /**
+   * Reads a range of a single block from this DataNode and writes it to the output stream. Only the
+   * requested range is transferred, so small reads such as file footers do not stream the whole
+   * block. This method only works if the block is located on this specific DataNode.
+   *
+   * <p>Failures are reported as for {@link #copy(LocatedBlock, OutputStream)}.
+   *
+   * @param block the block to read from this DataNode
+   * @param offsetInBlock the offset within the block of the first byte to read
+   * @param length the number of bytes to read
+   * @param out the output stream to write the block data to
+   * @throws IllegalArgumentException if the range is not within the block
+   * @throws IOException if there's an error writing to the output stream
+   * @throws DataNodeHdfsException if this DataNode doesn't contain the requested block
+   */
+  void read(LocatedBlock block, long offsetInBlock, long length, OutputStream out)
+      throws IOException;
+
+  /**
+   * Reads a range of a single block from this DataNode and writes it to a file at a position,
+   * without changing the channel's position. Implementations may write verified data to the file
+   * straight from their network buffers, which avoids copying it through the Java heap as writing
+   * to an OutputStream requires. Ranges of a file can be written concurrently through the same
+   * channel.
+   *
+   * <p>Failures are reported as for {@link #copy(LocatedBlock, OutputStream)}, with errors writing
+   * to the file thrown as {@link IOException}s.
+   *
+   * @param block the block to read from this DataNode
+   * @param offsetInBlock the offset within the block of the first byte to read
+   * @param length the number of bytes to read
+   * @param target the file to write the block data to
+   * @param position the position in the file to write the first byte at
+   * @throws IllegalArgumentException if the range is not within the block
+   * @throws IOException if there's an error writing to the file
+   * @throws DataNodeHdfsException if this DataNode doesn't contain the requested block
+   */
+  void read(LocatedBlock block, long offsetInBlock, long length, FileChannel target, long position)
+      throws IOException;
+
   /**
    * Writes data to a specific block using the Hadoop Data Transfer Protocol. This method streams
    * data from the provided InputStream to the specified block, reading until the InputStream
@@ -40,4 +86,24 @@ public interface DataNodeClient extends AutoCloseable {
    * @throws DataNodeHdfsException if there's an error with HDFS DataNode operations
    */
   long copy(LocatedBlock block, InputStream in) throws IOException;
+
+  /**
+   * Writes a region of a file to a specific block using the Hadoop Data Transfer Protocol, without
+   * changing the channel's position. Implementations may read the file into direct buffers and send
+   * them to the DataNode without copying them through the Java heap. The block ends early if the
+   * file does.
+   *
+   * <p>Failures are reported as for {@link #copy(LocatedBlock, InputStream)}, with errors reading
+   * the file thrown as {@link IOException}s.
+   *
+   * @param block the LocatedBlock containing the block information to write to
+   * @param source the file containing the data to write
+   * @param position the position in the file of the first byte to write
+   * @param length the number of bytes to write, at most the block size
+   * @return the total number of bytes written to the block
+   * @throws IOException if there's an error reading from the file
+   * @throws DataNodeHdfsException if there's an error with HDFS DataNode operations
+   */
+  long copy(LocatedBlock block, FileChannel source, long position, long length)
+      throws IOException;
 }
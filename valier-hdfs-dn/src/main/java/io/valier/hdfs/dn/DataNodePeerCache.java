@@ -0,0 +1,197 @@
+package io.valier.hdfs.dn;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cache of idle DataNode connections that can be reused for further operations, similar to the HDFS
+ * client's PeerCache.
+ *
+ * <p>A DataNode keeps a connection open after a block read the client has acknowledged with a
+ * client read status, waiting a short while ({@code dfs.datanode.socket.reuse.keepalive}, 4 seconds
+ * by default) for the next operation. {@link DefaultDataNodeClient} returns such connections to
+ * this cache when it is closed, and takes a cached connection to the same DataNode instead of
+ * opening a new one, saving the TCP connect for every block after the first.
+ *
+ * <p>At most maxConnectionsPerHost idle connections are kept per DataNode; the oldest is closed
+ * when another is returned. Connections idle for longer than idleTimeoutMs are closed by a
+ * background thread and never handed out, so the idle timeout should be shorter than the DataNode's
+ * keep-alive. This class is thread-safe.
+ */
+@Slf4j
+public class DataNodePeerCache implements AutoCloseable {
+
+  /** Default idle timeout, below the DataNode's default 4 second keep-alive. */
+  private static final long DEFAULT_IDLE_TIMEOUT_MS = 3000L;
+
+  /** Default maximum number of idle connections kept per DataNode. */
+  private static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 16;
+
+  private final int maxConnectionsPerHost;
+  private final long idleTimeoutMs;
+  private final Map<String, Deque<IdleConnection>> idleConnections = new HashMap<>();
+  private final ScheduledExecutorService evictor;
+  private boolean closed;
+
+  /**
+   * Creates a cache and starts its eviction thread.
+   *
+   * @param maxConnectionsPerHost maximum number of idle connections kept per DataNode, 0 for the
+   *     default of 16
+   * @param idleTimeoutMs time in milliseconds after which an idle connection is closed, 0 for the
+   *     default of 3000
+   */
+  @Builder
+  public DataNodePeerCache(int maxConnectionsPerHost, long idleTimeoutMs) {
+    this.maxConnectionsPerHost =
+        maxConnectionsPerHost == 0 ? DEFAULT_MAX_CONNECTIONS_PER_HOST : maxConnectionsPerHost;
+    this.idleTimeoutMs = idleTimeoutMs == 0 ? DEFAULT_IDLE_TIMEOUT_MS : idleTimeoutMs;
+
+    this.evictor =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              Thread t = new Thread(r, "hdfs-dn-peer-cache-evictor");
+              t.setDaemon(true);
+              return t;
+            });
+    this.evictor.scheduleWithFixedDelay(
+        this::evictExpired, this.idleTimeoutMs, this.idleTimeoutMs, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Takes the most recently returned idle connection to a DataNode, if any.
+   *
+   * @param hostname the DataNode's hostname
+   * @param port the DataNode's data transfer port
+   * @return an open connection, or null if none is cached
+   */
+  public Socket take(String hostname, int port) {
+    List<Socket> expired = new ArrayList<>();
+    Socket socket = null;
+
+    synchronized (this) {
+      Deque<IdleConnection> connections = idleConnections.get(key(hostname, port));
+      long now = System.nanoTime();
+      while (connections != null && !connections.isEmpty()) {
+        IdleConnection connection = connections.pollLast();
+        if (connection.isExpired(now) || connection.socket.isClosed()) {
+          expired.add(connection.socket);
+        } else {
+          socket = connection.socket;
+          break;
+        }
+      }
+    }
+
+    expired.forEach(DataNodePeerCache::closeQuietly);
+    return socket;
+  }
+
+  /**
+   * Returns an idle connection to the cache, or closes it if the cache is closed.
+   *
+   * @param hostname the DataNode's hostname
+   * @param port the DataNode's data transfer port
+   * @param socket a connection on which no operation is in progress
+   */
+  public void put(String hostname, int port, Socket socket) {
+    Socket evicted = null;
+
+    synchronized (this) {
+      if (closed) {
+        evicted = socket;
+      } else {
+        Deque<IdleConnection> connections =
+            idleConnections.computeIfAbsent(key(hostname, port), k -> new ArrayDeque<>());
+        if (connections.size() >= maxConnectionsPerHost) {
+          evicted = connections.pollFirst().socket;
+        }
+        connections.addLast(new IdleConnection(socket, System.nanoTime()));
+      }
+    }
+
+    if (evicted != null) {
+      closeQuietly(evicted);
+    }
+  }
+
+  /** Stops the eviction thread and closes every idle connection. */
+  @Override
+  public void close() {
+    List<Socket> sockets = new ArrayList<>();
+    synchronized (this) {
+      closed = true;
+      for (Deque<IdleConnection> connections : idleConnections.values()) {
+        connections.forEach(connection -> sockets.add(connection.socket));
+      }
+      idleConnections.clear();
+    }
+
+    evictor.shutdownNow();
+    sockets.forEach(DataNodePeerCache::closeQuietly);
+  }
+
+  private void evictExpired() {
+    List<Socket> expired = new ArrayList<>();
+    synchronized (this) {
+      long now = System.nanoTime();
+      Iterator<Deque<IdleConnection>> hosts = idleConnections.values().iterator();
+      while (hosts.hasNext()) {
+        Deque<IdleConnection> connections = hosts.next();
+
+        // Connections are ordered from least to most recently returned
+        while (!connections.isEmpty() && connections.peekFirst().isExpired(now)) {
+          expired.add(connections.pollFirst().socket);
+        }
+        if (connections.isEmpty()) {
+          hosts.remove();
+        }
+      }
+    }
+
+    if (!expired.isEmpty()) {
+      log.debug("Closing {} idle DataNode connections", expired.size());
+      expired.forEach(DataNodePeerCache::closeQuietly);
+    }
+  }
+
+  private static String key(String hostname, int port) {
+    return hostname + ":" + port;
+  }
+
+  private static void closeQuietly(Socket socket) {
+    try {
+      socket.close();
+    } catch (IOException e) {
+      log.debug("Failed to close idle DataNode connection", e);
+    }
+  }
+
+  /** A cached connection with the time it was returned. */
+  private final class IdleConnection {
+
+    private final Socket socket;
+    private final long returnedNanos;
+
+    IdleConnection(Socket socket, long returnedNanos) {
+      this.socket = socket;
+      this.returnedNanos = returnedNanos;
+    }
+
+    boolean isExpired(long now) {
+      return now - returnedNanos >= idleTimeoutMs * 1_000_000L;
+    }
+  }
+}
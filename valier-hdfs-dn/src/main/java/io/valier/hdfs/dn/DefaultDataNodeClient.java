@@ -1,10 +1,14 @@
 package io.valier.hdfs.dn;
 
+import com.google.protobuf.CodedInputStream;
+import io.valier.hdfs.dn.ex.DataNodeChecksumException;
 import io.valier.hdfs.dn.ex.DataNodeHdfsException;
 import java.io.*;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SocketChannel;
 import java.util.concurrent.ThreadLocalRandom;
 import lombok.Builder;
 import lombok.Data;
@@ -19,6 +23,12 @@ import org.apache.hadoop.hdfs.protocol.proto.HdfsProtos.*;
  *
  * <p>This implementation establishes direct TCP connections to DataNodes and uses the official
  * Hadoop protobuf definitions for block transfer operations.
+ *
+ * <p>Connections are non-blocking SocketChannels, so that packets are received into and sent from
+ * direct buffers. Block data read into a FileChannel is written to the file straight from the
+ * receive buffer once verified, and block data written from a FileChannel is read into a direct
+ * buffer and sent after its packet header with a gathering write, so neither passes through the
+ * Java heap.
  */
 @Slf4j
 @Data
@@ -39,6 +49,18 @@ public class DefaultDataNodeClient implements DataNodeClient {
   /** Default DataNode port for data transfer operations. */
   private static final int DEFAULT_DATANODE_PORT = 9866;
 
+  /** Default maximum number of unacknowledged packets during a block write. */
+  private static final int DEFAULT_MAX_PACKETS_IN_FLIGHT = 80;
+
+  /** Largest packet accepted from a DataNode, as in HDFS's own packet receiver (16MB). */
+  private static final int MAX_PACKET_SIZE = 16 * 1024 * 1024;
+
+  /** Size of the packet length fields preceding each packet header: PLEN and HLEN. */
+  private static final int PACKET_LENGTHS_SIZE = 6;
+
+  /** Default number of data bytes covered by each checksum of a block write. */
+  private static final int DEFAULT_BYTES_PER_CHECKSUM = 512;
+
   /** Hostname of the DataNode to connect to. */
   private final String hostname;
 
@@ -57,14 +79,53 @@ public class DefaultDataNodeClient implements DataNodeClient {
    */
   private final String clientName;
 
+  /**
+   * Maximum number of packets sent to the DataNode pipeline but not yet acknowledged during a block
+   * write. Higher values keep more data in flight on high-latency links.
+   */
+  private final int maxPacketsInFlight;
+
+  /** Checksum algorithm protecting the data of blocks written by this client. */
+  private final ChecksumType checksumType;
+
+  /** Number of data bytes covered by each checksum of blocks written by this client. */
+  private final int bytesPerChecksum;
+
+  /**
+   * Optional cache of idle DataNode connections. If set, connections are taken from it instead of
+   * being opened when possible, and connections left reusable by a block read are returned to it on
+   * close instead of being closed.
+   */
+  private final DataNodePeerCache peerCache;
+
   /** Lazily initialized socket connection to the DataNode. */
   private transient Socket socket;
 
-  /** Input stream from the DataNode socket. */
-  private transient InputStream socketInputStream;
+  /** Input stream from the DataNode socket's channel. */
+  private transient SocketInputStream socketInputStream;
+
+  /** Output stream to the DataNode socket's channel. */
+  private transient SocketOutputStream socketOutputStream;
 
-  /** Output stream to the DataNode socket. */
-  private transient OutputStream socketOutputStream;
+  /** Whether the connection was used before, so the DataNode may have closed it while idle. */
+  private transient boolean connectionReused;
+
+  /** Whether the last operation left the connection open and ready for another operation. */
+  private transient boolean connectionReusable;
+
+  /**
+   * Direct receive buffer reused by every block read of this client, grown to the largest packet.
+   */
+  private transient ByteBuffer receiveBuffer;
+
+  /** Heap buffer through which received data is copied to output streams, created on first use. */
+  private transient byte[] transferBuffer;
+
+  /** Packet buffer reused by every block write of this client, created on first use. */
+  private transient PacketWriter packetWriter;
+
+  /** Direct buffer for the data of block writes from files, created on first use. */
+  private transient ByteBuffer sendBuffer;
 
   @Builder
   public DefaultDataNodeClient(
@@ -72,11 +133,25 @@ public class DefaultDataNodeClient implements DataNodeClient {
       int port,
       int connectionTimeoutMs,
       int readTimeoutMs,
-      String clientName) {
+      String clientName,
+      int maxPacketsInFlight,
+      ChecksumType checksumType,
+      int bytesPerChecksum,
+      DataNodePeerCache peerCache) {
+    if (bytesPerChecksum < 0) {
+      throw new IllegalArgumentException(
+          "bytesPerChecksum cannot be negative: " + bytesPerChecksum);
+    }
     this.hostname = hostname;
     this.port = port == 0 ? DEFAULT_DATANODE_PORT : port;
     this.connectionTimeoutMs = connectionTimeoutMs == 0 ? 5000 : connectionTimeoutMs;
     this.readTimeoutMs = readTimeoutMs == 0 ? 3000 : readTimeoutMs;
+    this.maxPacketsInFlight =
+        maxPacketsInFlight == 0 ? DEFAULT_MAX_PACKETS_IN_FLIGHT : maxPacketsInFlight;
+    this.checksumType = checksumType != null ? checksumType : ChecksumType.CRC32C;
+    this.bytesPerChecksum =
+        bytesPerChecksum == 0 ? DEFAULT_BYTES_PER_CHECKSUM : bytesPerChecksum;
+    this.peerCache = peerCache;
     this.clientName =
         clientName != null
             ? clientName
@@ -87,13 +162,55 @@ public class DefaultDataNodeClient implements DataNodeClient {
   }
 
   @Override
-  public synchronized void copy(LocatedBlock block, OutputStream out) throws IOException {
+  public void copy(LocatedBlock block, OutputStream out) throws IOException {
+    if (block == null) {
+      throw new IllegalArgumentException("LocatedBlock cannot be null");
+    }
+    read(block, 0, block.getLength(), out);
+  }
+
+  @Override
+  public synchronized void read(
+      LocatedBlock block, long offsetInBlock, long length, OutputStream out) throws IOException {
     if (block == null) {
       throw new IllegalArgumentException("LocatedBlock cannot be null");
     }
     if (out == null) {
       throw new IllegalArgumentException("OutputStream cannot be null");
     }
+    readRange(block, offsetInBlock, length, (data, dataOffsetInBlock) -> transfer(data, out));
+  }
+
+  @Override
+  public synchronized void read(
+      LocatedBlock block, long offsetInBlock, long length, FileChannel target, long position)
+      throws IOException {
+    if (block == null) {
+      throw new IllegalArgumentException("LocatedBlock cannot be null");
+    }
+    if (target == null) {
+      throw new IllegalArgumentException("FileChannel cannot be null");
+    }
+    if (position < 0) {
+      throw new IllegalArgumentException("File position cannot be negative: " + position);
+    }
+    readRange(
+        block,
+        offsetInBlock,
+        length,
+        (data, dataOffsetInBlock) ->
+            transfer(data, target, position + dataOffsetInBlock - offsetInBlock));
+  }
+
+  /** Reads a range of a block, handing the verified data of each packet to a sink. */
+  private void readRange(LocatedBlock block, long offsetInBlock, long length, PacketSink sink)
+      throws IOException {
+    if (offsetInBlock < 0 || length < 0 || offsetInBlock > block.getLength() - length) {
+      throw new IllegalArgumentException(
+          String.format(
+              "Range of %d bytes at offset %d is outside block %d of length %d",
+              length, offsetInBlock, block.getBlockId(), block.getLength()));
+    }
 
     // Verify this DataNode hosts the requested block
     boolean hostsBlock =
@@ -105,12 +222,26 @@ public class DefaultDataNodeClient implements DataNodeClient {
           "Block " + block.getBlockId() + " is not hosted on DataNode " + hostname + ":" + port);
     }
 
+    if (length == 0) {
+      return;
+    }
+
     try {
-      ensureConnected();
-      readBlockFromDataNode(block, hostname, out);
+      while (true) {
+        ensureConnected();
+        try {
+          readBlockFromDataNode(block, offsetInBlock, length, hostname, sink);
+          return;
+        } catch (StaleConnectionException e) {
+          // Retry on another connection; a new connection is never stale
+          log.debug("Reused connection to DataNode {}:{} was closed", hostname, port, e);
+        }
+      }
     } catch (IOException e) {
       // IOException from OutputStream operations - pass through
       throw e;
+    } catch (DataNodeHdfsException e) {
+      throw e;
     } catch (Exception e) {
       throw new DataNodeHdfsException(
           "Failed to read block " + block.getBlockId() + " from DataNode " + hostname + ":" + port,
@@ -118,6 +249,27 @@ public class DefaultDataNodeClient implements DataNodeClient {
     }
   }
 
+  /** Copies received data to an output stream through a reusable heap buffer. */
+  private void transfer(ByteBuffer data, OutputStream out) throws IOException {
+    if (transferBuffer == null) {
+      transferBuffer = new byte[BUFFER_SIZE];
+    }
+    while (data.hasRemaining()) {
+      int length = Math.min(transferBuffer.length, data.remaining());
+      data.get(transferBuffer, 0, length);
+      out.write(transferBuffer, 0, length);
+    }
+  }
+
+  /** Writes received data to a file at a position, straight from the receive buffer. */
+  private static void transfer(ByteBuffer data, FileChannel target, long position)
+      throws IOException {
+    long filePosition = position;
+    while (data.hasRemaining()) {
+      filePosition += target.write(data, filePosition);
+    }
+  }
+
   @Override
   public synchronized long copy(LocatedBlock block, InputStream in) throws IOException {
     if (block == null) {
@@ -126,7 +278,27 @@ public class DefaultDataNodeClient implements DataNodeClient {
     if (in == null) {
       throw new IllegalArgumentException("Data InputStream cannot be null");
     }
+    return writeBlock(block, new StreamPacketSource(in));
+  }
 
+  @Override
+  public synchronized long copy(LocatedBlock block, FileChannel source, long position, long length)
+      throws IOException {
+    if (block == null) {
+      throw new IllegalArgumentException("LocatedBlock cannot be null");
+    }
+    if (source == null) {
+      throw new IllegalArgumentException("Data FileChannel cannot be null");
+    }
+    if (position < 0 || length < 0) {
+      throw new IllegalArgumentException(
+          "Invalid file region of " + length + " bytes at position " + position);
+    }
+    return writeBlock(block, new ChannelPacketSource(source, position, length));
+  }
+
+  /** Writes a block with the data of a packet source, retrying on a stale connection. */
+  private long writeBlock(LocatedBlock block, PacketSource source) throws IOException {
     // Verify this DataNode is a target for the block
     boolean isTarget =
         block.getHosts().stream()
@@ -138,8 +310,15 @@ public class DefaultDataNodeClient implements DataNodeClient {
     }
 
     try {
-      ensureConnected();
-      return writeBlockToDataNode(block, hostname, in);
+      while (true) {
+        ensureConnected();
+        try {
+          return writeBlockToDataNode(block, hostname, source);
+        } catch (StaleConnectionException e) {
+          // Nothing has been read from the input yet, so the write can be retried
+          log.debug("Reused connection to DataNode {}:{} was closed", hostname, port, e);
+        }
+      }
     } catch (IOException e) {
       // IOException from InputStream operations - pass through
       throw e;
@@ -152,54 +331,119 @@ public class DefaultDataNodeClient implements DataNodeClient {
 
   @Override
   public synchronized void close() throws IOException {
-    if (socket != null && !socket.isClosed()) {
-      try {
-        if (socketInputStream != null) {
-          socketInputStream.close();
-        }
-        if (socketOutputStream != null) {
-          socketOutputStream.close();
-        }
-        socket.close();
-      } finally {
-        socket = null;
-        socketInputStream = null;
-        socketOutputStream = null;
+    if (socket == null) {
+      return;
+    }
+
+    Socket connection = socket;
+    boolean reusable = peerCache != null && connectionReusable && !connection.isClosed();
+    try {
+      // Closing the streams only releases their selectors, leaving the socket open
+      socketInputStream.close();
+      socketOutputStream.close();
+    } finally {
+      socket = null;
+      socketInputStream = null;
+      socketOutputStream = null;
+      connectionReusable = false;
+
+      if (reusable) {
+        // Hand the idle connection over to the cache for the next client of this DataNode
+        peerCache.put(hostname, port, connection);
+      } else {
+        connection.close();
       }
     }
   }
 
-  /** Ensures a connection to the DataNode exists, creating one if necessary. */
+  /**
+   * Ensures a connection to the DataNode exists, taking an idle one from the peer cache or opening
+   * a new one if necessary.
+   */
   private synchronized void ensureConnected() throws IOException {
     if (socket == null || socket.isClosed()) {
-      socket = new Socket();
-      socket.connect(new InetSocketAddress(hostname, port), connectionTimeoutMs);
-      socket.setSoTimeout(readTimeoutMs);
+      Socket cachedSocket = peerCache != null ? peerCache.take(hostname, port) : null;
+      if (cachedSocket != null) {
+        socket = cachedSocket;
+        connectionReused = true;
+        log.debug("Reusing cached connection to DataNode {}:{}", hostname, port);
+      } else {
+        // Connect in blocking mode to honor the connection timeout, then switch to non-blocking
+        // mode, in which reads time out through the input stream's selector
+        SocketChannel channel = SocketChannel.open();
+        try {
+          channel.socket().connect(new InetSocketAddress(hostname, port), connectionTimeoutMs);
+          channel.configureBlocking(false);
+        } catch (IOException | RuntimeException e) {
+          channel.close();
+          throw e;
+        }
+        socket = channel.socket();
+        connectionReused = false;
+        log.debug("Connected to DataNode {}:{}", hostname, port);
+      }
 
-      socketInputStream = socket.getInputStream();
-      socketOutputStream = socket.getOutputStream();
+      socketInputStream = new SocketInputStream(socket.getChannel(), readTimeoutMs);
+      socketOutputStream = new SocketOutputStream(socket.getChannel());
+    }
+  }
 
-      log.debug("Connected to DataNode {}:{}", hostname, port);
+  /** Closes the connection after a failed operation, which leaves it in an unknown state. */
+  private void closeConnection() {
+    try {
+      close();
+    } catch (IOException e) {
+      log.debug("Failed to close connection to DataNode {}:{}", hostname, port, e);
     }
   }
 
-  /** Reads a block from a specific DataNode using the HDFS Data Transfer Protocol. */
-  private void readBlockFromDataNode(LocatedBlock locatedBlock, String host, OutputStream out)
+  /**
+   * Reads a range of a block from a specific DataNode using the HDFS Data Transfer Protocol.
+   *
+   * <p>Checksums are requested with the data, and each packet is verified against them before any
+   * of its data is written to output. After the whole range has been read, the read is acknowledged
+   * with a client read status so the DataNode keeps the connection open, and the connection is left
+   * open for the next operation. It is closed if the read fails.
+   *
+   * @throws DataNodeChecksumException if a packet does not match its checksums
+   */
+  private void readBlockFromDataNode(
+      LocatedBlock locatedBlock, long offsetInBlock, long length, String host, PacketSink sink)
       throws IOException {
+    connectionReusable = false;
 
     try {
-      try (DataInputStream in = new DataInputStream(socketInputStream);
-          DataOutputStream socketOut = new DataOutputStream(socketOutputStream)) {
-
-        // Send data transfer protocol header
-        sendDataTransferHeader(socketOut);
-
-        // Send read block operation
-        sendReadBlockOperation(socketOut, locatedBlock);
-
-        // Read response and stream data
-        readBlockResponse(in, out, locatedBlock.getLength());
-      }
+      // The streams are not closed, so the connection can be reused
+      DataInputStream in = new DataInputStream(socketInputStream);
+      DataOutputStream socketOut = new DataOutputStream(socketOutputStream);
+
+      // Send read block operation and check the response
+      BlockOpResponseProto response =
+          sendOperation(
+              in,
+              socketOut,
+              request -> sendReadBlockOperation(request, locatedBlock, offsetInBlock, length));
+
+      // The DataNode reports the checksum type the block was written with
+      DataChecksum checksum =
+          response.hasReadOpChecksumInfo()
+              ? DataChecksum.of(response.getReadOpChecksumInfo().getChecksum())
+              : null;
+
+      // Stream the requested range out of the block's data packets
+      readBlockData(sink, locatedBlock, offsetInBlock, length, checksum);
+
+      // Acknowledge the read, telling the DataNode whether its checksums were verified
+      ClientReadStatusProto.newBuilder()
+          .setStatus(checksum != null ? Status.CHECKSUM_OK : Status.SUCCESS)
+          .build()
+          .writeDelimitedTo(socketOut);
+      socketOut.flush();
+
+      connectionReused = true;
+      connectionReusable = true;
+    } catch (StaleConnectionException e) {
+      throw e;
     } catch (OutputStreamIOException e) {
       // OutputStream errors should propagate as IOException - unwrap the original cause
       throw (IOException) e.getCause();
@@ -207,9 +451,54 @@ public class DefaultDataNodeClient implements DataNodeClient {
       // DataNode infrastructure errors should be wrapped as DataNodeHdfsException
       throw new DataNodeHdfsException(
           "Failed to read block " + locatedBlock.getBlockId() + " from DataNode " + host, e);
+    } finally {
+      if (!connectionReusable) {
+        closeConnection();
+      }
     }
   }
 
+  /**
+   * Sends an operation with the data transfer protocol header and reads the DataNode's response.
+   *
+   * @throws StaleConnectionException if the connection had been used before and the DataNode closed
+   *     it without responding, in which case the operation can be retried
+   * @throws IOException if the operation fails or the DataNode returns an error status
+   */
+  private BlockOpResponseProto sendOperation(
+      DataInputStream in, DataOutputStream out, OperationRequest request) throws IOException {
+    BlockOpResponseProto response;
+    try {
+      // Send data transfer protocol header
+      sendDataTransferHeader(out);
+      request.send(out);
+
+      // Read operation response
+      response = BlockOpResponseProto.parseDelimitedFrom(in);
+    } catch (IOException e) {
+      if (connectionReused) {
+        throw new StaleConnectionException(e);
+      }
+      throw e;
+    }
+
+    if (response == null) {
+      if (connectionReused) {
+        throw new StaleConnectionException(null);
+      }
+      throw new IOException("No response received from DataNode");
+    }
+
+    if (response.getStatus() != Status.SUCCESS) {
+      throw new IOException(
+          "DataNode returned error status: "
+              + response.getStatus()
+              + " - "
+              + response.getMessage());
+    }
+    return response;
+  }
+
   /** Sends the data transfer protocol header. */
   private void sendDataTransferHeader(DataOutputStream out) throws IOException {
     // Write data transfer version
@@ -217,7 +506,8 @@ public class DefaultDataNodeClient implements DataNodeClient {
   }
 
   /** Sends a read block operation request. */
-  private void sendReadBlockOperation(DataOutputStream out, LocatedBlock locatedBlock)
+  private void sendReadBlockOperation(
+      DataOutputStream out, LocatedBlock locatedBlock, long offsetInBlock, long length)
       throws IOException {
 
     // Create extended block info
@@ -247,9 +537,9 @@ public class DefaultDataNodeClient implements DataNodeClient {
     OpReadBlockProto readBlockOp =
         OpReadBlockProto.newBuilder()
             .setHeader(header)
-            .setOffset(0)
-            .setLen(locatedBlock.getLength())
-            .setSendChecksums(false)
+            .setOffset(offsetInBlock)
+            .setLen(length)
+            .setSendChecksums(true)
             .setCachingStrategy(CachingStrategyProto.getDefaultInstance())
             .build();
 
@@ -259,88 +549,142 @@ public class DefaultDataNodeClient implements DataNodeClient {
     out.flush();
   }
 
-  /** Reads the block response and streams data to output using HDFS packet format. */
-  private void readBlockResponse(DataInputStream in, OutputStream out, long expectedLength)
+  /**
+   * Reads the block's data packets and streams the requested range to a sink using HDFS packet
+   * format.
+   *
+   * <p>The DataNode starts the data at the checksum chunk boundary at or before the requested
+   * offset and may end it at the chunk boundary after the requested range, so the data outside the
+   * range is read from the packets but not handed to the sink. Whole packets are verified against
+   * their checksums, if there are any, before the requested part is handed over.
+   *
+   * <p>Each packet is read with two reads into the client's direct receive buffer: the length
+   * fields, then the header, checksums and data together. The header is parsed, the checksums
+   * verified and the data handed to the sink in place, so no buffer is allocated per packet.
+   */
+  private void readBlockData(
+      PacketSink sink, LocatedBlock locatedBlock, long offset, long length, DataChecksum checksum)
       throws IOException {
-    // Read operation response
-    BlockOpResponseProto response = BlockOpResponseProto.parseDelimitedFrom(in);
-
-    if (response == null) {
-      throw new IOException("No response received from DataNode");
-    }
-
-    if (response.getStatus() != Status.SUCCESS) {
-      throw new IOException(
-          "DataNode returned error status: "
-              + response.getStatus()
-              + " - "
-              + response.getMessage());
-    }
-
     // Read data packets until the "last packet" flag is received
+    long rangeEnd = offset + length;
     long totalBytesRead = 0;
     boolean lastPacket = false;
 
-    while (!lastPacket) {
-      // Read packet length (4 bytes)
-      int payloadLen = in.readInt();
+    if (receiveBuffer == null) {
+      receiveBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
 
-      // Read header length (2 bytes)
-      short headerLen = in.readShort();
+    while (!lastPacket) {
+      // Read packet length (4 bytes) and header length (2 bytes)
+      receiveBuffer.clear().limit(PACKET_LENGTHS_SIZE);
+      socketInputStream.readFully(receiveBuffer);
+      int payloadLen = receiveBuffer.getInt(0);
+      int headerLen = receiveBuffer.getShort(4);
 
       log.debug("Reading packet - payloadLength: {}, header length: {}", payloadLen, headerLen);
 
-      // Read packet header
-      byte[] headerData = new byte[headerLen];
-      in.readFully(headerData);
-      PacketHeaderProto header = PacketHeaderProto.parseFrom(headerData);
+      // The payload length includes its own 4 bytes
+      int packetLen = headerLen + payloadLen - 4;
+      if (headerLen < 0 || payloadLen < 4 || packetLen > MAX_PACKET_SIZE) {
+        throw new IOException(
+            "Invalid packet lengths: payload " + payloadLen + ", header " + headerLen);
+      }
+      if (receiveBuffer.capacity() < packetLen) {
+        receiveBuffer = ByteBuffer.allocateDirect(packetLen);
+      }
+
+      // Read the header, checksums and data of the packet at once
+      receiveBuffer.clear().limit(packetLen);
+      socketInputStream.readFully(receiveBuffer);
+      receiveBuffer.limit(headerLen).position(0);
+      PacketHeaderProto header =
+          PacketHeaderProto.parseFrom(CodedInputStream.newInstance(receiveBuffer));
 
       // Check if this is the last packet in the block
       lastPacket = header.getLastPacketInBlock();
 
       int dataLen = header.getDataLen();
+      int checksumLen = payloadLen - 4 - dataLen;
+      if (dataLen < 0 || checksumLen < 0) {
+        throw new IOException("Invalid packet payload length " + payloadLen + " for " + dataLen);
+      }
+      if (checksum != null && checksumLen != checksum.checksumLength(dataLen)) {
+        throw new IOException(
+            "Invalid checksum length " + checksumLen + " for " + dataLen + " bytes of data");
+      }
 
       if (dataLen > 0) {
-        // Read packet data
-        byte[] data = new byte[dataLen];
-        in.readFully(data);
+        int dataStart = headerLen + checksumLen;
+        long packetStart = header.getOffsetInBlock();
+        if (checksum != null) {
+          receiveBuffer.limit(packetLen);
+          int corruptOffset = checksum.verify(receiveBuffer, dataStart, dataLen, headerLen);
+          if (corruptOffset >= 0) {
+            log.warn(
+                "Checksum error in block {} at offset {} from DataNode {}:{}",
+                locatedBlock.getBlockId(),
+                packetStart + corruptOffset,
+                hostname,
+                port);
+            throw new DataNodeChecksumException(
+                "Checksum error in block "
+                    + locatedBlock.getBlockId()
+                    + " at offset "
+                    + (packetStart + corruptOffset)
+                    + " from DataNode "
+                    + hostname
+                    + ":"
+                    + port,
+                locatedBlock.getBlockId(),
+                packetStart + corruptOffset);
+          }
+        }
 
-        // Write data to output stream - wrap OutputStream errors to distinguish them
-        try {
-          out.write(data);
-        } catch (IOException e) {
-          // Wrap OutputStream errors so they can be distinguished from DataNode errors
-          throw new OutputStreamIOException("Failed to write to output stream", e);
+        // Only the part of the packet that overlaps the requested range is handed over
+        long from = Math.max(offset, packetStart);
+        long to = Math.min(rangeEnd, packetStart + dataLen);
+
+        if (from < to) {
+          int start = dataStart + (int) (from - packetStart);
+          receiveBuffer.limit(start + (int) (to - from)).position(start);
+
+          // Write data to the sink - wrap its errors to distinguish them
+          try {
+            sink.write(receiveBuffer, from);
+          } catch (IOException e) {
+            // Wrap output errors so they can be distinguished from DataNode errors
+            throw new OutputStreamIOException("Failed to write to output stream", e);
+          }
+          totalBytesRead += to - from;
         }
-        totalBytesRead += dataLen;
       }
     }
 
-    if (totalBytesRead != expectedLength) {
-      throw new IOException("Expected " + expectedLength + " bytes, but read " + totalBytesRead);
+    if (totalBytesRead != length) {
+      throw new IOException("Expected " + length + " bytes, but read " + totalBytesRead);
     }
   }
 
-  /** Writes a block to a specific DataNode using the HDFS Data Transfer Protocol. */
-  private long writeBlockToDataNode(LocatedBlock block, String host, InputStream data)
+  /**
+   * Writes a block to a specific DataNode using the HDFS Data Transfer Protocol. The connection is
+   * closed afterwards, as the DataNode does not keep it open after a write.
+   */
+  private long writeBlockToDataNode(LocatedBlock block, String host, PacketSource source)
       throws IOException {
 
-    try {
-      try (DataInputStream in = new DataInputStream(socketInputStream);
-          DataOutputStream socketOut = new DataOutputStream(socketOutputStream)) {
-
-        // Send data transfer protocol header
-        sendDataTransferHeader(socketOut);
+    connectionReusable = false;
 
-        // Send write block operation
-        sendWriteBlockOperation(socketOut, block);
+    try {
+      DataInputStream in = new DataInputStream(socketInputStream);
+      DataOutputStream socketOut = new DataOutputStream(socketOutputStream);
 
-        // Read acknowledgment
-        readWriteBlockResponse(in);
+      // Send write block operation and read acknowledgment
+      sendOperation(in, socketOut, request -> sendWriteBlockOperation(request, block));
 
-        // Send data packets with acknowledgments and return total bytes written
-        return sendDataPackets(socketOut, in, data);
-      }
+      // Send data packets with acknowledgments and return total bytes written
+      return sendDataPackets(socketOut, in, source, block.getBlockId());
+    } catch (StaleConnectionException e) {
+      throw e;
     } catch (InputStreamIOException e) {
       // InputStream errors should propagate as IOException - unwrap the original cause
       throw (IOException) e.getCause();
@@ -348,6 +692,8 @@ public class DefaultDataNodeClient implements DataNodeClient {
       // DataNode infrastructure errors should be wrapped as DataNodeHdfsException
       throw new DataNodeHdfsException(
           "Failed to write block " + block.getBlockId() + " to DataNode " + host, e);
+    } finally {
+      closeConnection();
     }
   }
 
@@ -389,8 +735,8 @@ public class DefaultDataNodeClient implements DataNodeClient {
             .setLatestGenerationStamp(block.getGenerationStamp())
             .setRequestedChecksum(
                 ChecksumProto.newBuilder()
-                    .setType(ChecksumTypeProto.CHECKSUM_CRC32)
-                    .setBytesPerChecksum(512)
+                    .setType(checksumType.toProto())
+                    .setBytesPerChecksum(bytesPerChecksum)
                     .build())
             .setCachingStrategy(CachingStrategyProto.getDefaultInstance())
             .build();
@@ -401,114 +747,203 @@ public class DefaultDataNodeClient implements DataNodeClient {
     out.flush();
   }
 
-  /** Reads the write block response. */
-  private void readWriteBlockResponse(DataInputStream in) throws IOException {
-    // Read operation response
-    BlockOpResponseProto response = BlockOpResponseProto.parseDelimitedFrom(in);
-
-    if (response == null) {
-      throw new IOException("No response received from DataNode");
-    }
-
-    if (response.getStatus() != Status.SUCCESS) {
-      throw new IOException(
-          "DataNode returned error status: "
-              + response.getStatus()
-              + " - "
-              + response.getMessage());
-    }
-  }
-
-  /** Sends data packets to the DataNode with acknowledgment handling. */
-  private long sendDataPackets(DataOutputStream out, DataInputStream in, InputStream data)
+  /**
+   * Sends data packets to the DataNode, keeping up to maxPacketsInFlight packets unacknowledged
+   * while a separate thread reads the acknowledgments.
+   *
+   * <p>Every packet but the last holds a whole number of checksum chunks, so each chunk's checksum
+   * is computed once, in the packet that carries the whole chunk.
+   */
+  private long sendDataPackets(
+      DataOutputStream out, DataInputStream in, PacketSource source, long blockId)
       throws IOException {
     long totalBytesWritten = 0;
     long seqno = 0;
 
-    byte[] dataBuffer = new byte[BUFFER_SIZE];
+    PacketAckReader ackReader = new PacketAckReader(in, maxPacketsInFlight, blockId);
+    ackReader.start();
 
     // Send all data packets
     while (true) {
+      // Fill the packet from the source, so that only the last packet is short
+      int bytesRead = source.readData();
+      if (bytesRead == 0) {
+        // End of data reached
+        break;
+      }
+
+      // Wait for a free slot in the window, then write the packet without waiting for its ack;
+      // the buffer can be reused right away since the packet has been written to the socket
+      ackReader.awaitWindow();
+      ackReader.packetSending(seqno, false);
+      source.send(totalBytesWritten, seqno++, bytesRead);
+      out.flush();
+
+      totalBytesWritten += bytesRead;
+    }
+
+    // Always send an empty packet at the end marked as the last packet
+    ackReader.awaitWindow();
+    ackReader.packetSending(seqno, true);
+    packetWriter().write(out, totalBytesWritten, seqno, true, 0);
+    out.flush();
+
+    // Wait until every packet, including the last one, has been acknowledged
+    ackReader.awaitLastAck();
+
+    return totalBytesWritten;
+  }
+
+  /** Returns the packet writer, creating it on first use. */
+  private PacketWriter packetWriter() {
+    if (packetWriter == null) {
+      // Largest whole number of chunks that fits the buffer size, and at least one chunk
+      int packetSize =
+          Math.max(bytesPerChecksum, BUFFER_SIZE / bytesPerChecksum * bytesPerChecksum);
+      packetWriter =
+          new PacketWriter(DataChecksum.of(checksumType.toProto(), bytesPerChecksum), packetSize);
+    }
+    return packetWriter;
+  }
+
+  /**
+   * Reads from an input stream until a range of a buffer is full or the stream ends.
+   *
+   * @return the number of bytes read, 0 only at the end of the stream
+   */
+  private static int fill(InputStream data, byte[] buffer, int offset, int length)
+      throws InputStreamIOException {
+    int filled = 0;
+    while (filled < length) {
       // Read data from input stream - wrap InputStream errors to distinguish them
       int bytesRead;
       try {
-        bytesRead = data.read(dataBuffer);
+        bytesRead = data.read(buffer, offset + filled, length - filled);
       } catch (IOException e) {
         // Wrap InputStream errors so they can be distinguished from DataNode errors
         throw new InputStreamIOException("Failed to read from input stream", e);
       }
-
       if (bytesRead == -1) {
-        // End of stream reached
         break;
       }
+      filled += bytesRead;
+    }
+    return filled;
+  }
 
-      if (bytesRead == 0) {
-        // No data read but not end of stream, continue
-        continue;
-      }
+  /** Receives the verified data of a block read, packet by packet. */
+  @FunctionalInterface
+  private interface PacketSink {
+
+    /**
+     * Writes the remaining data of a buffer, which must not be retained after this returns.
+     *
+     * @param data the data, from its position to its limit
+     * @param offsetInBlock the offset within the block of the first byte of the data
+     */
+    void write(ByteBuffer data, long offsetInBlock) throws IOException;
+  }
 
-      // Create data packet with payload using ByteBuffer wrap to avoid copying
-      DataPacket packet =
-          DataPacket.builder()
-              .offsetInBlock(totalBytesWritten)
-              .sequenceNumber(seqno++)
-              .lastPacket(false)
-              .syncBlock(false)
-              .calculateCrc(true)
-              .payload(ByteBuffer.wrap(dataBuffer, 0, bytesRead))
-              .build();
-
-      // Write packet to output stream
-      packet.writeTo(out);
-      out.flush();
+  /** Supplies the data of a block write, packet by packet. */
+  private interface PacketSource {
 
-      // Wait for packet acknowledgment from DataNode
-      readPacketAck(in, seqno - 1);
+    /**
+     * Reads the data of the next packet, filling it unless the data ends.
+     *
+     * @return the number of bytes read, 0 once all data has been read
+     * @throws InputStreamIOException if reading the data fails
+     */
+    int readData() throws InputStreamIOException;
 
-      totalBytesWritten += bytesRead;
-    }
+    /** Sends the data read last as a packet. */
+    void send(long offsetInBlock, long sequenceNumber, int dataLength) throws IOException;
+  }
 
-    // Always send an empty packet at the end marked as the last packet
-    DataPacket lastPacket =
-        DataPacket.builder()
-            .offsetInBlock(totalBytesWritten)
-            .sequenceNumber(seqno++)
-            .lastPacket(true)
-            .syncBlock(false)
-            .calculateCrc(false)
-            .payload(ByteBuffer.allocate(0))
-            .build();
+  /** Reads packet data from an input stream straight into the packet writer's buffer. */
+  private final class StreamPacketSource implements PacketSource {
 
-    // Write last packet to output stream
-    lastPacket.writeTo(out);
-    out.flush();
+    private final InputStream data;
 
-    // Wait for final packet acknowledgment from DataNode
-    readPacketAck(in, seqno - 1);
+    StreamPacketSource(InputStream data) {
+      this.data = data;
+    }
 
-    return totalBytesWritten;
+    @Override
+    public int readData() throws InputStreamIOException {
+      PacketWriter writer = packetWriter();
+      return fill(data, writer.getDataArray(), writer.getDataOffset(), writer.getMaxDataLength());
+    }
+
+    @Override
+    public void send(long offsetInBlock, long sequenceNumber, int dataLength) throws IOException {
+      packetWriter().write(socketOutputStream, offsetInBlock, sequenceNumber, false, dataLength);
+    }
   }
 
-  /** Reads packet acknowledgment from DataNode. */
-  private void readPacketAck(DataInputStream in, long expectedSeqno) throws IOException {
-    // Read pipeline ACK protobuf message
-    PipelineAckProto ack = PipelineAckProto.parseDelimitedFrom(in);
+  /**
+   * Reads packet data from a region of a file into a direct buffer with positional reads, which
+   * leave the channel's position unchanged, and sends it with a gathering write.
+   */
+  private final class ChannelPacketSource implements PacketSource {
 
-    if (ack == null) {
-      throw new IOException("No acknowledgment received from DataNode");
-    }
+    private final FileChannel data;
+    private long position;
+    private long remaining;
 
-    // Check sequence number matches
-    if (ack.getSeqno() != expectedSeqno) {
-      throw new IOException("Expected seqno " + expectedSeqno + " but got " + ack.getSeqno());
+    ChannelPacketSource(FileChannel data, long position, long length) {
+      this.data = data;
+      this.position = position;
+      this.remaining = length;
     }
 
-    // Check all replies are SUCCESS
-    for (Status status : ack.getReplyList()) {
-      if (status != Status.SUCCESS) {
-        throw new IOException("DataNode returned error status in ACK: " + status);
+    @Override
+    public int readData() throws InputStreamIOException {
+      if (sendBuffer == null) {
+        sendBuffer = ByteBuffer.allocateDirect(packetWriter().getMaxDataLength());
       }
+      sendBuffer.clear().limit((int) Math.min(sendBuffer.capacity(), remaining));
+
+      // Read data from the file - wrap its errors to distinguish them
+      try {
+        while (sendBuffer.hasRemaining()) {
+          if (data.read(sendBuffer, position + sendBuffer.position()) == -1) {
+            break;
+          }
+        }
+      } catch (IOException e) {
+        // Wrap file errors so they can be distinguished from DataNode errors
+        throw new InputStreamIOException("Failed to read from file channel", e);
+      }
+
+      sendBuffer.flip();
+      int bytesRead = sendBuffer.remaining();
+      position += bytesRead;
+      remaining = bytesRead < sendBuffer.capacity() ? 0 : remaining - bytesRead;
+      return bytesRead;
+    }
+
+    @Override
+    public void send(long offsetInBlock, long sequenceNumber, int dataLength) throws IOException {
+      packetWriter().write(socketOutputStream, offsetInBlock, sequenceNumber, sendBuffer);
+    }
+  }
+
+  /** Writes an operation's opcode and request to the DataNode. */
+  @FunctionalInterface
+  private interface OperationRequest {
+    void send(DataOutputStream out) throws IOException;
+  }
+
+  /**
+   * Signals that a previously used connection was found closed by the DataNode before an operation
+   * got a response. Nothing has been transferred yet, so the operation can be retried.
+   */
+  private static final class StaleConnectionException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    StaleConnectionException(Throwable cause) {
+      super("Connection was closed by the DataNode", cause);
     }
   }
 }
@@ -0,0 +1,144 @@
+package io.valier.hdfs.dn;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hadoop.hdfs.protocol.proto.DataTransferProtos.PipelineAckProto;
+import org.apache.hadoop.hdfs.protocol.proto.DataTransferProtos.Status;
+
+/**
+ * Reads pipeline acknowledgments for a block write on its own thread, so that the writer can keep a
+ * window of packets in flight instead of waiting one round trip per packet.
+ *
+ * <p>The writer reserves a window slot before each packet and registers the packet's sequence
+ * number before writing it. The reader matches every acknowledgment against the oldest outstanding
+ * packet and frees its slot, ending once the last packet of the block has been acknowledged. The
+ * first error, whether a read failure, an unexpected sequence number or a non-success status from
+ * any DataNode in the pipeline, is reported to the writer on its next call.
+ */
+@Slf4j
+final class PacketAckReader {
+
+  /** Sequence number of the heartbeat packets a DataNode sends on an idle pipeline. */
+  private static final long HEARTBEAT_SEQNO = -1L;
+
+  private final DataInputStream in;
+  private final int maxPacketsInFlight;
+  private final Semaphore window;
+  private final Queue<Long> outstanding = new ConcurrentLinkedQueue<>();
+  private final Thread thread;
+  private volatile long lastPacketSeqno = Long.MIN_VALUE;
+  private volatile IOException failure;
+
+  /**
+   * Creates a reader; call {@link #start()} before writing the first packet.
+   *
+   * @param in the stream acknowledgments are read from
+   * @param maxPacketsInFlight the maximum number of packets sent but not yet acknowledged
+   * @param blockId the block being written, used to name the reader thread
+   */
+  PacketAckReader(DataInputStream in, int maxPacketsInFlight, long blockId) {
+    this.in = in;
+    this.maxPacketsInFlight = maxPacketsInFlight;
+    this.window = new Semaphore(maxPacketsInFlight);
+    this.thread = new Thread(this::run, "hdfs-dn-ack-reader-" + blockId);
+    this.thread.setDaemon(true);
+  }
+
+  void start() {
+    thread.start();
+  }
+
+  /**
+   * Reserves a window slot for the next packet, waiting while the window is full.
+   *
+   * @throws IOException if an acknowledgment already failed
+   */
+  void awaitWindow() throws IOException {
+    try {
+      window.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for packet acknowledgments");
+    }
+    checkFailure();
+  }
+
+  /**
+   * Registers a packet about to be written. Must be called before the packet is written, so its
+   * acknowledgment cannot arrive first.
+   *
+   * @param seqno the packet's sequence number
+   * @param lastPacket whether this is the last packet of the block
+   */
+  void packetSending(long seqno, boolean lastPacket) {
+    if (lastPacket) {
+      lastPacketSeqno = seqno;
+    }
+    outstanding.add(seqno);
+  }
+
+  /**
+   * Waits until the last packet of the block has been acknowledged.
+   *
+   * @throws IOException if any acknowledgment failed
+   */
+  void awaitLastAck() throws IOException {
+    try {
+      thread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for packet acknowledgments");
+    }
+    checkFailure();
+  }
+
+  private void checkFailure() throws IOException {
+    IOException e = failure;
+    if (e != null) {
+      throw new IOException(e.getMessage(), e);
+    }
+  }
+
+  private void run() {
+    try {
+      while (true) {
+        PipelineAckProto ack = PipelineAckProto.parseDelimitedFrom(in);
+        if (ack == null) {
+          throw new IOException("No acknowledgment received from DataNode");
+        }
+        if (ack.getSeqno() == HEARTBEAT_SEQNO) {
+          continue;
+        }
+
+        // Acknowledgments arrive in the order the packets were sent
+        Long expectedSeqno = outstanding.poll();
+        if (expectedSeqno == null || ack.getSeqno() != expectedSeqno) {
+          throw new IOException("Expected seqno " + expectedSeqno + " but got " + ack.getSeqno());
+        }
+
+        // Check all replies are SUCCESS
+        for (Status status : ack.getReplyList()) {
+          if (status != Status.SUCCESS) {
+            throw new IOException("DataNode returned error status in ACK: " + status);
+          }
+        }
+
+        window.release();
+        if (expectedSeqno == lastPacketSeqno) {
+          return;
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      log.debug("Failed to read packet acknowledgment", e);
+      failure = e instanceof IOException ? (IOException) e : new IOException(e);
+
+      // Unblock a writer waiting for a slot so that it sees the failure
+      window.release(maxPacketsInFlight);
+    }
+  }
+}
@@ -0,0 +1,198 @@
+package io.valier.hdfs.dn;
+
+import com.google.protobuf.CodedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import org.apache.hadoop.hdfs.protocol.proto.DataTransferProtos.PacketHeaderProto;
+
+/**
+ * Assembles and sends data packets of the HDFS Data Transfer Protocol from a single reusable
+ * buffer.
+ *
+ * <p>Each packet follows an unusual and unexpected structure that differs from HDFS RPC protocols:
+ *
+ * <pre>
+ *   PLEN    HLEN      HEADER     CHECKSUMS  DATA
+ *   32-bit  16-bit   &lt;protobuf&gt;  &lt;variable length&gt;
+ *
+ *   PLEN:      Payload length
+ *              = length(PLEN) + length(CHECKSUMS) + length(DATA)
+ *              This length includes its own encoded length in
+ *              the sum for historical reasons.
+ *
+ *   HLEN:      Header length
+ *              = length(HEADER)
+ *
+ *   HEADER:    the actual packet header fields, encoded in protobuf
+ *   CHECKSUMS: the crcs for the data chunk. May be missing if
+ *              checksums were not requested
+ *   DATA       the actual block data
+ * </pre>
+ *
+ * <p><strong>Important:</strong> Unlike HDFS RPC protocols, PLEN is <em>not</em> the size of the
+ * entire packet and does <em>not</em> include the size of the header (HLEN + HEADER). This makes
+ * the data transfer protocol inconsistent with other HDFS protocols.
+ *
+ * <p>The buffer reserves room for the largest header and checksums in front of a fixed data area.
+ * Callers read packet data straight into the data area; the checksums are then computed into the
+ * bytes just before the data, and the lengths and header just before those, so the packet ends up
+ * contiguous and is sent with a single write, without copying the data. Only the small header
+ * message is allocated per packet. Data that has been read into a direct buffer instead is sent
+ * after the header and checksums with a gathering write.
+ *
+ * <p>This class is not thread-safe; use one instance per connection.
+ */
+final class PacketWriter {
+
+  /** Room reserved for PLEN, HLEN and the header, whose fixed-width fields take 27 bytes. */
+  private static final int MAX_HEADER_LENGTH = 4 + 2 + 64;
+
+  private final DataChecksum checksum;
+  private final int maxDataLength;
+  private final byte[] array;
+  private final ByteBuffer buffer;
+  private final ByteBuffer headerView;
+  private final ByteBuffer[] gather = new ByteBuffer[2];
+  private final int dataOffset;
+
+  /**
+   * Creates a writer whose buffer holds packets of up to maxDataLength bytes of data.
+   *
+   * @param checksum checksum to calculate the packets' checksums with, or null to send none
+   * @param maxDataLength the largest amount of data per packet
+   */
+  PacketWriter(DataChecksum checksum, int maxDataLength) {
+    this.checksum = checksum;
+    this.maxDataLength = maxDataLength;
+    int maxChecksumLength = checksum != null ? checksum.checksumLength(maxDataLength) : 0;
+    this.dataOffset = MAX_HEADER_LENGTH + maxChecksumLength;
+    this.array = new byte[dataOffset + maxDataLength];
+    this.buffer = ByteBuffer.wrap(array);
+    this.headerView = ByteBuffer.wrap(array);
+  }
+
+  /** Returns the array packet data is read into, starting at {@link #getDataOffset()}. */
+  byte[] getDataArray() {
+    return array;
+  }
+
+  /** Returns the offset in the data array of the first data byte of a packet. */
+  int getDataOffset() {
+    return dataOffset;
+  }
+
+  /** Returns the largest amount of data a packet can hold. */
+  int getMaxDataLength() {
+    return maxDataLength;
+  }
+
+  /**
+   * Sends a packet whose data has been placed in the data area. The buffer can be reused as soon as
+   * this returns.
+   *
+   * @param out the stream to write the packet to, not flushed
+   * @param offsetInBlock the offset within the block of the packet's data
+   * @param sequenceNumber the packet's sequence number
+   * @param lastPacket whether this is the last, empty packet of the block
+   * @param dataLength the number of data bytes in the data area
+   * @throws IOException if writing to the stream fails
+   */
+  void write(
+      OutputStream out, long offsetInBlock, long sequenceNumber, boolean lastPacket, int dataLength)
+      throws IOException {
+    checkDataLength(dataLength);
+
+    // Lay the checksums, then the header, then the lengths backwards from the data
+    int checksumLength = 0;
+    if (checksum != null && dataLength > 0) {
+      checksumLength = checksum.checksumLength(dataLength);
+      checksum.compute(array, dataOffset, dataLength, array, dataOffset - checksumLength);
+    }
+    int packetOffset =
+        writeHeader(offsetInBlock, sequenceNumber, lastPacket, dataLength, checksumLength);
+
+    out.write(array, packetOffset, dataOffset + dataLength - packetOffset);
+  }
+
+  /**
+   * Sends a packet of data held in a separate, typically direct, buffer with a single gathering
+   * write: the lengths, header and checksums are laid out in front of the unused data area and sent
+   * together with the data, so data read from a file into a direct buffer reaches the socket
+   * without being copied onto the heap.
+   *
+   * @param out the stream to write the packet to
+   * @param offsetInBlock the offset within the block of the packet's data
+   * @param sequenceNumber the packet's sequence number
+   * @param data the packet's data from its position to its limit, at most maxDataLength bytes; its
+   *     position is advanced to its limit
+   * @throws IOException if writing to the stream fails
+   */
+  void write(SocketOutputStream out, long offsetInBlock, long sequenceNumber, ByteBuffer data)
+      throws IOException {
+    int dataLength = data.remaining();
+    checkDataLength(dataLength);
+
+    int checksumLength = 0;
+    if (checksum != null && dataLength > 0) {
+      checksumLength = checksum.checksumLength(dataLength);
+      checksum.compute(data, array, dataOffset - checksumLength);
+    }
+    int packetOffset =
+        writeHeader(offsetInBlock, sequenceNumber, false, dataLength, checksumLength);
+
+    headerView.limit(dataOffset).position(packetOffset);
+    gather[0] = headerView;
+    gather[1] = data;
+    try {
+      out.write(gather);
+    } finally {
+      gather[1] = null;
+    }
+  }
+
+  private void checkDataLength(int dataLength) {
+    if (dataLength < 0 || dataLength > maxDataLength) {
+      throw new IllegalArgumentException("Invalid packet data length: " + dataLength);
+    }
+  }
+
+  /**
+   * Writes the packet lengths and header in front of checksumLength bytes of checksums preceding
+   * the data area.
+   *
+   * @return the offset in the array of the start of the packet
+   */
+  private int writeHeader(
+      long offsetInBlock,
+      long sequenceNumber,
+      boolean lastPacket,
+      int dataLength,
+      int checksumLength)
+      throws IOException {
+    PacketHeaderProto header =
+        PacketHeaderProto.newBuilder()
+            .setOffsetInBlock(offsetInBlock)
+            .setSeqno(sequenceNumber)
+            .setLastPacketInBlock(lastPacket)
+            .setDataLen(dataLength)
+            .setSyncBlock(false)
+            .build();
+
+    int headerLength = header.getSerializedSize();
+    int headerOffset = dataOffset - checksumLength - headerLength;
+    int packetOffset = headerOffset - 6;
+    if (packetOffset < 0) {
+      throw new IllegalStateException("Packet header of " + headerLength + " bytes is too long");
+    }
+
+    CodedOutputStream headerOut = CodedOutputStream.newInstance(array, headerOffset, headerLength);
+    header.writeTo(headerOut);
+    headerOut.checkNoSpaceLeft();
+
+    // PLEN includes its own 4 bytes, the checksums and the data
+    buffer.putInt(packetOffset, 4 + checksumLength + dataLength);
+    buffer.putShort(packetOffset + 4, (short) headerLength);
+    return packetOffset;
+  }
+}
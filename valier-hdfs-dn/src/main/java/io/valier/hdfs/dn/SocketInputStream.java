@@ -0,0 +1,112 @@
+package io.valier.hdfs.dn;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+/**
+ * InputStream over a non-blocking SocketChannel that waits at most timeoutMs for data.
+ *
+ * <p>Reading from the channel directly, rather than through a Socket's stream, lets packet data be
+ * read straight into direct buffers. A non-blocking channel does not honor the socket's read
+ * timeout, so each read that finds no data waits on a selector instead, and fails if nothing
+ * arrives within the timeout. Waiting on a selector of its own, this stream can be read by one
+ * thread while another thread writes to the same channel.
+ *
+ * <p>Closing the stream releases its selector but leaves the channel open; the channel is closed
+ * with its socket.
+ */
+final class SocketInputStream extends InputStream {
+
+  private final SocketChannel channel;
+  private final long timeoutMs;
+  private final byte[] oneByte = new byte[1];
+  private Selector selector;
+
+  /**
+   * Creates a stream over a channel.
+   *
+   * @param channel a connected channel in non-blocking mode
+   * @param timeoutMs the longest wait in milliseconds for data to arrive, 0 to wait indefinitely
+   */
+  SocketInputStream(SocketChannel channel, long timeoutMs) {
+    this.channel = channel;
+    this.timeoutMs = timeoutMs;
+  }
+
+  @Override
+  public int read() throws IOException {
+    int n = read(oneByte, 0, 1);
+    return n < 0 ? -1 : oneByte[0] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    return read(ByteBuffer.wrap(b, off, len));
+  }
+
+  /**
+   * Reads at least one byte into a buffer, waiting for data if none is available.
+   *
+   * @param dst the buffer to read into, with space remaining
+   * @return the number of bytes read, or -1 at the end of the stream
+   * @throws SocketTimeoutException if no data arrives within the timeout
+   */
+  int read(ByteBuffer dst) throws IOException {
+    while (true) {
+      int n = channel.read(dst);
+      if (n != 0) {
+        return n;
+      }
+      awaitReadable();
+    }
+  }
+
+  /**
+   * Reads until a buffer is full.
+   *
+   * @param dst the buffer to fill up to its limit
+   * @throws EOFException if the stream ends first
+   * @throws SocketTimeoutException if any wait for data exceeds the timeout
+   */
+  void readFully(ByteBuffer dst) throws IOException {
+    while (dst.hasRemaining()) {
+      if (read(dst) < 0) {
+        throw new EOFException("Connection closed by the DataNode");
+      }
+    }
+  }
+
+  private void awaitReadable() throws IOException {
+    if (selector == null) {
+      selector = Selector.open();
+      channel.register(selector, SelectionKey.OP_READ);
+    }
+    int ready = selector.select(timeoutMs);
+    if (Thread.currentThread().isInterrupted()) {
+      throw new InterruptedIOException("Interrupted while waiting for the DataNode");
+    }
+    if (ready == 0) {
+      throw new SocketTimeoutException(
+          "Timed out after " + timeoutMs + " ms waiting for the DataNode to send data");
+    }
+    selector.selectedKeys().clear();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (selector != null) {
+      selector.close();
+      selector = null;
+    }
+  }
+}
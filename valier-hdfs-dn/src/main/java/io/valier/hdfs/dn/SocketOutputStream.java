@@ -0,0 +1,103 @@
+package io.valier.hdfs.dn;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+/**
+ * OutputStream over a non-blocking SocketChannel, which waits on a selector whenever the socket's
+ * send buffer is full.
+ *
+ * <p>Besides the usual stream writes it offers a gathering write, which sends several buffers, for
+ * example a packet's header in a heap buffer and its data in a direct buffer, with as few system
+ * calls as the socket allows and without copying the direct buffer. Like a blocking socket, it
+ * waits as long as the DataNode takes to accept the data.
+ *
+ * <p>Closing the stream releases its selector but leaves the channel open; the channel is closed
+ * with its socket.
+ */
+final class SocketOutputStream extends OutputStream {
+
+  private final SocketChannel channel;
+  private final byte[] oneByte = new byte[1];
+  private Selector selector;
+
+  /**
+   * Creates a stream over a channel.
+   *
+   * @param channel a connected channel in non-blocking mode
+   */
+  SocketOutputStream(SocketChannel channel) {
+    this.channel = channel;
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    oneByte[0] = (byte) b;
+    write(oneByte, 0, 1);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    write(ByteBuffer.wrap(b, off, len));
+  }
+
+  /**
+   * Writes all remaining bytes of a buffer.
+   *
+   * @param src the buffer to write
+   */
+  void write(ByteBuffer src) throws IOException {
+    while (src.hasRemaining()) {
+      if (channel.write(src) == 0) {
+        awaitWritable();
+      }
+    }
+  }
+
+  /**
+   * Writes all remaining bytes of several buffers, in order, with gathering writes.
+   *
+   * @param srcs the buffers to write
+   */
+  void write(ByteBuffer[] srcs) throws IOException {
+    while (hasRemaining(srcs)) {
+      if (channel.write(srcs) == 0) {
+        awaitWritable();
+      }
+    }
+  }
+
+  private static boolean hasRemaining(ByteBuffer[] buffers) {
+    for (ByteBuffer buffer : buffers) {
+      if (buffer.hasRemaining()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void awaitWritable() throws IOException {
+    if (selector == null) {
+      selector = Selector.open();
+      channel.register(selector, SelectionKey.OP_WRITE);
+    }
+    selector.select();
+    if (Thread.currentThread().isInterrupted()) {
+      throw new InterruptedIOException("Interrupted while writing to the DataNode");
+    }
+    selector.selectedKeys().clear();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (selector != null) {
+      selector.close();
+      selector = null;
+    }
+  }
+}
@@ -0,0 +1,51 @@
+package io.valier.hdfs.dn.ex;
+
+/**
+ * Runtime exception thrown when data read from a DataNode does not match its checksum.
+ *
+ * <p>This means the replica on that DataNode, or the data in transit from it, is corrupt. Other
+ * replicas of the block are unaffected, so callers should fail over to another DataNode as for any
+ * other {@link DataNodeHdfsException}. No data from the corrupt chunk is written to the target
+ * OutputStream.
+ */
+public class DataNodeChecksumException extends DataNodeHdfsException {
+
+  private static final long serialVersionUID = 1L;
+
+  /** ID of the block whose data did not match its checksum. */
+  private final long blockId;
+
+  /** Offset within the block of the first byte of the corrupt chunk. */
+  private final long offsetInBlock;
+
+  /**
+   * Constructs a new checksum exception.
+   *
+   * @param message the detail message explaining the reason for the exception
+   * @param blockId the ID of the corrupt block
+   * @param offsetInBlock the offset within the block of the corrupt chunk
+   */
+  public DataNodeChecksumException(String message, long blockId, long offsetInBlock) {
+    super(message);
+    this.blockId = blockId;
+    this.offsetInBlock = offsetInBlock;
+  }
+
+  /**
+   * Returns the ID of the block whose data did not match its checksum.
+   *
+   * @return the block ID
+   */
+  public long getBlockId() {
+    return blockId;
+  }
+
+  /**
+   * Returns the offset within the block of the first byte of the corrupt chunk.
+   *
+   * @return the offset in bytes
+   */
+  public long getOffsetInBlock() {
+    return offsetInBlock;
+  }
+}
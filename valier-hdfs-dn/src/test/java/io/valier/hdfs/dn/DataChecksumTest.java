@@ -0,0 +1,147 @@
+package io.valier.hdfs.dn;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import org.apache.hadoop.hdfs.protocol.proto.HdfsProtos.ChecksumTypeProto;
+import org.junit.Test;
+
+/** Unit tests for DataChecksum. */
+public class DataChecksumTest {
+
+  /** The standard check input of CRC algorithms. */
+  private static final byte[] CHECK_INPUT = "123456789".getBytes(StandardCharsets.US_ASCII);
+
+  @Test
+  public void testCrc32MatchesKnownVector() {
+    DataChecksum checksum = DataChecksum.of(ChecksumTypeProto.CHECKSUM_CRC32, 512);
+
+    byte[] sums = new byte[4];
+    checksum.compute(CHECK_INPUT, 0, CHECK_INPUT.length, sums, 0);
+
+    assertArrayEquals(new byte[] {(byte) 0xcb, (byte) 0xf4, 0x39, 0x26}, sums);
+  }
+
+  @Test
+  public void testCrc32cMatchesKnownVector() {
+    DataChecksum checksum = DataChecksum.of(ChecksumTypeProto.CHECKSUM_CRC32C, 512);
+
+    byte[] sums = new byte[4];
+    checksum.compute(CHECK_INPUT, 0, CHECK_INPUT.length, sums, 0);
+
+    assertArrayEquals(new byte[] {(byte) 0xe3, 0x06, (byte) 0x92, (byte) 0x83}, sums);
+  }
+
+  @Test
+  public void testCrc32cVerifiesItsOwnChecksums() {
+    DataChecksum checksum = DataChecksum.of(ChecksumTypeProto.CHECKSUM_CRC32C, 4);
+    ByteBuffer packet = packet(checksum, CHECK_INPUT);
+
+    assertEquals(-1, checksum.verify(packet, 12, CHECK_INPUT.length, 0));
+    packet.put(12, (byte) 'x');
+    assertEquals(0, checksum.verify(packet, 12, CHECK_INPUT.length, 0));
+  }
+
+  @Test
+  public void testToProtoDescribesTypeAndChunkSize() {
+    DataChecksum checksum = DataChecksum.of(ChecksumTypeProto.CHECKSUM_CRC32C, 1024);
+
+    assertEquals(ChecksumTypeProto.CHECKSUM_CRC32C, checksum.toProto().getType());
+    assertEquals(1024, checksum.toProto().getBytesPerChecksum());
+    assertEquals(ChecksumTypeProto.CHECKSUM_CRC32C, DataChecksum.of(checksum.toProto()).getType());
+  }
+
+  @Test
+  public void testComputeWritesOneChecksumPerChunk() {
+    DataChecksum checksum = DataChecksum.of(ChecksumTypeProto.CHECKSUM_CRC32, 4);
+
+    byte[] sums = new byte[2 + 12];
+    checksum.compute(CHECK_INPUT, 0, CHECK_INPUT.length, sums, 2);
+
+    // "1234", "5678" and the partial chunk "9"
+    ByteBuffer expected = ByteBuffer.allocate(sums.length).position(2);
+    expected.putInt(crc32(CHECK_INPUT, 0, 4));
+    expected.putInt(crc32(CHECK_INPUT, 4, 4));
+    expected.putInt(crc32(CHECK_INPUT, 8, 1));
+    assertArrayEquals(expected.array(), sums);
+  }
+
+  @Test
+  public void testComputeFromBufferMatchesArray() {
+    DataChecksum checksum = DataChecksum.of(ChecksumTypeProto.CHECKSUM_CRC32, 4);
+    ByteBuffer data = ByteBuffer.allocateDirect(3 + CHECK_INPUT.length + 5);
+    data.position(3);
+    data.put(CHECK_INPUT);
+    data.limit(3 + CHECK_INPUT.length).position(3);
+
+    byte[] fromBuffer = new byte[12];
+    checksum.compute(data, fromBuffer, 0);
+    byte[] fromArray = new byte[12];
+    checksum.compute(CHECK_INPUT, 0, CHECK_INPUT.length, fromArray, 0);
+
+    assertArrayEquals(fromArray, fromBuffer);
+    assertEquals(3, data.position());
+    assertEquals(3 + CHECK_INPUT.length, data.limit());
+  }
+
+  @Test
+  public void testChecksumLengthCoversPartialChunks() {
+    DataChecksum checksum = DataChecksum.of(ChecksumTypeProto.CHECKSUM_CRC32, 512);
+
+    assertEquals(0, checksum.checksumLength(0));
+    assertEquals(4, checksum.checksumLength(1));
+    assertEquals(4, checksum.checksumLength(512));
+    assertEquals(8, checksum.checksumLength(513));
+    assertEquals(8, checksum.checksumLength(1024));
+    assertEquals(12, checksum.checksumLength(1025));
+  }
+
+  @Test
+  public void testVerifyAcceptsMatchingChunks() {
+    DataChecksum checksum = DataChecksum.of(ChecksumTypeProto.CHECKSUM_CRC32, 4);
+    ByteBuffer packet = packet(checksum, CHECK_INPUT);
+
+    assertEquals(-1, checksum.verify(packet, 12, CHECK_INPUT.length, 0));
+    assertEquals(0, packet.position());
+    assertEquals(packet.capacity(), packet.limit());
+  }
+
+  @Test
+  public void testVerifyReportsFirstCorruptChunk() {
+    DataChecksum checksum = DataChecksum.of(ChecksumTypeProto.CHECKSUM_CRC32, 4);
+    ByteBuffer packet = packet(checksum, CHECK_INPUT);
+
+    // Corrupt the partial last chunk, then the second chunk as well
+    packet.put(12 + 8, (byte) 'x');
+    assertEquals(8, checksum.verify(packet, 12, CHECK_INPUT.length, 0));
+    packet.put(12 + 5, (byte) 'x');
+    assertEquals(4, checksum.verify(packet, 12, CHECK_INPUT.length, 0));
+  }
+
+  @Test
+  public void testNullTypeHasNoChecksum() {
+    assertNull(DataChecksum.of(ChecksumTypeProto.CHECKSUM_NULL, 512));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRejectsEmptyChunks() {
+    DataChecksum.of(ChecksumTypeProto.CHECKSUM_CRC32, 0);
+  }
+
+  /** Lays out checksums followed by data, as they arrive in a packet. */
+  private static ByteBuffer packet(DataChecksum checksum, byte[] data) {
+    int checksumLength = checksum.checksumLength(data.length);
+    byte[] packet = new byte[checksumLength + data.length];
+    checksum.compute(data, 0, data.length, packet, 0);
+    System.arraycopy(data, 0, packet, checksumLength, data.length);
+    return ByteBuffer.wrap(packet);
+  }
+
+  private static int crc32(byte[] data, int offset, int length) {
+    CRC32 crc = new CRC32();
+    crc.update(data, offset, length);
+    return (int) crc.getValue();
+  }
+}
@@ -0,0 +1,141 @@
+package io.valier.hdfs.dn;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Unit tests for DataNodePeerCache with connections over loopback sockets. */
+public class DataNodePeerCacheTest {
+
+  private static final String HOST = "127.0.0.1";
+  private static final int PORT = 9866;
+
+  private ServerSocket serverSocket;
+  private final List<Socket> sockets = new ArrayList<>();
+
+  @Before
+  public void setUp() throws IOException {
+    serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    for (Socket socket : sockets) {
+      socket.close();
+    }
+    serverSocket.close();
+  }
+
+  @Test
+  public void testTakeReturnsMostRecentlyReturnedConnectionFirst() throws IOException {
+    try (DataNodePeerCache cache = DataNodePeerCache.builder().build()) {
+      Socket first = connect();
+      Socket second = connect();
+      cache.put(HOST, PORT, first);
+      cache.put(HOST, PORT, second);
+
+      assertSame(second, cache.take(HOST, PORT));
+      assertSame(first, cache.take(HOST, PORT));
+      assertNull(cache.take(HOST, PORT));
+    }
+  }
+
+  @Test
+  public void testConnectionsAreCachedPerHostAndPort() throws IOException {
+    try (DataNodePeerCache cache = DataNodePeerCache.builder().build()) {
+      Socket socket = connect();
+      cache.put(HOST, PORT, socket);
+
+      assertNull(cache.take(HOST, PORT + 1));
+      assertNull(cache.take("localhost", PORT));
+      assertSame(socket, cache.take(HOST, PORT));
+    }
+  }
+
+  @Test
+  public void testPutBeyondPerHostCapClosesOldestConnection() throws IOException {
+    try (DataNodePeerCache cache = DataNodePeerCache.builder().maxConnectionsPerHost(2).build()) {
+      Socket oldest = connect();
+      Socket middle = connect();
+      Socket newest = connect();
+      Socket otherHost = connect();
+      cache.put(HOST, PORT, oldest);
+      cache.put(HOST, PORT, middle);
+      cache.put("datanode-2", PORT, otherHost);
+      cache.put(HOST, PORT, newest);
+
+      assertTrue(oldest.isClosed());
+      assertFalse(otherHost.isClosed());
+      assertSame(newest, cache.take(HOST, PORT));
+      assertSame(middle, cache.take(HOST, PORT));
+      assertNull(cache.take(HOST, PORT));
+      assertSame(otherHost, cache.take("datanode-2", PORT));
+    }
+  }
+
+  @Test
+  public void testExpiredConnectionIsClosedAndNotHandedOut() throws Exception {
+    try (DataNodePeerCache cache = DataNodePeerCache.builder().idleTimeoutMs(100).build()) {
+      Socket socket = connect();
+      cache.put(HOST, PORT, socket);
+
+      Thread.sleep(300);
+
+      assertNull(cache.take(HOST, PORT));
+      assertTrue(socket.isClosed());
+    }
+  }
+
+  @Test
+  public void testClosedConnectionIsNotHandedOut() throws IOException {
+    try (DataNodePeerCache cache = DataNodePeerCache.builder().build()) {
+      Socket closed = connect();
+      Socket open = connect();
+      cache.put(HOST, PORT, open);
+      cache.put(HOST, PORT, closed);
+      closed.close();
+
+      assertSame(open, cache.take(HOST, PORT));
+    }
+  }
+
+  @Test
+  public void testCloseClosesIdleConnections() throws IOException {
+    DataNodePeerCache cache = DataNodePeerCache.builder().build();
+    Socket socket = connect();
+    cache.put(HOST, PORT, socket);
+
+    cache.close();
+
+    assertTrue(socket.isClosed());
+    assertNull(cache.take(HOST, PORT));
+  }
+
+  @Test
+  public void testPutAfterCloseClosesConnection() throws IOException {
+    DataNodePeerCache cache = DataNodePeerCache.builder().build();
+    cache.close();
+    Socket socket = connect();
+
+    cache.put(HOST, PORT, socket);
+
+    assertTrue(socket.isClosed());
+    assertNull(cache.take(HOST, PORT));
+  }
+
+  /** Opens a loopback connection, keeping both of its ends open until the test ends. */
+  private Socket connect() throws IOException {
+    Socket socket = new Socket(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort());
+    sockets.add(socket);
+    sockets.add(serverSocket.accept());
+    return socket;
+  }
+}
@@ -0,0 +1,228 @@
+package io.valier.hdfs.dn;
+
+import static org.junit.Assert.*;
+
+import io.valier.hdfs.dn.ex.DataNodeChecksumException;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.hadoop.hdfs.protocol.proto.DataTransferProtos.BlockOpResponseProto;
+import org.apache.hadoop.hdfs.protocol.proto.DataTransferProtos.ClientReadStatusProto;
+import org.apache.hadoop.hdfs.protocol.proto.DataTransferProtos.OpReadBlockProto;
+import org.apache.hadoop.hdfs.protocol.proto.DataTransferProtos.ReadOpChecksumInfoProto;
+import org.apache.hadoop.hdfs.protocol.proto.DataTransferProtos.Status;
+import org.apache.hadoop.hdfs.protocol.proto.HdfsProtos.ChecksumTypeProto;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for DefaultDataNodeClient against a fake DataNode that serves block reads from a
+ * loopback socket.
+ */
+public class DefaultDataNodeClientTest {
+
+  private static final String HOST = "127.0.0.1";
+  private static final long BLOCK_ID = 1073741825L;
+  private static final int BYTES_PER_CHECKSUM = 512;
+
+  /** Data per packet sent by the fake DataNode, two chunks. */
+  private static final int PACKET_DATA_LENGTH = 2 * BYTES_PER_CHECKSUM;
+
+  private ServerSocket serverSocket;
+  private byte[] blockData;
+  private Thread dataNodeThread;
+  private final AtomicReference<Throwable> dataNodeFailure = new AtomicReference<>();
+
+  @Before
+  public void setUp() throws IOException {
+    serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    blockData = new byte[3 * BYTES_PER_CHECKSUM + 100];
+    for (int i = 0; i < blockData.length; i++) {
+      blockData[i] = (byte) (i * 31);
+    }
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    serverSocket.close();
+    if (dataNodeThread != null) {
+      dataNodeThread.join(TimeUnit.SECONDS.toMillis(5));
+    }
+  }
+
+  @Test
+  public void testCopyReadsWholeBlock() throws Exception {
+    startDataNode(connection -> serveRead(connection, -1));
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (DefaultDataNodeClient client = newClient(null)) {
+      client.copy(block(), out);
+    }
+
+    assertArrayEquals(blockData, out.toByteArray());
+    assertDataNodeServedAll();
+  }
+
+  @Test
+  public void testCorruptChunkFailsRead() throws Exception {
+    startDataNode(connection -> serveRead(connection, 1000));
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (DefaultDataNodeClient client = newClient(null)) {
+      DataNodeChecksumException e =
+          assertThrows(DataNodeChecksumException.class, () -> client.copy(block(), out));
+
+      // The corrupt byte lies in the second chunk of the first packet
+      assertEquals(BLOCK_ID, e.getBlockId());
+      assertEquals(BYTES_PER_CHECKSUM, e.getOffsetInBlock());
+    }
+
+    // Nothing of a corrupt packet reaches the output
+    assertEquals(0, out.size());
+    assertDataNodeServedAll();
+  }
+
+  @Test
+  public void testStaleCachedConnectionIsRetriedOnNewConnection() throws Exception {
+    CountDownLatch firstConnectionClosed = new CountDownLatch(1);
+    startDataNode(
+        connection -> {
+          serveRead(connection, -1);
+          // The DataNode's keep-alive expires while the client holds the connection in its cache
+          connection.close();
+          firstConnectionClosed.countDown();
+        },
+        connection -> serveRead(connection, -1));
+
+    try (DataNodePeerCache peerCache = DataNodePeerCache.builder().build()) {
+      try (DefaultDataNodeClient client = newClient(peerCache)) {
+        client.copy(block(), new ByteArrayOutputStream());
+      }
+      assertTrue(firstConnectionClosed.await(5, TimeUnit.SECONDS));
+
+      // The cached connection fails without a response, and the read is retried on a new one
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      try (DefaultDataNodeClient client = newClient(peerCache)) {
+        client.copy(block(), out);
+      }
+
+      assertArrayEquals(blockData, out.toByteArray());
+    }
+    assertDataNodeServedAll();
+  }
+
+  private DefaultDataNodeClient newClient(DataNodePeerCache peerCache) {
+    return DefaultDataNodeClient.builder()
+        .hostname(HOST)
+        .port(serverSocket.getLocalPort())
+        .peerCache(peerCache)
+        .build();
+  }
+
+  private LocatedBlock block() {
+    return LocatedBlock.builder()
+        .blockId(BLOCK_ID)
+        .generationStamp(1001L)
+        .poolId("BP-test")
+        .hosts(Collections.singletonList(HOST))
+        .offset(0)
+        .length(blockData.length)
+        .build();
+  }
+
+  /** Accepts one connection per handler, in order, and serves it with that handler. */
+  private void startDataNode(ConnectionHandler... handlers) {
+    dataNodeThread =
+        new Thread(
+            () -> {
+              try {
+                for (ConnectionHandler handler : handlers) {
+                  try (Socket connection = serverSocket.accept()) {
+                    handler.serve(connection);
+                  }
+                }
+              } catch (Throwable t) {
+                dataNodeFailure.set(t);
+              }
+            },
+            "fake-datanode");
+    dataNodeThread.setDaemon(true);
+    dataNodeThread.start();
+  }
+
+  /** Checks that the fake DataNode served every expected connection without failing. */
+  private void assertDataNodeServedAll() throws Exception {
+    dataNodeThread.join(TimeUnit.SECONDS.toMillis(5));
+    assertFalse("DataNode is still waiting for connections", dataNodeThread.isAlive());
+    if (dataNodeFailure.get() != null) {
+      throw new AssertionError("DataNode failed", dataNodeFailure.get());
+    }
+  }
+
+  /**
+   * Serves one read of the whole block as a DataNode would, in packets of two CRC32C chunks.
+   *
+   * @param connection the client connection
+   * @param corruptOffset the offset within the block of a byte to corrupt in transit, or -1
+   */
+  private void serveRead(Socket connection, int corruptOffset) throws IOException {
+    DataInputStream in = new DataInputStream(connection.getInputStream());
+    OutputStream out = connection.getOutputStream();
+
+    // Data transfer version, READ_BLOCK opcode and request
+    in.readShort();
+    assertEquals(81, in.readByte());
+    OpReadBlockProto request = OpReadBlockProto.parseDelimitedFrom(in);
+    assertEquals(BLOCK_ID, request.getHeader().getBaseHeader().getBlock().getBlockId());
+    assertEquals(0, request.getOffset());
+    assertEquals(blockData.length, request.getLen());
+
+    DataChecksum checksum = DataChecksum.of(ChecksumTypeProto.CHECKSUM_CRC32C, BYTES_PER_CHECKSUM);
+    BlockOpResponseProto.newBuilder()
+        .setStatus(Status.SUCCESS)
+        .setReadOpChecksumInfo(
+            ReadOpChecksumInfoProto.newBuilder().setChecksum(checksum.toProto()).setChunkOffset(0))
+        .build()
+        .writeDelimitedTo(out);
+
+    PacketWriter writer = new PacketWriter(checksum, PACKET_DATA_LENGTH);
+    long seqno = 0;
+    for (int offset = 0; offset < blockData.length; offset += PACKET_DATA_LENGTH) {
+      int dataLength = Math.min(PACKET_DATA_LENGTH, blockData.length - offset);
+      System.arraycopy(
+          blockData, offset, writer.getDataArray(), writer.getDataOffset(), dataLength);
+
+      ByteArrayOutputStream packet = new ByteArrayOutputStream();
+      writer.write(packet, offset, seqno++, false, dataLength);
+      byte[] packetBytes = packet.toByteArray();
+      if (corruptOffset >= offset && corruptOffset < offset + dataLength) {
+        // The data is at the end of the packet, after the checksums
+        packetBytes[packetBytes.length - dataLength + corruptOffset - offset] ^= 1;
+      }
+      out.write(packetBytes);
+    }
+    writer.write(out, blockData.length, seqno, true, 0);
+    out.flush();
+
+    if (corruptOffset < 0) {
+      // A client that verified the checksums says so
+      ClientReadStatusProto status = ClientReadStatusProto.parseDelimitedFrom(in);
+      assertEquals(Status.CHECKSUM_OK, status.getStatus());
+    }
+  }
+
+  /** Serves one connection of the fake DataNode. */
+  @FunctionalInterface
+  private interface ConnectionHandler {
+    void serve(Socket connection) throws IOException, InterruptedException;
+  }
+}
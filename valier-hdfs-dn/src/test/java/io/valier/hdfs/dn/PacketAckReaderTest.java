@@ -0,0 +1,141 @@
+package io.valier.hdfs.dn;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.apache.hadoop.hdfs.protocol.proto.DataTransferProtos.PipelineAckProto;
+import org.apache.hadoop.hdfs.protocol.proto.DataTransferProtos.Status;
+import org.junit.Test;
+
+/** Unit tests for PacketAckReader, fed with acknowledgments as a DataNode pipeline sends them. */
+public class PacketAckReaderTest {
+
+  private static final long BLOCK_ID = 1073741825L;
+
+  @Test
+  public void testWindowBlocksUntilOldestPacketIsAcknowledged() throws Exception {
+    PipedOutputStream acks = new PipedOutputStream();
+    PacketAckReader reader = newReader(new PipedInputStream(acks), 2);
+    reader.start();
+
+    reader.awaitWindow();
+    reader.packetSending(0, false);
+    reader.awaitWindow();
+    reader.packetSending(1, false);
+
+    // The window of two packets is full until packet 0 is acknowledged
+    CompletableFuture<Void> third = awaitWindowAsync(reader);
+    Thread.sleep(200);
+    assertFalse(third.isDone());
+
+    writeAck(acks, 0, Status.SUCCESS, Status.SUCCESS);
+    third.get(5, TimeUnit.SECONDS);
+    reader.packetSending(2, true);
+
+    writeAck(acks, 1, Status.SUCCESS, Status.SUCCESS);
+    writeAck(acks, 2, Status.SUCCESS, Status.SUCCESS);
+    reader.awaitLastAck();
+  }
+
+  @Test
+  public void testHeartbeatsAreSkipped() throws Exception {
+    ByteArrayOutputStream acks = new ByteArrayOutputStream();
+    writeAck(acks, -1);
+    writeAck(acks, 0, Status.SUCCESS);
+    writeAck(acks, -1);
+    writeAck(acks, 1, Status.SUCCESS);
+
+    PacketAckReader reader = newReader(new ByteArrayInputStream(acks.toByteArray()), 4);
+    reader.packetSending(0, false);
+    reader.packetSending(1, true);
+    reader.start();
+
+    reader.awaitLastAck();
+  }
+
+  @Test
+  public void testUnexpectedSeqnoFailsWrite() throws Exception {
+    ByteArrayOutputStream acks = new ByteArrayOutputStream();
+    writeAck(acks, 0, Status.SUCCESS);
+    writeAck(acks, 2, Status.SUCCESS);
+
+    PacketAckReader reader = newReader(new ByteArrayInputStream(acks.toByteArray()), 4);
+    reader.packetSending(0, false);
+    reader.packetSending(1, false);
+    reader.packetSending(2, true);
+    reader.start();
+
+    IOException e = assertThrows(IOException.class, reader::awaitLastAck);
+    assertTrue(e.getMessage(), e.getMessage().contains("Expected seqno 1 but got 2"));
+  }
+
+  @Test
+  public void testErrorReplyFailsWrite() throws Exception {
+    ByteArrayOutputStream acks = new ByteArrayOutputStream();
+    writeAck(acks, 0, Status.SUCCESS, Status.ERROR_CHECKSUM, Status.SUCCESS);
+
+    PacketAckReader reader = newReader(new ByteArrayInputStream(acks.toByteArray()), 4);
+    reader.packetSending(0, true);
+    reader.start();
+
+    IOException e = assertThrows(IOException.class, reader::awaitLastAck);
+    assertTrue(e.getMessage(), e.getMessage().contains("ERROR_CHECKSUM"));
+  }
+
+  @Test
+  public void testFailureUnblocksWriterWaitingForWindow() throws Exception {
+    PipedOutputStream acks = new PipedOutputStream();
+    PacketAckReader reader = newReader(new PipedInputStream(acks), 1);
+    reader.start();
+
+    reader.awaitWindow();
+    reader.packetSending(0, false);
+    CompletableFuture<Void> blocked = awaitWindowAsync(reader);
+    Thread.sleep(200);
+    assertFalse(blocked.isDone());
+
+    // The pipeline closes without acknowledging packet 0
+    acks.close();
+
+    ExecutionException e =
+        assertThrows(ExecutionException.class, () -> blocked.get(5, TimeUnit.SECONDS));
+    assertTrue(e.getCause() instanceof UncheckedIOException);
+    assertThrows(IOException.class, reader::awaitLastAck);
+  }
+
+  private static PacketAckReader newReader(InputStream in, int maxPacketsInFlight) {
+    return new PacketAckReader(new DataInputStream(in), maxPacketsInFlight, BLOCK_ID);
+  }
+
+  private static CompletableFuture<Void> awaitWindowAsync(PacketAckReader reader) {
+    return CompletableFuture.runAsync(
+        () -> {
+          try {
+            reader.awaitWindow();
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+  }
+
+  private static void writeAck(OutputStream out, long seqno, Status... replies) throws IOException {
+    PipelineAckProto.newBuilder()
+        .setSeqno(seqno)
+        .addAllReply(Arrays.asList(replies))
+        .build()
+        .writeDelimitedTo(out);
+    out.flush();
+  }
+}
@@ -0,0 +1,235 @@
+package io.valier.hdfs.dn;
+
+import static org.junit.Assert.*;
+
+import com.google.protobuf.CodedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import org.apache.hadoop.hdfs.protocol.proto.DataTransferProtos.PacketHeaderProto;
+import org.apache.hadoop.hdfs.protocol.proto.HdfsProtos.ChecksumTypeProto;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Unit tests for PacketWriter. */
+public class PacketWriterTest {
+
+  private static final int BYTES_PER_CHECKSUM = 512;
+  private static final int MAX_DATA_LENGTH = 8 * BYTES_PER_CHECKSUM;
+
+  private ServerSocketChannel serverChannel;
+  private SocketChannel clientChannel;
+  private SocketChannel acceptedChannel;
+
+  @Before
+  public void setUp() throws IOException {
+    serverChannel =
+        ServerSocketChannel.open().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    clientChannel = SocketChannel.open(serverChannel.getLocalAddress());
+    clientChannel.configureBlocking(false);
+    acceptedChannel = serverChannel.accept();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    clientChannel.close();
+    acceptedChannel.close();
+    serverChannel.close();
+  }
+
+  @Test
+  public void testWriteLaysOutLengthsHeaderChecksumsAndData() throws IOException {
+    PacketWriter writer = new PacketWriter(newChecksum(), MAX_DATA_LENGTH);
+    byte[] data = data(1000, 1);
+
+    Packet packet = parse(writeFromArray(writer, 8192, 7, false, data));
+
+    // Two chunks, the second one partial
+    assertEquals(4 + 8 + data.length, packet.payloadLength);
+    assertEquals(packet.header.getSerializedSize(), packet.headerLength);
+    assertEquals(8192, packet.header.getOffsetInBlock());
+    assertEquals(7, packet.header.getSeqno());
+    assertFalse(packet.header.getLastPacketInBlock());
+    assertEquals(data.length, packet.header.getDataLen());
+    assertArrayEquals(checksums(data), packet.checksums);
+    assertArrayEquals(data, packet.data);
+  }
+
+  @Test
+  public void testWriteEmptyLastPacket() throws IOException {
+    PacketWriter writer = new PacketWriter(newChecksum(), MAX_DATA_LENGTH);
+
+    Packet packet = parse(writeFromArray(writer, 4096, 9, true, new byte[0]));
+
+    // PLEN only counts itself; there are no checksums without data
+    assertEquals(4, packet.payloadLength);
+    assertEquals(packet.header.getSerializedSize(), packet.headerLength);
+    assertEquals(4096, packet.header.getOffsetInBlock());
+    assertEquals(9, packet.header.getSeqno());
+    assertTrue(packet.header.getLastPacketInBlock());
+    assertEquals(0, packet.header.getDataLen());
+    assertEquals(0, packet.checksums.length);
+    assertEquals(0, packet.data.length);
+  }
+
+  @Test
+  public void testWriteFullPacket() throws IOException {
+    PacketWriter writer = new PacketWriter(newChecksum(), MAX_DATA_LENGTH);
+    byte[] data = data(MAX_DATA_LENGTH, 2);
+
+    Packet packet = parse(writeFromArray(writer, 0, 0, false, data));
+
+    assertEquals(4 + 8 * 4 + MAX_DATA_LENGTH, packet.payloadLength);
+    assertEquals(MAX_DATA_LENGTH, packet.header.getDataLen());
+    assertArrayEquals(checksums(data), packet.checksums);
+    assertArrayEquals(data, packet.data);
+  }
+
+  @Test
+  public void testWriteWithoutChecksums() throws IOException {
+    PacketWriter writer = new PacketWriter(null, MAX_DATA_LENGTH);
+    byte[] data = data(700, 3);
+
+    Packet packet = parse(writeFromArray(writer, 0, 1, false, data));
+
+    assertEquals(4 + data.length, packet.payloadLength);
+    assertEquals(0, packet.checksums.length);
+    assertArrayEquals(data, packet.data);
+  }
+
+  @Test
+  public void testReusedBufferKeepsNothingOfEarlierPackets() throws IOException {
+    PacketWriter writer = new PacketWriter(newChecksum(), MAX_DATA_LENGTH);
+    writeFromArray(writer, 0, 0, false, data(MAX_DATA_LENGTH, 4));
+    byte[] data = data(100, 5);
+
+    Packet packet = parse(writeFromArray(writer, MAX_DATA_LENGTH, 1, false, data));
+
+    assertEquals(4 + 4 + data.length, packet.payloadLength);
+    assertEquals(1, packet.header.getSeqno());
+    assertArrayEquals(checksums(data), packet.checksums);
+    assertArrayEquals(data, packet.data);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRejectsOversizedPacket() throws IOException {
+    PacketWriter writer = new PacketWriter(newChecksum(), MAX_DATA_LENGTH);
+    writer.write(new ByteArrayOutputStream(), 0, 0, false, MAX_DATA_LENGTH + 1);
+  }
+
+  @Test
+  public void testWriteFromBufferMatchesWriteFromArray() throws IOException {
+    PacketWriter writer = new PacketWriter(newChecksum(), MAX_DATA_LENGTH);
+
+    for (int dataLength : new int[] {0, 1000, MAX_DATA_LENGTH}) {
+      byte[] data = data(dataLength, dataLength);
+      byte[] expected = writeFromArray(writer, 512, 3, false, data);
+
+      ByteBuffer buffer = ByteBuffer.allocateDirect(dataLength);
+      buffer.put(data).flip();
+      byte[] packet = writeFromBuffer(writer, 512, 3, buffer, expected.length);
+
+      assertArrayEquals("Packet with " + dataLength + " bytes of data", expected, packet);
+      assertFalse(buffer.hasRemaining());
+
+      Packet parsed = parse(packet);
+      assertEquals(4 + newChecksum().checksumLength(dataLength) + dataLength, parsed.payloadLength);
+      assertEquals(dataLength, parsed.header.getDataLen());
+      assertArrayEquals(data, parsed.data);
+    }
+  }
+
+  private static DataChecksum newChecksum() {
+    return DataChecksum.of(ChecksumTypeProto.CHECKSUM_CRC32C, BYTES_PER_CHECKSUM);
+  }
+
+  private static byte[] data(int length, int seed) {
+    byte[] data = new byte[length];
+    for (int i = 0; i < length; i++) {
+      data[i] = (byte) (i * 7 + seed);
+    }
+    return data;
+  }
+
+  private static byte[] checksums(byte[] data) {
+    DataChecksum checksum = newChecksum();
+    byte[] sums = new byte[checksum.checksumLength(data.length)];
+    checksum.compute(data, 0, data.length, sums, 0);
+    return sums;
+  }
+
+  /** Places data in the writer's data area and returns the bytes of the packet it writes. */
+  private static byte[] writeFromArray(
+      PacketWriter writer, long offsetInBlock, long seqno, boolean lastPacket, byte[] data)
+      throws IOException {
+    System.arraycopy(data, 0, writer.getDataArray(), writer.getDataOffset(), data.length);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    writer.write(out, offsetInBlock, seqno, lastPacket, data.length);
+    return out.toByteArray();
+  }
+
+  /** Writes a packet of buffered data to the loopback channel and reads it back. */
+  private byte[] writeFromBuffer(
+      PacketWriter writer, long offsetInBlock, long seqno, ByteBuffer data, int packetLength)
+      throws IOException {
+    try (SocketOutputStream out = new SocketOutputStream(clientChannel)) {
+      writer.write(out, offsetInBlock, seqno, data);
+    }
+
+    ByteBuffer received = ByteBuffer.allocate(packetLength);
+    while (received.hasRemaining()) {
+      if (acceptedChannel.read(received) < 0) {
+        fail("Channel closed after " + received.position() + " bytes");
+      }
+    }
+    return received.array();
+  }
+
+  /** Splits the bytes of one packet into its parts, checking its lengths add up. */
+  private static Packet parse(byte[] bytes) throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    int payloadLength = buffer.getInt();
+    int headerLength = buffer.getShort();
+    PacketHeaderProto header =
+        PacketHeaderProto.parseFrom(CodedInputStream.newInstance(bytes, 6, headerLength));
+
+    int dataStart = bytes.length - header.getDataLen();
+    int checksumsStart = 6 + headerLength;
+    assertEquals(bytes.length, checksumsStart + payloadLength - 4);
+    return new Packet(
+        payloadLength,
+        headerLength,
+        header,
+        Arrays.copyOfRange(bytes, checksumsStart, dataStart),
+        Arrays.copyOfRange(bytes, dataStart, bytes.length));
+  }
+
+  /** The parts of a packet as sent on the wire. */
+  private static final class Packet {
+
+    private final int payloadLength;
+    private final int headerLength;
+    private final PacketHeaderProto header;
+    private final byte[] checksums;
+    private final byte[] data;
+
+    Packet(
+        int payloadLength,
+        int headerLength,
+        PacketHeaderProto header,
+        byte[] checksums,
+        byte[] data) {
+      this.payloadLength = payloadLength;
+      this.headerLength = headerLength;
+      this.header = header;
+      this.checksums = checksums;
+      this.data = data;
+    }
+  }
+}
@@ -3,7 +3,11 @@ package io.valier.hdfs.filemanager;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.AccessLevel;
 import lombok.Builder;
+import lombok.Getter;
 import lombok.Value;
 
 /**
@@ -23,7 +27,10 @@ public class CompletedDirectoryDownload {
   /** The local directory path where files were downloaded. */
   Path localDirectoryPath;
 
-  /** List of individual file download results. */
+  /**
+   * List of individual file download results, growing as downloads finish. Synchronize on the list
+   * when iterating it before the download has completed.
+   */
   List<FileDownloadResult> fileDownloadResults;
 
   /**
@@ -32,8 +39,20 @@ public class CompletedDirectoryDownload {
    */
   CompletableFuture<Void> completionFuture;
 
-  /** Total number of files that were scheduled for download. */
-  int totalFileCount;
+  /**
+   * Future that completes once every file to download has been found. Files are downloaded while
+   * the rest of the directory is still being scanned, so the totals below grow until this future
+   * completes.
+   */
+  CompletableFuture<Void> discoveryFuture;
+
+  /** Number of files found so far and scheduled for download. */
+  @Getter(AccessLevel.NONE)
+  AtomicInteger totalFileCount;
+
+  /** Total size in bytes of the files found so far and scheduled for download. */
+  @Getter(AccessLevel.NONE)
+  AtomicLong totalByteCount;
 
   /**
    * Blocks until all file downloads complete.
@@ -59,7 +78,9 @@ public class CompletedDirectoryDownload {
    * @return number of successful downloads
    */
   public long getSuccessfulDownloadCount() {
-    return fileDownloadResults.stream().filter(FileDownloadResult::isSuccess).count();
+    synchronized (fileDownloadResults) {
+      return fileDownloadResults.stream().filter(FileDownloadResult::isSuccess).count();
+    }
   }
 
   /**
@@ -68,7 +89,29 @@ public class CompletedDirectoryDownload {
    * @return number of failed downloads
    */
   public long getFailedDownloadCount() {
-    return fileDownloadResults.stream().filter(result -> !result.isSuccess()).count();
+    synchronized (fileDownloadResults) {
+      return fileDownloadResults.stream().filter(result -> !result.isSuccess()).count();
+    }
+  }
+
+  /**
+   * Gets the number of files found so far and scheduled for download. The count is final once
+   * {@link #getDiscoveryFuture()} has completed.
+   *
+   * @return number of files scheduled for download
+   */
+  public int getTotalFileCount() {
+    return totalFileCount.get();
+  }
+
+  /**
+   * Gets the total size in bytes of the files found so far and scheduled for download. The total is
+   * final once {@link #getDiscoveryFuture()} has completed.
+   *
+   * @return total size in bytes of the files scheduled for download
+   */
+  public long getTotalByteCount() {
+    return totalByteCount.get();
   }
 
   /** Result of an individual file download within the directory download. */
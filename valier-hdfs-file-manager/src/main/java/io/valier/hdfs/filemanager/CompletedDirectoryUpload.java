@@ -3,7 +3,13 @@ package io.valier.hdfs.filemanager;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import lombok.AccessLevel;
 import lombok.Builder;
+import lombok.Getter;
 import lombok.Value;
 
 /**
@@ -23,7 +29,10 @@ public class CompletedDirectoryUpload {
   /** The HDFS directory path where files were uploaded. */
   String hdfsDirectoryPath;
 
-  /** List of individual file upload results. */
+  /**
+   * List of individual file upload results, growing as uploads finish. Synchronize on the list when
+   * iterating it before the upload has completed.
+   */
   List<FileUploadResult> fileUploadResults;
 
   /**
@@ -32,8 +41,24 @@ public class CompletedDirectoryUpload {
    */
   CompletableFuture<Void> completionFuture;
 
-  /** Total number of files that were scheduled for upload. */
-  int totalFileCount;
+  /**
+   * Future that completes once every file to upload has been found. Files are uploaded while the
+   * rest of the directory is still being scanned, so the totals below grow until this future
+   * completes.
+   */
+  CompletableFuture<Void> discoveryFuture;
+
+  /** Number of files found so far and scheduled for upload. */
+  @Getter(AccessLevel.NONE)
+  AtomicInteger totalFileCount;
+
+  /** Total size in bytes of the files found so far and scheduled for upload. */
+  @Getter(AccessLevel.NONE)
+  AtomicLong totalByteCount;
+
+  /** Time spent on the upload so far, in nanoseconds; final once the upload has completed. */
+  @Getter(AccessLevel.NONE)
+  LongSupplier elapsedNanos;
 
   /**
    * Blocks until all file uploads complete.
@@ -59,7 +84,9 @@ public class CompletedDirectoryUpload {
    * @return number of successful uploads
    */
   public long getSuccessfulUploadCount() {
-    return fileUploadResults.stream().filter(FileUploadResult::isSuccess).count();
+    synchronized (fileUploadResults) {
+      return fileUploadResults.stream().filter(FileUploadResult::isSuccess).count();
+    }
   }
 
   /**
@@ -68,7 +95,51 @@ public class CompletedDirectoryUpload {
    * @return number of failed uploads
    */
   public long getFailedUploadCount() {
-    return fileUploadResults.stream().filter(result -> !result.isSuccess()).count();
+    synchronized (fileUploadResults) {
+      return fileUploadResults.stream().filter(result -> !result.isSuccess()).count();
+    }
+  }
+
+  /**
+   * Gets the number of files found so far and scheduled for upload. The count is final once {@link
+   * #getDiscoveryFuture()} has completed.
+   *
+   * @return number of files scheduled for upload
+   */
+  public int getTotalFileCount() {
+    return totalFileCount.get();
+  }
+
+  /**
+   * Gets the total size in bytes of the files found so far and scheduled for upload. The total is
+   * final once {@link #getDiscoveryFuture()} has completed.
+   *
+   * @return total size in bytes of the files scheduled for upload
+   */
+  public long getTotalByteCount() {
+    return totalByteCount.get();
+  }
+
+  /**
+   * Gets the time spent on the upload so far, from the start of the directory scan until the last
+   * file was uploaded.
+   *
+   * @return elapsed time in milliseconds
+   */
+  public long getElapsedTimeMs() {
+    return TimeUnit.NANOSECONDS.toMillis(elapsedNanos.getAsLong());
+  }
+
+  /**
+   * Gets the aggregate upload rate: the number of files successfully uploaded so far divided by the
+   * elapsed time. Useful to compare the throughput of batches of small files, where the per-file
+   * NameNode round trips rather than the bytes dominate.
+   *
+   * @return successfully uploaded files per second, or 0 if no time has elapsed
+   */
+  public double getFilesPerSecond() {
+    long nanos = elapsedNanos.getAsLong();
+    return nanos <= 0 ? 0 : getSuccessfulUploadCount() * 1e9 / nanos;
   }
 
   /** Result of an individual file upload within the directory upload. */
@@ -1,17 +1,24 @@
 package io.valier.hdfs.filemanager;
 
 import io.valier.hdfs.client.HdfsClient;
+import io.valier.hdfs.client.ParallelDownloadOptions;
+import io.valier.hdfs.client.WalkOptions;
+import io.valier.hdfs.client.WriteOptions;
+import io.valier.hdfs.crt.HdfsPaths;
 import io.valier.hdfs.filemanager.listener.DownloadListener;
 import io.valier.hdfs.filemanager.listener.UploadListener;
 import io.valier.hdfs.nn.HdfsFileSummary;
+import io.valier.hdfs.nn.ListOptions;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Stream;
 import lombok.Builder;
 import lombok.NonNull;
@@ -50,18 +57,75 @@ public class DefaultHdfsTransferManager implements HdfsTransferManager {
   /** Number of threads in the internal thread pool for parallel transfers. */
   @Builder.Default int threadPoolSize = 1;
 
+  /**
+   * Minimum size in bytes of a file for {@link #download} to fetch several of its blocks
+   * concurrently, writing them in place in the local file. Smaller files are downloaded one block
+   * after another. Use {@link Long#MAX_VALUE} to disable parallel block downloads.
+   *
+   * <p>Default: 268435456 (256MB, two 128MB blocks)
+   */
+  @Builder.Default long parallelDownloadThreshold = 268435456L;
+
+  /** Parallelism of block downloads for files at or above parallelDownloadThreshold. */
+  @Builder.Default
+  ParallelDownloadOptions parallelDownloadOptions = ParallelDownloadOptions.DEFAULT;
+
+  /**
+   * Maximum size in bytes of a file for {@link #uploadDirectory} to upload it in small-file mode,
+   * or 0 to upload every file the same way. A small file is read into memory and written with
+   * {@link HdfsClient#writeAsync}: its create, addBlock and complete calls are sent asynchronously,
+   * over the NameNode client's shared multiplexed connection when it has one, without the usual
+   * existence lookup, so the NameNode calls of the next files overlap with the DataNode writes of
+   * earlier ones. Only the local read and the DataNode write occupy a transfer thread.
+   *
+   * <p>Default: 0 (disabled); 1048576 (1MB) suits ingestion of many small files
+   */
+  @Builder.Default long smallFileThreshold = 0;
+
   /**
    * Thread pool executor for parallel file transfers. Created during build() based on
    * threadPoolSize configuration.
    */
   ExecutorService executorService;
 
+  /**
+   * Executor running the scans that discover the files of directory transfers, so that files are
+   * transferred while the rest of their directory is still being scanned. Created during build().
+   */
+  ExecutorService discoveryExecutorService;
+
+  /** Number of files per transfer thread that a directory scan may schedule ahead of transfers. */
+  private static final int QUEUED_FILES_PER_THREAD = 4;
+
+  /**
+   * Write options of small-file uploads; the create call fails on its own if the file exists, so no
+   * separate existence lookup is made.
+   */
+  private static final WriteOptions SMALL_FILE_WRITE_OPTIONS =
+      WriteOptions.builder().checkExistence(false).build();
+
+  /**
+   * Download options of files that are not downloaded in parallel, such as those of a directory
+   * download, which already transfers several files at once; the blocks are still written to the
+   * local file straight from the DataNode connections, one at a time.
+   */
+  private static final ParallelDownloadOptions SEQUENTIAL_DOWNLOAD_OPTIONS =
+      ParallelDownloadOptions.builder().parallelism(1).build();
+
+  /** Scan of a directory that schedules the transfer of each file it finds. */
+  @FunctionalInterface
+  private interface DirectoryScan {
+    void run() throws IOException, InterruptedException;
+  }
+
   /**
    * Downloads an entire directory from HDFS to a local path.
    *
-   * <p>This method lists all files in the specified HDFS directory and downloads them in parallel
-   * using the configured thread pool. Only regular files are downloaded - subdirectories are
-   * created but not recursively processed.
+   * <p>The HDFS directory is walked on a background thread and each file is scheduled for download
+   * on the configured thread pool as soon as it is found, so downloads start before the whole
+   * directory has been listed. The number of files scheduled but not yet downloaded is bounded, so
+   * the scan never runs far ahead of the downloads. Subdirectories are created locally; their
+   * contents are only downloaded if the request is recursive.
    *
    * @param request The download directory request containing source and destination paths
    * @return CompletedDirectoryDownload with a future that can be used to wait for completion
@@ -75,56 +139,57 @@ public class DefaultHdfsTransferManager implements HdfsTransferManager {
     Path localDirectoryPath = request.getLocalDirectoryPath();
 
     log.debug(
-        "Starting directory download from HDFS path: {} to local path: {}",
+        "Starting {}directory download from HDFS path: {} to local path: {}",
+        request.isRecursive() ? "recursive " : "",
         hdfsDirectoryPath,
         localDirectoryPath);
 
     // Ensure local directory exists
     Files.createDirectories(localDirectoryPath);
 
-    // List files in the HDFS directory
-    List<HdfsFileSummary> filesToDownload = new ArrayList<>();
-    try (Stream<HdfsFileSummary> files = hdfsClient.list(hdfsDirectoryPath)) {
-      files.filter(HdfsFileSummary::isFile).forEach(filesToDownload::add);
-    }
-
-    log.debug(
-        "Found {} files to download from directory: {}", filesToDownload.size(), hdfsDirectoryPath);
-
-    // Create download tasks for each file
-    List<CompletedDirectoryDownload.FileDownloadResult> results =
-        new ArrayList<>(filesToDownload.size());
-    List<CompletableFuture<CompletedDirectoryDownload.FileDownloadResult>> downloadFutures =
-        new ArrayList<>(filesToDownload.size());
-
-    // Submit download tasks for each file
-    for (HdfsFileSummary file : filesToDownload) {
-      String hdfsFilePath = hdfsDirectoryPath + "/" + file.getName();
-      Path localFilePath = localDirectoryPath.resolve(file.getName());
-
-      CompletableFuture<CompletedDirectoryDownload.FileDownloadResult> downloadFuture =
-          CompletableFuture.supplyAsync(
-              () -> downloadSingleFile(hdfsFilePath, localFilePath), executorService);
-
-      downloadFutures.add(downloadFuture);
-    }
-
-    // Create a future that completes when all downloads are done
-    CompletableFuture<Void> allDownloadsFuture =
-        CompletableFuture.allOf(downloadFutures.toArray(new CompletableFuture[0]));
-
-    // Populate the results list immediately with placeholders, then update as downloads complete
-    for (CompletableFuture<CompletedDirectoryDownload.FileDownloadResult> future :
-        downloadFutures) {
-      future.thenAccept(results::add);
-    }
+    // Start the walk here so that a missing HDFS directory fails the call; each download looks up
+    // its own block locations, so the listings skip them
+    WalkOptions walkOptions =
+        WalkOptions.builder()
+            .parallelism(threadPoolSize)
+            .listOptions(ListOptions.builder().includeBlockLocations(false).build())
+            .build();
+    Stream<HdfsFileSummary> entries =
+        hdfsClient.walk(
+            hdfsDirectoryPath, request.isRecursive() ? Integer.MAX_VALUE : 1, walkOptions);
+
+    DirectoryTransferPipeline<CompletedDirectoryDownload.FileDownloadResult> pipeline =
+        new DirectoryTransferPipeline<>(executorService, threadPoolSize * QUEUED_FILES_PER_THREAD);
+
+    runDiscovery(
+        pipeline,
+        entries,
+        () -> {
+          try (Stream<HdfsFileSummary> files = entries) {
+            Iterator<HdfsFileSummary> iterator = files.iterator();
+            while (iterator.hasNext()) {
+              HdfsFileSummary entry = iterator.next();
+              Path localPath =
+                  localDirectoryPath.resolve(relativize(hdfsDirectoryPath, entry.getPath()));
+
+              if (entry.isDirectory()) {
+                Files.createDirectories(localPath);
+              } else if (entry.isFile()) {
+                pipeline.submit(
+                    entry.getLength(), () -> downloadSingleFile(entry.getPath(), localPath));
+              }
+            }
+          }
+        });
 
     return CompletedDirectoryDownload.builder()
         .hdfsDirectoryPath(hdfsDirectoryPath)
         .localDirectoryPath(localDirectoryPath)
-        .fileDownloadResults(results)
-        .completionFuture(allDownloadsFuture)
-        .totalFileCount(filesToDownload.size())
+        .fileDownloadResults(pipeline.getResults())
+        .completionFuture(pipeline.getCompletionFuture())
+        .discoveryFuture(pipeline.getDiscoveryFuture())
+        .totalFileCount(pipeline.getFileCount())
+        .totalByteCount(pipeline.getByteCount())
         .build();
   }
 
@@ -155,9 +220,11 @@ public class DefaultHdfsTransferManager implements HdfsTransferManager {
   /**
    * Uploads an entire directory from the local filesystem to HDFS.
    *
-   * <p>This method lists all files in the specified local directory and uploads them in parallel
-   * using the configured thread pool. Only regular files are uploaded - subdirectories are created
-   * in HDFS but not recursively processed.
+   * <p>The local directory is walked on a background thread that creates each subdirectory in HDFS
+   * and schedules each file for upload on the configured thread pool as soon as it is found, so
+   * uploads start before the whole directory has been scanned. The number of files scheduled but
+   * not yet uploaded is bounded, so the scan never runs far ahead of the uploads. Subdirectories
+   * are created in HDFS; their contents are only uploaded if the request is recursive.
    *
    * @param request The upload directory request containing source and destination paths
    * @return CompletedDirectoryUpload with a future that can be used to wait for completion
@@ -171,53 +238,59 @@ public class DefaultHdfsTransferManager implements HdfsTransferManager {
     String hdfsDirectoryPath = request.getHdfsDirectoryPath();
 
     log.debug(
-        "Starting directory upload from local path: {} to HDFS path: {}",
+        "Starting {}directory upload from local path: {} to HDFS path: {}",
+        request.isRecursive() ? "recursive " : "",
         localDirectoryPath,
         hdfsDirectoryPath);
 
     hdfsClient.createDirectories(hdfsDirectoryPath);
 
-    // List files in the local directory
-    List<Path> filesToUpload = new ArrayList<>();
-    try (Stream<Path> files = Files.list(localDirectoryPath)) {
-      files.filter(Files::isRegularFile).forEach(filesToUpload::add);
-    }
-
-    log.debug(
-        "Found {} files to upload from directory: {}", filesToUpload.size(), localDirectoryPath);
-
-    // Create upload tasks for each file
-    List<CompletedDirectoryUpload.FileUploadResult> results = new ArrayList<>(filesToUpload.size());
-    List<CompletableFuture<CompletedDirectoryUpload.FileUploadResult>> uploadFutures =
-        new ArrayList<>(filesToUpload.size());
-
-    // Submit upload tasks for each file
-    for (Path localFile : filesToUpload) {
-      String fileName = localFile.getFileName().toString();
-      String hdfsFilePath = hdfsDirectoryPath + "/" + fileName;
-
-      CompletableFuture<CompletedDirectoryUpload.FileUploadResult> uploadFuture =
-          CompletableFuture.supplyAsync(
-              () -> uploadSingleFile(localFile, hdfsFilePath), executorService);
-
-      uploadFutures.add(uploadFuture);
-    }
-
-    // Create a future that completes when all uploads are done
-    CompletableFuture<Void> allUploadsFuture =
-        CompletableFuture.allOf(uploadFutures.toArray(new CompletableFuture[0]));
-
-    // Populate the results list immediately with placeholders, then update as uploads complete
-    for (CompletableFuture<CompletedDirectoryUpload.FileUploadResult> future : uploadFutures) {
-      future.thenAccept(results::add);
-    }
+    // Start the walk here so that a missing local directory fails the call
+    Stream<Path> entries =
+        Files.walk(localDirectoryPath, request.isRecursive() ? Integer.MAX_VALUE : 1);
+
+    DirectoryTransferPipeline<CompletedDirectoryUpload.FileUploadResult> pipeline =
+        new DirectoryTransferPipeline<>(executorService, threadPoolSize * QUEUED_FILES_PER_THREAD);
+
+    runDiscovery(
+        pipeline,
+        entries,
+        () -> {
+          // Files.walk visits each directory before its contents, so parents exist in HDFS before
+          // any of their files are uploaded
+          try (Stream<Path> files = entries) {
+            Iterator<Path> iterator = files.iterator();
+            while (iterator.hasNext()) {
+              Path localPath = iterator.next();
+              if (localPath.equals(localDirectoryPath)) {
+                continue;
+              }
+              Path relativePath = localDirectoryPath.relativize(localPath);
+              String hdfsPath = HdfsPaths.get(hdfsDirectoryPath, toPathElements(relativePath));
+
+              if (Files.isDirectory(localPath)) {
+                hdfsClient.createDirectories(hdfsPath);
+              } else if (Files.isRegularFile(localPath)) {
+                long size = sizeOf(localPath);
+                if (smallFileThreshold > 0 && size <= smallFileThreshold) {
+                  pipeline.submitAsync(size, () -> uploadSmallFile(localPath, hdfsPath));
+                } else {
+                  pipeline.submit(size, () -> uploadSingleFile(localPath, hdfsPath));
+                }
+              }
+            }
+          }
+        });
 
     return CompletedDirectoryUpload.builder()
         .localDirectoryPath(localDirectoryPath)
         .hdfsDirectoryPath(hdfsDirectoryPath)
-        .fileUploadResults(results)
-        .completionFuture(allUploadsFuture)
-        .totalFileCount(filesToUpload.size())
+        .fileUploadResults(pipeline.getResults())
+        .completionFuture(pipeline.getCompletionFuture())
+        .discoveryFuture(pipeline.getDiscoveryFuture())
+        .totalFileCount(pipeline.getFileCount())
+        .totalByteCount(pipeline.getByteCount())
+        .elapsedNanos(pipeline::getElapsedNanos)
         .build();
   }
 
@@ -244,6 +317,103 @@ public class DefaultHdfsTransferManager implements HdfsTransferManager {
         .build();
   }
 
+  /**
+   * Returns the options of a single-file download, fetching several blocks at once for files of at
+   * least parallelDownloadThreshold bytes and reporting progress to the download listener if there
+   * is one. Blocks of large files are written concurrently, so the listener may be called from
+   * several threads.
+   */
+  private ParallelDownloadOptions downloadOptions(
+      DownloadRequest request, DownloadListener downloadListener) {
+    ParallelDownloadOptions.ParallelDownloadOptionsBuilder options =
+        parallelDownloadOptions.toBuilder().parallelThresholdBytes(parallelDownloadThreshold);
+    if (downloadListener != null) {
+      AtomicLong totalBytesWritten = new AtomicLong();
+      options.progressListener(
+          bytesWritten ->
+              downloadListener.onDataDownloaded(
+                  request, bytesWritten, totalBytesWritten.addAndGet(bytesWritten)));
+    }
+    return options.build();
+  }
+
+  /** Opens a local file for a download, creating it or truncating an existing file. */
+  private static FileChannel openForDownload(Path localFilePath) throws IOException {
+    return FileChannel.open(
+        localFilePath,
+        StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING);
+  }
+
+  /**
+   * Runs a directory scan on the discovery executor, completing or failing the pipeline's discovery
+   * when the scan ends.
+   *
+   * @param pipeline the pipeline the scan submits transfers to
+   * @param source the walk the scan consumes, closed if the scan cannot be started
+   * @param scan the directory scan
+   */
+  private void runDiscovery(
+      DirectoryTransferPipeline<?> pipeline, AutoCloseable source, DirectoryScan scan) {
+    try {
+      discoveryExecutorService.execute(
+          () -> {
+            try {
+              scan.run();
+              pipeline.discoveryCompleted();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+              pipeline.discoveryFailed(e);
+            } catch (Exception e) {
+              log.debug("Failed to scan directory for transfer", e);
+              pipeline.discoveryFailed(e);
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      try {
+        source.close();
+      } catch (Exception closeException) {
+        e.addSuppressed(closeException);
+      }
+      pipeline.discoveryFailed(e);
+    }
+  }
+
+  /**
+   * Returns the path of an entry found by walking an HDFS directory relative to that directory.
+   *
+   * @param hdfsDirectoryPath the walked HDFS directory
+   * @param hdfsPath the full path of an entry below it
+   * @return the entry's path relative to the walked directory
+   */
+  private static String relativize(String hdfsDirectoryPath, String hdfsPath) {
+    String root = HdfsPaths.get(hdfsDirectoryPath);
+    String prefix = root.endsWith(HdfsPaths.DELIMITER) ? root : root + HdfsPaths.DELIMITER;
+    if (!hdfsPath.startsWith(prefix)) {
+      throw new IllegalStateException(hdfsPath + " is not below " + hdfsDirectoryPath);
+    }
+    return hdfsPath.substring(prefix.length());
+  }
+
+  /** Returns the names of a relative local path, to be joined as HDFS path elements. */
+  private static String[] toPathElements(Path relativePath) {
+    String[] elements = new String[relativePath.getNameCount()];
+    for (int i = 0; i < elements.length; i++) {
+      elements[i] = relativePath.getName(i).toString();
+    }
+    return elements;
+  }
+
+  /** Returns the size of a local file, or 0 if it cannot be read; its upload reports the error. */
+  private static long sizeOf(Path localFilePath) {
+    try {
+      return Files.size(localFilePath);
+    } catch (IOException e) {
+      return 0;
+    }
+  }
+
   /**
    * Uploads a single file from a local path to HDFS.
    *
@@ -263,9 +433,9 @@ public class DefaultHdfsTransferManager implements HdfsTransferManager {
         throw new IOException("Local file does not exist: " + localFilePath);
       }
 
-      // Upload the file using the HDFS client with InputStream
-      try (InputStream in = Files.newInputStream(localFilePath)) {
-        hdfsClient.copy(hdfsFilePath, in);
+      // Upload the file using the HDFS client with a FileChannel, sent from direct buffers
+      try (FileChannel channel = FileChannel.open(localFilePath, StandardOpenOption.READ)) {
+        hdfsClient.write(hdfsFilePath, channel, WriteOptions.DEFAULT);
       }
 
       long endTime = System.nanoTime();
@@ -306,6 +476,67 @@ public class DefaultHdfsTransferManager implements HdfsTransferManager {
     }
   }
 
+  /**
+   * Uploads a small file from a local path to HDFS in small-file mode. The file is read on a
+   * transfer thread, and its NameNode calls are sent asynchronously while the thread is free to
+   * write the data of other files.
+   *
+   * @param localFilePath The local file path to upload
+   * @param hdfsFilePath The HDFS file path where the file should be saved
+   * @return future completing with the FileUploadResult, never exceptionally
+   */
+  private CompletableFuture<CompletedDirectoryUpload.FileUploadResult> uploadSmallFile(
+      Path localFilePath, String hdfsFilePath) {
+    long startTime = System.nanoTime();
+    log.debug("Uploading small file: {} to {}", localFilePath, hdfsFilePath);
+
+    return CompletableFuture.supplyAsync(() -> readSmallFile(localFilePath), executorService)
+        .thenCompose(
+            content ->
+                hdfsClient
+                    .writeAsync(hdfsFilePath, content, SMALL_FILE_WRITE_OPTIONS, executorService)
+                    .thenApply(v -> (long) content.length))
+        .handle(
+            (fileSize, failure) -> {
+              long uploadTimeMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+              CompletedDirectoryUpload.FileUploadResult.FileUploadResultBuilder result =
+                  CompletedDirectoryUpload.FileUploadResult.builder()
+                      .localFilePath(localFilePath)
+                      .hdfsFilePath(hdfsFilePath)
+                      .uploadTimeMs(uploadTimeMs);
+
+              if (failure == null) {
+                log.debug(
+                    "Successfully uploaded file: {} ({} bytes in {} ms)",
+                    localFilePath,
+                    fileSize,
+                    uploadTimeMs);
+                return result.success(true).exception(null).fileSizeBytes(fileSize).build();
+              }
+
+              Throwable cause = failure;
+              while ((cause instanceof CompletionException
+                      || cause instanceof UncheckedIOException)
+                  && cause.getCause() != null) {
+                cause = cause.getCause();
+              }
+              log.debug("Failed to upload file: {} to {}", localFilePath, hdfsFilePath, cause);
+              return result.success(false).exception(cause).fileSizeBytes(0).build();
+            });
+  }
+
+  /** Reads a small local file into memory, wrapping failures so they can cross a future. */
+  private static byte[] readSmallFile(Path localFilePath) {
+    try {
+      if (!Files.exists(localFilePath)) {
+        throw new IOException("Local file does not exist: " + localFilePath);
+      }
+      return Files.readAllBytes(localFilePath);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
   /**
    * Downloads a single file from HDFS to a local path.
    *
@@ -323,9 +554,9 @@ public class DefaultHdfsTransferManager implements HdfsTransferManager {
       // Ensure parent directory exists
       Files.createDirectories(localFilePath.getParent());
 
-      // Download the file using the HDFS client with OutputStream
-      try (OutputStream out = Files.newOutputStream(localFilePath)) {
-        hdfsClient.copy(hdfsFilePath, out);
+      // Download the file using the HDFS client with a FileChannel, written from direct buffers
+      try (FileChannel channel = openForDownload(localFilePath)) {
+        hdfsClient.copy(hdfsFilePath, channel, SEQUENTIAL_DOWNLOAD_OPTIONS);
       }
 
       long endTime = System.nanoTime();
@@ -391,16 +622,10 @@ public class DefaultHdfsTransferManager implements HdfsTransferManager {
       // Ensure parent directory exists
       Files.createDirectories(localFilePath.getParent());
 
-      // Download the file using the HDFS client with OutputStream
-      try (OutputStream baseOut = Files.newOutputStream(localFilePath)) {
-        OutputStream out = baseOut;
-
-        // Wrap with progress tracking if listener is provided
-        if (downloadListener != null) {
-          out = new ProgressTrackingOutputStream(baseOut, request, downloadListener);
-        }
-
-        hdfsClient.copy(hdfsFilePath, out);
+      // Write each block in place in the local file; the client chooses between fetching blocks
+      // in parallel or one by one from the file length in the block locations it looks up
+      try (FileChannel channel = openForDownload(localFilePath)) {
+        hdfsClient.copy(hdfsFilePath, channel, downloadOptions(request, downloadListener));
       }
 
       long endTime = System.nanoTime();
@@ -474,16 +699,17 @@ public class DefaultHdfsTransferManager implements HdfsTransferManager {
         throw new IOException("Local file does not exist: " + localFilePath);
       }
 
-      // Upload the file using the HDFS client with InputStream
-      try (InputStream baseIn = Files.newInputStream(localFilePath)) {
-        InputStream in = baseIn;
-
-        // Wrap with progress tracking if listener is provided
-        if (uploadListener != null) {
-          in = new ProgressTrackingInputStream(baseIn, request, uploadListener);
+      if (uploadListener == null) {
+        // Upload the file using the HDFS client with a FileChannel, sent from direct buffers
+        try (FileChannel channel = FileChannel.open(localFilePath, StandardOpenOption.READ)) {
+          hdfsClient.write(hdfsFilePath, channel, WriteOptions.DEFAULT);
+        }
+      } else {
+        // Upload the file using the HDFS client with InputStream, tracking its progress
+        try (InputStream baseIn = Files.newInputStream(localFilePath)) {
+          InputStream in = new ProgressTrackingInputStream(baseIn, request, uploadListener);
+          hdfsClient.copy(hdfsFilePath, in);
         }
-
-        hdfsClient.copy(hdfsFilePath, in);
       }
 
       long endTime = System.nanoTime();
@@ -566,8 +792,24 @@ public class DefaultHdfsTransferManager implements HdfsTransferManager {
               });
       log.debug("Created thread pool with {} threads for HDFS transfers", temp.threadPoolSize);
 
-      // Create the instance with the configured executor
-      return new DefaultHdfsTransferManager(temp.hdfsClient, temp.threadPoolSize, executor);
+      // Directory scans mostly wait on listings and on free transfer slots
+      ExecutorService discoveryExecutor =
+          Executors.newCachedThreadPool(
+              r -> {
+                Thread t = new Thread(r, "hdfs-transfer-scan-" + System.nanoTime());
+                t.setDaemon(true);
+                return t;
+              });
+
+      // Create the instance with the configured executors
+      return new DefaultHdfsTransferManager(
+          temp.hdfsClient,
+          temp.threadPoolSize,
+          temp.parallelDownloadThreshold,
+          temp.parallelDownloadOptions,
+          temp.smallFileThreshold,
+          executor,
+          discoveryExecutor);
     }
   }
 
@@ -577,6 +819,9 @@ public class DefaultHdfsTransferManager implements HdfsTransferManager {
    */
   @Override
   public void close() {
+    if (discoveryExecutorService != null) {
+      discoveryExecutorService.shutdownNow();
+    }
     if (executorService != null && !executorService.isShutdown()) {
       log.debug("Shutting down HDFS transfer manager thread pool");
       executorService.shutdown();
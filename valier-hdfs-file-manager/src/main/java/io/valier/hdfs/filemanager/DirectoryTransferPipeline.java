@@ -0,0 +1,148 @@
+package io.valier.hdfs.filemanager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Tracks the file transfers of one directory transfer while its files are still being discovered.
+ *
+ * <p>The discovery thread submits each file as soon as it is found, so transfers run while the rest
+ * of the tree is still being walked. The number of transfers submitted but not yet finished is
+ * bounded, which makes discovery wait for the transfer threads instead of queueing every file of a
+ * large tree up front. The transfer completes once discovery has finished and every submitted file
+ * has been transferred.
+ *
+ * @param <R> the type of the per-file transfer result
+ */
+final class DirectoryTransferPipeline<R> {
+
+  private final ExecutorService transferExecutor;
+  private final Semaphore queuedTransfers;
+  private final List<R> results = Collections.synchronizedList(new ArrayList<>());
+  private final AtomicInteger fileCount = new AtomicInteger();
+  private final AtomicLong byteCount = new AtomicLong();
+  private final CompletableFuture<Void> discoveryFuture = new CompletableFuture<>();
+  private final CompletableFuture<Void> completionFuture = new CompletableFuture<>();
+
+  /** Outstanding work: one unit for discovery plus one per unfinished transfer. */
+  private final AtomicInteger pending = new AtomicInteger(1);
+
+  private final long startNanos = System.nanoTime();
+  private volatile long endNanos;
+  private volatile boolean finished;
+
+  /**
+   * Creates a pipeline.
+   *
+   * @param transferExecutor the executor running the file transfers
+   * @param maxQueuedTransfers the maximum number of transfers submitted but not yet finished
+   */
+  DirectoryTransferPipeline(ExecutorService transferExecutor, int maxQueuedTransfers) {
+    this.transferExecutor = transferExecutor;
+    this.queuedTransfers = new Semaphore(maxQueuedTransfers);
+  }
+
+  /**
+   * Submits a file transfer, waiting while the maximum number of transfers is queued.
+   *
+   * @param sizeBytes the size of the file, added to the discovered total
+   * @param transfer the transfer, which reports failures in its result rather than throwing
+   * @throws InterruptedException if interrupted while waiting for a queued transfer to finish
+   */
+  void submit(long sizeBytes, Supplier<R> transfer) throws InterruptedException {
+    submitAsync(sizeBytes, () -> CompletableFuture.supplyAsync(transfer, transferExecutor));
+  }
+
+  /**
+   * Submits a file transfer that runs asynchronously rather than on a transfer thread, waiting
+   * while the maximum number of transfers is queued. Such transfers count towards the same bound,
+   * so discovery still cannot run far ahead of them.
+   *
+   * @param sizeBytes the size of the file, added to the discovered total
+   * @param transfer starts the transfer, whose future reports failures in its result
+   * @throws InterruptedException if interrupted while waiting for a queued transfer to finish
+   */
+  void submitAsync(long sizeBytes, Supplier<CompletableFuture<R>> transfer)
+      throws InterruptedException {
+    queuedTransfers.acquire();
+    fileCount.incrementAndGet();
+    byteCount.addAndGet(sizeBytes);
+    pending.incrementAndGet();
+
+    CompletableFuture<R> future;
+    try {
+      future = transfer.get();
+    } catch (RuntimeException e) {
+      // The transfer manager was closed
+      queuedTransfers.release();
+      arrive();
+      throw e;
+    }
+
+    future.whenComplete(
+        (result, failure) -> {
+          queuedTransfers.release();
+          if (failure != null) {
+            completionFuture.completeExceptionally(failure);
+          } else {
+            results.add(result);
+          }
+          arrive();
+        });
+  }
+
+  /** Marks discovery as finished; the totals are final from now on. */
+  void discoveryCompleted() {
+    discoveryFuture.complete(null);
+    arrive();
+  }
+
+  /** Marks discovery as failed, which fails the whole transfer. */
+  void discoveryFailed(Throwable cause) {
+    discoveryFuture.completeExceptionally(cause);
+    completionFuture.completeExceptionally(cause);
+  }
+
+  /** Results of the transfers finished so far; synchronize on the list while iterating it. */
+  List<R> getResults() {
+    return results;
+  }
+
+  /** Number of files discovered so far. */
+  AtomicInteger getFileCount() {
+    return fileCount;
+  }
+
+  /** Total size in bytes of the files discovered so far. */
+  AtomicLong getByteCount() {
+    return byteCount;
+  }
+
+  CompletableFuture<Void> getDiscoveryFuture() {
+    return discoveryFuture;
+  }
+
+  CompletableFuture<Void> getCompletionFuture() {
+    return completionFuture;
+  }
+
+  /** Time since the pipeline was created, up to the moment its last transfer finished. */
+  long getElapsedNanos() {
+    return (finished ? endNanos : System.nanoTime()) - startNanos;
+  }
+
+  private void arrive() {
+    if (pending.decrementAndGet() == 0) {
+      endNanos = System.nanoTime();
+      finished = true;
+      completionFuture.complete(null);
+    }
+  }
+}
@@ -36,4 +36,13 @@ public class DownloadDirectoryRequest {
    * created along with any necessary parent directories.
    */
   Path localDirectoryPath;
+
+  /**
+   * Whether subdirectories are downloaded recursively. When false, only the files directly in the
+   * HDFS directory are downloaded and its subdirectories are created locally but left empty. When
+   * true, the whole tree is downloaded, recreating the HDFS directory structure locally.
+   *
+   * <p>Default: false
+   */
+  @Builder.Default boolean recursive = false;
 }
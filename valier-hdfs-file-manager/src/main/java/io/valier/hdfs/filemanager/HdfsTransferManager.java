@@ -29,8 +29,9 @@ public interface HdfsTransferManager extends AutoCloseable {
    * Downloads an entire directory from HDFS to a local path.
    *
    * <p>This method lists all files in the specified HDFS directory and downloads them in parallel
-   * using the configured thread pool. Only regular files are downloaded - subdirectories are
-   * created but not recursively processed.
+   * using the configured thread pool, starting downloads while the directory is still being listed.
+   * Subdirectories are created locally, and their contents are downloaded as well if the request is
+   * recursive.
    *
    * @param request The download directory request containing source and destination paths
    * @return CompletedDirectoryDownload with a future that can be used to wait for completion
@@ -43,8 +44,9 @@ public interface HdfsTransferManager extends AutoCloseable {
    * Uploads an entire directory from the local filesystem to HDFS.
    *
    * <p>This method lists all files in the specified local directory and uploads them in parallel
-   * using the configured thread pool. Only regular files are uploaded - subdirectories are created
-   * in HDFS but not recursively processed.
+   * using the configured thread pool, starting uploads while the directory is still being scanned.
+   * Subdirectories are created in HDFS, and their contents are uploaded as well if the request is
+   * recursive.
    *
    * @param request The upload directory request containing source and destination paths
    * @return CompletedDirectoryUpload with a future that can be used to wait for completion
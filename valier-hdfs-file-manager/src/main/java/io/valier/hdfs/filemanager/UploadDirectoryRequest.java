@@ -37,4 +37,13 @@ public class UploadDirectoryRequest {
    * with any necessary parent directories.
    */
   String hdfsDirectoryPath;
+
+  /**
+   * Whether subdirectories are uploaded recursively. When false, only the files directly in the
+   * local directory are uploaded and its subdirectories are created in HDFS but left empty. When
+   * true, the whole tree is uploaded, recreating the local directory structure in HDFS.
+   *
+   * <p>Default: false
+   */
+  @Builder.Default boolean recursive = false;
 }
@@ -47,7 +47,8 @@ public interface DownloadListener {
 
   /**
    * Called when data has been downloaded from HDFS and written to the local file. This method is
-   * called for each write operation on the underlying OutputStream.
+   * called for each part of a block written, every few megabytes. For large files whose blocks are
+   * downloaded in parallel, it may be called from several threads concurrently.
    *
    * @param request the download request being processed
    * @param bytesWritten the number of bytes written in this specific write operation
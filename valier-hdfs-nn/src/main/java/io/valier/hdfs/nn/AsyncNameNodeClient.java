@@ -0,0 +1,122 @@
+package io.valier.hdfs.nn;
+
+import io.valier.hdfs.nn.ex.NameNodeHdfsException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous counterpart of {@link NameNodeClient}. Every operation returns immediately with a
+ * {@link CompletableFuture} instead of blocking the calling thread until the NameNode answers, so a
+ * single client can keep thousands of metadata calls in flight without a thread per call.
+ *
+ * <p>The operations have the same semantics as their {@link NameNodeClient} equivalents. Failures
+ * related to HDFS infrastructure (network connectivity, NameNode unavailability, protocol errors)
+ * are reported by completing the future exceptionally with an unchecked {@link
+ * NameNodeHdfsException}.
+ *
+ * <p>Usage example:
+ *
+ * <pre>
+ * AsyncNameNodeClient client = DefaultAsyncNameNodeClient.builder()
+ *     .nameNodeUri("hdfs://namenode:9000")
+ *     .build();
+ *
+ * List&lt;CompletableFuture&lt;Optional&lt;HdfsFileSummary&gt;&gt;&gt; lookups = paths.stream()
+ *     .map(client::readAttributesOptional)
+ *     .collect(Collectors.toList());
+ * </pre>
+ */
+public interface AsyncNameNodeClient extends AutoCloseable {
+
+  /**
+   * Lists files and directories in the specified path. All pages of the listing are fetched before
+   * the future completes.
+   *
+   * @param path The directory path to list (e.g., "/", "/user", "/tmp")
+   * @return future completing with the HdfsFileSummary objects of the directory's entries
+   * @see NameNodeClient#list(String)
+   */
+  default CompletableFuture<List<HdfsFileSummary>> list(String path) {
+    return list(path, ListOptions.DEFAULT);
+  }
+
+  /**
+   * Lists files and directories in the specified path with options controlling what each entry
+   * includes. All pages of the listing are fetched before the future completes.
+   *
+   * @param path The directory path to list (e.g., "/", "/user", "/tmp")
+   * @param options The listing options
+   * @return future completing with the HdfsFileSummary objects of the directory's entries
+   * @see NameNodeClient#list(String, ListOptions)
+   */
+  CompletableFuture<List<HdfsFileSummary>> list(String path, ListOptions options);
+
+  /**
+   * Reads a file's attributes, returning an Optional to indicate presence.
+   *
+   * @param path The path to the file or directory whose attributes should be read
+   * @return future completing with the file's metadata, or empty if the path doesn't exist
+   * @see NameNodeClient#readAttributesOptional(String)
+   */
+  CompletableFuture<Optional<HdfsFileSummary>> readAttributesOptional(String path);
+
+  /**
+   * Creates a new file in HDFS and initializes the file creation process. If the path already
+   * exists, the future completes exceptionally with an {@link
+   * io.valier.hdfs.nn.ex.HdfsFileAlreadyExistsException}.
+   *
+   * @param path The absolute path where the file should be created
+   * @param createParent Whether to create parent directories if they don't exist
+   * @param replication The replication factor for the file
+   * @param blockSize The block size for the file
+   * @return future completing with the created file's metadata (initially with no blocks)
+   * @see NameNodeClient#create(String, boolean, short, long)
+   */
+  CompletableFuture<HdfsFileSummary> create(
+      String path, boolean createParent, short replication, long blockSize);
+
+  /**
+   * Completes the current block and adds a new block to an existing file in HDFS.
+   *
+   * @param target The existing file to complete the last block and add a new block to
+   * @return future completing with the updated file metadata with new block locations
+   * @see NameNodeClient#completeBlockAndAddNext(HdfsFileSummary)
+   */
+  CompletableFuture<HdfsFileSummary> completeBlockAndAddNext(HdfsFileSummary target);
+
+  /**
+   * Completes a file in HDFS, marking it as fully written and ready for reading.
+   *
+   * @param target The file to complete
+   * @return future completing with true if the file was successfully completed, false otherwise
+   * @see NameNodeClient#complete(HdfsFileSummary)
+   */
+  CompletableFuture<Boolean> complete(HdfsFileSummary target);
+
+  /**
+   * Deletes a file or empty directory.
+   *
+   * @param path The path to the file or directory to delete
+   * @return future completing when the path has been deleted
+   * @see NameNodeClient#delete(String)
+   */
+  CompletableFuture<Void> delete(String path);
+
+  /**
+   * Creates a directory by creating all nonexistent parent directories first.
+   *
+   * @param path The path where the directory (and any necessary parent directories) should be
+   *     created
+   * @return future completing with the target directory's metadata
+   * @see NameNodeClient#createDirectories(String)
+   */
+  CompletableFuture<HdfsFileSummary> createDirectories(String path);
+
+  /**
+   * Releases resources held by this client, such as open NameNode connections, and fails calls that
+   * are still in flight. The default implementation does nothing.
+   */
+  @Override
+  default void close() {}
+}
@@ -0,0 +1,538 @@
+package io.valier.hdfs.nn;
+
+import io.valier.hdfs.crt.HdfsPaths;
+import io.valier.hdfs.nn.ex.HdfsFileNotFoundException;
+import io.valier.hdfs.nn.ex.NameNodeHdfsException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * NameNodeClient that caches file and directory attributes in front of another NameNodeClient.
+ *
+ * <p>Attribute lookups are answered from a bounded cache of positive entries (the path's summary)
+ * and negative entries (the path does not exist). Each entry expires after its own TTL, negative
+ * entries usually sooner than positive ones, and the least recently used entry is evicted once
+ * maxEntries are cached. Listings seed the cache with the attributes of the entries they return, so
+ * looking up a file that was just listed costs no NameNode call; files are only seeded by listings
+ * that include block locations, since a lookup always returns them.
+ *
+ * <p>Every create, complete, mkdirs or delete made through this client invalidates the paths it
+ * changes, including the ancestors whose existence or children change, so this client always sees
+ * its own writes. Changes made by other clients are only seen once an entry expires, so the TTLs
+ * bound how stale an answer can be. Listings are never served from the cache.
+ *
+ * <p>Example usage:
+ *
+ * <pre>
+ * NameNodeClient nameNodeClient = CachingNameNodeClient.builder()
+ *     .delegate(DefaultNameNodeClient.builder()...build())
+ *     .maxEntries(100_000)
+ *     .ttlMs(10_000)
+ *     .negativeTtlMs(1_000)
+ *     .build();
+ *
+ * HdfsClient hdfsClient = DefaultHdfsClient.builder()
+ *     .nameNodeClient(nameNodeClient)
+ *     .build();
+ * </pre>
+ *
+ * <p>This class is thread-safe.
+ */
+public class CachingNameNodeClient implements NameNodeClient {
+
+  /** Default maximum number of cached paths. */
+  private static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+  /** Default time in milliseconds a positive entry stays valid. */
+  private static final long DEFAULT_TTL_MS = 10_000L;
+
+  /** Default time in milliseconds a negative entry stays valid. */
+  private static final long DEFAULT_NEGATIVE_TTL_MS = 2_000L;
+
+  private final NameNodeClient delegate;
+  private final int maxEntries;
+  private final long ttlNanos;
+  private final long negativeTtlNanos;
+  private final Map<String, Entry> entries;
+
+  /**
+   * Incremented by every invalidation. A lookup notes the version it started at and only caches
+   * what it read if the path was not invalidated since, so a lookup racing with a write does not
+   * cache the attributes it read before the write, while lookups of unrelated paths still do.
+   */
+  private long version;
+
+  /** Version at which each path's own entry was last invalidated. */
+  private final Map<String, Long> pathVersions = new HashMap<>();
+
+  /** Version at which each tree, a path and everything below it, was last invalidated. */
+  private final Map<String, Long> treeVersions = new HashMap<>();
+
+  /**
+   * Version at which every entry was last invalidated, either explicitly or when the per-path
+   * versions were dropped to bound their memory.
+   */
+  private long allVersion;
+
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong negativeHitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+  private final AtomicLong evictionCount = new AtomicLong();
+  private final AtomicLong expirationCount = new AtomicLong();
+  private final AtomicLong invalidationCount = new AtomicLong();
+
+  /**
+   * Creates a caching client with an empty cache.
+   *
+   * @param delegate the client that answers cache misses and performs all writes
+   * @param maxEntries maximum number of cached paths, 0 for the default of 10000
+   * @param ttlMs time in milliseconds a positive entry stays valid, 0 for the default of 10000
+   * @param negativeTtlMs time in milliseconds a negative entry stays valid, 0 for the default of
+   *     2000, or a negative value to not cache missing paths at all
+   */
+  @Builder
+  public CachingNameNodeClient(
+      NameNodeClient delegate, int maxEntries, long ttlMs, long negativeTtlMs) {
+    if (delegate == null) {
+      throw new IllegalArgumentException("delegate cannot be null");
+    }
+    this.delegate = delegate;
+    this.maxEntries = maxEntries == 0 ? DEFAULT_MAX_ENTRIES : maxEntries;
+    this.ttlNanos = (ttlMs == 0 ? DEFAULT_TTL_MS : ttlMs) * 1_000_000L;
+    this.negativeTtlNanos =
+        negativeTtlMs < 0
+            ? -1
+            : (negativeTtlMs == 0 ? DEFAULT_NEGATIVE_TTL_MS : negativeTtlMs) * 1_000_000L;
+
+    // Access order makes the eldest entry the least recently used one
+    this.entries =
+        new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            if (size() > CachingNameNodeClient.this.maxEntries) {
+              evictionCount.incrementAndGet();
+              return true;
+            }
+            return false;
+          }
+        };
+  }
+
+  /**
+   * Lists a directory through the delegate, seeding the cache with each entry as the stream is
+   * consumed.
+   */
+  @Override
+  public Stream<HdfsFileSummary> list(String path, ListOptions options) {
+    boolean includesLocations = options.isIncludeBlockLocations();
+    long listVersion = currentVersion();
+    return delegate
+        .list(path, options)
+        .peek(
+            entry -> {
+              if (includesLocations || !entry.isFile()) {
+                // Listing entries carry only their name; cache them under their full path
+                String entryPath = HdfsPaths.get(path, entry.getName());
+                store(entryPath, entry.toBuilder().path(entryPath).build(), listVersion);
+              }
+            });
+  }
+
+  @Override
+  public HdfsServerInfo getBuildVersion() {
+    return delegate.getBuildVersion();
+  }
+
+  @Override
+  public HdfsFileSummary create(
+      String path, boolean createParent, short replication, long blockSize) {
+    try {
+      return delegate.create(path, createParent, replication, blockSize);
+    } finally {
+      invalidateWithAncestors(path);
+    }
+  }
+
+  @Override
+  public HdfsFileSummary completeBlockAndAddNext(HdfsFileSummary target) {
+    try {
+      return delegate.completeBlockAndAddNext(target);
+    } finally {
+      invalidate(target.getPath());
+    }
+  }
+
+  @Override
+  public boolean complete(HdfsFileSummary target) {
+    try {
+      return delegate.complete(target);
+    } finally {
+      invalidate(target.getPath());
+    }
+  }
+
+  @Override
+  public CompletableFuture<HdfsFileSummary> createAsync(
+      String path, boolean createParent, short replication, long blockSize) {
+    return delegate
+        .createAsync(path, createParent, replication, blockSize)
+        .whenComplete((summary, e) -> invalidateWithAncestors(path));
+  }
+
+  @Override
+  public CompletableFuture<HdfsFileSummary> completeBlockAndAddNextAsync(HdfsFileSummary target) {
+    return delegate
+        .completeBlockAndAddNextAsync(target)
+        .whenComplete((summary, e) -> invalidate(target.getPath()));
+  }
+
+  @Override
+  public CompletableFuture<Boolean> completeAsync(HdfsFileSummary target) {
+    return delegate
+        .completeAsync(target)
+        .whenComplete((completed, e) -> invalidate(target.getPath()));
+  }
+
+  @Override
+  public HdfsFileSummary createDirectory(String path) {
+    HdfsFileSummary summary;
+    try {
+      summary = delegate.createDirectory(path);
+    } finally {
+      invalidate(path);
+      invalidateParent(path);
+    }
+    return cacheCreatedDirectory(path, summary);
+  }
+
+  @Override
+  public HdfsFileSummary createDirectories(String path) {
+    HdfsFileSummary summary;
+    try {
+      summary = delegate.createDirectories(path);
+    } finally {
+      invalidateWithAncestors(path);
+    }
+    return cacheCreatedDirectory(path, summary);
+  }
+
+  @Override
+  public CompletableFuture<HdfsFileSummary> createDirectoriesAsync(String path) {
+    return delegate
+        .createDirectoriesAsync(path)
+        .whenComplete((summary, e) -> invalidateWithAncestors(path));
+  }
+
+  @Override
+  public Optional<HdfsFileSummary> readAttributesOptional(String path) {
+    Entry entry = lookup(path);
+    if (entry != null) {
+      return Optional.ofNullable(entry.summary);
+    }
+
+    long lookupVersion = currentVersion();
+    Optional<HdfsFileSummary> result = delegate.readAttributesOptional(path);
+    store(path, result.orElse(null), lookupVersion);
+    return result;
+  }
+
+  @Override
+  public CompletableFuture<Optional<HdfsFileSummary>> readAttributesOptionalAsync(String path) {
+    Entry entry = lookup(path);
+    if (entry != null) {
+      return CompletableFuture.completedFuture(Optional.ofNullable(entry.summary));
+    }
+
+    long lookupVersion = currentVersion();
+    return delegate
+        .readAttributesOptionalAsync(path)
+        .thenApply(
+            result -> {
+              store(path, result.orElse(null), lookupVersion);
+              return result;
+            });
+  }
+
+  @Override
+  public HdfsFileSummary readAttributes(String path) {
+    return readAttributesOptional(path)
+        .orElseThrow(() -> new HdfsFileNotFoundException("File not found: " + path));
+  }
+
+  /**
+   * Deletes a path through the delegate. A successful delete leaves a negative entry for the path
+   * and drops the entries below it; a failed one drops them all, since what it changed is unknown.
+   */
+  @Override
+  public void delete(String path) {
+    boolean deleted = false;
+    try {
+      delegate.delete(path);
+      deleted = true;
+    } finally {
+      invalidateTree(path);
+      invalidateParent(path);
+      if (deleted) {
+        store(path, null, currentVersion());
+      }
+    }
+  }
+
+  /** Deletes a path through the delegate, updating the cache like {@link #delete(String)}. */
+  @Override
+  public CompletableFuture<Void> deleteAsync(String path) {
+    return delegate
+        .deleteAsync(path)
+        .whenComplete(
+            (result, e) -> {
+              invalidateTree(path);
+              invalidateParent(path);
+              if (e == null) {
+                store(path, null, currentVersion());
+              }
+            });
+  }
+
+  /**
+   * Caches the attributes of a path obtained elsewhere, for example from a listing made through
+   * another client. File summaries should include their block locations, as a lookup would.
+   *
+   * @param path the absolute path the attributes belong to
+   * @param summary the path's attributes
+   */
+  public void seed(String path, HdfsFileSummary summary) {
+    if (summary == null) {
+      throw new IllegalArgumentException("summary cannot be null");
+    }
+    store(path, summary, currentVersion());
+  }
+
+  /**
+   * Invalidates the entry of a path, for example after it was changed by another client.
+   *
+   * @param path the absolute path of a file or directory
+   */
+  public synchronized void invalidate(String path) {
+    pathVersions.put(path, ++version);
+    pruneVersions();
+    if (entries.remove(path) != null) {
+      invalidationCount.incrementAndGet();
+    }
+  }
+
+  /**
+   * Invalidates the entries of a path and every path below it.
+   *
+   * @param path the absolute path of a file or directory
+   */
+  public synchronized void invalidateTree(String path) {
+    treeVersions.put(path, ++version);
+    pruneVersions();
+    String prefix = path.endsWith("/") ? path : path + "/";
+    Iterator<String> paths = entries.keySet().iterator();
+    while (paths.hasNext()) {
+      String cachedPath = paths.next();
+      if (cachedPath.equals(path) || cachedPath.startsWith(prefix)) {
+        paths.remove();
+        invalidationCount.incrementAndGet();
+      }
+    }
+  }
+
+  /** Removes every entry. */
+  public synchronized void invalidateAll() {
+    allVersion = ++version;
+    pathVersions.clear();
+    treeVersions.clear();
+    invalidationCount.addAndGet(entries.size());
+    entries.clear();
+  }
+
+  /**
+   * Returns the number of cached paths, including expired entries not yet removed.
+   *
+   * @return the number of entries
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * Returns a snapshot of the cache's counters.
+   *
+   * @return the counters since the client was created
+   */
+  public Stats getStats() {
+    return new Stats(
+        hitCount.get(),
+        negativeHitCount.get(),
+        missCount.get(),
+        evictionCount.get(),
+        expirationCount.get(),
+        invalidationCount.get());
+  }
+
+  /**
+   * Closes the delegate.
+   *
+   * @throws NameNodeHdfsException If the delegate's resources cannot be released cleanly
+   */
+  @Override
+  public void close() {
+    invalidateAll();
+    delegate.close();
+  }
+
+  /** Returns the valid entry of a path, or null if none is cached or it expired. */
+  private synchronized Entry lookup(String path) {
+    Entry entry = entries.get(path);
+    if (entry == null) {
+      missCount.incrementAndGet();
+      return null;
+    }
+    if (System.nanoTime() - entry.expiresNanos >= 0) {
+      entries.remove(path);
+      expirationCount.incrementAndGet();
+      missCount.incrementAndGet();
+      return null;
+    }
+    hitCount.incrementAndGet();
+    if (entry.summary == null) {
+      negativeHitCount.incrementAndGet();
+    }
+    return entry;
+  }
+
+  /**
+   * Caches a path's attributes, or its absence if summary is null, unless the cache was invalidated
+   * since the attributes were read.
+   */
+  private synchronized void store(String path, HdfsFileSummary summary, long readVersion) {
+    if (invalidatedSince(path, readVersion)) {
+      return;
+    }
+    long ttl = summary == null ? negativeTtlNanos : ttlNanos;
+    if (ttl < 0) {
+      return;
+    }
+    entries.put(path, new Entry(summary, System.nanoTime() + ttl));
+  }
+
+  private synchronized long currentVersion() {
+    return version;
+  }
+
+  /**
+   * Returns whether a path's entry was invalidated after the given version, on its own or as part
+   * of a tree rooted at the path or one of its ancestors.
+   */
+  private boolean invalidatedSince(String path, long readVersion) {
+    if (allVersion > readVersion || pathVersions.getOrDefault(path, 0L) > readVersion) {
+      return true;
+    }
+    for (String tree = path; tree != null; tree = parentOf(tree)) {
+      if (treeVersions.getOrDefault(tree, 0L) > readVersion) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Drops the per-path versions once there are more of them than entries, counting it as an
+   * invalidation of every path so that lookups in flight do not cache stale attributes.
+   */
+  private void pruneVersions() {
+    if (pathVersions.size() + treeVersions.size() > maxEntries) {
+      allVersion = version;
+      pathVersions.clear();
+      treeVersions.clear();
+    }
+  }
+
+  /** Caches the directory a mkdirs call returned, once the changed paths were invalidated. */
+  private HdfsFileSummary cacheCreatedDirectory(String path, HdfsFileSummary summary) {
+    if (summary != null) {
+      store(path, summary, currentVersion());
+    }
+    return summary;
+  }
+
+  /** Invalidates a path and every ancestor, whose existence or children may have changed. */
+  private void invalidateWithAncestors(String path) {
+    invalidate(path);
+    for (String parent = parentOf(path); parent != null; parent = parentOf(parent)) {
+      invalidate(parent);
+    }
+  }
+
+  /** Invalidates the parent of a path, whose children changed. */
+  private void invalidateParent(String path) {
+    String parent = parentOf(path);
+    if (parent != null) {
+      invalidate(parent);
+    }
+  }
+
+  /** Returns the parent of an absolute path, or null for the root. */
+  private static String parentOf(String path) {
+    int lastSlash = path.lastIndexOf('/', path.length() - 2);
+    if (lastSlash < 0 || path.length() <= 1) {
+      return null;
+    }
+    return lastSlash == 0 ? "/" : path.substring(0, lastSlash);
+  }
+
+  /** Counters of a CachingNameNodeClient. */
+  @Value
+  public static class Stats {
+
+    /** Number of lookups answered from the cache, including negative entries. */
+    long hitCount;
+
+    /** Number of lookups answered from a negative entry. */
+    long negativeHitCount;
+
+    /** Number of lookups that had to ask the NameNode, including expired entries. */
+    long missCount;
+
+    /** Number of entries evicted to stay within maxEntries. */
+    long evictionCount;
+
+    /** Number of entries dropped because they were older than their TTL. */
+    long expirationCount;
+
+    /** Number of entries invalidated by writes, deletes or explicit calls. */
+    long invalidationCount;
+
+    /**
+     * Returns the fraction of lookups answered from the cache.
+     *
+     * @return the hit rate between 0 and 1, or 0 if there were no lookups
+     */
+    public double getHitRate() {
+      long lookups = hitCount + missCount;
+      return lookups == 0 ? 0 : (double) hitCount / lookups;
+    }
+  }
+
+  /** A cached lookup result; a null summary records that the path does not exist. */
+  private static final class Entry {
+
+    private final HdfsFileSummary summary;
+    private final long expiresNanos;
+
+    Entry(HdfsFileSummary summary, long expiresNanos) {
+      this.summary = summary;
+      this.expiresNanos = expiresNanos;
+    }
+  }
+}
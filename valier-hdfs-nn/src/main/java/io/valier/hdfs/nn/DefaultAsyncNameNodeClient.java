@@ -0,0 +1,403 @@
+package io.valier.hdfs.nn;
+
+import com.google.protobuf.ByteString;
+import io.valier.hdfs.nn.auth.SimpleUserInformation;
+import io.valier.hdfs.nn.auth.UserInformation;
+import io.valier.hdfs.nn.auth.UserInformationProvider;
+import io.valier.hdfs.nn.connection.HdfsProtoConnection;
+import io.valier.hdfs.nn.ex.HdfsFileAlreadyExistsException;
+import io.valier.hdfs.nn.ex.NameNodeHdfsException;
+import io.valier.hdfs.nn.handler.ClientRpcRequestHandler;
+import io.valier.hdfs.nn.rpc.AsyncRpcConnection;
+import io.valier.hdfs.nn.rpc.NioRpcEventLoop;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import lombok.Builder;
+import lombok.Singular;
+import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.*;
+import org.apache.hadoop.hdfs.protocol.proto.HdfsProtos.*;
+
+/**
+ * Default implementation of AsyncNameNodeClient that talks to the NameNode over non-blocking socket
+ * channels.
+ *
+ * <p>The client keeps one connection per NameNode URI and user and multiplexes every call over it,
+ * matching responses to calls by call ID. All socket I/O is performed by a single {@link
+ * NioRpcEventLoop} thread, so the number of threads does not grow with the number of outstanding
+ * calls. Responses are parsed and the returned futures are completed on the callback executor (the
+ * common fork-join pool by default), which keeps caller code off the I/O thread.
+ *
+ * <p>Like {@link DefaultNameNodeClient}, each operation is tried against the configured NameNode
+ * URIs in order until one succeeds.
+ */
+public class DefaultAsyncNameNodeClient implements AsyncNameNodeClient {
+
+  private static final int DEFAULT_CONNECT_TIMEOUT_MS = 10000;
+  private static final long DEFAULT_CALL_TIMEOUT_MS = 30000L;
+  private static final long DEFAULT_CONNECTION_IDLE_TIMEOUT_MS = 10000L;
+
+  /** List of NameNode URIs in the format "hdfs://host:port", tried in order. */
+  private final List<String> nameNodeUris;
+
+  /** Client name used to identify this client instance in file write operations. */
+  private final String clientName;
+
+  /** Time in milliseconds after which a call without a response fails. */
+  private final long callTimeoutMs;
+
+  /**
+   * Time in milliseconds after which an idle connection is replaced rather than reused. This should
+   * stay below the NameNode's idle connection threshold (20 seconds by default).
+   */
+  private final long connectionIdleTimeoutMs;
+
+  /** Executor that parses responses and completes the returned futures. */
+  private final Executor callbackExecutor;
+
+  /** Provider of the user on whose behalf each call is made. */
+  private final UserInformationProvider userInformationProvider;
+
+  /** Source of the connection preamble and NameNode socket addresses. */
+  private final HdfsProtoConnection protoConnection;
+
+  private final NioRpcEventLoop eventLoop;
+  private final ClientRpcRequestHandler clientRpcHandler = new ClientRpcRequestHandler();
+
+  /** Open connections keyed by NameNode URI and user, guarded by the map's lock. */
+  private final Map<String, AsyncRpcConnection> connections = new HashMap<>();
+
+  @Builder
+  public DefaultAsyncNameNodeClient(
+      @Singular("nameNodeUri") List<String> nameNodeUris,
+      UserInformationProvider userInformationProvider,
+      String clientName,
+      int connectTimeoutMs,
+      long callTimeoutMs,
+      long connectionIdleTimeoutMs,
+      Executor callbackExecutor) {
+    if (nameNodeUris == null || nameNodeUris.isEmpty()) {
+      throw new IllegalStateException("At least one nameNodeUri must be provided");
+    }
+
+    this.nameNodeUris = nameNodeUris;
+    this.clientName =
+        clientName != null
+            ? clientName
+            : "valier-hdfs-nn-async-client-" + ThreadLocalRandom.current().nextInt();
+    this.callTimeoutMs = callTimeoutMs == 0 ? DEFAULT_CALL_TIMEOUT_MS : callTimeoutMs;
+    this.connectionIdleTimeoutMs =
+        connectionIdleTimeoutMs == 0
+            ? DEFAULT_CONNECTION_IDLE_TIMEOUT_MS
+            : connectionIdleTimeoutMs;
+    this.callbackExecutor =
+        callbackExecutor != null ? callbackExecutor : ForkJoinPool.commonPool();
+    this.userInformationProvider =
+        userInformationProvider != null
+            ? userInformationProvider
+            : SimpleUserInformation::currentUser;
+    this.protoConnection =
+        HdfsProtoConnection.builder()
+            .userInformationProvider(this.userInformationProvider)
+            .connectTimeoutMs(
+                connectTimeoutMs == 0 ? DEFAULT_CONNECT_TIMEOUT_MS : connectTimeoutMs)
+            .build();
+
+    try {
+      this.eventLoop = new NioRpcEventLoop("hdfs-nn-event-loop-" + this.clientName);
+    } catch (IOException e) {
+      throw new NameNodeHdfsException("Failed to start NameNode event loop", e);
+    }
+  }
+
+  @Override
+  public CompletableFuture<List<HdfsFileSummary>> list(String path, ListOptions options) {
+    boolean needLocation = options.isIncludeBlockLocations();
+    return sendToAnyNameNode(
+        "Failed to get directory listing from any NameNode for path: " + path,
+        connection ->
+            listFrom(connection, path, ByteString.EMPTY, needLocation, new ArrayList<>()));
+  }
+
+  @Override
+  public CompletableFuture<Optional<HdfsFileSummary>> readAttributesOptional(String path) {
+    GetLocatedFileInfoRequestProto request = NameNodeMessages.buildGetLocatedFileInfoRequest(path);
+
+    return sendToAnyNameNode(
+        "Failed to read attributes from any NameNode for path: " + path,
+        connection ->
+            clientRpcHandler
+                .sendRequestAsync(request, connection)
+                .thenApplyAsync(
+                    responseBytes -> NameNodeMessages.extractLocatedFileInfo(responseBytes, path),
+                    callbackExecutor));
+  }
+
+  @Override
+  public CompletableFuture<HdfsFileSummary> create(
+      String path, boolean createParent, short replication, long blockSize) {
+    CreateRequestProto request =
+        NameNodeMessages.buildCreateRequest(
+            path, createParent, replication, blockSize, clientName);
+
+    return sendToAnyNameNode(
+        "Failed to create file from any NameNode for path: " + path,
+        connection ->
+            clientRpcHandler
+                .sendRequestAsync(request, connection)
+                .thenApplyAsync(
+                    responseBytes ->
+                        NameNodeMessages.extractHdfsFileSummaryFromCreateResponse(
+                            NameNodeMessages.parseResponse(
+                                responseBytes, CreateResponseProto.parser(), "CreateResponseProto"),
+                            path),
+                    callbackExecutor)
+                .exceptionally(
+                    failure -> {
+                      if (NameNodeMessages.isFileAlreadyExists(failure)) {
+                        throw new HdfsFileAlreadyExistsException(
+                            "File already exists: " + path, failure);
+                      }
+                      throw failure instanceof CompletionException
+                          ? (CompletionException) failure
+                          : new CompletionException(failure);
+                    }));
+  }
+
+  @Override
+  public CompletableFuture<HdfsFileSummary> completeBlockAndAddNext(HdfsFileSummary target) {
+    if (target == null) {
+      throw new IllegalArgumentException("Target file summary cannot be null");
+    }
+
+    AddBlockRequestProto request = NameNodeMessages.buildAddBlockRequest(target, clientName);
+
+    return sendToAnyNameNode(
+        "Failed to add block from any NameNode for path: " + target.getPath(),
+        connection ->
+            clientRpcHandler
+                .sendRequestAsync(request, connection)
+                .thenApplyAsync(
+                    responseBytes ->
+                        NameNodeMessages.extractHdfsFileSummaryFromAddBlockResponse(
+                            NameNodeMessages.parseResponse(
+                                responseBytes,
+                                AddBlockResponseProto.parser(),
+                                "AddBlockResponseProto"),
+                            target),
+                    callbackExecutor));
+  }
+
+  @Override
+  public CompletableFuture<Boolean> complete(HdfsFileSummary target) {
+    if (target == null) {
+      throw new IllegalArgumentException("Target file summary cannot be null");
+    }
+
+    CompleteRequestProto request =
+        NameNodeMessages.buildCompleteRequest(
+            target, NameNodeMessages.getLastBlockLength(target), clientName);
+
+    return sendToAnyNameNode(
+        "Failed to complete file from any NameNode for path: " + target.getPath(),
+        connection ->
+            clientRpcHandler
+                .sendRequestAsync(request, connection)
+                .thenApplyAsync(NameNodeMessages::extractCompleteResult, callbackExecutor));
+  }
+
+  @Override
+  public CompletableFuture<Void> delete(String path) {
+    DeleteRequestProto request = NameNodeMessages.buildDeleteRequest(path);
+
+    return sendToAnyNameNode(
+        "Failed to delete from any NameNode for path: " + path,
+        connection ->
+            clientRpcHandler
+                .sendRequestAsync(request, connection)
+                .thenAcceptAsync(
+                    responseBytes -> NameNodeMessages.checkDeleteResponse(responseBytes, path),
+                    callbackExecutor));
+  }
+
+  @Override
+  public CompletableFuture<HdfsFileSummary> createDirectories(String path) {
+    MkdirsRequestProto mkdirsRequest = NameNodeMessages.buildMkdirsRequest(path, true);
+    GetFileInfoRequestProto getFileInfoRequest = NameNodeMessages.buildGetFileInfoRequest(path);
+
+    return sendToAnyNameNode(
+        "Failed to create directory from any NameNode for path: " + path,
+        connection ->
+            clientRpcHandler
+                .sendRequestAsync(mkdirsRequest, connection)
+                .thenComposeAsync(
+                    mkdirsResponseBytes -> {
+                      NameNodeMessages.checkMkdirsResponse(mkdirsResponseBytes, path);
+                      return clientRpcHandler.sendRequestAsync(getFileInfoRequest, connection);
+                    },
+                    callbackExecutor)
+                .thenApplyAsync(
+                    responseBytes -> NameNodeMessages.extractDirectoryInfo(responseBytes, path),
+                    callbackExecutor));
+  }
+
+  /** Closes all NameNode connections and stops the event loop, failing in-flight calls. */
+  @Override
+  public void close() {
+    synchronized (connections) {
+      for (AsyncRpcConnection connection : connections.values()) {
+        connection.close();
+      }
+      connections.clear();
+    }
+    eventLoop.close();
+  }
+
+  /**
+   * Fetches the listing page following startAfter and, while the NameNode reports remaining
+   * entries, the pages after it.
+   */
+  private CompletableFuture<List<HdfsFileSummary>> listFrom(
+      AsyncRpcConnection connection,
+      String path,
+      ByteString startAfter,
+      boolean needLocation,
+      List<HdfsFileSummary> entries) {
+    GetListingRequestProto request =
+        NameNodeMessages.buildGetListingRequest(path, startAfter, needLocation);
+
+    return clientRpcHandler
+        .sendRequestAsync(request, connection)
+        .thenComposeAsync(
+            responseBytes -> {
+              GetListingResponseProto response =
+                  NameNodeMessages.parseResponse(
+                      responseBytes, GetListingResponseProto.parser(), "GetListingResponseProto");
+              entries.addAll(NameNodeMessages.extractFileSummariesFromResponse(response));
+
+              if (!response.hasDirList()
+                  || response.getDirList().getRemainingEntries() == 0
+                  || response.getDirList().getPartialListingCount() == 0) {
+                return CompletableFuture.completedFuture(entries);
+              }
+
+              // The next page starts after the last name returned in this one
+              List<HdfsFileStatusProto> page = response.getDirList().getPartialListingList();
+              ByteString lastName = page.get(page.size() - 1).getPath();
+              return listFrom(connection, path, lastName, needLocation, entries);
+            },
+            callbackExecutor);
+  }
+
+  /**
+   * Sends a call to the first NameNode that answers it, trying each configured NameNode URI in
+   * turn.
+   */
+  private <T> CompletableFuture<T> sendToAnyNameNode(
+      String failureMessage, Function<AsyncRpcConnection, CompletableFuture<T>> call) {
+    return sendFromIndex(0, null, failureMessage, call);
+  }
+
+  /** Sends a call to the NameNode at the given index, failing over to the next. */
+  private <T> CompletableFuture<T> sendFromIndex(
+      int index,
+      Throwable lastException,
+      String failureMessage,
+      Function<AsyncRpcConnection, CompletableFuture<T>> call) {
+    if (index >= nameNodeUris.size()) {
+      return CompletableFuture.failedFuture(
+          new NameNodeHdfsException(failureMessage, lastException));
+    }
+
+    CompletableFuture<T> attempt;
+    try {
+      attempt = call.apply(getConnection(nameNodeUris.get(index)));
+    } catch (Exception e) {
+      attempt = CompletableFuture.failedFuture(e);
+    }
+
+    // Failures complete on the loop thread, so fail over on the callback executor instead
+    return attempt
+        .handleAsync(
+            (result, failure) -> {
+              if (failure == null) {
+                return CompletableFuture.completedFuture(result);
+              }
+              Throwable cause =
+                  failure instanceof CompletionException && failure.getCause() != null
+                      ? failure.getCause()
+                      : failure;
+              if (cause instanceof HdfsFileAlreadyExistsException) {
+                // The NameNode answered the call; another NameNode would give the same answer
+                return CompletableFuture.<T>failedFuture(cause);
+              }
+              // Continue to next NameNode if available
+              return sendFromIndex(index + 1, cause, failureMessage, call);
+            },
+            callbackExecutor)
+        .thenCompose(Function.identity());
+  }
+
+  /**
+   * Returns the open connection for a NameNode URI and the current user, starting a new one if
+   * there is none or the current one has closed or been idle long enough that the NameNode may
+   * close it.
+   */
+  private AsyncRpcConnection getConnection(String nameNodeUri) throws IOException {
+    String key = connectionKey(nameNodeUri);
+    synchronized (connections) {
+      AsyncRpcConnection connection = connections.get(key);
+      if (isReusable(connection)) {
+        return connection;
+      }
+    }
+
+    // Resolve the address outside the lock, since the lookup may block on DNS
+    InetSocketAddress address = protoConnection.resolveAddress(nameNodeUri);
+    byte[] preamble = protoConnection.createConnectionPreamble();
+
+    synchronized (connections) {
+      AsyncRpcConnection connection = connections.get(key);
+      if (isReusable(connection)) {
+        // Another caller connected while the address was being resolved
+        return connection;
+      }
+      if (connection != null) {
+        connection.close();
+      }
+
+      connection =
+          eventLoop.connect(
+              nameNodeUri,
+              address,
+              preamble,
+              protoConnection.getConnectTimeoutMs(),
+              callTimeoutMs);
+      connections.put(key, connection);
+      return connection;
+    }
+  }
+
+  /** Returns whether a connection is open and recent enough to carry another call. */
+  private boolean isReusable(AsyncRpcConnection connection) {
+    return connection != null
+        && connection.isOpen()
+        && !connection.isIdleFor(connectionIdleTimeoutMs);
+  }
+
+  /** Returns the key of the connection for a NameNode URI and the current user. */
+  private String connectionKey(String nameNodeUri) {
+    UserInformation userInfo = userInformationProvider.getUserInformation();
+    return nameNodeUri + "#" + userInfo.getUser() + "/" + userInfo.getEffectiveUser();
+  }
+}
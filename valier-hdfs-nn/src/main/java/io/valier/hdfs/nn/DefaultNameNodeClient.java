@@ -1,23 +1,32 @@
 package io.valier.hdfs.nn;
 
 import com.google.protobuf.ByteString;
-import io.valier.hdfs.crt.HdfsPaths;
 import io.valier.hdfs.nn.auth.SimpleUserInformation;
+import io.valier.hdfs.nn.auth.UserInformation;
 import io.valier.hdfs.nn.auth.UserInformationProvider;
 import io.valier.hdfs.nn.connection.HdfsConnection;
 import io.valier.hdfs.nn.connection.HdfsProtoConnection;
+import io.valier.hdfs.nn.connection.PooledHdfsConnection;
+import io.valier.hdfs.nn.ex.HdfsFileAlreadyExistsException;
 import io.valier.hdfs.nn.ex.HdfsFileNotFoundException;
 import io.valier.hdfs.nn.ex.NameNodeHdfsException;
 import io.valier.hdfs.nn.handler.ClientRpcRequestHandler;
 import io.valier.hdfs.nn.handler.NameNodeRpcRequestHandler;
+import io.valier.hdfs.nn.rpc.MultiplexedRpcConnection;
 import java.io.IOException;
-import java.time.Instant;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import lombok.Builder;
 import lombok.Singular;
 import lombok.Value;
@@ -84,24 +93,66 @@ public class DefaultNameNodeClient implements NameNodeClient {
           + "-"
           + ThreadLocalRandom.current().nextInt();
 
+  /**
+   * Maximum number of idle NameNode connections kept alive per NameNode URI and user when the
+   * builder creates the HdfsConnection from nameNodeUris. Pooled connections are reused across
+   * calls, avoiding a TCP handshake and connection context exchange per operation. Set to 0 to open
+   * a new connection for every call.
+   */
+  @Builder.Default int connectionPoolSize = 8;
+
+  /**
+   * Time in milliseconds after which an idle pooled NameNode connection is closed. This should stay
+   * below the NameNode's idle connection threshold (20 seconds by default).
+   */
+  @Builder.Default long connectionIdleTimeoutMs = 10000L;
+
+  /**
+   * Executor that parses responses to the asynchronous methods and completes the futures they
+   * return. Keeping this work off a multiplexed connection's reader thread lets the reader move on
+   * to the next response while callers' dependent stages run. Defaults to the common fork-join
+   * pool.
+   */
+  @Builder.Default Executor callbackExecutor = ForkJoinPool.commonPool();
+
   NameNodeRpcRequestHandler nameNodeRpcHandler = new NameNodeRpcRequestHandler();
   ClientRpcRequestHandler clientRpcHandler = new ClientRpcRequestHandler();
 
+  /**
+   * Multiplexed connections used by the asynchronous methods, keyed by NameNode URI and user, since
+   * the NameNode binds a connection to the user in its connection context. Each carries any number
+   * of concurrent calls over a single socket and is replaced once it closes or has been idle for
+   * longer than connectionIdleTimeoutMs.
+   */
+  Map<String, MultiplexedRpcConnection> multiplexedConnections = new ConcurrentHashMap<>();
+
   /**
    * Lists files and directories in the specified path from the NameNode. This method implements the
    * ClientNamenodeProtocol.getListing RPC call and returns detailed file information similar to JDK
    * NIO Files.list().
    *
+   * <p>The first page of the listing is fetched before this method returns; later pages are fetched
+   * lazily, one getListing call at a time, as the stream is consumed.
+   *
    * @param path The directory path to list (e.g., "/", "/user", "/tmp")
-   * @return A stream of HdfsFileSummary objects containing file metadata
+   * @param options The listing options
+   * @return A lazily paged stream of HdfsFileSummary objects containing file metadata
    * @throws IOException If there's an error communicating with the NameNode
    */
   @Override
-  public Stream<HdfsFileSummary> list(String path) {
+  public Stream<HdfsFileSummary> list(String path, ListOptions options) {
     requireHdfsConnection();
+    boolean needLocation = options.isIncludeBlockLocations();
+
+    // Fetch the first page eagerly so that connection and protocol errors surface from list()
+    DirectoryListingProto firstPage =
+        getListingPageFromConnection(path, ByteString.EMPTY, needLocation);
 
-    // Since HdfsConnection might handle multiple URIs internally, we delegate to it
-    return getDirectoryListingFromConnection(path).stream();
+    return StreamSupport.stream(
+        new DirectoryListingSpliterator(
+            firstPage,
+            startAfter -> getListingPageFromConnection(path, startAfter, needLocation)),
+        false);
   }
 
   /**
@@ -212,6 +263,190 @@ public class DefaultNameNodeClient implements NameNodeClient {
         .orElseThrow(() -> new HdfsFileNotFoundException("File not found: " + path));
   }
 
+  /**
+   * Asynchronously reads a file's attributes. The getLocatedFileInfo call is sent over a
+   * multiplexed connection shared with other asynchronous calls, so any number of lookups can be in
+   * flight without a thread or socket per call.
+   *
+   * @param path The path to the file or directory whose attributes should be read
+   * @return future completing with the file's metadata, or empty if the path doesn't exist
+   */
+  @Override
+  public CompletableFuture<Optional<HdfsFileSummary>> readAttributesOptionalAsync(String path) {
+    requireHdfsConnection();
+
+    GetLocatedFileInfoRequestProto getLocatedFileInfoRequest =
+        NameNodeMessages.buildGetLocatedFileInfoRequest(path);
+
+    return sendAsyncToAnyNameNode(
+        "Failed to read attributes from any NameNode for path: " + path,
+        connection ->
+            clientRpcHandler
+                .sendRequestAsync(getLocatedFileInfoRequest, connection)
+                .thenApplyAsync(
+                    responseBytes -> NameNodeMessages.extractLocatedFileInfo(responseBytes, path),
+                    callbackExecutor));
+  }
+
+  /**
+   * Asynchronously creates a new file. The create call is sent over a multiplexed connection shared
+   * with other asynchronous calls, so the files of a batch can be created without a thread or
+   * socket per file.
+   *
+   * @param path The absolute path where the file should be created
+   * @param createParent Whether to create parent directories if they don't exist
+   * @param replication The replication factor for the file
+   * @param blockSize The block size for the file
+   * @return future completing with the created file's metadata (initially with no blocks)
+   */
+  @Override
+  public CompletableFuture<HdfsFileSummary> createAsync(
+      String path, boolean createParent, short replication, long blockSize) {
+    requireHdfsConnection();
+
+    CreateRequestProto createRequest =
+        NameNodeMessages.buildCreateRequest(
+            path, createParent, replication, blockSize, this.clientName);
+
+    return sendAsyncToAnyNameNode(
+        "Failed to create file from any NameNode for path: " + path,
+        connection ->
+            clientRpcHandler
+                .sendRequestAsync(createRequest, connection)
+                .thenApplyAsync(
+                    responseBytes ->
+                        NameNodeMessages.extractHdfsFileSummaryFromCreateResponse(
+                            NameNodeMessages.parseResponse(
+                                responseBytes, CreateResponseProto.parser(), "CreateResponseProto"),
+                            path),
+                    callbackExecutor)
+                .exceptionally(
+                    failure -> {
+                      if (NameNodeMessages.isFileAlreadyExists(failure)) {
+                        throw new HdfsFileAlreadyExistsException(
+                            "File already exists: " + path, failure);
+                      }
+                      throw failure instanceof CompletionException
+                          ? (CompletionException) failure
+                          : new CompletionException(failure);
+                    }));
+  }
+
+  /**
+   * Asynchronously completes the current block and adds a new block to a file. The addBlock call is
+   * sent over a multiplexed connection shared with other asynchronous calls.
+   *
+   * @param target The file being written
+   * @return future completing with the updated file metadata including the new block's location
+   */
+  @Override
+  public CompletableFuture<HdfsFileSummary> completeBlockAndAddNextAsync(HdfsFileSummary target) {
+    requireHdfsConnection();
+
+    if (target == null) {
+      throw new IllegalArgumentException("Target file summary cannot be null");
+    }
+
+    AddBlockRequestProto addBlockRequest =
+        NameNodeMessages.buildAddBlockRequest(target, this.clientName);
+
+    return sendAsyncToAnyNameNode(
+        "Failed to add block from any NameNode for path: " + target.getPath(),
+        connection ->
+            clientRpcHandler
+                .sendRequestAsync(addBlockRequest, connection)
+                .thenApplyAsync(
+                    responseBytes ->
+                        NameNodeMessages.extractHdfsFileSummaryFromAddBlockResponse(
+                            NameNodeMessages.parseResponse(
+                                responseBytes,
+                                AddBlockResponseProto.parser(),
+                                "AddBlockResponseProto"),
+                            target),
+                    callbackExecutor));
+  }
+
+  /**
+   * Asynchronously completes a file. The complete call is sent over a multiplexed connection shared
+   * with other asynchronous calls.
+   *
+   * @param target The file to complete
+   * @return future completing with true if the file was completed
+   */
+  @Override
+  public CompletableFuture<Boolean> completeAsync(HdfsFileSummary target) {
+    requireHdfsConnection();
+
+    if (target == null) {
+      throw new IllegalArgumentException("Target file summary cannot be null");
+    }
+
+    CompleteRequestProto completeRequest =
+        NameNodeMessages.buildCompleteRequest(
+            target, NameNodeMessages.getLastBlockLength(target), this.clientName);
+
+    return sendAsyncToAnyNameNode(
+        "Failed to complete file from any NameNode for path: " + target.getPath(),
+        connection ->
+            clientRpcHandler
+                .sendRequestAsync(completeRequest, connection)
+                .thenApplyAsync(NameNodeMessages::extractCompleteResult, callbackExecutor));
+  }
+
+  /**
+   * Asynchronously creates a directory and any nonexistent parents. The mkdirs call and the
+   * follow-up getFileInfo call are sent over the same multiplexed connection.
+   *
+   * @param path The path where the directory (and any necessary parent directories) should be
+   *     created
+   * @return future completing with the target directory's metadata
+   */
+  @Override
+  public CompletableFuture<HdfsFileSummary> createDirectoriesAsync(String path) {
+    requireHdfsConnection();
+
+    MkdirsRequestProto mkdirsRequest = NameNodeMessages.buildMkdirsRequest(path, true);
+    GetFileInfoRequestProto getFileInfoRequest = NameNodeMessages.buildGetFileInfoRequest(path);
+
+    return sendAsyncToAnyNameNode(
+        "Failed to create directory from any NameNode for path: " + path,
+        connection ->
+            clientRpcHandler
+                .sendRequestAsync(mkdirsRequest, connection)
+                .thenComposeAsync(
+                    mkdirsResponseBytes -> {
+                      NameNodeMessages.checkMkdirsResponse(mkdirsResponseBytes, path);
+                      return clientRpcHandler.sendRequestAsync(getFileInfoRequest, connection);
+                    },
+                    callbackExecutor)
+                .thenApplyAsync(
+                    responseBytes -> NameNodeMessages.extractDirectoryInfo(responseBytes, path),
+                    callbackExecutor));
+  }
+
+  /**
+   * Asynchronously deletes a file or empty directory. The delete call is sent over a multiplexed
+   * connection shared with other asynchronous calls.
+   *
+   * @param path The path to the file or directory to delete
+   * @return future completing when the path has been deleted
+   */
+  @Override
+  public CompletableFuture<Void> deleteAsync(String path) {
+    requireHdfsConnection();
+
+    DeleteRequestProto deleteRequest = NameNodeMessages.buildDeleteRequest(path);
+
+    return sendAsyncToAnyNameNode(
+        "Failed to delete from any NameNode for path: " + path,
+        connection ->
+            clientRpcHandler
+                .sendRequestAsync(deleteRequest, connection)
+                .thenAcceptAsync(
+                    responseBytes -> NameNodeMessages.checkDeleteResponse(responseBytes, path),
+                    callbackExecutor));
+  }
+
   /**
    * Completes a file in HDFS, marking it as fully written and ready for reading. This method
    * implements the ClientNamenodeProtocol.complete RPC call and should be called after the last
@@ -230,16 +465,7 @@ public class DefaultNameNodeClient implements NameNodeClient {
     }
 
     // Get the last block length from the target's block locations
-    long lastBlockLength = 0;
-    if (target.getBlockLocations() != null && !target.getBlockLocations().isEmpty()) {
-      HdfsFileSummary.BlockLocation lastBlock =
-          target.getBlockLocations().get(target.getBlockLocations().size() - 1);
-      lastBlockLength = lastBlock.getLength();
-    }
-
-    if (lastBlockLength < 0) {
-      throw new IllegalArgumentException("Last block length cannot be negative");
-    }
+    long lastBlockLength = NameNodeMessages.getLastBlockLength(target);
 
     return completeFileFromConnection(target, lastBlockLength);
   }
@@ -266,8 +492,12 @@ public class DefaultNameNodeClient implements NameNodeClient {
         "Failed to get server information from any NameNode", lastException);
   }
 
-  /** Gets a directory listing using the configured HdfsConnection. */
-  private List<HdfsFileSummary> getDirectoryListingFromConnection(String path) {
+  /**
+   * Gets the directory listing page following startAfter using the configured HdfsConnection,
+   * returning null if the NameNode returned no listing.
+   */
+  private DirectoryListingProto getListingPageFromConnection(
+      String path, ByteString startAfter, boolean needLocation) {
     if (nameNodeUris == null || nameNodeUris.isEmpty()) {
       throw new IllegalStateException("No NameNode URIs configured in DefaultNameNodeClient");
     }
@@ -277,7 +507,7 @@ public class DefaultNameNodeClient implements NameNodeClient {
     // Try each NameNode URI until one succeeds
     for (String nameNodeUri : nameNodeUris) {
       try {
-        return getDirectoryListingFromUri(nameNodeUri, path);
+        return getListingPageFromUri(nameNodeUri, path, startAfter, needLocation);
       } catch (HdfsFileNotFoundException e) {
         // File not found is a valid response, don't loop to other NameNodes
         throw e;
@@ -291,20 +521,13 @@ public class DefaultNameNodeClient implements NameNodeClient {
         "Failed to get directory listing from any NameNode for path: " + path, lastException);
   }
 
-  /** Gets a directory listing from a specific NameNode URI. */
-  private List<HdfsFileSummary> getDirectoryListingFromUri(String nameNodeUri, String path) {
+  /** Gets the directory listing page following startAfter from a specific NameNode URI. */
+  private DirectoryListingProto getListingPageFromUri(
+      String nameNodeUri, String path, ByteString startAfter, boolean needLocation) {
     try (HdfsConnection.NameNodeConnectionStreams streams = hdfsConnection.connect(nameNodeUri)) {
-      // Create getListing request
-      // NOTE: This currently only retrieves the first page of results (up to 1000 entries).
-      // The HDFS protocol supports paging through large directories using the startAfter parameter,
-      // but this implementation will need to be updated in the future to iterate through all pages
-      // to support directories with more than 1000 entries.
+      // Create getListing request for the page after startAfter (empty for the first page)
       GetListingRequestProto getListingRequest =
-          GetListingRequestProto.newBuilder()
-              .setSrc(path)
-              .setStartAfter(ByteString.EMPTY)
-              .setNeedLocation(true)
-              .build();
+          NameNodeMessages.buildGetListingRequest(path, startAfter, needLocation);
 
       // Use the Client RPC handler to send request and get response bytes
       ByteString responseBytes =
@@ -312,14 +535,10 @@ public class DefaultNameNodeClient implements NameNodeClient {
 
       // Parse the response from the ByteString
       GetListingResponseProto response =
-          GetListingResponseProto.parseDelimitedFrom(responseBytes.newInput());
+          NameNodeMessages.parseResponse(
+              responseBytes, GetListingResponseProto.parser(), "GetListingResponseProto");
 
-      if (response == null) {
-        throw new NameNodeHdfsException(
-            "Failed to parse GetListingResponseProto from response bytes");
-      }
-
-      return extractFileSummariesFromResponse(response);
+      return response.hasDirList() ? response.getDirList() : null;
 
     } catch (Exception e) {
       throw new NameNodeHdfsException(
@@ -351,7 +570,7 @@ public class DefaultNameNodeClient implements NameNodeClient {
         throw new NameNodeHdfsException("Failed to parse VersionResponseProto from response bytes");
       }
 
-      return extractServerInfoFromResponse(response);
+      return NameNodeMessages.extractServerInfoFromResponse(response);
 
     } catch (Exception e) {
       throw new NameNodeHdfsException(
@@ -359,156 +578,6 @@ public class DefaultNameNodeClient implements NameNodeClient {
     }
   }
 
-  /** Extracts HdfsFileSummary objects from a GetListingResponseProto. */
-  private List<HdfsFileSummary> extractFileSummariesFromResponse(GetListingResponseProto response) {
-    List<HdfsFileSummary> fileSummaries = new ArrayList<>();
-
-    if (response.hasDirList()) {
-      DirectoryListingProto dirList = response.getDirList();
-
-      for (HdfsFileStatusProto fileStatus : dirList.getPartialListingList()) {
-        HdfsFileSummary summary = convertToHdfsFileSummary(fileStatus, null);
-        if (summary != null) {
-          fileSummaries.add(summary);
-        }
-      }
-    }
-
-    return fileSummaries;
-  }
-
-  /** Extracts server information from a VersionResponseProto. */
-  private HdfsServerInfo extractServerInfoFromResponse(VersionResponseProto response) {
-    if (!response.hasInfo()) {
-      throw new IllegalStateException("VersionResponseProto does not contain namespace info");
-    }
-
-    NamespaceInfoProto info = response.getInfo();
-
-    HdfsServerInfo.HdfsServerInfoBuilder builder = HdfsServerInfo.builder();
-
-    // Extract required fields
-    if (info.hasBuildVersion()) {
-      builder.buildVersion(info.getBuildVersion());
-    } else {
-      throw new IllegalStateException("VersionResponseProto does not contain build version");
-    }
-
-    if (info.hasBlockPoolID()) {
-      builder.blockPoolID(info.getBlockPoolID());
-    } else {
-      throw new IllegalStateException("VersionResponseProto does not contain block pool ID");
-    }
-
-    if (info.hasSoftwareVersion()) {
-      builder.softwareVersion(info.getSoftwareVersion());
-    } else {
-      throw new IllegalStateException("VersionResponseProto does not contain software version");
-    }
-
-    // Extract optional capabilities field
-    if (info.hasCapabilities()) {
-      builder.capabilities(info.getCapabilities());
-    }
-
-    return builder.build();
-  }
-
-  /** Converts a HdfsFileStatusProto to an HdfsFileSummary. */
-  private HdfsFileSummary convertToHdfsFileSummary(
-      HdfsFileStatusProto fileStatus, String requestedPath) {
-    try {
-      // Use the requested path if available, otherwise fall back to path from protobuf
-      String fullPath = requestedPath;
-      if (fullPath == null || fullPath.isEmpty()) {
-        fullPath = fileStatus.getPath().toStringUtf8();
-      }
-
-      String fileName = HdfsPaths.getName(fullPath);
-
-      // Determine file type
-      HdfsFileSummary.FileType fileType;
-      if (fileStatus.getFileType() == HdfsFileStatusProto.FileType.IS_DIR) {
-        fileType = HdfsFileSummary.FileType.DIRECTORY;
-      } else if (fileStatus.getFileType() == HdfsFileStatusProto.FileType.IS_SYMLINK) {
-        fileType = HdfsFileSummary.FileType.SYMLINK;
-      } else {
-        fileType = HdfsFileSummary.FileType.FILE;
-      }
-
-      // Build HdfsFileSummary
-      HdfsFileSummary.HdfsFileSummaryBuilder builder =
-          HdfsFileSummary.builder()
-              .fileType(fileType)
-              .name(fileName)
-              .path(fullPath)
-              .length(fileStatus.getLength())
-              .permissions(fileStatus.getPermission().getPerm())
-              .owner(fileStatus.getOwner())
-              .group(fileStatus.getGroup())
-              .modificationTime(Instant.ofEpochMilli(fileStatus.getModificationTime()))
-              .accessTime(Instant.ofEpochMilli(fileStatus.getAccessTime()))
-              .blockReplication(fileStatus.getBlockReplication())
-              .blockSize(fileStatus.getBlocksize())
-              .fileId(fileStatus.getFileId())
-              .childrenCount(fileStatus.getChildrenNum())
-              .storagePolicy(fileStatus.getStoragePolicy())
-              .flags(fileStatus.getFlags());
-
-      // Add symlink target if present
-      if (fileStatus.hasSymlink()) {
-        builder.symlinkTarget(fileStatus.getSymlink().toStringUtf8());
-      }
-
-      // Add namespace if present
-      if (fileStatus.hasNamespace()) {
-        builder.namespace(fileStatus.getNamespace());
-      }
-
-      // Convert block locations if present
-      if (fileStatus.hasLocations()) {
-        LocatedBlocksProto locations = fileStatus.getLocations();
-        List<HdfsFileSummary.BlockLocation> blockLocations = new ArrayList<>();
-
-        for (LocatedBlockProto locatedBlock : locations.getBlocksList()) {
-          ExtendedBlockProto block = locatedBlock.getB();
-          List<String> hosts = new ArrayList<>();
-          List<String> names = new ArrayList<>();
-          List<String> topologyPaths = new ArrayList<>();
-
-          for (DatanodeInfoProto datanode : locatedBlock.getLocsList()) {
-            hosts.add(datanode.getId().getHostName());
-            names.add(datanode.getId().getDatanodeUuid());
-            if (datanode.hasLocation()) {
-              topologyPaths.add(datanode.getLocation());
-            }
-          }
-
-          blockLocations.add(
-              HdfsFileSummary.BlockLocation.builder()
-                  .offset(locatedBlock.getOffset())
-                  .length(block.getNumBytes())
-                  .poolId(block.getPoolId())
-                  .blockId(block.getBlockId())
-                  .generationStamp(block.getGenerationStamp())
-                  .hosts(hosts)
-                  .names(names)
-                  .topologyPaths(topologyPaths)
-                  .build());
-        }
-
-        builder.blockLocations(blockLocations);
-      }
-
-      return builder.build();
-
-    } catch (Exception e) {
-      // Log and skip problematic files rather than failing the entire listing
-      log.error("Warning: Failed to convert file status to HdfsFileSummary: {}", e.getMessage());
-      return null;
-    }
-  }
-
   /** Creates a file using the configured HdfsConnection. */
   private HdfsFileSummary createFileFromConnection(
       String src, boolean createParent, short replication, long blockSize) {
@@ -522,6 +591,9 @@ public class DefaultNameNodeClient implements NameNodeClient {
     for (String nameNodeUri : nameNodeUris) {
       try {
         return createFileFromUri(nameNodeUri, src, createParent, replication, blockSize);
+      } catch (HdfsFileAlreadyExistsException e) {
+        // The NameNode answered the call; another NameNode would give the same answer
+        throw e;
       } catch (Exception e) {
         lastException = e;
         // Continue to next NameNode if available
@@ -539,17 +611,8 @@ public class DefaultNameNodeClient implements NameNodeClient {
 
       // Create file creation request
       CreateRequestProto createRequest =
-          CreateRequestProto.newBuilder()
-              .setSrc(src)
-              .setMasked(
-                  FsPermissionProto.newBuilder().setPerm(0644).build()) // Default file permissions
-              .setClientName(this.clientName)
-              .setCreateFlag(
-                  createParent ? CreateFlagProto.CREATE_VALUE : CreateFlagProto.CREATE_VALUE)
-              .setCreateParent(createParent)
-              .setReplication(replication)
-              .setBlockSize(blockSize)
-              .build();
+          NameNodeMessages.buildCreateRequest(
+              src, createParent, replication, blockSize, this.clientName);
 
       // Use the Client RPC handler to send request and get response bytes
       ByteString responseBytes =
@@ -557,38 +620,20 @@ public class DefaultNameNodeClient implements NameNodeClient {
 
       // Parse the response from the ByteString
       CreateResponseProto response =
-          CreateResponseProto.parseDelimitedFrom(responseBytes.newInput());
+          NameNodeMessages.parseResponse(
+              responseBytes, CreateResponseProto.parser(), "CreateResponseProto");
 
-      if (response == null) {
-        throw new NameNodeHdfsException("Failed to parse CreateResponseProto from response bytes");
-      }
-
-      return extractHdfsFileSummaryFromCreateResponse(response, src);
+      return NameNodeMessages.extractHdfsFileSummaryFromCreateResponse(response, src);
 
     } catch (Exception e) {
+      if (NameNodeMessages.isFileAlreadyExists(e)) {
+        throw new HdfsFileAlreadyExistsException("File already exists: " + src, e);
+      }
       throw new NameNodeHdfsException(
           "Failed to create file at NameNode " + nameNodeUri + " for path: " + src, e);
     }
   }
 
-  /** Extracts HdfsFileSummary from a CreateResponseProto. */
-  private HdfsFileSummary extractHdfsFileSummaryFromCreateResponse(
-      CreateResponseProto response, String src) {
-    if (!response.hasFs()) {
-      throw new NameNodeHdfsException("CreateResponseProto does not contain file status");
-    }
-
-    HdfsFileStatusProto fileStatus = response.getFs();
-
-    // Use the existing convertToHdfsFileSummary method
-    HdfsFileSummary summary = convertToHdfsFileSummary(fileStatus, src);
-    if (summary == null) {
-      throw new NameNodeHdfsException("Failed to convert file status to HdfsFileSummary");
-    }
-
-    return summary;
-  }
-
   /** Adds a block to a file using the configured HdfsConnection. */
   private HdfsFileSummary addBlockToFileFromConnection(HdfsFileSummary target) {
     if (nameNodeUris == null || nameNodeUris.isEmpty()) {
@@ -615,32 +660,9 @@ public class DefaultNameNodeClient implements NameNodeClient {
   private HdfsFileSummary addBlockToFileFromUri(String nameNodeUri, HdfsFileSummary target) {
     try (HdfsConnection.NameNodeConnectionStreams streams = hdfsConnection.connect(nameNodeUri)) {
 
-      // Build the previous block info if the file has existing blocks
-      ExtendedBlockProto.Builder previousBlockBuilder = null;
-      if (target.getBlockLocations() != null && !target.getBlockLocations().isEmpty()) {
-        // Get the last block as the previous block
-        HdfsFileSummary.BlockLocation lastBlock =
-            target.getBlockLocations().get(target.getBlockLocations().size() - 1);
-        previousBlockBuilder =
-            ExtendedBlockProto.newBuilder()
-                .setPoolId(lastBlock.getPoolId())
-                .setBlockId(lastBlock.getBlockId())
-                .setGenerationStamp(lastBlock.getGenerationStamp())
-                .setNumBytes(lastBlock.getLength());
-      }
-
-      // Create addBlock request
-      AddBlockRequestProto.Builder requestBuilder =
-          AddBlockRequestProto.newBuilder()
-              .setSrc(target.getPath())
-              .setClientName(this.clientName)
-              .setFileId(target.getFileId());
-
-      if (previousBlockBuilder != null) {
-        requestBuilder.setPrevious(previousBlockBuilder.build());
-      }
-
-      AddBlockRequestProto addBlockRequest = requestBuilder.build();
+      // Create addBlock request, completing the previous block if the file has one
+      AddBlockRequestProto addBlockRequest =
+          NameNodeMessages.buildAddBlockRequest(target, this.clientName);
 
       // Use the Client RPC handler to send request and get response bytes
       ByteString responseBytes =
@@ -648,14 +670,10 @@ public class DefaultNameNodeClient implements NameNodeClient {
 
       // Parse the response from the ByteString
       AddBlockResponseProto response =
-          AddBlockResponseProto.parseDelimitedFrom(responseBytes.newInput());
+          NameNodeMessages.parseResponse(
+              responseBytes, AddBlockResponseProto.parser(), "AddBlockResponseProto");
 
-      if (response == null) {
-        throw new NameNodeHdfsException(
-            "Failed to parse AddBlockResponseProto from response bytes");
-      }
-
-      return extractHdfsFileSummaryFromAddBlockResponse(response, target);
+      return NameNodeMessages.extractHdfsFileSummaryFromAddBlockResponse(response, target);
 
     } catch (Exception e) {
       throw new NameNodeHdfsException(
@@ -663,55 +681,6 @@ public class DefaultNameNodeClient implements NameNodeClient {
     }
   }
 
-  /**
-   * Extracts HdfsFileSummary from an AddBlockResponseProto, updating the target with new block
-   * information.
-   */
-  private HdfsFileSummary extractHdfsFileSummaryFromAddBlockResponse(
-      AddBlockResponseProto response, HdfsFileSummary target) {
-    if (!response.hasBlock()) {
-      throw new NameNodeHdfsException("AddBlockResponseProto does not contain block information");
-    }
-
-    LocatedBlockProto newBlock = response.getBlock();
-    ExtendedBlockProto block = newBlock.getB();
-
-    // Create new block location
-    List<String> hosts = new ArrayList<>();
-    List<String> names = new ArrayList<>();
-    List<String> topologyPaths = new ArrayList<>();
-
-    for (DatanodeInfoProto datanode : newBlock.getLocsList()) {
-      hosts.add(datanode.getId().getHostName());
-      names.add(datanode.getId().getDatanodeUuid());
-      if (datanode.hasLocation()) {
-        topologyPaths.add(datanode.getLocation());
-      }
-    }
-
-    HdfsFileSummary.BlockLocation newBlockLocation =
-        HdfsFileSummary.BlockLocation.builder()
-            .offset(newBlock.getOffset())
-            .length(block.getNumBytes())
-            .poolId(block.getPoolId())
-            .blockId(block.getBlockId())
-            .generationStamp(block.getGenerationStamp())
-            .hosts(hosts)
-            .names(names)
-            .topologyPaths(topologyPaths)
-            .build();
-
-    // Create updated block locations list
-    List<HdfsFileSummary.BlockLocation> updatedBlockLocations = new ArrayList<>();
-    if (target.getBlockLocations() != null) {
-      updatedBlockLocations.addAll(target.getBlockLocations());
-    }
-    updatedBlockLocations.add(newBlockLocation);
-
-    // Return updated HdfsFileSummary with new block location
-    return target.toBuilder().blockLocations(updatedBlockLocations).build();
-  }
-
   /** Completes a file using the configured HdfsConnection. */
   private boolean completeFileFromConnection(HdfsFileSummary target, long lastBlockLength) {
     if (nameNodeUris == null || nameNodeUris.isEmpty()) {
@@ -739,47 +708,15 @@ public class DefaultNameNodeClient implements NameNodeClient {
       String nameNodeUri, HdfsFileSummary target, long lastBlockLength) {
     try (HdfsConnection.NameNodeConnectionStreams streams = hdfsConnection.connect(nameNodeUri)) {
 
-      // Build the last block info with the final length
-      ExtendedBlockProto.Builder lastBlockBuilder = null;
-      if (target.getBlockLocations() != null && !target.getBlockLocations().isEmpty()) {
-        // Get the last block
-        HdfsFileSummary.BlockLocation lastBlock =
-            target.getBlockLocations().get(target.getBlockLocations().size() - 1);
-        lastBlockBuilder =
-            ExtendedBlockProto.newBuilder()
-                .setPoolId(lastBlock.getPoolId())
-                .setBlockId(lastBlock.getBlockId())
-                .setGenerationStamp(lastBlock.getGenerationStamp())
-                .setNumBytes(lastBlockLength); // Use the provided final length
-      }
-
-      // Create complete request
-      CompleteRequestProto.Builder requestBuilder =
-          CompleteRequestProto.newBuilder()
-              .setSrc(target.getPath())
-              .setClientName(this.clientName)
-              .setFileId(target.getFileId());
-
-      if (lastBlockBuilder != null) {
-        requestBuilder.setLast(lastBlockBuilder.build());
-      }
-
-      CompleteRequestProto completeRequest = requestBuilder.build();
+      // Create complete request with the last block's final length
+      CompleteRequestProto completeRequest =
+          NameNodeMessages.buildCompleteRequest(target, lastBlockLength, this.clientName);
 
       // Use the Client RPC handler to send request and get response bytes
       ByteString responseBytes =
           clientRpcHandler.sendRequestAndGetResponseBytes(completeRequest, streams);
 
-      // Parse the response from the ByteString
-      CompleteResponseProto response =
-          CompleteResponseProto.parseDelimitedFrom(responseBytes.newInput());
-
-      if (response == null) {
-        throw new NameNodeHdfsException(
-            "Failed to parse CompleteResponseProto from response bytes");
-      }
-
-      return response.getResult();
+      return NameNodeMessages.extractCompleteResult(responseBytes);
 
     } catch (Exception e) {
       throw new NameNodeHdfsException(
@@ -803,13 +740,23 @@ public class DefaultNameNodeClient implements NameNodeClient {
         if (client.hdfsConnection == null
             && client.nameNodeUris != null
             && !client.nameNodeUris.isEmpty()) {
+          UserInformationProvider userProvider =
+              client.userInformationProvider != null
+                  ? client.userInformationProvider
+                  : SimpleUserInformation::currentUser;
           HdfsConnection connection =
-              HdfsProtoConnection.builder()
-                  .userInformationProvider(
-                      client.userInformationProvider != null
-                          ? client.userInformationProvider
-                          : SimpleUserInformation::currentUser)
-                  .build();
+              HdfsProtoConnection.builder().userInformationProvider(userProvider).build();
+
+          // Keep connections alive between calls unless pooling is disabled
+          if (client.connectionPoolSize > 0) {
+            connection =
+                PooledHdfsConnection.builder()
+                    .delegate(connection)
+                    .userInformationProvider(userProvider)
+                    .maxIdleConnections(client.connectionPoolSize)
+                    .idleTimeoutMs(client.connectionIdleTimeoutMs)
+                    .build();
+          }
 
           // Create a new instance with the connection
           return new DefaultNameNodeClient(
@@ -817,7 +764,10 @@ public class DefaultNameNodeClient implements NameNodeClient {
               client.nameNodeUris,
               client.userInformationProvider,
               client.clientId,
-              client.clientName);
+              client.clientName,
+              client.connectionPoolSize,
+              client.connectionIdleTimeoutMs,
+              client.callbackExecutor);
         }
 
         // If still no connection, throw error
@@ -857,31 +807,13 @@ public class DefaultNameNodeClient implements NameNodeClient {
       String nameNodeUri, String path, boolean createParents) {
     try (HdfsConnection.NameNodeConnectionStreams streams = hdfsConnection.connect(nameNodeUri)) {
       // Create directory creation request
-      MkdirsRequestProto mkdirsRequest =
-          MkdirsRequestProto.newBuilder()
-              .setSrc(path)
-              .setMasked(
-                  FsPermissionProto.newBuilder()
-                      .setPerm(0755)
-                      .build()) // Default directory permissions
-              .setCreateParent(createParents)
-              .build();
+      MkdirsRequestProto mkdirsRequest = NameNodeMessages.buildMkdirsRequest(path, createParents);
 
       // Use the Client RPC handler to send request and get response bytes
       ByteString responseBytes =
           clientRpcHandler.sendRequestAndGetResponseBytes(mkdirsRequest, streams);
 
-      // Parse the response from the ByteString
-      MkdirsResponseProto response =
-          MkdirsResponseProto.parseDelimitedFrom(responseBytes.newInput());
-
-      if (response == null) {
-        throw new NameNodeHdfsException("Failed to parse MkdirsResponseProto from response bytes");
-      }
-
-      if (!response.getResult()) {
-        throw new NameNodeHdfsException("Directory creation failed for path: " + path);
-      }
+      NameNodeMessages.checkMkdirsResponse(responseBytes, path);
 
       // After successful creation, get the directory information
       return getDirectoryInfo(streams, path);
@@ -902,32 +834,13 @@ public class DefaultNameNodeClient implements NameNodeClient {
       HdfsConnection.NameNodeConnectionStreams streams, String path) {
     try {
       // Create getFileInfo request to get the created directory's metadata
-      GetFileInfoRequestProto getFileInfoRequest =
-          GetFileInfoRequestProto.newBuilder().setSrc(path).build();
+      GetFileInfoRequestProto getFileInfoRequest = NameNodeMessages.buildGetFileInfoRequest(path);
 
       // Use the Client RPC handler to send request and get response bytes
       ByteString responseBytes =
           clientRpcHandler.sendRequestAndGetResponseBytes(getFileInfoRequest, streams);
 
-      // Parse the response from the ByteString
-      GetFileInfoResponseProto response =
-          GetFileInfoResponseProto.parseDelimitedFrom(responseBytes.newInput());
-
-      if (response == null) {
-        throw new NameNodeHdfsException(
-            "Failed to parse GetFileInfoResponseProto from response bytes");
-      }
-
-      if (!response.hasFs()) {
-        throw new NameNodeHdfsException("Created directory not found: " + path);
-      }
-
-      HdfsFileSummary summary = convertToHdfsFileSummary(response.getFs(), path);
-      if (summary == null) {
-        throw new NameNodeHdfsException("Failed to convert directory status to HdfsFileSummary");
-      }
-
-      return summary;
+      return NameNodeMessages.extractDirectoryInfo(responseBytes, path);
     } catch (NameNodeHdfsException e) {
       throw e;
     } catch (Exception e) {
@@ -962,32 +875,13 @@ public class DefaultNameNodeClient implements NameNodeClient {
     try (HdfsConnection.NameNodeConnectionStreams streams = hdfsConnection.connect(nameNodeUri)) {
       // Create getLocatedFileInfo request to get the file's metadata with block locations
       GetLocatedFileInfoRequestProto getLocatedFileInfoRequest =
-          GetLocatedFileInfoRequestProto.newBuilder().setSrc(path).setNeedBlockToken(false).build();
+          NameNodeMessages.buildGetLocatedFileInfoRequest(path);
 
       // Use the Client RPC handler to send request and get response bytes
       ByteString responseBytes =
           clientRpcHandler.sendRequestAndGetResponseBytes(getLocatedFileInfoRequest, streams);
 
-      // Parse the response from the ByteString
-      GetLocatedFileInfoResponseProto response =
-          GetLocatedFileInfoResponseProto.parseDelimitedFrom(responseBytes.newInput());
-
-      if (response == null) {
-        throw new NameNodeHdfsException(
-            "Failed to parse GetLocatedFileInfoResponseProto from response bytes");
-      }
-
-      if (!response.hasFs()) {
-        // File not found via HDFS API - return empty Optional instead of throwing
-        return Optional.empty();
-      }
-
-      HdfsFileSummary summary = convertToHdfsFileSummary(response.getFs(), path);
-      if (summary == null) {
-        throw new NameNodeHdfsException("Failed to convert file status to HdfsFileSummary");
-      }
-
-      return Optional.of(summary);
+      return NameNodeMessages.extractLocatedFileInfo(responseBytes, path);
 
     } catch (NameNodeHdfsException e) {
       throw e;
@@ -1030,31 +924,127 @@ public class DefaultNameNodeClient implements NameNodeClient {
   private void deleteFromUri(String nameNodeUri, String path) {
     try (HdfsConnection.NameNodeConnectionStreams streams = hdfsConnection.connect(nameNodeUri)) {
       // Create delete request
-      DeleteRequestProto deleteRequest =
-          DeleteRequestProto.newBuilder()
-              .setSrc(path)
-              .setRecursive(false) // Similar to Files.delete(), only delete if empty directory
-              .build();
+      DeleteRequestProto deleteRequest = NameNodeMessages.buildDeleteRequest(path);
 
       // Use the Client RPC handler to send request and get response bytes
       ByteString responseBytes =
           clientRpcHandler.sendRequestAndGetResponseBytes(deleteRequest, streams);
 
-      // Parse the response from the ByteString
-      DeleteResponseProto response =
-          DeleteResponseProto.parseDelimitedFrom(responseBytes.newInput());
+      NameNodeMessages.checkDeleteResponse(responseBytes, path);
 
-      if (response == null) {
-        throw new NameNodeHdfsException("Failed to parse DeleteResponseProto from response bytes");
+    } catch (Exception e) {
+      throw new NameNodeHdfsException(
+          "Failed to delete from NameNode " + nameNodeUri + " for path: " + path, e);
+    }
+  }
+
+  /**
+   * Sends an asynchronous call to the first NameNode that answers it, trying each configured
+   * NameNode URI in turn like the synchronous methods do.
+   */
+  private <T> CompletableFuture<T> sendAsyncToAnyNameNode(
+      String failureMessage, Function<MultiplexedRpcConnection, CompletableFuture<T>> call) {
+    if (nameNodeUris == null || nameNodeUris.isEmpty()) {
+      throw new IllegalStateException("No NameNode URIs configured in DefaultNameNodeClient");
+    }
+
+    return sendAsyncFromIndex(0, null, failureMessage, call);
+  }
+
+  /** Sends an asynchronous call to the NameNode at the given index, failing over to the next. */
+  private <T> CompletableFuture<T> sendAsyncFromIndex(
+      int index,
+      Throwable lastException,
+      String failureMessage,
+      Function<MultiplexedRpcConnection, CompletableFuture<T>> call) {
+    if (index >= nameNodeUris.size()) {
+      return CompletableFuture.failedFuture(
+          new NameNodeHdfsException(failureMessage, lastException));
+    }
+
+    CompletableFuture<T> attempt;
+    try {
+      attempt = call.apply(getMultiplexedConnection(nameNodeUris.get(index)));
+    } catch (Exception e) {
+      attempt = CompletableFuture.failedFuture(e);
+    }
+
+    // Failures complete on the reader thread, so fail over on the callback executor instead
+    return attempt
+        .handleAsync(
+            (result, failure) -> {
+              if (failure == null) {
+                return CompletableFuture.completedFuture(result);
+              }
+              Throwable cause =
+                  failure instanceof CompletionException && failure.getCause() != null
+                      ? failure.getCause()
+                      : failure;
+              if (cause instanceof HdfsFileAlreadyExistsException) {
+                // The NameNode answered the call; another NameNode would give the same answer
+                return CompletableFuture.<T>failedFuture(cause);
+              }
+              // Continue to next NameNode if available
+              return sendAsyncFromIndex(index + 1, cause, failureMessage, call);
+            },
+            callbackExecutor)
+        .thenCompose(Function.identity());
+  }
+
+  /**
+   * Returns the open multiplexed connection for a NameNode URI and the current user, opening a new
+   * one if there is none or the current one has closed or been idle long enough that the NameNode
+   * may close it.
+   */
+  private MultiplexedRpcConnection getMultiplexedConnection(String nameNodeUri)
+      throws IOException {
+    String key = connectionKey(nameNodeUri);
+    synchronized (multiplexedConnections) {
+      MultiplexedRpcConnection connection = multiplexedConnections.get(key);
+      if (connection != null && connection.isOpen()) {
+        if (connectionIdleTimeoutMs <= 0 || !connection.isIdleFor(connectionIdleTimeoutMs)) {
+          return connection;
+        }
+        connection.close();
       }
 
-      if (!response.getResult()) {
-        throw new NameNodeHdfsException("Delete operation failed for path: " + path);
+      connection = new MultiplexedRpcConnection(nameNodeUri, hdfsConnection.connect(nameNodeUri));
+      multiplexedConnections.put(key, connection);
+      return connection;
+    }
+  }
+
+  /** Returns the key of the multiplexed connection for a NameNode URI and the current user. */
+  private String connectionKey(String nameNodeUri) {
+    UserInformation userInfo =
+        userInformationProvider != null
+            ? userInformationProvider.getUserInformation()
+            : SimpleUserInformation.currentUser();
+    return nameNodeUri + "#" + userInfo.getUser() + "/" + userInfo.getEffectiveUser();
+  }
+
+  /**
+   * Closes the configured HdfsConnection, releasing any pooled NameNode connections and failing
+   * asynchronous calls that are still in flight.
+   *
+   * @throws NameNodeHdfsException if the connection cannot be closed cleanly
+   */
+  @Override
+  public void close() {
+    synchronized (multiplexedConnections) {
+      for (MultiplexedRpcConnection connection : multiplexedConnections.values()) {
+        connection.close();
       }
+      multiplexedConnections.clear();
+    }
 
-    } catch (Exception e) {
-      throw new NameNodeHdfsException(
-          "Failed to delete from NameNode " + nameNodeUri + " for path: " + path, e);
+    if (hdfsConnection == null) {
+      return;
+    }
+    try {
+      hdfsConnection.close();
+    } catch (IOException e) {
+      throw new NameNodeHdfsException("Failed to close NameNode connections", e);
     }
   }
 
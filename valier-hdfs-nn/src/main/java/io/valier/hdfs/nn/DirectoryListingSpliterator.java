@@ -0,0 +1,106 @@
+package io.valier.hdfs.nn;
+
+import com.google.protobuf.ByteString;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import org.apache.hadoop.hdfs.protocol.proto.HdfsProtos.DirectoryListingProto;
+import org.apache.hadoop.hdfs.protocol.proto.HdfsProtos.HdfsFileStatusProto;
+
+/**
+ * Spliterator over a directory listing that fetches GetListing pages on demand.
+ *
+ * <p>The NameNode returns a directory listing in pages (bounded by {@code dfs.ls.limit}, 1000
+ * entries by default) together with the number of entries remaining after the page. This
+ * spliterator holds a single page at a time: entries are converted to HdfsFileSummary objects as
+ * they are consumed, and the next page, starting after the last name of the current one, is only
+ * requested once the current page is exhausted. The current page is released before the next one is
+ * fetched, so memory use is bounded by one page regardless of the directory size.
+ *
+ * <p>Not thread-safe; the spliterator does not split.
+ */
+final class DirectoryListingSpliterator implements Spliterator<HdfsFileSummary> {
+
+  /** Fetches the listing page following the given name, or null if the directory is gone. */
+  @FunctionalInterface
+  interface PageFetcher {
+    DirectoryListingProto fetch(ByteString startAfter);
+  }
+
+  private final PageFetcher pageFetcher;
+  private List<HdfsFileStatusProto> page;
+  private int index;
+  private long remainingEntries;
+
+  /**
+   * Creates a spliterator starting with an already fetched first page.
+   *
+   * @param firstPage the first listing page, or null if the directory has no listing
+   * @param pageFetcher fetches the pages after the first one
+   */
+  DirectoryListingSpliterator(DirectoryListingProto firstPage, PageFetcher pageFetcher) {
+    this.pageFetcher = pageFetcher;
+    setPage(firstPage);
+  }
+
+  @Override
+  public boolean tryAdvance(Consumer<? super HdfsFileSummary> action) {
+    while (true) {
+      while (page != null && index < page.size()) {
+        HdfsFileStatusProto fileStatus = page.get(index++);
+        HdfsFileSummary summary = NameNodeMessages.convertToHdfsFileSummary(fileStatus, null);
+        if (summary != null) {
+          action.accept(summary);
+          return true;
+        }
+      }
+
+      if (!fetchNextPage()) {
+        return false;
+      }
+    }
+  }
+
+  @Override
+  public Spliterator<HdfsFileSummary> trySplit() {
+    return null;
+  }
+
+  @Override
+  public long estimateSize() {
+    long inPage = page != null ? page.size() - index : 0;
+    return inPage + remainingEntries;
+  }
+
+  @Override
+  public int characteristics() {
+    return ORDERED | NONNULL;
+  }
+
+  /** Replaces the exhausted current page with the next one, returning false at the end. */
+  private boolean fetchNextPage() {
+    if (page == null || page.isEmpty() || remainingEntries <= 0) {
+      page = null;
+      return false;
+    }
+
+    // The next page starts after the last name returned in this one
+    ByteString startAfter = page.get(page.size() - 1).getPath();
+
+    // Release the consumed page before the next one is fetched
+    page = null;
+    setPage(pageFetcher.fetch(startAfter));
+    return page != null;
+  }
+
+  private void setPage(DirectoryListingProto listing) {
+    index = 0;
+    if (listing == null) {
+      page = null;
+      remainingEntries = 0;
+    } else {
+      page = listing.getPartialListingList();
+      remainingEntries = listing.getRemainingEntries();
+    }
+  }
+}
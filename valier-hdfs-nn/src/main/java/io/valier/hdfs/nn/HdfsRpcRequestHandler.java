@@ -3,9 +3,12 @@ package io.valier.hdfs.nn;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.GeneratedMessageV3;
 import io.valier.hdfs.nn.connection.HdfsConnection;
+import io.valier.hdfs.nn.rpc.AsyncRpcConnection;
+import io.valier.hdfs.nn.rpc.RpcRemoteException;
 import java.io.*;
 import java.nio.ByteBuffer;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.hadoop.ipc.protobuf.ProtobufRpcEngineProtos.RequestHeaderProto;
 import org.apache.hadoop.ipc.protobuf.RpcHeaderProtos.*;
@@ -35,6 +38,12 @@ public abstract class HdfsRpcRequestHandler {
    * and request headers, serializes everything to the OutputStream, then parses the response and
    * returns the protobuf message portion as a ByteString for the caller to parse.
    *
+   * <p>If the request cannot be sent or the connection ends before any response arrives, and the
+   * connection was reused from an earlier call, it is {@linkplain
+   * HdfsConnection.NameNodeConnectionStreams#reconnect() replaced} and the request is sent once
+   * more. The retry keeps the call ID, so the NameNode's retry cache answers a call it has already
+   * processed instead of running it twice.
+   *
    * @param message the protobuf message to send
    * @param streams the connection streams containing input/output streams
    * @param methodName the RPC method name (e.g., "versionRequest", "getListing")
@@ -52,11 +61,37 @@ public abstract class HdfsRpcRequestHandler {
       int protocolVersion)
       throws IOException {
 
-    // Send the request
-    sendRequest(message, streams, methodName, protocolName, protocolVersion);
+    int currentCallId = callId.getAndIncrement();
+    try {
+      int responseLength;
+      try {
+        responseLength =
+            sendRequestAndAwaitResponse(
+                message, streams, currentCallId, 0, methodName, protocolName, protocolVersion);
+      } catch (IOException e) {
+        // A reused connection the NameNode closed or reset while it was idle fails here
+        if (!streams.reconnect()) {
+          throw e;
+        }
+        responseLength =
+            sendRequestAndAwaitResponse(
+                message, streams, currentCallId, 1, methodName, protocolName, protocolVersion);
+      }
 
-    // Parse response and return the message bytes
-    return parseResponseBytes(streams);
+      // Parse response and return the message bytes
+      return parseResponseBytes(streams, responseLength);
+    } catch (RpcRemoteException e) {
+      // The full response was consumed, so the connection is still usable unless the server
+      // reported a fatal error and is closing it
+      if (e.isFatal()) {
+        streams.invalidate();
+      }
+      throw e;
+    } catch (IOException e) {
+      // The position within the stream is unknown after a transport failure
+      streams.invalidate();
+      throw e;
+    }
   }
 
   /**
@@ -110,17 +145,97 @@ public abstract class HdfsRpcRequestHandler {
     return className;
   }
 
-  /** Sends a protobuf request using the Hadoop RPC protocol format. */
-  private synchronized void sendRequest(
+  /**
+   * Sends a protobuf request over a multiplexed connection and returns a future for the response
+   * bytes. The call ID is assigned by the connection so that calls from several handlers can share
+   * the same socket; the future completes when the connection's reader receives the response
+   * carrying that call ID.
+   *
+   * @param message the protobuf message to send
+   * @param connection the multiplexed connection to send the request over
+   * @param methodName the RPC method name (e.g., "versionRequest", "getListing")
+   * @param protocolName the protocol name (e.g.,
+   *     "org.apache.hadoop.hdfs.server.protocol.NamenodeProtocol")
+   * @param protocolVersion the protocol version
+   * @return future completing with the response protobuf message data, or exceptionally with an
+   *     IOException if there's an error during RPC communication or parsing
+   */
+  public CompletableFuture<ByteString> sendRequestAsync(
+      GeneratedMessageV3 message,
+      AsyncRpcConnection connection,
+      String methodName,
+      String protocolName,
+      int protocolVersion) {
+
+    return connection.call(
+        currentCallId ->
+            buildRequestMessage(
+                message, currentCallId, 0, methodName, protocolName, protocolVersion));
+  }
+
+  /**
+   * Sends a protobuf request over a multiplexed connection and returns a future for the response
+   * bytes. The method name is automatically derived from the message class name.
+   *
+   * @param message the protobuf message to send
+   * @param connection the multiplexed connection to send the request over
+   * @param protocolName the protocol name (e.g.,
+   *     "org.apache.hadoop.hdfs.server.protocol.NamenodeProtocol")
+   * @param protocolVersion the protocol version
+   * @return future completing with the response protobuf message data
+   */
+  public CompletableFuture<ByteString> sendRequestAsync(
+      GeneratedMessageV3 message,
+      AsyncRpcConnection connection,
+      String protocolName,
+      int protocolVersion) {
+
+    String methodName = parseMethodNameFromMessage(message);
+
+    return sendRequestAsync(message, connection, methodName, protocolName, protocolVersion);
+  }
+
+  /**
+   * Sends a protobuf request using the Hadoop RPC protocol format and waits for the length prefix
+   * of its response, which is the first part of the response to arrive.
+   */
+  private int sendRequestAndAwaitResponse(
       GeneratedMessageV3 message,
       HdfsConnection.NameNodeConnectionStreams streams,
+      int currentCallId,
+      int retryCount,
       String methodName,
       String protocolName,
       int protocolVersion)
       throws IOException {
 
     DataOutputStream out = streams.getOutputStream();
-    int currentCallId = callId.getAndIncrement();
+
+    byte[] completeMessage =
+        buildRequestMessage(
+            message, currentCallId, retryCount, methodName, protocolName, protocolVersion);
+
+    // Send the complete RPC message with total length prefix
+    out.writeInt(completeMessage.length);
+    out.write(completeMessage);
+
+    out.flush();
+
+    return streams.getInputStream().readInt();
+  }
+
+  /**
+   * Serializes a request in the Hadoop RPC protocol format, without the total length prefix: the
+   * delimited RpcRequestHeaderProto, RequestHeaderProto and request message.
+   */
+  private byte[] buildRequestMessage(
+      GeneratedMessageV3 message,
+      int currentCallId,
+      int retryCount,
+      String methodName,
+      String protocolName,
+      int protocolVersion)
+      throws IOException {
 
     // Create RPC request header
     RpcRequestHeaderProto rpcRequestHeader =
@@ -129,7 +244,7 @@ public abstract class HdfsRpcRequestHandler {
             .setRpcOp(RpcRequestHeaderProto.OperationProto.RPC_FINAL_PACKET)
             .setCallId(currentCallId)
             .setClientId(ByteString.copyFrom(getClientId()))
-            .setRetryCount(0)
+            .setRetryCount(retryCount)
             .build();
 
     // Create request header with method and protocol information
@@ -153,13 +268,7 @@ public abstract class HdfsRpcRequestHandler {
     message.writeDelimitedTo(buffer);
 
     // Get the complete message bytes
-    byte[] completeMessage = buffer.toByteArray();
-
-    // Send the complete RPC message with total length prefix
-    out.writeInt(completeMessage.length);
-    out.write(completeMessage);
-
-    out.flush();
+    return buffer.toByteArray();
   }
 
   private byte[] getClientId() {
@@ -177,13 +286,13 @@ public abstract class HdfsRpcRequestHandler {
    * Parses the response from NameNode and returns the protobuf message portion as ByteString. Uses
    * similar logic to HdfsRpcMessageUtils.parseResponse but returns the raw message bytes instead of
    * parsing them into a specific type.
+   *
+   * @param responseLength the response length prefix, already read from the stream
    */
-  private ByteString parseResponseBytes(HdfsConnection.NameNodeConnectionStreams streams)
-      throws IOException {
+  private ByteString parseResponseBytes(
+      HdfsConnection.NameNodeConnectionStreams streams, int responseLength) throws IOException {
     try {
-      // Read the response size and create buffer
       DataInputStream in = streams.getInputStream();
-      int responseLength = in.readInt();
 
       if (responseLength < 0) {
         throw new IOException("Invalid response length: " + responseLength);
@@ -208,11 +317,7 @@ public abstract class HdfsRpcRequestHandler {
       }
 
       if (responseHeader.getStatus() != RpcResponseHeaderProto.RpcStatusProto.SUCCESS) {
-        String errorMessage =
-            responseHeader.hasExceptionClassName()
-                ? responseHeader.getExceptionClassName() + ": " + responseHeader.getErrorMsg()
-                : "RPC call failed with status: " + responseHeader.getStatus();
-        throw new IOException(errorMessage);
+        throw RpcRemoteException.fromResponseHeader(responseHeader);
       }
 
       // Instead of parsing the actual message, return the remaining bytes as ByteString
@@ -0,0 +1,33 @@
+package io.valier.hdfs.nn;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Options controlling what a directory listing returns.
+ *
+ * <p>By default a listing includes the block locations of every file, which makes the NameNode
+ * resolve the blocks and DataNodes of each entry and considerably enlarges every listing page.
+ * Scans that only need names, sizes, types or timestamps should disable block locations:
+ *
+ * <pre>
+ * Stream&lt;HdfsFileSummary&gt; files =
+ *     client.list("/data", ListOptions.builder().includeBlockLocations(false).build());
+ * </pre>
+ */
+@Value
+@Builder(toBuilder = true)
+public class ListOptions {
+
+  /** Options matching the behavior of a plain list call: block locations are included. */
+  public static final ListOptions DEFAULT = ListOptions.builder().build();
+
+  /**
+   * Whether each file's block locations are requested from the NameNode (the getListing
+   * needLocation flag). When false, the block locations of the returned HdfsFileSummary objects are
+   * null.
+   *
+   * <p>Default: true
+   */
+  @Builder.Default boolean includeBlockLocations = true;
+}
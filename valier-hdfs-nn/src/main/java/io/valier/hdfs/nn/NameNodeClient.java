@@ -1,7 +1,9 @@
 package io.valier.hdfs.nn;
 
+import io.valier.hdfs.nn.ex.HdfsFileAlreadyExistsException;
 import io.valier.hdfs.nn.ex.NameNodeHdfsException;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Stream;
 
 /**
@@ -22,26 +24,42 @@ import java.util.stream.Stream;
  * Stream&lt;HdfsFileSummary&gt; files = client.list("/");
  * </pre>
  */
-public interface NameNodeClient {
+public interface NameNodeClient extends AutoCloseable {
 
   /**
    * Lists files and directories in the specified path from the NameNode. This method returns a
    * stream of HdfsFileSummary objects.
    *
-   * <p><strong>Limitation:</strong> This method currently returns only the first 1000 files in the
-   * directory due to HDFS protocol paging. Directories with more than 1000 entries will have their
-   * results truncated.
+   * <p>The NameNode returns large directories in pages (1000 entries by default). The returned
+   * stream is lazy: the first page is fetched before this method returns and each following page is
+   * fetched only once the previous one has been consumed, so memory use stays bounded by one page
+   * regardless of the directory size. Failures while fetching a later page are thrown from the
+   * stream operation that consumes it. Entries added or removed while the stream is consumed may or
+   * may not be reflected.
    *
    * <p>Since HDFS is designed to be highly available, failures related to HDFS infrastructure
    * (network connectivity, NameNode unavailability, protocol errors) are thrown as unchecked {@link
    * NameNodeHdfsException}s.
    *
    * @param path The directory path to list (e.g., "/", "/user", "/tmp")
-   * @return A stream of HdfsFileSummary objects containing file metadata (limited to first 1000
-   *     entries)
+   * @return A lazily paged stream of HdfsFileSummary objects containing file metadata
    * @throws NameNodeHdfsException If there's an error with HDFS NameNode operations
    */
-  Stream<HdfsFileSummary> list(String path);
+  default Stream<HdfsFileSummary> list(String path) {
+    return list(path, ListOptions.DEFAULT);
+  }
+
+  /**
+   * Lists files and directories in the specified path from the NameNode, as {@link #list(String)}
+   * does, with options controlling what each entry includes. Disabling block locations makes
+   * metadata-only scans considerably cheaper for both the NameNode and the client.
+   *
+   * @param path The directory path to list (e.g., "/", "/user", "/tmp")
+   * @param options The listing options
+   * @return A lazily paged stream of HdfsFileSummary objects containing file metadata
+   * @throws NameNodeHdfsException If there's an error with HDFS NameNode operations
+   */
+  Stream<HdfsFileSummary> list(String path, ListOptions options);
 
   /**
    * Gets the server information from the NameNode.
@@ -95,6 +113,8 @@ public interface NameNodeClient {
    * @param replication The replication factor for the file
    * @param blockSize The block size for the file
    * @return HdfsFileSummary containing the created file's metadata (initially with no blocks)
+   * @throws HdfsFileAlreadyExistsException If the path already exists; the NameNode checks this
+   *     atomically, so no separate existence lookup is needed before creating a file
    * @throws NameNodeHdfsException If there's an error with HDFS NameNode operations
    */
   HdfsFileSummary create(String path, boolean createParent, short replication, long blockSize);
@@ -224,4 +244,114 @@ public interface NameNodeClient {
    * @throws NameNodeHdfsException If there's an error with HDFS NameNode operations
    */
   void delete(String path);
+
+  /**
+   * Asynchronously reads a file's attributes, returning an Optional to indicate presence. The
+   * returned future completes with the same result {@link #readAttributesOptional(String)} would
+   * return, so that many lookups can be in flight at once.
+   *
+   * <p>Failures are reported by completing the future exceptionally with a {@link
+   * NameNodeHdfsException}. The default implementation runs the synchronous method on the common
+   * fork-join pool; implementations that can multiplex calls over a single connection should
+   * override it.
+   *
+   * @param path The path to the file or directory whose attributes should be read
+   * @return future completing with HdfsFileSummary with file metadata, or empty if the path doesn't
+   *     exist
+   */
+  default CompletableFuture<Optional<HdfsFileSummary>> readAttributesOptionalAsync(String path) {
+    return CompletableFuture.supplyAsync(() -> readAttributesOptional(path));
+  }
+
+  /**
+   * Asynchronously creates a new file, as {@link #create(String, boolean, short, long)} does. The
+   * returned future completes with the same result, so that the files of a batch can be created
+   * while the data of earlier files is still being written.
+   *
+   * <p>Failures are reported by completing the future exceptionally with a {@link
+   * NameNodeHdfsException}, or a {@link HdfsFileAlreadyExistsException} if the path already exists.
+   * The default implementation runs the synchronous method on the common fork-join pool.
+   *
+   * @param path The absolute path where the file should be created
+   * @param createParent Whether to create parent directories if they don't exist
+   * @param replication The replication factor for the file
+   * @param blockSize The block size for the file
+   * @return future completing with the created file's metadata (initially with no blocks)
+   */
+  default CompletableFuture<HdfsFileSummary> createAsync(
+      String path, boolean createParent, short replication, long blockSize) {
+    return CompletableFuture.supplyAsync(
+        () -> create(path, createParent, replication, blockSize));
+  }
+
+  /**
+   * Asynchronously completes the current block and adds a new block to a file being written. The
+   * returned future completes with the same result {@link
+   * #completeBlockAndAddNext(HdfsFileSummary)} would return.
+   *
+   * <p>Failures are reported by completing the future exceptionally with a {@link
+   * NameNodeHdfsException}. The default implementation runs the synchronous method on the common
+   * fork-join pool.
+   *
+   * @param target The file being written, as returned by the previous create or add block call
+   * @return future completing with the updated file metadata including the new block's location
+   */
+  default CompletableFuture<HdfsFileSummary> completeBlockAndAddNextAsync(HdfsFileSummary target) {
+    return CompletableFuture.supplyAsync(() -> completeBlockAndAddNext(target));
+  }
+
+  /**
+   * Asynchronously completes a file after its last block has been written. The returned future
+   * completes with the same result {@link #complete(HdfsFileSummary)} would return.
+   *
+   * <p>Failures are reported by completing the future exceptionally with a {@link
+   * NameNodeHdfsException}. The default implementation runs the synchronous method on the common
+   * fork-join pool.
+   *
+   * @param target The file to complete, with the final length of its last block
+   * @return future completing with true if the file was completed
+   */
+  default CompletableFuture<Boolean> completeAsync(HdfsFileSummary target) {
+    return CompletableFuture.supplyAsync(() -> complete(target));
+  }
+
+  /**
+   * Asynchronously creates a directory by creating all nonexistent parent directories first. The
+   * returned future completes with the same result {@link #createDirectories(String)} would return.
+   *
+   * <p>Failures are reported by completing the future exceptionally with a {@link
+   * NameNodeHdfsException}. The default implementation runs the synchronous method on the common
+   * fork-join pool.
+   *
+   * @param path The path where the directory (and any necessary parent directories) should be
+   *     created
+   * @return future completing with the target directory's metadata
+   */
+  default CompletableFuture<HdfsFileSummary> createDirectoriesAsync(String path) {
+    return CompletableFuture.supplyAsync(() -> createDirectories(path));
+  }
+
+  /**
+   * Asynchronously deletes a file or empty directory. The returned future completes once {@link
+   * #delete(String)} would have returned.
+   *
+   * <p>Failures are reported by completing the future exceptionally with a {@link
+   * NameNodeHdfsException}. The default implementation runs the synchronous method on the common
+   * fork-join pool.
+   *
+   * @param path The path to the file or directory to delete
+   * @return future completing when the path has been deleted
+   */
+  default CompletableFuture<Void> deleteAsync(String path) {
+    return CompletableFuture.runAsync(() -> delete(path));
+  }
+
+  /**
+   * Releases resources held by this client, such as pooled NameNode connections. The default
+   * implementation does nothing.
+   *
+   * @throws NameNodeHdfsException If the resources cannot be released cleanly
+   */
+  @Override
+  default void close() {}
 }
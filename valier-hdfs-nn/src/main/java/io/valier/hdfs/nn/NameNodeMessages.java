@@ -0,0 +1,474 @@
+package io.valier.hdfs.nn;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Parser;
+import io.valier.hdfs.crt.HdfsPaths;
+import io.valier.hdfs.nn.ex.NameNodeHdfsException;
+import io.valier.hdfs.nn.rpc.RpcRemoteException;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hadoop.hdfs.protocol.proto.AclProtos.*;
+import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.*;
+import org.apache.hadoop.hdfs.protocol.proto.HdfsProtos.*;
+import org.apache.hadoop.hdfs.protocol.proto.HdfsServerProtos.*;
+
+/**
+ * Builds ClientNamenodeProtocol request messages and converts response messages into client
+ * objects. Shared by the blocking and asynchronous NameNode clients so that both send identical
+ * requests and interpret responses the same way, regardless of how the bytes travel.
+ */
+@Slf4j
+final class NameNodeMessages {
+
+  /** Server-side exception class the NameNode reports when a created path already exists. */
+  private static final String FILE_ALREADY_EXISTS_EXCEPTION =
+      "org.apache.hadoop.fs.FileAlreadyExistsException";
+
+  private NameNodeMessages() {}
+
+  /**
+   * Parses a delimited response message, throwing a NameNodeHdfsException if it is missing or
+   * malformed.
+   */
+  static <T> T parseResponse(ByteString responseBytes, Parser<T> parser, String messageName) {
+    T response;
+    try {
+      response = parser.parseDelimitedFrom(responseBytes.newInput());
+    } catch (IOException e) {
+      throw new NameNodeHdfsException("Failed to parse " + messageName + " from response bytes", e);
+    }
+
+    if (response == null) {
+      throw new NameNodeHdfsException("Failed to parse " + messageName + " from response bytes");
+    }
+
+    return response;
+  }
+
+  /** Builds a getListing request for the page following startAfter. */
+  static GetListingRequestProto buildGetListingRequest(
+      String path, ByteString startAfter, boolean needLocation) {
+    return GetListingRequestProto.newBuilder()
+        .setSrc(path)
+        .setStartAfter(startAfter)
+        .setNeedLocation(needLocation)
+        .build();
+  }
+
+  /** Builds a getLocatedFileInfo request. */
+  static GetLocatedFileInfoRequestProto buildGetLocatedFileInfoRequest(String path) {
+    return GetLocatedFileInfoRequestProto.newBuilder()
+        .setSrc(path)
+        .setNeedBlockToken(false)
+        .build();
+  }
+
+  /** Builds a getFileInfo request. */
+  static GetFileInfoRequestProto buildGetFileInfoRequest(String path) {
+    return GetFileInfoRequestProto.newBuilder().setSrc(path).build();
+  }
+
+  /** Builds a file creation request with the default file permissions. */
+  static CreateRequestProto buildCreateRequest(
+      String src, boolean createParent, short replication, long blockSize, String clientName) {
+    return CreateRequestProto.newBuilder()
+        .setSrc(src)
+        .setMasked(FsPermissionProto.newBuilder().setPerm(0644).build()) // Default file permissions
+        .setClientName(clientName)
+        // Without OVERWRITE the NameNode atomically rejects a path that already exists
+        .setCreateFlag(CreateFlagProto.CREATE_VALUE)
+        .setCreateParent(createParent)
+        .setReplication(replication)
+        .setBlockSize(blockSize)
+        .build();
+  }
+
+  /**
+   * Returns whether a failure, or any of its causes, is the NameNode rejecting a create call
+   * because the path already exists.
+   */
+  static boolean isFileAlreadyExists(Throwable failure) {
+    for (Throwable e = failure; e != null; e = e.getCause()) {
+      if (e instanceof RpcRemoteException
+          && FILE_ALREADY_EXISTS_EXCEPTION.equals(
+              ((RpcRemoteException) e).getExceptionClassName())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Builds an addBlock request, reporting the target's last block (if any) as the previous block
+   * with the length recorded in its block location.
+   */
+  static AddBlockRequestProto buildAddBlockRequest(HdfsFileSummary target, String clientName) {
+    AddBlockRequestProto.Builder requestBuilder =
+        AddBlockRequestProto.newBuilder()
+            .setSrc(target.getPath())
+            .setClientName(clientName)
+            .setFileId(target.getFileId());
+
+    // Get the last block as the previous block if the file has existing blocks
+    HdfsFileSummary.BlockLocation lastBlock = getLastBlock(target);
+    if (lastBlock != null) {
+      requestBuilder.setPrevious(toExtendedBlock(lastBlock, lastBlock.getLength()));
+    }
+
+    return requestBuilder.build();
+  }
+
+  /** Builds a complete request, reporting the target's last block with its final length. */
+  static CompleteRequestProto buildCompleteRequest(
+      HdfsFileSummary target, long lastBlockLength, String clientName) {
+    CompleteRequestProto.Builder requestBuilder =
+        CompleteRequestProto.newBuilder()
+            .setSrc(target.getPath())
+            .setClientName(clientName)
+            .setFileId(target.getFileId());
+
+    HdfsFileSummary.BlockLocation lastBlock = getLastBlock(target);
+    if (lastBlock != null) {
+      requestBuilder.setLast(toExtendedBlock(lastBlock, lastBlockLength));
+    }
+
+    return requestBuilder.build();
+  }
+
+  /** Builds a mkdirs request with the default directory permissions. */
+  static MkdirsRequestProto buildMkdirsRequest(String path, boolean createParents) {
+    return MkdirsRequestProto.newBuilder()
+        .setSrc(path)
+        .setMasked(
+            FsPermissionProto.newBuilder().setPerm(0755).build()) // Default directory permissions
+        .setCreateParent(createParents)
+        .build();
+  }
+
+  /** Builds a non-recursive delete request. */
+  static DeleteRequestProto buildDeleteRequest(String path) {
+    return DeleteRequestProto.newBuilder()
+        .setSrc(path)
+        .setRecursive(false) // Similar to Files.delete(), only delete if empty directory
+        .build();
+  }
+
+  /**
+   * Returns the length of the target's last block, which the NameNode records as the final length
+   * when the file is completed.
+   */
+  static long getLastBlockLength(HdfsFileSummary target) {
+    HdfsFileSummary.BlockLocation lastBlock = getLastBlock(target);
+    long lastBlockLength = lastBlock != null ? lastBlock.getLength() : 0;
+
+    if (lastBlockLength < 0) {
+      throw new IllegalArgumentException("Last block length cannot be negative");
+    }
+
+    return lastBlockLength;
+  }
+
+  /** Parses a mkdirs response and throws if the directory was not created. */
+  static void checkMkdirsResponse(ByteString responseBytes, String path) {
+    MkdirsResponseProto response =
+        parseResponse(responseBytes, MkdirsResponseProto.parser(), "MkdirsResponseProto");
+
+    if (!response.getResult()) {
+      throw new NameNodeHdfsException("Directory creation failed for path: " + path);
+    }
+  }
+
+  /** Parses a delete response and throws if the path was not deleted. */
+  static void checkDeleteResponse(ByteString responseBytes, String path) {
+    DeleteResponseProto response =
+        parseResponse(responseBytes, DeleteResponseProto.parser(), "DeleteResponseProto");
+
+    if (!response.getResult()) {
+      throw new NameNodeHdfsException("Delete operation failed for path: " + path);
+    }
+  }
+
+  /** Parses a complete response, returning whether the file was completed. */
+  static boolean extractCompleteResult(ByteString responseBytes) {
+    return parseResponse(responseBytes, CompleteResponseProto.parser(), "CompleteResponseProto")
+        .getResult();
+  }
+
+  /** Parses a getFileInfo response for a directory that is expected to exist. */
+  static HdfsFileSummary extractDirectoryInfo(ByteString responseBytes, String path) {
+    GetFileInfoResponseProto response =
+        parseResponse(responseBytes, GetFileInfoResponseProto.parser(), "GetFileInfoResponseProto");
+
+    if (!response.hasFs()) {
+      throw new NameNodeHdfsException("Created directory not found: " + path);
+    }
+
+    HdfsFileSummary summary = convertToHdfsFileSummary(response.getFs(), path);
+    if (summary == null) {
+      throw new NameNodeHdfsException("Failed to convert directory status to HdfsFileSummary");
+    }
+
+    return summary;
+  }
+
+  /** Parses a getLocatedFileInfo response, returning empty if the path does not exist. */
+  static Optional<HdfsFileSummary> extractLocatedFileInfo(ByteString responseBytes, String path) {
+    GetLocatedFileInfoResponseProto response =
+        parseResponse(
+            responseBytes,
+            GetLocatedFileInfoResponseProto.parser(),
+            "GetLocatedFileInfoResponseProto");
+
+    if (!response.hasFs()) {
+      // File not found via HDFS API - return empty Optional instead of throwing
+      return Optional.empty();
+    }
+
+    HdfsFileSummary summary = convertToHdfsFileSummary(response.getFs(), path);
+    if (summary == null) {
+      throw new NameNodeHdfsException("Failed to convert file status to HdfsFileSummary");
+    }
+
+    return Optional.of(summary);
+  }
+
+  /** Extracts HdfsFileSummary objects from a GetListingResponseProto. */
+  static List<HdfsFileSummary> extractFileSummariesFromResponse(GetListingResponseProto response) {
+    List<HdfsFileSummary> fileSummaries = new ArrayList<>();
+
+    if (response.hasDirList()) {
+      DirectoryListingProto dirList = response.getDirList();
+
+      for (HdfsFileStatusProto fileStatus : dirList.getPartialListingList()) {
+        HdfsFileSummary summary = convertToHdfsFileSummary(fileStatus, null);
+        if (summary != null) {
+          fileSummaries.add(summary);
+        }
+      }
+    }
+
+    return fileSummaries;
+  }
+
+  /** Extracts server information from a VersionResponseProto. */
+  static HdfsServerInfo extractServerInfoFromResponse(VersionResponseProto response) {
+    if (!response.hasInfo()) {
+      throw new IllegalStateException("VersionResponseProto does not contain namespace info");
+    }
+
+    NamespaceInfoProto info = response.getInfo();
+
+    HdfsServerInfo.HdfsServerInfoBuilder builder = HdfsServerInfo.builder();
+
+    // Extract required fields
+    if (info.hasBuildVersion()) {
+      builder.buildVersion(info.getBuildVersion());
+    } else {
+      throw new IllegalStateException("VersionResponseProto does not contain build version");
+    }
+
+    if (info.hasBlockPoolID()) {
+      builder.blockPoolID(info.getBlockPoolID());
+    } else {
+      throw new IllegalStateException("VersionResponseProto does not contain block pool ID");
+    }
+
+    if (info.hasSoftwareVersion()) {
+      builder.softwareVersion(info.getSoftwareVersion());
+    } else {
+      throw new IllegalStateException("VersionResponseProto does not contain software version");
+    }
+
+    // Extract optional capabilities field
+    if (info.hasCapabilities()) {
+      builder.capabilities(info.getCapabilities());
+    }
+
+    return builder.build();
+  }
+
+  /** Extracts HdfsFileSummary from a CreateResponseProto. */
+  static HdfsFileSummary extractHdfsFileSummaryFromCreateResponse(
+      CreateResponseProto response, String src) {
+    if (!response.hasFs()) {
+      throw new NameNodeHdfsException("CreateResponseProto does not contain file status");
+    }
+
+    HdfsFileStatusProto fileStatus = response.getFs();
+
+    // Use the existing convertToHdfsFileSummary method
+    HdfsFileSummary summary = convertToHdfsFileSummary(fileStatus, src);
+    if (summary == null) {
+      throw new NameNodeHdfsException("Failed to convert file status to HdfsFileSummary");
+    }
+
+    return summary;
+  }
+
+  /**
+   * Extracts HdfsFileSummary from an AddBlockResponseProto, updating the target with new block
+   * information.
+   */
+  static HdfsFileSummary extractHdfsFileSummaryFromAddBlockResponse(
+      AddBlockResponseProto response, HdfsFileSummary target) {
+    if (!response.hasBlock()) {
+      throw new NameNodeHdfsException("AddBlockResponseProto does not contain block information");
+    }
+
+    LocatedBlockProto newBlock = response.getBlock();
+    ExtendedBlockProto block = newBlock.getB();
+
+    // Create new block location
+    List<String> hosts = new ArrayList<>();
+    List<String> names = new ArrayList<>();
+    List<String> topologyPaths = new ArrayList<>();
+
+    for (DatanodeInfoProto datanode : newBlock.getLocsList()) {
+      hosts.add(datanode.getId().getHostName());
+      names.add(datanode.getId().getDatanodeUuid());
+      if (datanode.hasLocation()) {
+        topologyPaths.add(datanode.getLocation());
+      }
+    }
+
+    HdfsFileSummary.BlockLocation newBlockLocation =
+        HdfsFileSummary.BlockLocation.builder()
+            .offset(newBlock.getOffset())
+            .length(block.getNumBytes())
+            .poolId(block.getPoolId())
+            .blockId(block.getBlockId())
+            .generationStamp(block.getGenerationStamp())
+            .hosts(hosts)
+            .names(names)
+            .topologyPaths(topologyPaths)
+            .build();
+
+    // Create updated block locations list
+    List<HdfsFileSummary.BlockLocation> updatedBlockLocations = new ArrayList<>();
+    if (target.getBlockLocations() != null) {
+      updatedBlockLocations.addAll(target.getBlockLocations());
+    }
+    updatedBlockLocations.add(newBlockLocation);
+
+    // Return updated HdfsFileSummary with new block location
+    return target.toBuilder().blockLocations(updatedBlockLocations).build();
+  }
+
+  /** Converts a HdfsFileStatusProto to an HdfsFileSummary. */
+  static HdfsFileSummary convertToHdfsFileSummary(
+      HdfsFileStatusProto fileStatus, String requestedPath) {
+    try {
+      // Use the requested path if available, otherwise fall back to path from protobuf
+      String fullPath = requestedPath;
+      if (fullPath == null || fullPath.isEmpty()) {
+        fullPath = fileStatus.getPath().toStringUtf8();
+      }
+
+      String fileName = HdfsPaths.getName(fullPath);
+
+      // Determine file type
+      HdfsFileSummary.FileType fileType;
+      if (fileStatus.getFileType() == HdfsFileStatusProto.FileType.IS_DIR) {
+        fileType = HdfsFileSummary.FileType.DIRECTORY;
+      } else if (fileStatus.getFileType() == HdfsFileStatusProto.FileType.IS_SYMLINK) {
+        fileType = HdfsFileSummary.FileType.SYMLINK;
+      } else {
+        fileType = HdfsFileSummary.FileType.FILE;
+      }
+
+      // Build HdfsFileSummary
+      HdfsFileSummary.HdfsFileSummaryBuilder builder =
+          HdfsFileSummary.builder()
+              .fileType(fileType)
+              .name(fileName)
+              .path(fullPath)
+              .length(fileStatus.getLength())
+              .permissions(fileStatus.getPermission().getPerm())
+              .owner(fileStatus.getOwner())
+              .group(fileStatus.getGroup())
+              .modificationTime(Instant.ofEpochMilli(fileStatus.getModificationTime()))
+              .accessTime(Instant.ofEpochMilli(fileStatus.getAccessTime()))
+              .blockReplication(fileStatus.getBlockReplication())
+              .blockSize(fileStatus.getBlocksize())
+              .fileId(fileStatus.getFileId())
+              .childrenCount(fileStatus.getChildrenNum())
+              .storagePolicy(fileStatus.getStoragePolicy())
+              .flags(fileStatus.getFlags());
+
+      // Add symlink target if present
+      if (fileStatus.hasSymlink()) {
+        builder.symlinkTarget(fileStatus.getSymlink().toStringUtf8());
+      }
+
+      // Add namespace if present
+      if (fileStatus.hasNamespace()) {
+        builder.namespace(fileStatus.getNamespace());
+      }
+
+      // Convert block locations if present
+      if (fileStatus.hasLocations()) {
+        LocatedBlocksProto locations = fileStatus.getLocations();
+        List<HdfsFileSummary.BlockLocation> blockLocations = new ArrayList<>();
+
+        for (LocatedBlockProto locatedBlock : locations.getBlocksList()) {
+          ExtendedBlockProto block = locatedBlock.getB();
+          List<String> hosts = new ArrayList<>();
+          List<String> names = new ArrayList<>();
+          List<String> topologyPaths = new ArrayList<>();
+
+          for (DatanodeInfoProto datanode : locatedBlock.getLocsList()) {
+            hosts.add(datanode.getId().getHostName());
+            names.add(datanode.getId().getDatanodeUuid());
+            if (datanode.hasLocation()) {
+              topologyPaths.add(datanode.getLocation());
+            }
+          }
+
+          blockLocations.add(
+              HdfsFileSummary.BlockLocation.builder()
+                  .offset(locatedBlock.getOffset())
+                  .length(block.getNumBytes())
+                  .poolId(block.getPoolId())
+                  .blockId(block.getBlockId())
+                  .generationStamp(block.getGenerationStamp())
+                  .hosts(hosts)
+                  .names(names)
+                  .topologyPaths(topologyPaths)
+                  .build());
+        }
+
+        builder.blockLocations(blockLocations);
+      }
+
+      return builder.build();
+
+    } catch (Exception e) {
+      // Log and skip problematic files rather than failing the entire listing
+      log.error("Warning: Failed to convert file status to HdfsFileSummary: {}", e.getMessage());
+      return null;
+    }
+  }
+
+  /** Returns the last block of the target, or null if it has none. */
+  private static HdfsFileSummary.BlockLocation getLastBlock(HdfsFileSummary target) {
+    if (target.getBlockLocations() == null || target.getBlockLocations().isEmpty()) {
+      return null;
+    }
+    return target.getBlockLocations().get(target.getBlockLocations().size() - 1);
+  }
+
+  /** Converts a block location into an ExtendedBlockProto with the given length. */
+  private static ExtendedBlockProto toExtendedBlock(
+      HdfsFileSummary.BlockLocation blockLocation, long numBytes) {
+    return ExtendedBlockProto.newBuilder()
+        .setPoolId(blockLocation.getPoolId())
+        .setBlockId(blockLocation.getBlockId())
+        .setGenerationStamp(blockLocation.getGenerationStamp())
+        .setNumBytes(numBytes)
+        .build();
+  }
+}
@@ -1,5 +1,6 @@
 package io.valier.hdfs.nn.connection;
 
+import java.io.Closeable;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
@@ -9,7 +10,7 @@ import java.io.IOException;
  * servers. Implementations are responsible for establishing connections, sending protocol headers,
  * and managing the connection lifecycle.
  */
-public interface HdfsConnection {
+public interface HdfsConnection extends Closeable {
 
   /**
    * Establishes a connection to an HDFS NameNode and initializes the protocol. This method should
@@ -22,12 +23,43 @@ public interface HdfsConnection {
    */
   NameNodeConnectionStreams connect(String nameNodeUri) throws IOException;
 
+  /**
+   * Releases any resources retained between calls to {@link #connect(String)}, such as idle pooled
+   * connections. The default implementation does nothing because connections are owned by the
+   * caller.
+   *
+   * @throws IOException if an error occurs while releasing resources
+   */
+  @Override
+  default void close() throws IOException {}
+
   /** Container for the input and output streams of an established connection. */
   interface NameNodeConnectionStreams extends AutoCloseable {
     DataInputStream getInputStream();
 
     DataOutputStream getOutputStream();
 
+    /**
+     * Marks the connection as unusable after a transport failure. Implementations that reuse
+     * connections must discard an invalidated connection instead of handing it out again. The
+     * default implementation does nothing because the connection is closed after each use.
+     */
+    default void invalidate() {}
+
+    /**
+     * Replaces a connection reused from an earlier call with a newly established one, after a call
+     * on it failed before any response arrived. The NameNode may have closed or reset a reused
+     * connection while it was idle, which only shows once the connection is used again. The default
+     * implementation returns false because connections are never reused.
+     *
+     * @return true if the connection was replaced and the call can be sent again, false if it was
+     *     not reused or has already been replaced
+     * @throws IOException if a new connection cannot be established
+     */
+    default boolean reconnect() throws IOException {
+      return false;
+    }
+
     void close() throws IOException;
   }
 }
@@ -47,23 +47,20 @@ public class HdfsProtoConnection implements HdfsConnection {
 
   @Override
   public NameNodeConnectionStreams connect(String nameNodeUri) throws IOException {
-    URI uri = parseNameNodeUri(nameNodeUri);
+    InetSocketAddress address = resolveAddress(nameNodeUri);
 
     Socket socket = new Socket();
     try {
       // Connect to NameNode with timeout
-      InetSocketAddress address = new InetSocketAddress(uri.getHost(), uri.getPort());
       socket.connect(address, connectTimeoutMs);
       socket.setSoTimeout(readTimeoutMs);
 
       DataInputStream in = new DataInputStream(socket.getInputStream());
       DataOutputStream out = new DataOutputStream(socket.getOutputStream());
 
-      // Send RPC header
-      sendRpcHeader(out);
-
-      // Send connection context
-      sendConnectionContext(out);
+      // Send RPC header and connection context
+      out.write(createConnectionPreamble());
+      out.flush();
 
       return new HdfsConnectionStreams(socket, in, out);
     } catch (IOException e) {
@@ -76,6 +73,40 @@ public class HdfsProtoConnection implements HdfsConnection {
     }
   }
 
+  /**
+   * Resolves the socket address of a NameNode from its URI.
+   *
+   * @param nameNodeUri the URI of the NameNode (e.g., "hdfs://localhost:9000")
+   * @return the NameNode's socket address
+   * @throws IOException if the URI is not a valid "hdfs://host:port" URI
+   */
+  public InetSocketAddress resolveAddress(String nameNodeUri) throws IOException {
+    URI uri = parseNameNodeUri(nameNodeUri);
+    return new InetSocketAddress(uri.getHost(), uri.getPort());
+  }
+
+  /**
+   * Creates the bytes a client sends when it opens a NameNode connection: the RPC header followed
+   * by the connection context for the current user. This allows transports that do not use blocking
+   * streams, such as non-blocking socket channels, to set up connections identically to {@link
+   * #connect(String)}.
+   *
+   * @return the connection preamble bytes
+   * @throws IOException if the connection context cannot be serialized
+   */
+  public byte[] createConnectionPreamble() throws IOException {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(buffer);
+
+    // Send RPC header
+    sendRpcHeader(out);
+
+    // Send connection context
+    sendConnectionContext(out);
+
+    return buffer.toByteArray();
+  }
+
   /** Parses a NameNode URI and validates its format. */
   private URI parseNameNodeUri(String nameNodeUri) throws IOException {
     try {
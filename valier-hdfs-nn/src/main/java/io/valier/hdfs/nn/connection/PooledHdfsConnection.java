@@ -0,0 +1,312 @@
+package io.valier.hdfs.nn.connection;
+
+import io.valier.hdfs.nn.auth.SimpleUserInformation;
+import io.valier.hdfs.nn.auth.UserInformation;
+import io.valier.hdfs.nn.auth.UserInformationProvider;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * HdfsConnection implementation that keeps established NameNode connections alive and leases them
+ * to callers instead of opening a new socket for every RPC call.
+ *
+ * <p>Connections are created by a delegate HdfsConnection (typically {@link HdfsProtoConnection}),
+ * so the TCP handshake, the "hrpc" header and the IpcConnectionContextProto are only paid once per
+ * pooled connection. Idle connections are kept per NameNode URI and user, since the connection
+ * context binds a connection to the user that opened it.
+ *
+ * <p>Closing the leased {@link NameNodeConnectionStreams} returns the connection to the pool. A
+ * connection is discarded instead of being returned when it has been {@linkplain
+ * NameNodeConnectionStreams#invalidate() invalidated} after a transport failure, when unread bytes
+ * remain on its input stream, when the pool already holds the maximum number of idle connections
+ * for its key, or when it has been idle for longer than the idle timeout. The default idle timeout
+ * stays below the NameNode's own idle connection threshold (twice {@code
+ * ipc.client.connection.maxidletime}, 20 seconds by default) so that the server does not close
+ * connections while they are pooled.
+ *
+ * <p>A connection the NameNode closed or reset while it was pooled, for example when the NameNode
+ * restarted, cannot be told apart from a healthy one before it is used. When the first call on a
+ * reused connection fails before any response arrives, the connection is {@linkplain
+ * NameNodeConnectionStreams#reconnect() replaced} by a newly established one and the call is sent
+ * again.
+ */
+@Slf4j
+public class PooledHdfsConnection implements HdfsConnection {
+
+  /** Default maximum number of idle connections kept per NameNode URI and user. */
+  static final int DEFAULT_MAX_IDLE_CONNECTIONS = 8;
+
+  /** Default time in milliseconds after which an idle connection is closed. */
+  static final long DEFAULT_IDLE_TIMEOUT_MS = 10000L;
+
+  /** HdfsConnection used to establish new connections. */
+  private final HdfsConnection delegate;
+
+  /**
+   * Provider for the user information used by the delegate. Used to key pooled connections so that
+   * a connection is only reused for the user it was authenticated as.
+   */
+  private final UserInformationProvider userInformationProvider;
+
+  /** Maximum number of idle connections kept per NameNode URI and user. */
+  private final int maxIdleConnections;
+
+  /** Time in milliseconds after which an idle connection is closed. */
+  private final long idleTimeoutMs;
+
+  /** Idle connections keyed by NameNode URI and user, most recently used first. */
+  private final Map<String, Deque<PooledConnectionStreams>> idleConnections = new HashMap<>();
+
+  /** Whether this pool has been closed. */
+  private boolean closed;
+
+  @Builder
+  public PooledHdfsConnection(
+      @NonNull HdfsConnection delegate,
+      UserInformationProvider userInformationProvider,
+      int maxIdleConnections,
+      long idleTimeoutMs) {
+    this.delegate = delegate;
+    this.userInformationProvider =
+        userInformationProvider != null
+            ? userInformationProvider
+            : SimpleUserInformation::currentUser;
+    this.maxIdleConnections =
+        maxIdleConnections == 0 ? DEFAULT_MAX_IDLE_CONNECTIONS : maxIdleConnections;
+    this.idleTimeoutMs = idleTimeoutMs == 0 ? DEFAULT_IDLE_TIMEOUT_MS : idleTimeoutMs;
+
+    if (this.maxIdleConnections < 0) {
+      throw new IllegalArgumentException(
+          "maxIdleConnections cannot be negative: " + maxIdleConnections);
+    }
+    if (this.idleTimeoutMs < 0) {
+      throw new IllegalArgumentException("idleTimeoutMs cannot be negative: " + idleTimeoutMs);
+    }
+  }
+
+  @Override
+  public NameNodeConnectionStreams connect(String nameNodeUri) throws IOException {
+    String key = poolKey(nameNodeUri);
+    List<PooledConnectionStreams> discarded = new ArrayList<>();
+
+    try {
+      synchronized (this) {
+        if (closed) {
+          throw new IOException("Connection pool is closed");
+        }
+
+        evictExpired(System.nanoTime(), discarded);
+
+        Deque<PooledConnectionStreams> idle = idleConnections.get(key);
+        while (idle != null && !idle.isEmpty()) {
+          PooledConnectionStreams candidate = idle.pollFirst();
+          if (candidate.isReusable()) {
+            candidate.lease(true);
+            log.debug("Reusing pooled NameNode connection to {}", nameNodeUri);
+            return candidate;
+          }
+          discarded.add(candidate);
+        }
+      }
+    } finally {
+      closeAll(discarded);
+    }
+
+    log.debug("Opening new pooled NameNode connection to {}", nameNodeUri);
+    PooledConnectionStreams created =
+        new PooledConnectionStreams(key, nameNodeUri, delegate.connect(nameNodeUri));
+    created.lease(false);
+    return created;
+  }
+
+  /**
+   * Closes all idle connections. Connections that are currently leased are closed when they are
+   * returned. After this method is called, {@link #connect(String)} fails.
+   */
+  @Override
+  public void close() throws IOException {
+    List<PooledConnectionStreams> discarded = new ArrayList<>();
+    synchronized (this) {
+      closed = true;
+      for (Deque<PooledConnectionStreams> idle : idleConnections.values()) {
+        discarded.addAll(idle);
+      }
+      idleConnections.clear();
+    }
+    closeAll(discarded);
+    delegate.close();
+  }
+
+  /**
+   * Returns the number of idle connections currently held by the pool across all keys.
+   *
+   * @return the number of idle pooled connections
+   */
+  public synchronized int getIdleConnectionCount() {
+    int count = 0;
+    for (Deque<PooledConnectionStreams> idle : idleConnections.values()) {
+      count += idle.size();
+    }
+    return count;
+  }
+
+  /** Returns a leased connection to the pool, or closes it if it cannot be reused. */
+  private void release(PooledConnectionStreams connection) {
+    List<PooledConnectionStreams> discarded = new ArrayList<>();
+
+    synchronized (this) {
+      if (closed || !connection.isReusable()) {
+        discarded.add(connection);
+      } else {
+        connection.markIdle(System.nanoTime());
+        Deque<PooledConnectionStreams> idle =
+            idleConnections.computeIfAbsent(connection.key, k -> new ArrayDeque<>());
+        idle.addFirst(connection);
+
+        // Drop the least recently used connections beyond the per-key limit
+        while (idle.size() > maxIdleConnections) {
+          discarded.add(idle.pollLast());
+        }
+      }
+    }
+
+    closeAll(discarded);
+  }
+
+  /** Removes idle connections that exceeded the idle timeout. Must hold the pool lock. */
+  private void evictExpired(long now, List<PooledConnectionStreams> discarded) {
+    long idleTimeoutNanos = idleTimeoutMs * 1_000_000L;
+    Iterator<Map.Entry<String, Deque<PooledConnectionStreams>>> entries =
+        idleConnections.entrySet().iterator();
+
+    while (entries.hasNext()) {
+      Deque<PooledConnectionStreams> idle = entries.next().getValue();
+      // Connections are ordered most recently used first, so expired ones are at the tail
+      while (!idle.isEmpty() && now - idle.peekLast().idleSinceNanos >= idleTimeoutNanos) {
+        discarded.add(idle.pollLast());
+      }
+      if (idle.isEmpty()) {
+        entries.remove();
+      }
+    }
+  }
+
+  /** Builds the pool key from the NameNode URI and the user the connection authenticates as. */
+  private String poolKey(String nameNodeUri) {
+    UserInformation userInfo = userInformationProvider.getUserInformation();
+    return nameNodeUri + "#" + userInfo.getUser() + "/" + userInfo.getEffectiveUser();
+  }
+
+  /** Closes the underlying connections, logging rather than propagating failures. */
+  private static void closeAll(List<PooledConnectionStreams> connections) {
+    for (PooledConnectionStreams connection : connections) {
+      try {
+        connection.streams.close();
+      } catch (IOException e) {
+        log.debug("Failed to close pooled NameNode connection", e);
+      }
+    }
+  }
+
+  /** Leased connection whose close() returns the underlying connection to the pool. */
+  private class PooledConnectionStreams implements NameNodeConnectionStreams {
+    private final String key;
+    private final String nameNodeUri;
+    private volatile NameNodeConnectionStreams streams;
+    private volatile boolean leased;
+    private volatile boolean broken;
+
+    /** Whether the current lease reuses an idle connection that has not been replaced yet. */
+    private volatile boolean reused;
+
+    private long idleSinceNanos;
+
+    PooledConnectionStreams(String key, String nameNodeUri, NameNodeConnectionStreams streams) {
+      this.key = key;
+      this.nameNodeUri = nameNodeUri;
+      this.streams = streams;
+    }
+
+    void lease(boolean reused) {
+      this.reused = reused;
+      leased = true;
+    }
+
+    void markIdle(long now) {
+      leased = false;
+      idleSinceNanos = now;
+    }
+
+    /**
+     * A connection can be reused if it is healthy and no stray response bytes are pending. A
+     * connection closed by the NameNode also has no bytes available, so it passes this check and is
+     * only replaced by {@link #reconnect()} once a call on it fails.
+     */
+    boolean isReusable() {
+      if (broken) {
+        return false;
+      }
+      try {
+        return streams.getInputStream().available() == 0;
+      } catch (IOException e) {
+        return false;
+      }
+    }
+
+    @Override
+    public DataInputStream getInputStream() {
+      return streams.getInputStream();
+    }
+
+    @Override
+    public DataOutputStream getOutputStream() {
+      return streams.getOutputStream();
+    }
+
+    @Override
+    public void invalidate() {
+      broken = true;
+    }
+
+    @Override
+    public boolean reconnect() throws IOException {
+      if (!reused) {
+        return false;
+      }
+      reused = false;
+
+      log.debug(
+          "Pooled NameNode connection to {} was closed while idle, reconnecting", nameNodeUri);
+      NameNodeConnectionStreams stale = streams;
+      streams = delegate.connect(nameNodeUri);
+      try {
+        stale.close();
+      } catch (IOException e) {
+        log.debug("Failed to close stale pooled NameNode connection", e);
+      }
+      return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+      // Guard against double close returning the same connection to the pool twice
+      if (!leased) {
+        return;
+      }
+      leased = false;
+      reused = false;
+      release(this);
+    }
+  }
+}
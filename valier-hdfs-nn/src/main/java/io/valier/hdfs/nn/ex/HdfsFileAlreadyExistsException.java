@@ -0,0 +1,60 @@
+package io.valier.hdfs.nn.ex;
+
+/**
+ * Runtime exception thrown when a file cannot be created because its path already exists.
+ *
+ * <p>This exception is thrown when the NameNode rejects a create call with a
+ * FileAlreadyExistsException. The create call never overwrites, so this check is atomic on the
+ * NameNode and needs no separate existence lookup. It extends {@link NameNodeHdfsException} to
+ * maintain consistency with the HDFS infrastructure exception hierarchy.
+ *
+ * <p>Example usage:
+ *
+ * <pre>
+ * try {
+ *     HdfsFileSummary file = nameNodeClient.create("/data/file.txt", true, (short) 3, blockSize);
+ * } catch (HdfsFileAlreadyExistsException e) {
+ *     // Handle existing file scenario
+ *     log.warn("HDFS path already exists: {}", e.getMessage());
+ * }
+ * </pre>
+ */
+public class HdfsFileAlreadyExistsException extends NameNodeHdfsException {
+
+  private static final long serialVersionUID = 1L;
+
+  /** Constructs a new HDFS file already exists exception with no detail message. */
+  public HdfsFileAlreadyExistsException() {
+    super();
+  }
+
+  /**
+   * Constructs a new HDFS file already exists exception with the specified detail message.
+   *
+   * @param message the detail message explaining the reason for the exception
+   */
+  public HdfsFileAlreadyExistsException(String message) {
+    super(message);
+  }
+
+  /**
+   * Constructs a new HDFS file already exists exception with the specified detail message and
+   * cause.
+   *
+   * @param message the detail message explaining the reason for the exception
+   * @param cause the underlying cause of this exception (may be null)
+   */
+  public HdfsFileAlreadyExistsException(String message, Throwable cause) {
+    super(message, cause);
+  }
+
+  /**
+   * Constructs a new HDFS file already exists exception with the specified cause. The detail
+   * message will be derived from the cause's detail message.
+   *
+   * @param cause the underlying cause of this exception (may be null)
+   */
+  public HdfsFileAlreadyExistsException(Throwable cause) {
+    super(cause);
+  }
+}
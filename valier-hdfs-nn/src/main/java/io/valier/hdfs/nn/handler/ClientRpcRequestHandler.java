@@ -4,7 +4,9 @@ import com.google.protobuf.ByteString;
 import com.google.protobuf.GeneratedMessageV3;
 import io.valier.hdfs.nn.HdfsRpcRequestHandler;
 import io.valier.hdfs.nn.connection.HdfsConnection;
+import io.valier.hdfs.nn.rpc.AsyncRpcConnection;
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Client-specific RPC request handler that uses the Client protocol. This class extends the
@@ -53,4 +55,36 @@ public class ClientRpcRequestHandler extends HdfsRpcRequestHandler {
     return super.sendRequestAndGetResponseBytes(
         message, streams, CLIENT_PROTOCOL_NAME, CLIENT_PROTOCOL_VERSION);
   }
+
+  /**
+   * Sends a protobuf request over a multiplexed connection and returns a future for the response
+   * bytes. This method uses the hardcoded Client protocol settings.
+   *
+   * @param message the protobuf message to send
+   * @param connection the multiplexed connection to send the request over
+   * @param methodName the RPC method name (e.g., "getListing")
+   * @return future completing with the response protobuf message data
+   */
+  public CompletableFuture<ByteString> sendRequestAsync(
+      GeneratedMessageV3 message, AsyncRpcConnection connection, String methodName) {
+
+    return super.sendRequestAsync(
+        message, connection, methodName, CLIENT_PROTOCOL_NAME, CLIENT_PROTOCOL_VERSION);
+  }
+
+  /**
+   * Sends a protobuf request over a multiplexed connection and returns a future for the response
+   * bytes. This method uses the hardcoded Client protocol settings and automatically derives the
+   * method name from the message class name.
+   *
+   * @param message the protobuf message to send
+   * @param connection the multiplexed connection to send the request over
+   * @return future completing with the response protobuf message data
+   */
+  public CompletableFuture<ByteString> sendRequestAsync(
+      GeneratedMessageV3 message, AsyncRpcConnection connection) {
+
+    return super.sendRequestAsync(
+        message, connection, CLIENT_PROTOCOL_NAME, CLIENT_PROTOCOL_VERSION);
+  }
 }
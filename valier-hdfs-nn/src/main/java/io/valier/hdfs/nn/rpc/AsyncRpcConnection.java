@@ -0,0 +1,59 @@
+package io.valier.hdfs.nn.rpc;
+
+import com.google.protobuf.ByteString;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * NameNode connection that carries many concurrent RPC calls and completes each call's future when
+ * the response carrying its call ID arrives.
+ *
+ * <p>Call IDs are assigned by the connection rather than by the request handler, so that handlers
+ * for different protocols can share the same connection without their call IDs colliding.
+ */
+public interface AsyncRpcConnection extends AutoCloseable {
+
+  /** Encodes a request (without its length prefix) for the call ID assigned by the connection. */
+  @FunctionalInterface
+  interface RequestEncoder {
+    byte[] encode(int callId) throws IOException;
+  }
+
+  /**
+   * Sends a request and returns a future that completes with the response message bytes.
+   *
+   * @param encoder encodes the request for the call ID assigned to it
+   * @return future completing with the delimited response message bytes, or exceptionally with an
+   *     {@link RpcRemoteException} if the server rejected the call or an IOException if the
+   *     connection failed
+   */
+  CompletableFuture<ByteString> call(RequestEncoder encoder);
+
+  /**
+   * Returns whether the connection can accept new calls.
+   *
+   * @return true if the connection has not been closed
+   */
+  boolean isOpen();
+
+  /**
+   * Returns whether the connection has no pending calls and has neither sent a request nor received
+   * a response for at least the given time. Callers use this to replace a connection before the
+   * NameNode closes it for being idle.
+   *
+   * @param idleTimeoutMs the idle time in milliseconds
+   * @return true if the connection has been idle for at least idleTimeoutMs
+   */
+  boolean isIdleFor(long idleTimeoutMs);
+
+  /**
+   * Returns the number of calls waiting for a response.
+   *
+   * @return the number of pending calls
+   */
+  int getPendingCallCount();
+
+  /** Closes the connection and fails all pending calls. */
+  @Override
+  void close();
+}
@@ -69,11 +69,7 @@ public class HdfsRpcMessageUtils {
       }
 
       if (responseHeader.getStatus() != RpcResponseHeaderProto.RpcStatusProto.SUCCESS) {
-        String errorMessage =
-            responseHeader.hasExceptionClassName()
-                ? responseHeader.getExceptionClassName() + ": " + responseHeader.getErrorMsg()
-                : "RPC call failed with status: " + responseHeader.getStatus();
-        throw new IOException(errorMessage);
+        throw RpcRemoteException.fromResponseHeader(responseHeader);
       }
 
       // 4. Parse the actual response message
@@ -144,11 +140,7 @@ public class HdfsRpcMessageUtils {
       }
 
       if (responseHeader.getStatus() != RpcResponseHeaderProto.RpcStatusProto.SUCCESS) {
-        String errorMessage =
-            responseHeader.hasExceptionClassName()
-                ? responseHeader.getExceptionClassName() + ": " + responseHeader.getErrorMsg()
-                : "RPC call failed with status: " + responseHeader.getStatus();
-        throw new IOException(errorMessage);
+        throw RpcRemoteException.fromResponseHeader(responseHeader);
       }
 
       // Parse the actual response message
@@ -0,0 +1,184 @@
+package io.valier.hdfs.nn.rpc;
+
+import com.google.protobuf.ByteString;
+import io.valier.hdfs.nn.connection.HdfsConnection;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.CompletableFuture;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * NameNode connection that carries many concurrent RPC calls over a single socket.
+ *
+ * <p>Requests are framed and written by the calling thread while holding a write lock, so frames
+ * from concurrent callers never interleave. A dedicated daemon reader thread reads response frames
+ * as they arrive and hands them to {@link PendingRpcCalls}, which completes the future registered
+ * under the response's call ID. Responses may therefore arrive in any order and a slow call does
+ * not hold up faster calls issued after it. The returned futures complete on the reader thread, so
+ * callers should parse responses and run further work on an executor of their own, as the
+ * asynchronous methods of {@code DefaultNameNodeClient} do, to keep the reader free.
+ *
+ * <p>The connection closes itself, failing all pending calls, when the socket reaches end of stream
+ * (for example when the NameNode closes an idle connection), on a transport error, when a read
+ * times out while calls are pending, or when the server reports a fatal error. Callers should check
+ * {@link #isOpen()} and open a new connection once it has closed.
+ */
+@Slf4j
+public class MultiplexedRpcConnection implements AsyncRpcConnection {
+
+  private final String nameNodeUri;
+  private final HdfsConnection.NameNodeConnectionStreams streams;
+  private final PendingRpcCalls pendingCalls = new PendingRpcCalls();
+  private final Object writeLock = new Object();
+  private final Thread readerThread;
+  private volatile boolean closed;
+  private volatile long lastActivityNanos = System.nanoTime();
+
+  /**
+   * Creates a multiplexed connection over already established streams and starts its reader thread.
+   * The streams must have completed the connection preamble (the "hrpc" header and connection
+   * context) and must not be used by anyone else while this connection is open.
+   *
+   * @param nameNodeUri the URI of the NameNode, used for logging and the reader thread name
+   * @param streams the established connection streams
+   */
+  public MultiplexedRpcConnection(
+      String nameNodeUri, HdfsConnection.NameNodeConnectionStreams streams) {
+    this.nameNodeUri = nameNodeUri;
+    this.streams = streams;
+    this.readerThread = new Thread(this::readResponses, "hdfs-rpc-reader-" + nameNodeUri);
+    this.readerThread.setDaemon(true);
+    this.readerThread.start();
+  }
+
+  @Override
+  public CompletableFuture<ByteString> call(RequestEncoder encoder) {
+    CompletableFuture<ByteString> future = new CompletableFuture<>();
+    if (closed) {
+      future.completeExceptionally(new IOException("Connection to " + nameNodeUri + " is closed"));
+      return future;
+    }
+
+    int callId = pendingCalls.register(future);
+    lastActivityNanos = System.nanoTime();
+
+    // close() may have failed all pending calls just before this one was registered
+    if (closed) {
+      pendingCalls.remove(callId);
+      future.completeExceptionally(new IOException("Connection to " + nameNodeUri + " is closed"));
+      return future;
+    }
+
+    byte[] request;
+    try {
+      request = encoder.encode(callId);
+    } catch (IOException | RuntimeException e) {
+      pendingCalls.remove(callId);
+      future.completeExceptionally(e);
+      return future;
+    }
+
+    try {
+      synchronized (writeLock) {
+        DataOutputStream out = streams.getOutputStream();
+        out.writeInt(request.length);
+        out.write(request);
+        out.flush();
+      }
+    } catch (IOException e) {
+      // A partially written frame leaves the server unable to parse further requests
+      fail(e);
+    }
+
+    return future;
+  }
+
+  @Override
+  public boolean isOpen() {
+    return !closed;
+  }
+
+  @Override
+  public int getPendingCallCount() {
+    return pendingCalls.size();
+  }
+
+  @Override
+  public boolean isIdleFor(long idleTimeoutMs) {
+    return pendingCalls.isEmpty()
+        && System.nanoTime() - lastActivityNanos >= idleTimeoutMs * 1_000_000L;
+  }
+
+  @Override
+  public void close() {
+    fail(new IOException("Connection to " + nameNodeUri + " was closed"));
+  }
+
+  /** Reads response frames until the connection fails or is closed. */
+  private void readResponses() {
+    DataInputStream in = streams.getInputStream();
+    byte[] lengthTail = new byte[3];
+
+    while (!closed) {
+      try {
+        int first;
+        try {
+          first = in.read();
+        } catch (SocketTimeoutException e) {
+          // No bytes of a new frame have been consumed, so an idle connection stays usable
+          if (pendingCalls.isEmpty()) {
+            continue;
+          }
+          throw e;
+        }
+        if (first < 0) {
+          throw new EOFException("NameNode " + nameNodeUri + " closed the connection");
+        }
+
+        in.readFully(lengthTail);
+        int responseLength =
+            (first << 24)
+                | ((lengthTail[0] & 0xff) << 16)
+                | ((lengthTail[1] & 0xff) << 8)
+                | (lengthTail[2] & 0xff);
+
+        if (responseLength <= 0) {
+          throw new IOException("Invalid response length: " + responseLength);
+        }
+
+        byte[] frame = new byte[responseLength];
+        in.readFully(frame);
+        lastActivityNanos = System.nanoTime();
+        pendingCalls.dispatch(frame);
+      } catch (IOException e) {
+        if (!closed) {
+          log.debug("Multiplexed connection to {} failed", nameNodeUri, e);
+        }
+        fail(e);
+      } catch (RuntimeException e) {
+        log.warn("Unexpected error reading responses from {}", nameNodeUri, e);
+        fail(new IOException("Failed to read response: " + e.getMessage(), e));
+      }
+    }
+  }
+
+  /** Closes the connection, if it is still open, and fails all pending calls with the cause. */
+  private void fail(IOException cause) {
+    synchronized (this) {
+      if (!closed) {
+        closed = true;
+        // The stream position is unknown, so a pooled connection must not be reused
+        streams.invalidate();
+        try {
+          streams.close();
+        } catch (IOException e) {
+          log.debug("Failed to close connection to {}", nameNodeUri, e);
+        }
+      }
+    }
+    pendingCalls.failAll(cause);
+  }
+}
@@ -0,0 +1,283 @@
+package io.valier.hdfs.nn.rpc;
+
+import com.google.protobuf.ByteString;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Non-blocking NameNode connection driven by a {@link NioRpcEventLoop}.
+ *
+ * <p>Callers encode and enqueue request frames from any thread; the loop thread writes them as the
+ * socket accepts data and reassembles response frames from whatever the socket delivers, handing
+ * each complete frame to {@link PendingRpcCalls}. No thread blocks on this connection's socket.
+ *
+ * <p>The connection closes itself, failing all pending calls, when the NameNode closes the socket,
+ * on a transport error, when the TCP connect times out, or when the server reports a fatal error.
+ * Calls that receive no response within the call timeout fail individually without closing the
+ * connection.
+ */
+@Slf4j
+class NioRpcConnection implements AsyncRpcConnection {
+
+  private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+  private final String nameNodeUri;
+  private final NioRpcEventLoop eventLoop;
+  private final SocketChannel channel;
+  private final long connectDeadlineNanos;
+  private final long callTimeoutMs;
+  private final PendingRpcCalls pendingCalls = new PendingRpcCalls();
+  private final Queue<ByteBuffer> writeQueue = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean flushScheduled = new AtomicBoolean();
+  private volatile boolean closed;
+  private volatile long lastActivityNanos = System.nanoTime();
+
+  // State below is only accessed by the event loop thread
+  private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+  private final ByteBuffer lengthBuffer = ByteBuffer.allocate(4);
+  private SelectionKey key;
+  private byte[] frame;
+  private int frameOffset;
+
+  NioRpcConnection(
+      String nameNodeUri,
+      NioRpcEventLoop eventLoop,
+      SocketChannel channel,
+      byte[] preamble,
+      long connectDeadlineNanos,
+      long callTimeoutMs) {
+    this.nameNodeUri = nameNodeUri;
+    this.eventLoop = eventLoop;
+    this.channel = channel;
+    this.connectDeadlineNanos = connectDeadlineNanos;
+    this.callTimeoutMs = callTimeoutMs;
+
+    // The RPC header and connection context must precede every call on the socket
+    this.writeQueue.add(ByteBuffer.wrap(preamble));
+  }
+
+  @Override
+  public CompletableFuture<ByteString> call(RequestEncoder encoder) {
+    CompletableFuture<ByteString> future = new CompletableFuture<>();
+    if (closed) {
+      future.completeExceptionally(new IOException("Connection to " + nameNodeUri + " is closed"));
+      return future;
+    }
+
+    int callId = pendingCalls.register(future);
+    lastActivityNanos = System.nanoTime();
+
+    // fail() may have failed all pending calls just before this one was registered
+    if (closed) {
+      pendingCalls.remove(callId);
+      future.completeExceptionally(new IOException("Connection to " + nameNodeUri + " is closed"));
+      return future;
+    }
+
+    byte[] request;
+    try {
+      request = encoder.encode(callId);
+    } catch (IOException | RuntimeException e) {
+      pendingCalls.remove(callId);
+      future.completeExceptionally(e);
+      return future;
+    }
+
+    if (callTimeoutMs > 0) {
+      // A timed out call only gives up on its own response; later responses still match by ID
+      future.orTimeout(callTimeoutMs, TimeUnit.MILLISECONDS);
+      future.whenComplete((response, failure) -> pendingCalls.remove(callId));
+    }
+
+    ByteBuffer buffer = ByteBuffer.allocate(4 + request.length);
+    buffer.putInt(request.length).put(request).flip();
+    writeQueue.add(buffer);
+    scheduleFlush();
+
+    return future;
+  }
+
+  @Override
+  public boolean isOpen() {
+    return !closed;
+  }
+
+  @Override
+  public int getPendingCallCount() {
+    return pendingCalls.size();
+  }
+
+  @Override
+  public boolean isIdleFor(long idleTimeoutMs) {
+    return pendingCalls.isEmpty()
+        && System.nanoTime() - lastActivityNanos >= idleTimeoutMs * 1_000_000L;
+  }
+
+  @Override
+  public void close() {
+    fail(new IOException("Connection to " + nameNodeUri + " was closed"));
+  }
+
+  String getNameNodeUri() {
+    return nameNodeUri;
+  }
+
+  /** Registers the channel with the loop's selector. Called on the loop thread. */
+  void register(Selector selector) throws IOException {
+    if (closed) {
+      return;
+    }
+    int interestOps =
+        channel.isConnected()
+            ? SelectionKey.OP_READ | SelectionKey.OP_WRITE
+            : SelectionKey.OP_CONNECT;
+    key = channel.register(selector, interestOps, this);
+  }
+
+  /** Returns whether the TCP connect is still pending past its deadline. */
+  boolean isConnectTimedOut(long now) {
+    return !closed && channel.isConnectionPending() && now - connectDeadlineNanos >= 0;
+  }
+
+  /** Handles the readiness events selected for this connection. Called on the loop thread. */
+  void handleReady() {
+    try {
+      if (!key.isValid()) {
+        return;
+      }
+      if (key.isConnectable() && channel.finishConnect()) {
+        key.interestOps(SelectionKey.OP_READ);
+        flush();
+      }
+      if (key.isValid() && key.isReadable()) {
+        read();
+      }
+      if (key.isValid() && key.isWritable()) {
+        flush();
+      }
+    } catch (IOException e) {
+      fail(e);
+    } catch (CancelledKeyException e) {
+      // The connection was closed by another thread while its events were being handled
+    }
+  }
+
+  /**
+   * Closes the connection, if it is still open, and fails all pending calls with the cause. May be
+   * called from any thread; closing the channel also cancels its selection key.
+   */
+  void fail(IOException cause) {
+    synchronized (this) {
+      if (!closed) {
+        closed = true;
+        if (!(cause instanceof EOFException)) {
+          log.debug("Connection to {} failed", nameNodeUri, cause);
+        }
+        try {
+          channel.close();
+        } catch (IOException e) {
+          log.debug("Failed to close connection to {}", nameNodeUri, e);
+        }
+      }
+    }
+    writeQueue.clear();
+    pendingCalls.failAll(cause);
+  }
+
+  /** Asks the loop thread to flush queued frames, unless a flush is already scheduled. */
+  private void scheduleFlush() {
+    if (flushScheduled.compareAndSet(false, true)) {
+      boolean accepted =
+          eventLoop.execute(
+              () -> {
+                flushScheduled.set(false);
+                try {
+                  flush();
+                } catch (IOException e) {
+                  fail(e);
+                } catch (CancelledKeyException e) {
+                  // The connection was closed before the flush ran
+                }
+              });
+      if (!accepted) {
+        fail(new IOException("Event loop is closed"));
+      }
+    }
+  }
+
+  /**
+   * Writes queued frames until the queue is empty or the socket buffer is full, in which case
+   * OP_WRITE interest is kept so the loop resumes once the socket is writable again.
+   */
+  private void flush() throws IOException {
+    if (closed || key == null || !channel.isConnected()) {
+      // Frames stay queued until the connection is registered and connected
+      return;
+    }
+
+    ByteBuffer buffer;
+    while ((buffer = writeQueue.peek()) != null) {
+      channel.write(buffer);
+      if (buffer.hasRemaining()) {
+        key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+        return;
+      }
+      writeQueue.poll();
+    }
+    key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+  }
+
+  /** Reads available bytes and dispatches every response frame they complete. */
+  private void read() throws IOException {
+    if (channel.read(readBuffer) < 0) {
+      throw new EOFException("NameNode " + nameNodeUri + " closed the connection");
+    }
+
+    readBuffer.flip();
+    try {
+      while (readBuffer.hasRemaining()) {
+        if (frame == null) {
+          // Accumulate the 4-byte length prefix, which may be split across reads
+          while (lengthBuffer.hasRemaining() && readBuffer.hasRemaining()) {
+            lengthBuffer.put(readBuffer.get());
+          }
+          if (lengthBuffer.hasRemaining()) {
+            break;
+          }
+
+          int responseLength = lengthBuffer.getInt(0);
+          lengthBuffer.clear();
+          if (responseLength <= 0) {
+            throw new IOException("Invalid response length: " + responseLength);
+          }
+          frame = new byte[responseLength];
+          frameOffset = 0;
+        } else {
+          int chunk = Math.min(readBuffer.remaining(), frame.length - frameOffset);
+          readBuffer.get(frame, frameOffset, chunk);
+          frameOffset += chunk;
+
+          if (frameOffset == frame.length) {
+            byte[] completeFrame = frame;
+            frame = null;
+            lastActivityNanos = System.nanoTime();
+            pendingCalls.dispatch(completeFrame);
+          }
+        }
+      }
+    } finally {
+      readBuffer.compact();
+    }
+  }
+}
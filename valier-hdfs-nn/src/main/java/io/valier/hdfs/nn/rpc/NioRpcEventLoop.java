@@ -0,0 +1,203 @@
+package io.valier.hdfs.nn.rpc;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Single-threaded event loop that drives non-blocking NameNode connections with a {@link Selector}.
+ *
+ * <p>All socket I/O for every connection created by {@link #connect} happens on the loop's one
+ * daemon thread: it finishes connects, flushes queued request frames as the sockets become writable
+ * and reads response frames as they arrive, completing the matching call futures. A client can
+ * therefore keep thousands of calls in flight across its NameNode connections with a single I/O
+ * thread.
+ *
+ * <p>The loop thread only completes each connection's raw response futures. Clients such as {@code
+ * DefaultAsyncNameNodeClient} parse the responses and complete the futures they hand to callers on
+ * a callback executor, so caller code never runs on, or blocks, the loop thread.
+ */
+@Slf4j
+public class NioRpcEventLoop implements AutoCloseable {
+
+  /** Upper bound on how long the loop blocks in select before checking connect timeouts. */
+  private static final long SELECT_TIMEOUT_MS = 250;
+
+  private final Selector selector;
+  private final Thread loopThread;
+  private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+  private volatile boolean closed;
+
+  /** Set, under the tasks lock, once the loop has stopped accepting tasks for its final run. */
+  private boolean terminated;
+
+  /**
+   * Opens the selector and starts the loop thread.
+   *
+   * @param name the name of the loop thread
+   * @throws IOException if the selector cannot be opened
+   */
+  public NioRpcEventLoop(String name) throws IOException {
+    this.selector = Selector.open();
+    this.loopThread = new Thread(this::run, name);
+    this.loopThread.setDaemon(true);
+    this.loopThread.start();
+  }
+
+  /**
+   * Starts a non-blocking connection to a NameNode and returns immediately. Calls made before the
+   * connection is established are queued behind the connection preamble and sent once it connects.
+   *
+   * @param nameNodeUri the URI of the NameNode, used in error messages
+   * @param address the NameNode's socket address
+   * @param preamble the RPC header and connection context to send first
+   * @param connectTimeoutMs the time in milliseconds allowed for the TCP connect
+   * @param callTimeoutMs the time in milliseconds after which a call without a response fails, or 0
+   *     for no limit
+   * @return the connection
+   * @throws IOException if the loop is closed or the socket cannot be opened
+   */
+  public AsyncRpcConnection connect(
+      String nameNodeUri,
+      InetSocketAddress address,
+      byte[] preamble,
+      int connectTimeoutMs,
+      long callTimeoutMs)
+      throws IOException {
+    if (closed) {
+      throw new IOException("Event loop is closed");
+    }
+
+    SocketChannel channel = SocketChannel.open();
+    try {
+      channel.configureBlocking(false);
+      channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+      channel.connect(address);
+    } catch (IOException e) {
+      channel.close();
+      throw new IOException("Failed to connect to NameNode at " + nameNodeUri, e);
+    }
+
+    long connectDeadlineNanos = System.nanoTime() + connectTimeoutMs * 1_000_000L;
+    NioRpcConnection connection =
+        new NioRpcConnection(
+            nameNodeUri, this, channel, preamble, connectDeadlineNanos, callTimeoutMs);
+
+    boolean accepted =
+        execute(
+            () -> {
+              try {
+                connection.register(selector);
+              } catch (IOException e) {
+                connection.fail(e);
+              }
+            });
+    if (!accepted) {
+      // The loop shut down after the check above; nothing would ever register the connection
+      IOException cause = new IOException("Event loop is closed");
+      connection.fail(cause);
+      throw cause;
+    }
+
+    return connection;
+  }
+
+  /**
+   * Runs a task on the loop thread. Every accepted task runs, even if the loop is closed right
+   * after, since the loop drains the queue once more before failing its connections.
+   *
+   * @param task the task to run
+   * @return true if the task will run, or false if the loop has already shut down and the caller
+   *     must fail whatever the task was meant to drive
+   */
+  boolean execute(Runnable task) {
+    synchronized (tasks) {
+      if (terminated) {
+        return false;
+      }
+      tasks.add(task);
+    }
+    selector.wakeup();
+    return true;
+  }
+
+  /** Stops the loop thread and fails the calls pending on every connection it drives. */
+  @Override
+  public void close() {
+    closed = true;
+    selector.wakeup();
+  }
+
+  private void run() {
+    while (!closed) {
+      try {
+        selector.select(SELECT_TIMEOUT_MS);
+        runTasks();
+
+        Iterator<SelectionKey> selectedKeys = selector.selectedKeys().iterator();
+        while (selectedKeys.hasNext()) {
+          SelectionKey key = selectedKeys.next();
+          selectedKeys.remove();
+          ((NioRpcConnection) key.attachment()).handleReady();
+        }
+
+        failTimedOutConnects();
+      } catch (IOException | RuntimeException e) {
+        log.warn("Unexpected error in NameNode event loop", e);
+      }
+    }
+
+    shutdown();
+  }
+
+  private void runTasks() {
+    Runnable task;
+    while ((task = tasks.poll()) != null) {
+      task.run();
+    }
+  }
+
+  private void failTimedOutConnects() {
+    long now = System.nanoTime();
+    for (SelectionKey key : selector.keys()) {
+      NioRpcConnection connection = (NioRpcConnection) key.attachment();
+      if (connection.isConnectTimedOut(now)) {
+        connection.fail(new IOException("Timed out connecting to " + connection.getNameNodeUri()));
+      }
+    }
+  }
+
+  private void shutdown() {
+    IOException cause = new IOException("Event loop was closed");
+
+    // Refuse further tasks, then run those already accepted, so pending registrations are failed
+    // along with the rest and no task is left behind in the queue
+    synchronized (tasks) {
+      terminated = true;
+    }
+    runTasks();
+
+    List<NioRpcConnection> connections = new ArrayList<>();
+    for (SelectionKey key : selector.keys()) {
+      connections.add((NioRpcConnection) key.attachment());
+    }
+    for (NioRpcConnection connection : connections) {
+      connection.fail(cause);
+    }
+
+    try {
+      selector.close();
+    } catch (IOException e) {
+      log.debug("Failed to close selector", e);
+    }
+  }
+}
@@ -0,0 +1,110 @@
+package io.valier.hdfs.nn.rpc;
+
+import com.google.protobuf.ByteString;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hadoop.ipc.protobuf.RpcHeaderProtos.RpcResponseHeaderProto;
+
+/**
+ * Tracks the RPC calls that are in flight on a single multiplexed NameNode connection and completes
+ * them as their responses arrive.
+ *
+ * <p>Each call is registered under a connection-unique call ID before its request is written. The
+ * connection's reader hands every response frame to {@link #dispatch(byte[])}, which parses the
+ * RpcResponseHeaderProto and completes the future registered under the header's call ID with the
+ * remaining (delimited) response message bytes, or exceptionally with an {@link RpcRemoteException}
+ * if the server reported an error.
+ */
+@Slf4j
+class PendingRpcCalls {
+
+  private final AtomicInteger nextCallId = new AtomicInteger(0);
+  private final Map<Integer, CompletableFuture<ByteString>> calls = new ConcurrentHashMap<>();
+
+  /**
+   * Registers a future for a new call and returns the call ID assigned to it. Call IDs are
+   * non-negative because negative IDs are reserved by the Hadoop RPC protocol (connection context,
+   * ping and SASL).
+   */
+  int register(CompletableFuture<ByteString> future) {
+    int callId = nextCallId.getAndUpdate(id -> id == Integer.MAX_VALUE ? 0 : id + 1);
+    calls.put(callId, future);
+    return callId;
+  }
+
+  /** Removes a call without completing it, returning its future if it was still pending. */
+  CompletableFuture<ByteString> remove(int callId) {
+    return calls.remove(callId);
+  }
+
+  /** Returns whether no calls are waiting for a response. */
+  boolean isEmpty() {
+    return calls.isEmpty();
+  }
+
+  /** Returns the number of calls waiting for a response. */
+  int size() {
+    return calls.size();
+  }
+
+  /**
+   * Parses a response frame (without its 4-byte length prefix) and completes the matching call.
+   *
+   * @param frame the response frame bytes
+   * @throws RpcRemoteException if the server reported a fatal error; the connection must be closed
+   * @throws IOException if the frame cannot be parsed
+   */
+  void dispatch(byte[] frame) throws IOException {
+    ByteArrayInputStream bufferStream = new ByteArrayInputStream(frame);
+    RpcResponseHeaderProto responseHeader = RpcResponseHeaderProto.parseDelimitedFrom(bufferStream);
+    if (responseHeader == null) {
+      throw new IOException("Failed to parse RPC response header");
+    }
+
+    int callId = responseHeader.getCallId();
+    CompletableFuture<ByteString> future = calls.remove(callId);
+
+    if (responseHeader.getStatus() != RpcResponseHeaderProto.RpcStatusProto.SUCCESS) {
+      RpcRemoteException remoteException = RpcRemoteException.fromResponseHeader(responseHeader);
+      if (future != null) {
+        future.completeExceptionally(remoteException);
+      }
+      if (remoteException.isFatal()) {
+        throw remoteException;
+      }
+      return;
+    }
+
+    if (future == null) {
+      // The caller gave up on this call (e.g. it was cancelled), so drop the response
+      log.debug("Dropping RPC response for unknown call ID {}", callId);
+      return;
+    }
+
+    int remaining = bufferStream.available();
+    if (remaining <= 0) {
+      future.completeExceptionally(
+          new IOException("No protobuf message data found after RPC response header"));
+      return;
+    }
+    future.complete(ByteString.copyFrom(frame, frame.length - remaining, remaining));
+  }
+
+  /** Fails every pending call with the given cause. */
+  void failAll(Throwable cause) {
+    List<Integer> callIds = new ArrayList<>(calls.keySet());
+    for (Integer callId : callIds) {
+      CompletableFuture<ByteString> future = calls.remove(callId);
+      if (future != null) {
+        future.completeExceptionally(cause);
+      }
+    }
+  }
+}
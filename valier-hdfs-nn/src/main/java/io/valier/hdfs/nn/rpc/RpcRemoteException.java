@@ -0,0 +1,87 @@
+package io.valier.hdfs.nn.rpc;
+
+import java.io.IOException;
+import org.apache.hadoop.ipc.protobuf.RpcHeaderProtos.RpcResponseHeaderProto;
+
+/**
+ * IOException raised when the NameNode received and processed an RPC call but answered it with a
+ * non-SUCCESS status.
+ *
+ * <p>Unlike transport failures, the complete response frame has been consumed when this exception
+ * is thrown, so the connection remains usable for further calls unless the server reported a {@code
+ * FATAL} status (in which case the server closes the connection).
+ */
+public class RpcRemoteException extends IOException {
+
+  private static final long serialVersionUID = 1L;
+
+  /** Fully qualified class name of the exception raised on the server, or null if not reported. */
+  private final String exceptionClassName;
+
+  /** Error message reported by the server, or null if not reported. */
+  private final String errorMessage;
+
+  /** Whether the server reported the failure as fatal for the connection. */
+  private final boolean fatal;
+
+  /**
+   * Constructs a new RpcRemoteException.
+   *
+   * @param exceptionClassName the server-side exception class name (may be null)
+   * @param errorMessage the server-side error message (may be null)
+   * @param fatal whether the server reported a FATAL status
+   * @param message the detail message
+   */
+  public RpcRemoteException(
+      String exceptionClassName, String errorMessage, boolean fatal, String message) {
+    super(message);
+    this.exceptionClassName = exceptionClassName;
+    this.errorMessage = errorMessage;
+    this.fatal = fatal;
+  }
+
+  /**
+   * Creates an RpcRemoteException from a non-SUCCESS RPC response header.
+   *
+   * @param responseHeader the response header returned by the NameNode
+   * @return the exception describing the remote failure
+   */
+  public static RpcRemoteException fromResponseHeader(RpcResponseHeaderProto responseHeader) {
+    String className =
+        responseHeader.hasExceptionClassName() ? responseHeader.getExceptionClassName() : null;
+    String errorMsg = responseHeader.hasErrorMsg() ? responseHeader.getErrorMsg() : null;
+    String message =
+        responseHeader.hasExceptionClassName()
+            ? responseHeader.getExceptionClassName() + ": " + responseHeader.getErrorMsg()
+            : "RPC call failed with status: " + responseHeader.getStatus();
+    boolean fatal = responseHeader.getStatus() == RpcResponseHeaderProto.RpcStatusProto.FATAL;
+    return new RpcRemoteException(className, errorMsg, fatal, message);
+  }
+
+  /**
+   * Returns the fully qualified class name of the exception raised on the server.
+   *
+   * @return the server-side exception class name, or null if not reported
+   */
+  public String getExceptionClassName() {
+    return exceptionClassName;
+  }
+
+  /**
+   * Returns the error message reported by the server.
+   *
+   * @return the server-side error message, or null if not reported
+   */
+  public String getErrorMessage() {
+    return errorMessage;
+  }
+
+  /**
+   * Returns whether the server reported the failure as fatal for the connection.
+   *
+   * @return true if the connection must not be reused
+   */
+  public boolean isFatal() {
+    return fatal;
+  }
+}
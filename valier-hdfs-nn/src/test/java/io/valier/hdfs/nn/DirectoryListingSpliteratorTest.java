@@ -0,0 +1,121 @@
+package io.valier.hdfs.nn;
+
+import static org.junit.Assert.*;
+
+import com.google.protobuf.ByteString;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+import org.apache.hadoop.hdfs.protocol.proto.AclProtos.FsPermissionProto;
+import org.apache.hadoop.hdfs.protocol.proto.HdfsProtos.DirectoryListingProto;
+import org.apache.hadoop.hdfs.protocol.proto.HdfsProtos.HdfsFileStatusProto;
+import org.junit.Test;
+
+/** Unit tests for DirectoryListingSpliterator, paging through listings as the NameNode returns. */
+public class DirectoryListingSpliteratorTest {
+
+  private final List<String> startAfterNames = new ArrayList<>();
+
+  @Test
+  public void testPagesFollowLastNameOfPreviousPage() {
+    DirectoryListingSpliterator spliterator =
+        new DirectoryListingSpliterator(
+            listing(3, "a", "b"), fetcher(listing(1, "c", "d"), listing(0, "e")));
+
+    assertEquals(Arrays.asList("a", "b", "c", "d", "e"), names(spliterator));
+    assertEquals(Arrays.asList("b", "d"), startAfterNames);
+  }
+
+  @Test
+  public void testNextPageIsFetchedOnlyOnceCurrentPageIsConsumed() {
+    DirectoryListingSpliterator spliterator =
+        new DirectoryListingSpliterator(listing(1, "a", "b"), fetcher(listing(0, "c")));
+    List<String> names = new ArrayList<>();
+
+    assertEquals(3, spliterator.estimateSize());
+    assertTrue(spliterator.tryAdvance(summary -> names.add(summary.getName())));
+    assertTrue(spliterator.tryAdvance(summary -> names.add(summary.getName())));
+    assertEquals(1, spliterator.estimateSize());
+    assertTrue(startAfterNames.isEmpty());
+
+    assertTrue(spliterator.tryAdvance(summary -> names.add(summary.getName())));
+    assertEquals(Collections.singletonList("b"), startAfterNames);
+    assertFalse(spliterator.tryAdvance(summary -> names.add(summary.getName())));
+    assertEquals(0, spliterator.estimateSize());
+    assertEquals(Arrays.asList("a", "b", "c"), names);
+  }
+
+  @Test
+  public void testSinglePageListingFetchesNothing() {
+    DirectoryListingSpliterator spliterator =
+        new DirectoryListingSpliterator(listing(0, "a", "b"), fetcher());
+
+    assertEquals(Arrays.asList("a", "b"), names(spliterator));
+    assertTrue(startAfterNames.isEmpty());
+  }
+
+  @Test
+  public void testMissingListingIsEmpty() {
+    DirectoryListingSpliterator spliterator = new DirectoryListingSpliterator(null, fetcher());
+
+    assertEquals(0, spliterator.estimateSize());
+    assertTrue(names(spliterator).isEmpty());
+    assertTrue(startAfterNames.isEmpty());
+  }
+
+  @Test
+  public void testListingEndsWhenDirectoryIsDeletedBetweenPages() {
+    DirectoryListingSpliterator spliterator =
+        new DirectoryListingSpliterator(
+            listing(5, "a", "b"), fetcher((DirectoryListingProto) null));
+
+    assertEquals(Arrays.asList("a", "b"), names(spliterator));
+    assertEquals(Collections.singletonList("b"), startAfterNames);
+  }
+
+  @Test
+  public void testEmptyPageEndsListing() {
+    DirectoryListingSpliterator spliterator =
+        new DirectoryListingSpliterator(listing(2, "a"), fetcher(listing(2), listing(0, "b", "c")));
+
+    // Without a last name there is nothing to continue after
+    assertEquals(Collections.singletonList("a"), names(spliterator));
+    assertEquals(Collections.singletonList("a"), startAfterNames);
+  }
+
+  /** Returns a fetcher answering with the given pages in order, recording where each starts. */
+  private DirectoryListingSpliterator.PageFetcher fetcher(DirectoryListingProto... pages) {
+    return startAfter -> {
+      startAfterNames.add(startAfter.toStringUtf8());
+      assertTrue("Unexpected page request", startAfterNames.size() <= pages.length);
+      return pages[startAfterNames.size() - 1];
+    };
+  }
+
+  private static List<String> names(DirectoryListingSpliterator spliterator) {
+    return StreamSupport.stream(spliterator, false)
+        .map(HdfsFileSummary::getName)
+        .collect(Collectors.toList());
+  }
+
+  private static DirectoryListingProto listing(int remainingEntries, String... names) {
+    DirectoryListingProto.Builder listing =
+        DirectoryListingProto.newBuilder().setRemainingEntries(remainingEntries);
+    for (String name : names) {
+      listing.addPartialListing(
+          HdfsFileStatusProto.newBuilder()
+              .setFileType(HdfsFileStatusProto.FileType.IS_FILE)
+              .setPath(ByteString.copyFromUtf8(name))
+              .setLength(name.length())
+              .setPermission(FsPermissionProto.newBuilder().setPerm(0644))
+              .setOwner("hdfs")
+              .setGroup("supergroup")
+              .setModificationTime(1_700_000_000_000L)
+              .setAccessTime(1_700_000_000_000L));
+    }
+    return listing.build();
+  }
+}
@@ -0,0 +1,246 @@
+package io.valier.hdfs.nn.connection;
+
+import static org.junit.Assert.*;
+
+import com.google.protobuf.ByteString;
+import io.valier.hdfs.nn.auth.SimpleUserInformation;
+import io.valier.hdfs.nn.connection.HdfsConnection.NameNodeConnectionStreams;
+import io.valier.hdfs.nn.handler.ClientRpcRequestHandler;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.GetFileInfoRequestProto;
+import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.GetFileInfoResponseProto;
+import org.apache.hadoop.ipc.protobuf.RpcHeaderProtos.RpcRequestHeaderProto;
+import org.apache.hadoop.ipc.protobuf.RpcHeaderProtos.RpcResponseHeaderProto;
+import org.junit.Test;
+
+/**
+ * Unit tests for PooledHdfsConnection over scripted connections, each answering a fixed sequence
+ * of RPC responses and then behaving as if the NameNode had closed it.
+ */
+public class PooledHdfsConnectionTest {
+
+  private static final String NAMENODE_URI = "hdfs://namenode:8020";
+
+  private static final GetFileInfoRequestProto REQUEST =
+      GetFileInfoRequestProto.newBuilder().setSrc("/data").build();
+
+  private final ScriptedHdfsConnection delegate = new ScriptedHdfsConnection();
+  private final ClientRpcRequestHandler handler = new ClientRpcRequestHandler();
+
+  @Test
+  public void testReturnedConnectionIsReused() throws IOException {
+    ScriptedStreams connection = delegate.script(0, 1);
+
+    try (PooledHdfsConnection pool = newPool()) {
+      call(pool);
+      assertEquals(1, pool.getIdleConnectionCount());
+      call(pool);
+    }
+
+    assertEquals(1, delegate.connectCount);
+    assertEquals(Arrays.asList(0, 1), connection.sentCallIds());
+  }
+
+  @Test
+  public void testConnectionClosedWhileIdleIsReplacedAndCallRetried() throws IOException {
+    // The NameNode answers the first call, then closes the connection while it is pooled
+    ScriptedStreams closedWhileIdle = delegate.script(0);
+    ScriptedStreams replacement = delegate.script(1);
+
+    try (PooledHdfsConnection pool = newPool()) {
+      call(pool);
+      assertEquals(ByteString.copyFrom(new byte[] {0}), call(pool));
+      assertEquals(1, pool.getIdleConnectionCount());
+    }
+
+    assertEquals(2, delegate.connectCount);
+    assertTrue(closedWhileIdle.closed);
+    assertEquals(Arrays.asList(0, 1), closedWhileIdle.sentCallIds());
+
+    // The retry keeps the call ID so the NameNode's retry cache can recognize it
+    assertEquals(Arrays.asList(1), replacement.sentCallIds());
+    assertEquals(Arrays.asList(1), replacement.sentRetryCounts());
+  }
+
+  @Test
+  public void testFailureOnNewConnectionIsNotRetried() throws IOException {
+    ScriptedStreams closedAtOnce = delegate.script();
+
+    try (PooledHdfsConnection pool = newPool()) {
+      assertThrows(IOException.class, () -> call(pool));
+
+      // The failed connection is discarded instead of being pooled
+      assertEquals(0, pool.getIdleConnectionCount());
+    }
+
+    assertEquals(1, delegate.connectCount);
+    assertTrue(closedAtOnce.closed);
+  }
+
+  @Test
+  public void testReplacementIsNotReplacedAgain() throws IOException {
+    delegate.script(0);
+    ScriptedStreams replacement = delegate.script();
+
+    try (PooledHdfsConnection pool = newPool()) {
+      call(pool);
+      assertThrows(IOException.class, () -> call(pool));
+      assertEquals(0, pool.getIdleConnectionCount());
+    }
+
+    assertEquals(2, delegate.connectCount);
+    assertTrue(replacement.closed);
+  }
+
+  private PooledHdfsConnection newPool() {
+    return PooledHdfsConnection.builder()
+        .delegate(delegate)
+        .userInformationProvider(SimpleUserInformation::currentUser)
+        .build();
+  }
+
+  private ByteString call(PooledHdfsConnection pool) throws IOException {
+    try (NameNodeConnectionStreams streams = pool.connect(NAMENODE_URI)) {
+      return handler.sendRequestAndGetResponseBytes(REQUEST, streams);
+    }
+  }
+
+  /** Hands out the scripted connections in order. */
+  private static final class ScriptedHdfsConnection implements HdfsConnection {
+
+    private final Deque<ScriptedStreams> connections = new ArrayDeque<>();
+    private int connectCount;
+
+    /** Scripts the next connection to answer the given call IDs, then reach end of stream. */
+    ScriptedStreams script(int... callIds) throws IOException {
+      Deque<byte[]> responses = new ArrayDeque<>();
+      for (int callId : callIds) {
+        ByteArrayOutputStream frame = new ByteArrayOutputStream();
+        RpcResponseHeaderProto.newBuilder()
+            .setCallId(callId)
+            .setStatus(RpcResponseHeaderProto.RpcStatusProto.SUCCESS)
+            .build()
+            .writeDelimitedTo(frame);
+        GetFileInfoResponseProto.getDefaultInstance().writeDelimitedTo(frame);
+
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        new DataOutputStream(response).writeInt(frame.size());
+        frame.writeTo(response);
+        responses.add(response.toByteArray());
+      }
+
+      ScriptedStreams streams = new ScriptedStreams(responses);
+      connections.add(streams);
+      return streams;
+    }
+
+    @Override
+    public NameNodeConnectionStreams connect(String nameNodeUri) throws IOException {
+      connectCount++;
+      ScriptedStreams streams = connections.poll();
+      if (streams == null) {
+        throw new IOException("Connection refused");
+      }
+      return streams;
+    }
+  }
+
+  /**
+   * A connection recording the requests written to it. Like a socket, it only has the next scripted
+   * response to read once a request has been flushed, and reaches end of stream once the script is
+   * exhausted.
+   */
+  private static final class ScriptedStreams implements NameNodeConnectionStreams {
+
+    private final Deque<byte[]> responses;
+    private final ByteArrayOutputStream requests = new ByteArrayOutputStream();
+    private ByteArrayInputStream arrived = new ByteArrayInputStream(new byte[0]);
+    private boolean closed;
+
+    private final DataInputStream in =
+        new DataInputStream(
+            new InputStream() {
+              @Override
+              public int read() {
+                return arrived.read();
+              }
+
+              @Override
+              public int read(byte[] b, int off, int len) {
+                return arrived.read(b, off, len);
+              }
+
+              @Override
+              public int available() {
+                return arrived.available();
+              }
+            });
+
+    private final DataOutputStream out =
+        new DataOutputStream(requests) {
+          @Override
+          public void flush() throws IOException {
+            super.flush();
+            if (!responses.isEmpty()) {
+              arrived = new ByteArrayInputStream(responses.poll());
+            }
+          }
+        };
+
+    ScriptedStreams(Deque<byte[]> responses) {
+      this.responses = responses;
+    }
+
+    @Override
+    public DataInputStream getInputStream() {
+      return in;
+    }
+
+    @Override
+    public DataOutputStream getOutputStream() {
+      return out;
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+
+    List<Integer> sentCallIds() throws IOException {
+      List<Integer> callIds = new ArrayList<>();
+      for (RpcRequestHeaderProto header : sentHeaders()) {
+        callIds.add(header.getCallId());
+      }
+      return callIds;
+    }
+
+    List<Integer> sentRetryCounts() throws IOException {
+      List<Integer> retryCounts = new ArrayList<>();
+      for (RpcRequestHeaderProto header : sentHeaders()) {
+        retryCounts.add(header.getRetryCount());
+      }
+      return retryCounts;
+    }
+
+    private List<RpcRequestHeaderProto> sentHeaders() throws IOException {
+      DataInputStream sent = new DataInputStream(new ByteArrayInputStream(requests.toByteArray()));
+      List<RpcRequestHeaderProto> headers = new ArrayList<>();
+      while (sent.available() > 0) {
+        byte[] frame = new byte[sent.readInt()];
+        sent.readFully(frame);
+        headers.add(RpcRequestHeaderProto.parseDelimitedFrom(new ByteArrayInputStream(frame)));
+      }
+      return headers;
+    }
+  }
+}
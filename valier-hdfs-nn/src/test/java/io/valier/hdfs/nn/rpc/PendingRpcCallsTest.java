@@ -0,0 +1,156 @@
+package io.valier.hdfs.nn.rpc;
+
+import static org.junit.Assert.*;
+
+import com.google.protobuf.ByteString;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import org.apache.hadoop.ipc.protobuf.RpcHeaderProtos.RpcResponseHeaderProto;
+import org.apache.hadoop.ipc.protobuf.RpcHeaderProtos.RpcResponseHeaderProto.RpcStatusProto;
+import org.junit.Test;
+
+/** Unit tests for PendingRpcCalls, fed with response frames as a NameNode sends them. */
+public class PendingRpcCallsTest {
+
+  private static final ByteString PAYLOAD = ByteString.copyFrom(new byte[] {3, 1, 2, 3});
+
+  @Test
+  public void testRegisterAssignsConsecutiveCallIds() {
+    PendingRpcCalls calls = new PendingRpcCalls();
+
+    assertEquals(0, calls.register(new CompletableFuture<>()));
+    assertEquals(1, calls.register(new CompletableFuture<>()));
+    assertEquals(2, calls.register(new CompletableFuture<>()));
+    assertEquals(3, calls.size());
+  }
+
+  @Test
+  public void testDispatchCompletesCallWithMatchingId() throws Exception {
+    PendingRpcCalls calls = new PendingRpcCalls();
+    CompletableFuture<ByteString> first = new CompletableFuture<>();
+    CompletableFuture<ByteString> second = new CompletableFuture<>();
+    calls.register(first);
+    calls.register(second);
+
+    // Responses may arrive in any order
+    calls.dispatch(frame(1, RpcStatusProto.SUCCESS, PAYLOAD));
+    assertEquals(PAYLOAD, second.getNow(null));
+    assertFalse(first.isDone());
+    assertEquals(1, calls.size());
+
+    calls.dispatch(frame(0, RpcStatusProto.SUCCESS, PAYLOAD));
+    assertEquals(PAYLOAD, first.getNow(null));
+    assertTrue(calls.isEmpty());
+  }
+
+  @Test
+  public void testDispatchDropsResponseForUnknownCall() throws IOException {
+    PendingRpcCalls calls = new PendingRpcCalls();
+    CompletableFuture<ByteString> future = new CompletableFuture<>();
+    int callId = calls.register(future);
+    assertSame(future, calls.remove(callId));
+
+    calls.dispatch(frame(callId, RpcStatusProto.SUCCESS, PAYLOAD));
+    calls.dispatch(frame(42, RpcStatusProto.SUCCESS, PAYLOAD));
+
+    assertFalse(future.isDone());
+  }
+
+  @Test
+  public void testErrorResponseFailsOnlyThatCall() throws IOException {
+    PendingRpcCalls calls = new PendingRpcCalls();
+    CompletableFuture<ByteString> failing = new CompletableFuture<>();
+    CompletableFuture<ByteString> other = new CompletableFuture<>();
+    calls.register(failing);
+    calls.register(other);
+
+    calls.dispatch(frame(0, RpcStatusProto.ERROR, ByteString.EMPTY));
+
+    RpcRemoteException e = remoteFailure(failing);
+    assertEquals("java.io.FileNotFoundException", e.getExceptionClassName());
+    assertEquals("File does not exist: /missing", e.getErrorMessage());
+    assertFalse(e.isFatal());
+    assertFalse(other.isDone());
+  }
+
+  @Test
+  public void testFatalResponseFailsCallAndThrows() {
+    PendingRpcCalls calls = new PendingRpcCalls();
+    CompletableFuture<ByteString> future = new CompletableFuture<>();
+    calls.register(future);
+
+    RpcRemoteException e =
+        assertThrows(
+            RpcRemoteException.class,
+            () -> calls.dispatch(frame(0, RpcStatusProto.FATAL, ByteString.EMPTY)));
+
+    assertTrue(e.isFatal());
+    assertTrue(remoteFailure(future).isFatal());
+  }
+
+  @Test
+  public void testResponseWithoutMessageFailsCall() throws IOException {
+    PendingRpcCalls calls = new PendingRpcCalls();
+    CompletableFuture<ByteString> future = new CompletableFuture<>();
+    calls.register(future);
+
+    calls.dispatch(frame(0, RpcStatusProto.SUCCESS, ByteString.EMPTY));
+
+    ExecutionException e = assertThrows(ExecutionException.class, future::get);
+    assertTrue(e.getCause() instanceof IOException);
+  }
+
+  @Test(expected = IOException.class)
+  public void testDispatchRejectsEmptyFrame() throws IOException {
+    new PendingRpcCalls().dispatch(new byte[0]);
+  }
+
+  @Test
+  public void testFailAllFailsEveryPendingCall() throws IOException {
+    PendingRpcCalls calls = new PendingRpcCalls();
+    CompletableFuture<ByteString> completed = new CompletableFuture<>();
+    CompletableFuture<ByteString> first = new CompletableFuture<>();
+    CompletableFuture<ByteString> second = new CompletableFuture<>();
+    calls.register(completed);
+    calls.register(first);
+    calls.register(second);
+    calls.dispatch(frame(0, RpcStatusProto.SUCCESS, PAYLOAD));
+
+    // The reader fails, as when the NameNode resets the connection
+    IOException cause = new IOException("Connection reset");
+    calls.failAll(cause);
+
+    assertTrue(calls.isEmpty());
+    assertEquals(PAYLOAD, completed.getNow(null));
+    for (CompletableFuture<ByteString> future : Arrays.asList(first, second)) {
+      ExecutionException e = assertThrows(ExecutionException.class, future::get);
+      assertSame(cause, e.getCause());
+    }
+  }
+
+  private static RpcRemoteException remoteFailure(CompletableFuture<ByteString> future) {
+    ExecutionException e = assertThrows(ExecutionException.class, future::get);
+    assertTrue(e.getCause() instanceof RpcRemoteException);
+    return (RpcRemoteException) e.getCause();
+  }
+
+  /** Builds a response frame without its length prefix: the delimited header, then the message. */
+  private static byte[] frame(int callId, RpcStatusProto status, ByteString message)
+      throws IOException {
+    RpcResponseHeaderProto.Builder header =
+        RpcResponseHeaderProto.newBuilder().setCallId(callId).setStatus(status);
+    if (status != RpcStatusProto.SUCCESS) {
+      header
+          .setExceptionClassName("java.io.FileNotFoundException")
+          .setErrorMsg("File does not exist: /missing");
+    }
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    header.build().writeDelimitedTo(out);
+    message.writeTo(out);
+    return out.toByteArray();
+  }
+}